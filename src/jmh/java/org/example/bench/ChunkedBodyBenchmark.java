@@ -0,0 +1,85 @@
+package org.example.bench;
+
+import org.example.request.Request;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures chunked body decoding throughput through Request.parse for a range of
+ * chunk sizes. Each operation decodes a 16 MB body, fed to the parser one socket-sized
+ * read at a time exactly as a connection would, so small chunks show the per-chunk
+ * cost of the size lines and large chunks approach plain copy speed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ChunkedBodyBenchmark {
+
+    private static final int BODY_SIZE = 16 * 1024 * 1024;
+
+    @Param({"16", "256", "4096", "65536"})
+    public int chunkSize;
+
+    @Param({"16384"})
+    public int readSize;
+
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void encode() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(BODY_SIZE + BODY_SIZE / this.chunkSize * 8 + 128);
+        out.write("POST /upload HTTP/1.1\r\nHost: localhost:9001\r\nTransfer-Encoding: chunked\r\n\r\n"
+                .getBytes(StandardCharsets.US_ASCII));
+
+        byte[] chunk = new byte[this.chunkSize];
+        Arrays.fill(chunk, (byte) 'x');
+        for (int written = 0; written < BODY_SIZE; written += this.chunkSize) {
+            out.write((Integer.toHexString(this.chunkSize) + "\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.write(chunk);
+            out.write('\r');
+            out.write('\n');
+        }
+        out.write("0\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+        this.encoded = out.toByteArray();
+    }
+
+    /**
+     * Decodes one whole chunked request. The score in operations per second multiplied
+     * by 16 MB gives the decoded bytes per second.
+     */
+    @Benchmark
+    public long decodeChunkedBody() throws IOException {
+        Request request = new Request();
+        long[] decoded = new long[1];
+        request.setBodySink((data, offset, length) -> decoded[0] += length);
+
+        int position = 0;
+        int available = 0;
+        while (request.getStatus() != Request.Status.DONE) {
+            available = Math.min(available + this.readSize, this.encoded.length - position);
+            int bytesParsed = request.parse(this.encoded, position, available);
+            position += bytesParsed;
+            available -= bytesParsed;
+        }
+        return decoded[0];
+    }
+}
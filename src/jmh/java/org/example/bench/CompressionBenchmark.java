@@ -0,0 +1,94 @@
+package org.example.bench;
+
+import org.example.compression.CompressionHandler;
+import org.example.compression.ContentEncoding;
+import org.example.compression.DeflaterPool;
+import org.example.request.Request;
+import org.example.response.Response;
+import org.example.response.StatusCode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+
+/**
+ * Compares gzip compressing a text body with a new Deflater per response against a pooled
+ * Deflater, and against serving the variant from CompressionHandler's cache.
+ * Run with {@code -PjmhArgs="CompressionBenchmark -prof gc"} to see the allocation, and watch
+ * the unpooled case's native memory, which the heap figures do not include.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CompressionBenchmark {
+
+    @Param({"1024", "16384", "131072"})
+    public int bodySize;
+
+    private ByteBuffer body;
+    private DeflaterPool pool;
+    private CompressionHandler cachingHandler;
+    private Request request;
+    private byte[] output;
+
+    @Setup
+    public void setUp() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; text.length() < this.bodySize; i++) {
+            text.append("{\"id\":").append(i).append(",\"name\":\"item-").append(i * 7919 % 1000).append("\"},");
+        }
+        this.body = ByteBuffer.wrap(text.substring(0, this.bodySize).getBytes(StandardCharsets.US_ASCII));
+        this.pool = new DeflaterPool(Deflater.DEFAULT_COMPRESSION, 4);
+        this.output = new byte[this.bodySize + 1024];
+
+        Response tagged = new Response(StatusCode.OK);
+        tagged.setHeader("Content-Type", "application/json");
+        tagged.setHeader("ETag", "\"bench\"");
+        tagged.setBody(this.body);
+        this.cachingHandler = new CompressionHandler(request -> tagged);
+        this.request = new Request();
+        this.request.parse("GET /items HTTP/1.1\r\nAccept-Encoding: gzip\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @Benchmark
+    public int newDeflaterPerResponse() {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            deflater.setInput(this.body.duplicate());
+            deflater.finish();
+            int length = 0;
+            while (!deflater.finished()) {
+                length += deflater.deflate(this.output, 0, this.output.length);
+            }
+            return length;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    @Benchmark
+    public ByteBuffer pooledDeflater() {
+        return this.pool.compress(this.body, ContentEncoding.GZIP);
+    }
+
+    @Benchmark
+    public Response cachedVariant() {
+        return this.cachingHandler.handle(this.request);
+    }
+}
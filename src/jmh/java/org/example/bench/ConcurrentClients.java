@@ -0,0 +1,82 @@
+package org.example.bench;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+
+/**
+ * Benchmark client that drives many connections at once from a single thread.
+ * Every connection is opened up front, sends one request as soon as it connects
+ * and is counted as finished when the server closes it.
+ */
+final class ConcurrentClients {
+
+    private ConcurrentClients() {
+    }
+
+    /**
+     * Opens the given number of concurrent connections, sends the request on each
+     * and waits until the server has closed all of them.
+     *
+     * @param port        the local port the server listens on
+     * @param connections the number of connections to keep in flight at the same time
+     * @param request     the raw request bytes to send on every connection
+     * @return the number of connections that completed without an I/O error
+     * @throws IOException if the selector cannot be opened
+     */
+    static int run(int port, int connections, byte[] request) throws IOException {
+        InetSocketAddress address = new InetSocketAddress("localhost", port);
+        ByteBuffer discard = ByteBuffer.allocate(4096);
+        int finished = 0;
+        int succeeded = 0;
+
+        try (Selector selector = Selector.open()) {
+            for (int i = 0; i < connections; i++) {
+                SocketChannel channel = SocketChannel.open();
+                channel.configureBlocking(false);
+                channel.connect(address);
+                channel.register(selector, SelectionKey.OP_CONNECT, ByteBuffer.wrap(request));
+            }
+
+            while (finished < connections) {
+                selector.select();
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    SocketChannel channel = (SocketChannel) key.channel();
+
+                    try {
+                        if (key.isConnectable()) {
+                            channel.finishConnect();
+                            key.interestOps(SelectionKey.OP_WRITE);
+                        } else if (key.isWritable()) {
+                            ByteBuffer pending = (ByteBuffer) key.attachment();
+                            channel.write(pending);
+                            if (!pending.hasRemaining()) {
+                                key.interestOps(SelectionKey.OP_READ);
+                            }
+                        } else if (key.isReadable()) {
+                            discard.clear();
+                            if (channel.read(discard) == -1) {
+                                channel.close();
+                                finished++;
+                                succeeded++;
+                            }
+                        }
+                    } catch (IOException e) {
+                        channel.close();
+                        finished++;
+                    }
+                }
+            }
+        }
+
+        return succeeded;
+    }
+}
@@ -0,0 +1,99 @@
+package org.example.bench;
+
+import org.example.headers.HeaderNames;
+import org.example.headers.Headers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares header lookup and iteration on the flat Headers store with the same operations
+ * on a HashMap, which is what Headers used to keep.
+ * <p>
+ * The header counts straddle the point where Headers switches from scanning its names array
+ * to an open-addressing table. Lookups ask for two headers that are present, one interned
+ * well-known name and one custom name, and one that is not. Iteration visits every name and
+ * value once; on Headers it walks the arrays by index and on the map it uses its entry set.
+ * The values are decoded before measuring, so both sides compare ready Strings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class HeadersBenchmark {
+
+    @Param({"4", "12", "30"})
+    public int headerCount;
+
+    private Headers headers;
+    private Map<String, String> map;
+
+    @Setup(Level.Trial)
+    public void parse() throws IOException {
+        StringBuilder raw = new StringBuilder("Host: api.example.com\r\nConnection: keep-alive\r\n");
+        for (int i = 2; i < this.headerCount; i++) {
+            raw.append("X-Custom-").append(i).append(": value-").append(i).append("\r\n");
+        }
+        raw.append("\r\n");
+
+        this.headers = new Headers();
+        this.headers.parse(raw.toString().getBytes(StandardCharsets.US_ASCII));
+        this.map = new HashMap<>();
+        for (int i = 0; i < this.headers.size(); i++) {
+            this.map.put(this.headers.getName(i), this.headers.getValue(i));
+        }
+    }
+
+    @Benchmark
+    public int headersLookup() {
+        int found = 0;
+        found += this.headers.getValue(HeaderNames.HOST) != null ? 1 : 0;
+        found += this.headers.getValue("x-custom-3") != null ? 1 : 0;
+        found += this.headers.getValue("x-missing") != null ? 1 : 0;
+        return found;
+    }
+
+    @Benchmark
+    public int mapLookup() {
+        int found = 0;
+        found += this.map.get(HeaderNames.HOST) != null ? 1 : 0;
+        found += this.map.get("x-custom-3") != null ? 1 : 0;
+        found += this.map.get("x-missing") != null ? 1 : 0;
+        return found;
+    }
+
+    @Benchmark
+    public int headersIterate() {
+        int length = 0;
+        for (int i = 0; i < this.headers.size(); i++) {
+            length += this.headers.getName(i).length() + this.headers.getValue(i).length();
+        }
+        return length;
+    }
+
+    @Benchmark
+    public int mapIterate() {
+        int length = 0;
+        for (Map.Entry<String, String> entry : this.map.entrySet()) {
+            length += entry.getKey().length() + entry.getValue().length();
+        }
+        return length;
+    }
+}
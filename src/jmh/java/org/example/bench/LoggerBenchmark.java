@@ -0,0 +1,67 @@
+package org.example.bench;
+
+import org.example.logging.AsyncLogger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the cost to the logging thread of the old per-request logging, several
+ * System.out.println calls that each take the stream's lock, with one AsyncLogger record.
+ * Both write to a PrintStream over a null output stream, so the numbers show the locking
+ * and formatting cost rather than the terminal's. Run with 8 threads to see the lock contention.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@Threads(8)
+public class LoggerBenchmark {
+
+    private PrintStream out;
+    private AsyncLogger dropLogger;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.out = new PrintStream(OutputStream.nullOutputStream(), true);
+        this.dropLogger = new AsyncLogger(this.out, 8192, AsyncLogger.OverflowPolicy.DROP);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.dropLogger.close();
+    }
+
+    @Benchmark
+    public void synchronizedPrintln() {
+        this.out.println("Request line:");
+        this.out.println("- Method: " + "GET");
+        this.out.println("- Target: " + "/api/v1/users/12345");
+        this.out.println("- Version: " + "1.1");
+        this.out.println("Headers:");
+        this.out.println("- host: " + "localhost:9001");
+        this.out.println("- accept: " + "*/*");
+    }
+
+    @Benchmark
+    public boolean asyncLogDropWhenFull() {
+        return this.dropLogger.log("Request line: method={} target={} version={} headers={}",
+                "GET", "/api/v1/users/12345", "1.1", "{host=localhost:9001, accept=*/*}");
+    }
+}
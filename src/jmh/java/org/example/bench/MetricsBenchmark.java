@@ -0,0 +1,56 @@
+package org.example.bench;
+
+import org.example.metrics.Counter;
+import org.example.metrics.Histogram;
+import org.example.metrics.MetricsRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of the instrumentation added to every request: a histogram record
+ * preceded by the System.nanoTime call that ends a parse phase, and a counter increment.
+ * Run with several threads to check that recording does not contend, e.g.
+ * {@code -PjmhArgs="MetricsBenchmark -t 8"}, and compare the per-phase cost with
+ * ParserBenchmark.requestParse, which pays it three or four times per request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@Threads(1)
+public class MetricsBenchmark {
+
+    private final MetricsRegistry registry = new MetricsRegistry();
+    private final Histogram histogram = this.registry.histogram("bench_seconds", "Benchmark.", 8, 34, 1e9);
+    private final Counter counter = this.registry.counter("bench_total", "Benchmark.");
+    private long phaseStart = System.nanoTime();
+
+    @Benchmark
+    public void recordPhase() {
+        long now = System.nanoTime();
+        this.histogram.record(now - this.phaseStart);
+        this.phaseStart = now;
+    }
+
+    @Benchmark
+    public void incrementCounter() {
+        this.counter.increment();
+    }
+
+    @Benchmark
+    public String scrape() {
+        return this.registry.scrape();
+    }
+}
@@ -0,0 +1,124 @@
+package org.example.bench;
+
+import org.example.buffer.BufferPool;
+import org.example.response.Response;
+import org.example.response.StatusCode;
+import org.example.server.MultiReactorServer;
+import org.example.server.Timeouts;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how request throughput scales with the number of event loops in a MultiReactorServer,
+ * with each loop accepting from its own SO_REUSEPORT channel or fed by a single acceptor.
+ * <p>
+ * Every benchmark thread keeps one persistent connection and sends requests on it back to back,
+ * waiting for each response, so the offered load is one request in flight per thread. The client
+ * runs one thread per core, which leaves the server enough connections to keep every loop busy.
+ * Plotting ops/s against the loops parameter gives the scaling curve. On a 32-core machine,
+ * run the client and server on separate machines, or pin them to separate halves of the cores
+ * with taskset, so that client threads do not compete with the loops they are measuring.
+ * <p>
+ * Run with e.g. {@code ./gradlew jmh -PjmhArgs="MultiReactorBenchmark -t 32"}, where -t sets the client thread count.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(Threads.MAX)
+@Fork(1)
+public class MultiReactorBenchmark {
+
+    private static final byte[] REQUEST = "GET / HTTP/1.1\r\nHost: localhost:9001\r\nUser-Agent: bench\r\nAccept: */*\r\n\r\n"
+            .getBytes(StandardCharsets.US_ASCII);
+
+    @Param({"1", "2", "4", "8", "16", "32"})
+    public int loops;
+
+    @Param({"reuseport", "acceptor"})
+    public String accept;
+
+    private MultiReactorServer server;
+
+    @Setup(Level.Trial)
+    public void startServer() throws IOException {
+        boolean reusePort = this.accept.equals("reuseport") && MultiReactorServer.isReusePortSupported();
+        this.server = new MultiReactorServer(0, this.loops, request -> new Response(StatusCode.NO_CONTENT),
+                BufferPool.getDefault(), Timeouts.getDefault(), 10_000, reusePort);
+        new Thread(this.server, "multi-reactor-server").start();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopServer() throws IOException {
+        this.server.close();
+    }
+
+    /**
+     * One client connection per benchmark thread.
+     */
+    @State(Scope.Thread)
+    public static class Client {
+        private SocketChannel channel;
+        private ByteBuffer request;
+        private ByteBuffer response;
+
+        @Setup(Level.Trial)
+        public void connect(MultiReactorBenchmark benchmark) throws IOException {
+            this.channel = SocketChannel.open(new InetSocketAddress("localhost", benchmark.server.getPort()));
+            this.channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            this.request = ByteBuffer.wrap(REQUEST);
+            this.response = ByteBuffer.allocate(4096);
+        }
+
+        @TearDown(Level.Trial)
+        public void disconnect() throws IOException {
+            this.channel.close();
+        }
+    }
+
+    @Benchmark
+    public int requestResponse(Client client) throws IOException {
+        client.request.clear();
+        while (client.request.hasRemaining()) {
+            client.channel.write(client.request);
+        }
+
+        client.response.clear();
+        while (!endsWithBlankLine(client.response)) {
+            if (client.channel.read(client.response) == -1) {
+                throw new IOException("Server closed the connection");
+            }
+        }
+        return client.response.position();
+    }
+
+    /**
+     * Returns whether the bytes read so far end with the blank line that ends a bodiless response.
+     */
+    private static boolean endsWithBlankLine(ByteBuffer buffer) {
+        int end = buffer.position();
+        return end >= 4 && buffer.get(end - 4) == '\r' && buffer.get(end - 3) == '\n'
+                && buffer.get(end - 2) == '\r' && buffer.get(end - 1) == '\n';
+    }
+}
@@ -0,0 +1,158 @@
+package org.example.bench;
+
+import org.example.chunkReader.ChunkReader;
+import org.example.headers.Headers;
+import org.example.request.Request;
+import org.example.request.RequestLine;
+import org.example.request.RequestParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Baseline for the request parsing hot paths: RequestParser.requestFromReader,
+ * Request.parse, RequestParser.parseRequestLine and Headers.parse. Request.parse is also run
+ * on a single Request that is reset before each request, the way a connection whose handler
+ * releases its requests parses them; in steady state that allocates nothing.
+ * <p>
+ * Each is run over three request shapes and, except for parseRequestLine, which only
+ * sees complete lines, with the bytes arriving readSize at a time. requestFromReader
+ * reads from a ChunkReader returning at most readSize bytes per read; the in-place
+ * parsers are handed a window that grows by readSize per call, the way a connection
+ * presents its buffer after each socket read. A 1 byte read size shows the cost of
+ * resuming a partial parse; 64 KB delivers every request in one read.
+ * <p>
+ * Run with {@code ./gradlew jmh -PjmhArgs="ParserBenchmark -prof gc"} and compare
+ * gc.alloc.rate.norm, the bytes allocated per operation, along with the time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ParserBenchmark {
+
+    /**
+     * The request shapes parsed. Header-heavy carries the kind of cookie and tracing
+     * headers a browser behind a proxy sends, about 2.4 KB in total.
+     */
+    public enum Shape {
+        SMALL,
+        TYPICAL,
+        HEADER_HEAVY
+    }
+
+    @Param({"SMALL", "TYPICAL", "HEADER_HEAVY"})
+    public Shape shape;
+
+    @Param({"1", "16", "256", "4096", "65536"})
+    public int readSize;
+
+    private byte[] request;
+    private int requestLineLength;
+    private int headersOffset;
+    private Request reused;
+
+    @Setup(Level.Trial)
+    public void encode() {
+        String raw = switch (this.shape) {
+            case SMALL -> "GET / HTTP/1.1\r\nHost: localhost\r\n\r\n";
+            case TYPICAL -> typicalRequest();
+            case HEADER_HEAVY -> headerHeavyRequest();
+        };
+        this.request = raw.getBytes(StandardCharsets.US_ASCII);
+        this.requestLineLength = raw.indexOf("\r\n");
+        this.headersOffset = this.requestLineLength + 2;
+        this.reused = new Request();
+    }
+
+    @Benchmark
+    public Request requestFromReader() throws IOException {
+        return RequestParser.requestFromReader(new ChunkReader(this.request, this.readSize));
+    }
+
+    @Benchmark
+    public Request requestParse() throws IOException {
+        return parseInto(new Request());
+    }
+
+    @Benchmark
+    public Request requestParseReused() throws IOException {
+        return parseInto(this.reused.reset());
+    }
+
+    private Request parseInto(Request parsed) throws IOException {
+        int position = 0;
+        int available = 0;
+        while (parsed.getStatus() != Request.Status.DONE) {
+            available = Math.min(available + this.readSize, this.request.length - position);
+            int bytesParsed = parsed.parse(this.request, position, available);
+            position += bytesParsed;
+            available -= bytesParsed;
+        }
+        return parsed;
+    }
+
+    @Benchmark
+    public RequestLine parseRequestLine() throws IOException {
+        return RequestParser.parseRequestLine(this.request, 0, this.requestLineLength);
+    }
+
+    @Benchmark
+    public Headers headersParse() throws IOException {
+        Headers headers = new Headers();
+        int position = this.headersOffset;
+        int available = 0;
+        while (!headers.isDone()) {
+            available = Math.min(available + this.readSize, this.request.length - position);
+            int bytesParsed = headers.parse(this.request, position, available);
+            position += bytesParsed;
+            available -= bytesParsed;
+        }
+        return headers;
+    }
+
+    private static String typicalRequest() {
+        return "GET /api/v1/users/12345/orders?page=2&size=50 HTTP/1.1\r\n" +
+                "Host: api.example.com\r\n" +
+                "User-Agent: Mozilla/5.0 (X11; Linux x86_64; rv:128.0) Gecko/20100101 Firefox/128.0\r\n" +
+                "Accept: application/json, text/plain, */*\r\n" +
+                "Accept-Language: en-GB,en;q=0.5\r\n" +
+                "Accept-Encoding: gzip, deflate, br\r\n" +
+                "Referer: https://www.example.com/account/orders\r\n" +
+                "Connection: keep-alive\r\n" +
+                "\r\n";
+    }
+
+    private static String headerHeavyRequest() {
+        StringBuilder raw = new StringBuilder(typicalRequest());
+        raw.setLength(raw.length() - 2);
+        raw.append("Authorization: Bearer ").append("eyJhbGciOiJSUzI1NiJ9.".repeat(12)).append("\r\n");
+        raw.append("Cookie: ");
+        for (int i = 0; i < 40; i++) {
+            raw.append(i == 0 ? "" : "; ").append("session_attribute_").append(i).append("=")
+                    .append(Integer.toHexString(0x5f3759df * (i + 1)));
+        }
+        raw.append("\r\n");
+        for (int i = 0; i < 16; i++) {
+            raw.append("X-Forwarded-Hop-").append(i).append(": 10.0.").append(i).append(".1\r\n");
+        }
+        raw.append("Traceparent: 00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01\r\n");
+        raw.append("\r\n");
+        return raw.toString();
+    }
+}
@@ -0,0 +1,48 @@
+package org.example.bench;
+
+import org.example.request.RequestLine;
+import org.example.request.RequestParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures RequestParser.parseRequestLine on complete request lines.
+ * Run with {@code -PjmhArgs="RequestLineBenchmark -prof gc"} to see the allocation per
+ * operation, which should be just the RequestLine and its copy of the target bytes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RequestLineBenchmark {
+
+    @Param({"GET / HTTP/1.1", "OPTIONS * HTTP/1.1", "POST /api/v1/users/12345/orders?page=2&size=50 HTTP/1.1"})
+    public String line;
+
+    private byte[] data;
+
+    @Setup
+    public void encode() {
+        this.data = this.line.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @Benchmark
+    public RequestLine parseRequestLine() throws IOException {
+        return RequestParser.parseRequestLine(this.data, 0, this.data.length);
+    }
+}
@@ -0,0 +1,79 @@
+package org.example.bench;
+
+import org.example.cache.ResponseCache;
+import org.example.request.Request;
+import org.example.response.Response;
+import org.example.response.StatusCode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a ResponseCache hit: a plain one, one keyed on a Vary header, and an If-None-Match
+ * answered with 304. Run with several threads, e.g. {@code -PjmhArgs="ResponseCacheBenchmark -t 8"},
+ * to check that concurrent hits on the same entry do not contend.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ResponseCacheBenchmark {
+
+    private ResponseCache cache;
+    private Request plain;
+    private Request varying;
+    private Request conditional;
+
+    @Setup
+    public void setUp() throws IOException {
+        this.cache = new ResponseCache(request -> {
+            Response response = Response.text(StatusCode.OK, "x".repeat(4096));
+            response.setHeader("ETag", "\"v1\"");
+            if (request.getRequestLine().requestTarget().startsWith("/vary")) {
+                response.setHeader("Vary", "Accept-Encoding");
+            }
+            return response;
+        }, 64L * 1024 * 1024, Duration.ofHours(1));
+
+        this.plain = request("GET /plain HTTP/1.1\r\nHost: localhost\r\n\r\n");
+        this.varying = request("GET /vary HTTP/1.1\r\nHost: localhost\r\nAccept-Encoding: gzip, deflate, br\r\n\r\n");
+        this.conditional = request("GET /plain HTTP/1.1\r\nHost: localhost\r\nIf-None-Match: \"v1\"\r\n\r\n");
+        this.cache.handle(this.plain);
+        this.cache.handle(this.varying);
+    }
+
+    @Benchmark
+    public Response hit() {
+        return this.cache.handle(this.plain);
+    }
+
+    @Benchmark
+    public Response varyingHit() {
+        return this.cache.handle(this.varying);
+    }
+
+    @Benchmark
+    public Response notModified() {
+        return this.cache.handle(this.conditional);
+    }
+
+    private static Request request(String raw) throws IOException {
+        Request request = new Request();
+        request.parse(raw.getBytes(StandardCharsets.US_ASCII));
+        return request;
+    }
+}
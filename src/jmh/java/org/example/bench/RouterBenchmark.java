@@ -0,0 +1,87 @@
+package org.example.bench;
+
+import org.example.request.Method;
+import org.example.request.Request;
+import org.example.response.Response;
+import org.example.response.StatusCode;
+import org.example.routing.Router;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compares the radix trie Router with the common alternative of trying one compiled regular
+ * expression per route in turn. Each resource contributes three routes (a collection, an item
+ * with an {id} and a nested item with two parameters), and the request matches a nested route
+ * of the last resource, which is the worst case for the linear scan.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RouterBenchmark {
+
+    @Param({"10", "100", "300"})
+    public int resources;
+
+    private Router router;
+    private Request request;
+    private List<Pattern> patterns;
+    private String path;
+
+    @Setup
+    public void setUp() throws IOException {
+        Response ok = new Response(StatusCode.NO_CONTENT);
+        this.router = new Router();
+        this.patterns = new ArrayList<>();
+
+        for (int i = 0; i < this.resources; i++) {
+            String base = "/api/v1/resource" + i;
+            for (String pattern : List.of(base, base + "/{id}", base + "/{id}/items/{item}")) {
+                this.router.add(Method.GET, pattern, (request, parameters) -> ok);
+                this.patterns.add(Pattern.compile(pattern.replaceAll("\\{[^}]+}", "([^/]+)")));
+            }
+        }
+
+        this.path = "/api/v1/resource" + (this.resources - 1) + "/12345/items/678";
+        this.request = new Request();
+        this.request.parse(("GET " + this.path + "?verbose=1 HTTP/1.1\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @Benchmark
+    public Response radixTrie() {
+        return this.router.handle(this.request);
+    }
+
+    @Benchmark
+    public String linearRegex() {
+        String target = new String(this.request.getRequestLine().requestTargetBytes(), StandardCharsets.UTF_8);
+        int query = target.indexOf('?');
+        String path = query == -1 ? target : target.substring(0, query);
+        for (Pattern pattern : this.patterns) {
+            Matcher matcher = pattern.matcher(path);
+            if (matcher.matches()) {
+                return matcher.group(matcher.groupCount());
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,86 @@
+package org.example.bench;
+
+import org.example.request.ByteScanner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares word-at-a-time and byte-at-a-time delimiter scanning over header blocks of
+ * realistic browser headers. Each operation splits the block into lines and finds the
+ * colon in each line, which is the scanning Headers.parse does for every request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ScanBenchmark {
+
+    private static final String[] BROWSER_HEADERS = {
+            "Host: www.example.com",
+            "User-Agent: Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36",
+            "Accept: text/html,application/xhtml+xml,application/xml;q=0.9,image/avif,image/webp,*/*;q=0.8",
+            "Accept-Language: en-GB,en;q=0.9",
+            "Accept-Encoding: gzip, deflate, br",
+            "Referer: https://www.example.com/search?q=http+parser",
+            "Connection: keep-alive",
+            "Cookie: session=3f2a9c1e7b4d4e0f8a6b5c3d2e1f0a9b; theme=dark; consent=1; _ga=GA1.2.123456789.1700000000",
+            "Upgrade-Insecure-Requests: 1",
+            "Sec-Fetch-Dest: document",
+            "Sec-Fetch-Mode: navigate",
+            "Sec-Fetch-Site: same-origin",
+            "Cache-Control: max-age=0",
+    };
+
+    @Param({"1024", "2048", "4096", "8192"})
+    public int blockSize;
+
+    private byte[] block;
+
+    @Setup
+    public void buildBlock() {
+        StringBuilder builder = new StringBuilder(this.blockSize + 256);
+        for (int i = 0; builder.length() < this.blockSize; i++) {
+            builder.append(BROWSER_HEADERS[i % BROWSER_HEADERS.length]).append("\r\n");
+        }
+        builder.append("\r\n");
+        this.block = builder.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @Benchmark
+    public int scanWordAtATime() {
+        int position = 0;
+        int checksum = 0;
+        int crlfIndex;
+        while ((crlfIndex = ByteScanner.findCRLF(this.block, position, this.block.length)) > position) {
+            checksum += ByteScanner.indexOf(this.block, (byte) ':', position, crlfIndex);
+            position = crlfIndex + 2;
+        }
+        return checksum;
+    }
+
+    @Benchmark
+    public int scanByteAtATime() {
+        int position = 0;
+        int checksum = 0;
+        int crlfIndex;
+        while ((crlfIndex = ByteScanner.findCRLFScalar(this.block, position, this.block.length)) > position) {
+            checksum += ByteScanner.indexOfScalar(this.block, (byte) ':', position, crlfIndex);
+            position = crlfIndex + 2;
+        }
+        return checksum;
+    }
+}
@@ -0,0 +1,80 @@
+package org.example.bench;
+
+import org.example.response.Response;
+import org.example.response.StatusCode;
+import org.example.server.BlockingServer;
+import org.example.server.VirtualThreadServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the serial blocking accept loop against the virtual-thread-per-connection
+ * server when 1k and 10k clients connect at the same time.
+ * Each operation opens every connection, sends one request on each and waits until
+ * the server has handled and closed all of them.
+ * <p>
+ * The 10k case needs an open file limit above 20k (ulimit -n), since both the client
+ * and the server side of each connection live in the same machine.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ServerConcurrencyBenchmark {
+
+    private static final byte[] REQUEST =
+            "GET / HTTP/1.1\r\nHost: localhost:9001\r\nUser-Agent: bench\r\nAccept: */*\r\nConnection: close\r\n\r\n"
+                    .getBytes(StandardCharsets.US_ASCII);
+
+    @Param({"serial", "virtual"})
+    public String mode;
+
+    @Param({"1000", "10000"})
+    public int connections;
+
+    private Closeable server;
+    private int port;
+
+    @Setup(Level.Trial)
+    public void startServer() throws IOException {
+        if (this.mode.equals("serial")) {
+            BlockingServer blockingServer = new BlockingServer(0, request -> new Response(StatusCode.NO_CONTENT));
+            this.port = blockingServer.getPort();
+            this.server = blockingServer;
+            new Thread(blockingServer, "serial-server").start();
+        } else {
+            VirtualThreadServer virtualServer = new VirtualThreadServer(0, this.connections, request -> new Response(StatusCode.NO_CONTENT));
+            this.port = virtualServer.getPort();
+            this.server = virtualServer;
+            new Thread(virtualServer, "virtual-server").start();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopServer() throws IOException {
+        this.server.close();
+    }
+
+    @Benchmark
+    public int concurrentConnections() throws IOException {
+        return ConcurrentClients.run(this.port, this.connections, REQUEST);
+    }
+}
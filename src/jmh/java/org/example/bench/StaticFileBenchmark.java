@@ -0,0 +1,116 @@
+package org.example.bench;
+
+import org.example.response.FileRegion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares three ways of sending a file over a loopback TCP connection whose other end
+ * reads and discards everything: FileChannel.transferTo (sendfile on Linux) as used for
+ * large static files, a plain stream copy through a heap byte array, and a write of file
+ * contents already held in the heap, as used for small cached files.
+ * Throughput in operations per second multiplied by the file size gives bytes per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StaticFileBenchmark {
+
+    private static final int COPY_BUFFER_SIZE = 8192;
+
+    @Param({"16384", "1048576", "67108864"})
+    public int fileSize;
+
+    private Path file;
+    private ByteBuffer cached;
+    private ServerSocketChannel server;
+    private SocketChannel client;
+    private Thread drain;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        byte[] content = new byte[this.fileSize];
+        new Random(1).nextBytes(content);
+        this.file = Files.createTempFile("static-file-bench", ".bin");
+        Files.write(this.file, content);
+        this.cached = ByteBuffer.wrap(content);
+
+        this.server = ServerSocketChannel.open().bind(new InetSocketAddress("localhost", 0));
+        this.client = SocketChannel.open(this.server.getLocalAddress());
+        SocketChannel accepted = this.server.accept();
+
+        this.drain = new Thread(() -> {
+            ByteBuffer discard = ByteBuffer.allocateDirect(256 * 1024);
+            try (accepted) {
+                while (accepted.read(discard.clear()) != -1) {
+                    Thread.onSpinWait();
+                }
+            } catch (IOException e) {
+                // the benchmark closed the connection
+            }
+        }, "drain");
+        this.drain.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        this.client.close();
+        this.drain.join();
+        this.server.close();
+        Files.deleteIfExists(this.file);
+    }
+
+    @Benchmark
+    public void transferTo() throws IOException {
+        try (FileRegion.Transfer transfer = new FileRegion(this.file, 0, this.fileSize).open()) {
+            transfer.transferTo(this.client);
+        }
+    }
+
+    @Benchmark
+    public void streamCopy() throws IOException {
+        OutputStream out = Channels.newOutputStream(this.client);
+        byte[] buffer = new byte[COPY_BUFFER_SIZE];
+        try (InputStream in = Files.newInputStream(this.file)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        }
+    }
+
+    @Benchmark
+    public void cachedHeapWrite() throws IOException {
+        ByteBuffer body = this.cached.duplicate();
+        while (body.hasRemaining()) {
+            this.client.write(body);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package org.example.bench;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * InputStream that produces an upload request with a body of any size without
+ * ever holding the body in memory. The headers are followed by filler bytes,
+ * handed out at most readSize bytes at a time like a socket would.
+ */
+final class SyntheticUpload extends InputStream {
+
+    private final byte[] head;
+    private final long bodyLength;
+    private final int readSize;
+    private long position;
+
+    /**
+     * Creates an upload of the given body length.
+     *
+     * @param bodyLength the Content-Length of the generated body
+     * @param readSize   the maximum number of bytes returned by a single read
+     */
+    SyntheticUpload(long bodyLength, int readSize) {
+        this.head = ("POST /upload HTTP/1.1\r\nHost: localhost:9001\r\nContent-Type: application/octet-stream\r\n"
+                + "Content-Length: " + bodyLength + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+        this.bodyLength = bodyLength;
+        this.readSize = readSize;
+        this.position = 0;
+    }
+
+    @Override
+    public int read() {
+        byte[] single = new byte[1];
+        return read(single, 0, 1) == -1 ? -1 : Byte.toUnsignedInt(single[0]);
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) {
+        long total = this.head.length + this.bodyLength;
+        if (this.position >= total) {
+            return -1;
+        }
+
+        int count = (int) Math.min(Math.min(length, this.readSize), total - this.position);
+        int headBytes = 0;
+
+        if (this.position < this.head.length) {
+            headBytes = (int) Math.min(count, this.head.length - this.position);
+            System.arraycopy(this.head, (int) this.position, buffer, offset, headBytes);
+        }
+        Arrays.fill(buffer, offset + headBytes, offset + count, (byte) 'x');
+
+        this.position += count;
+        return count;
+    }
+}
@@ -1,54 +1,123 @@
 package org.example;
 
+import org.example.cache.ResponseCache;
+import org.example.compression.CompressionHandler;
+import org.example.logging.AsyncLogger;
+import org.example.metrics.MetricsHandler;
+import org.example.metrics.ServerMetrics;
+import org.example.request.Method;
 import org.example.request.Request;
-import org.example.request.RequestParser;
+import org.example.response.Response;
+import org.example.response.StatusCode;
+import org.example.routing.Router;
+import org.example.server.RequestHandler;
+import org.example.server.BlockingServer;
+import org.example.server.EventLoop;
+import org.example.server.MultiReactorServer;
+import org.example.server.VirtualThreadServer;
 
 import java.io.IOException;
-import java.net.ServerSocket;
-import java.net.Socket;
+import java.time.Duration;
 
 /**
  * TCP server that listens for client connections and processes HTTP requests.
- * Parses incoming HTTP request lines and headers, then outputs the parsed information.
- * Uses RequestParser for incremental parsing of HTTP request data.
+ * Parses incoming HTTP request lines and headers, logs the parsed information
+ * and answers every request with an empty 200 OK response. Requests are dispatched through
+ * a Router, whose fallback is the printing handler, so routes can be added in front of it.
+ * The server's own metrics are served in the Prometheus text format at /metrics.
+ * Responses are gzip or deflate compressed for clients that accept it, and responses that
+ * declare a max-age are served from a ResponseCache in front of everything else.
+ * Requests are logged through an AsyncLogger, so request threads never wait on the console.
+ * By default connections are multiplexed on a non-blocking EventLoop. One event loop per core,
+ * the original blocking accept loop and a virtual-thread-per-connection mode can be selected instead.
  */
 public class TCPListener {
 
-    private static final String EOF = "__EOF__";
+    private static final int PORT = 9001;
+    private static final int DEFAULT_MAX_CONCURRENCY = 10_000;
+    private static final int LOG_CAPACITY = 8192;
+    private static final long RESPONSE_CACHE_BYTES = 64L * 1024 * 1024;
+
+    private static final AsyncLogger LOGGER = new AsyncLogger(System.out, LOG_CAPACITY, AsyncLogger.OverflowPolicy.DROP);
+
+    /**
+     * The fallback that logs and answers every unrouted request. The logger is handed Strings,
+     * the RequestLine and a snapshot of the headers, so the request itself may be reused.
+     */
+    private static final RequestHandler PRINT_REQUEST = new RequestHandler() {
+        @Override
+        public Response handle(Request request) {
+            return printRequest(request);
+        }
+
+        @Override
+        public boolean releasesRequest() {
+            return true;
+        }
+    };
 
     /**
-     * Main server loop that accepts client connections on port 9001.
-     * For each connection, parses the HTTP request and prints the request line
-     * (method, target, version) and all headers to standard output.
+     * Starts the server on port 9001.
+     * The first argument selects the server mode: "nio" (the default), "reactors", "blocking" or "virtual".
+     * In "reactors" mode the second argument sets the number of event loops, one per core by default.
+     * In "virtual" mode the second argument sets the maximum number of concurrent connections.
      *
-     * @param args command line arguments (unused)
+     * @param args command line arguments; args[0] optionally selects the server mode
+     *             and args[1] the reactors mode loop count or the virtual mode concurrency cap
      * @throws IOException if the server socket cannot be created or bound
      */
     public static void main(String[] args) throws IOException {
+        String mode = args.length > 0 ? args[0] : "nio";
+        Router router = new Router(PRINT_REQUEST);
+        router.add(Method.GET, "/metrics", new MetricsHandler(ServerMetrics.getDefault().getRegistry()));
+        ServerMetrics.getDefault().getRegistry().gauge("log_dropped_records",
+                "Log records dropped because the log ring buffer was full.", LOGGER::getDroppedCount);
+        Runtime.getRuntime().addShutdownHook(new Thread(LOGGER::close));
+        RequestHandler handler = new ResponseCache(new CompressionHandler(router), RESPONSE_CACHE_BYTES, Duration.ZERO);
 
-        try (ServerSocket server = new ServerSocket(9001)) {
-            while (true) {
-                try {
-                    Socket client = server.accept();
-                    try (client) {
-                        Request request = RequestParser.requestFromReader(client.getInputStream());
-
-                        System.out.println("Request line:");
-                        System.out.println("- Method: " + request.getRequestLine().method());
-                        System.out.println("- Target: " + request.getRequestLine().requestTarget());
-                        System.out.println("- Version: " + request.getRequestLine().httpVersion());
-                        System.out.println("Headers:");
-                        for (String key : request.getHeaders().getHeaderMap().keySet()) {
-                            System.out.println("- " + key + ": " + request.getHeaders().getValue(key));
-                        }
-                    }
-                } catch (IOException e) {
-                    System.err.println("Error handling client connection: " + e.getMessage());
+        switch (mode) {
+            case "nio":
+                try (EventLoop eventLoop = new EventLoop(PORT, handler)) {
+                    eventLoop.run();
+                }
+                break;
+            case "reactors":
+                int loops = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+                try (MultiReactorServer server = new MultiReactorServer(PORT, loops, handler)) {
+                    server.run();
                 }
-            }
-        } catch (IOException e) {
-            System.err.println("Error handling server socket: " + e.getMessage());
+                break;
+            case "blocking":
+                try (BlockingServer server = new BlockingServer(PORT, handler)) {
+                    server.run();
+                }
+                break;
+            case "virtual":
+                int maxConcurrency = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_MAX_CONCURRENCY;
+                try (VirtualThreadServer server = new VirtualThreadServer(PORT, maxConcurrency, handler)) {
+                    server.run();
+                }
+                break;
+            default:
+                System.err.println("Unknown server mode: " + mode);
         }
     }
 
+    /**
+     * Logs the request line (method, target, version) and all headers
+     * of a parsed request to standard output.
+     * The header map handed to the logger is a snapshot that later changes to the request do not touch.
+     *
+     * @param request the parsed request to log
+     * @return an empty 200 OK response
+     */
+    private static Response printRequest(Request request) {
+        LOGGER.log("Request line: method={} target={} version={} headers={}",
+                request.getRequestLine().method(),
+                request.getRequestLine().requestTarget(),
+                request.getRequestLine().httpVersion(),
+                request.getHeaders().getHeaderMap());
+        return new Response(StatusCode.OK);
+    }
+
 }
@@ -0,0 +1,226 @@
+package org.example.buffer;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A pool of reusable ByteBuffers organised into power-of-two size classes.
+ * Connections borrow a buffer with {@link #acquire(int)} and hand it back with
+ * {@link #release(ByteBuffer)}, so read buffers are recycled across connections
+ * instead of being allocated and thrown away for each one.
+ * <p>
+ * Each size class keeps a bounded shared free list. Optionally, every thread also keeps
+ * a small cache per size class that is checked first, so a thread that releases and
+ * reacquires buffers does not touch the shared lists at all. Requests larger than the
+ * biggest size class are served with a fresh, unpooled buffer.
+ * <p>
+ * Buffers are either all heap or all direct. The request parser needs array access,
+ * so pools used for reading requests must be heap pools.
+ */
+public class BufferPool {
+
+    private static final BufferPool DEFAULT = new BufferPool(false, 1024, 64 * 1024, 1024, 0);
+
+    private final boolean direct;
+    private final int minSize;
+    private final int minSizeShift;
+    private final int maxSize;
+    private final ArrayBlockingQueue<ByteBuffer>[] freeLists;
+    private final int localCacheSize;
+    private final ThreadLocal<LocalCache> localCaches;
+
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final AtomicLong outstanding;
+    private final AtomicLong bytesHeld;
+
+    /**
+     * Creates a new buffer pool.
+     *
+     * @param direct            true to pool direct buffers, false to pool heap buffers
+     * @param minSize           the capacity of the smallest size class; must be a power of two
+     * @param maxSize           the capacity of the largest size class; must be a power of two
+     * @param maxPooledPerClass the maximum number of idle buffers kept in each shared free list
+     * @param localCacheSize    the number of idle buffers each thread may cache per size class, or 0 to disable
+     * @throws IllegalArgumentException if the sizes are not powers of two, minSize is greater than maxSize,
+     *                                  or either limit is negative
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public BufferPool(boolean direct, int minSize, int maxSize, int maxPooledPerClass, int localCacheSize) {
+        if (Integer.bitCount(minSize) != 1 || Integer.bitCount(maxSize) != 1 || minSize > maxSize) {
+            throw new IllegalArgumentException("Size classes must be powers of two with minSize <= maxSize, got: "
+                    + minSize + " and " + maxSize);
+        }
+        if (maxPooledPerClass < 1 || localCacheSize < 0) {
+            throw new IllegalArgumentException("Invalid pool limits: " + maxPooledPerClass + " and " + localCacheSize);
+        }
+
+        this.direct = direct;
+        this.minSize = minSize;
+        this.minSizeShift = Integer.numberOfTrailingZeros(minSize);
+        this.maxSize = maxSize;
+        this.localCacheSize = localCacheSize;
+
+        int sizeClasses = Integer.numberOfTrailingZeros(maxSize) - this.minSizeShift + 1;
+        this.freeLists = new ArrayBlockingQueue[sizeClasses];
+        for (int i = 0; i < sizeClasses; i++) {
+            this.freeLists[i] = new ArrayBlockingQueue<>(maxPooledPerClass);
+        }
+        this.localCaches = ThreadLocal.withInitial(() -> new LocalCache(sizeClasses, localCacheSize));
+
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+        this.outstanding = new AtomicLong();
+        this.bytesHeld = new AtomicLong();
+    }
+
+    /**
+     * Returns the shared heap buffer pool used when no pool is given explicitly.
+     * It pools heap buffers from 1 KB to 64 KB without thread-local caches, which
+     * keeps it safe to use from short-lived threads such as virtual threads.
+     *
+     * @return the default buffer pool
+     */
+    public static BufferPool getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Borrows a cleared buffer with at least the requested capacity.
+     * The capacity is rounded up to the next size class.
+     *
+     * @param minCapacity the minimum capacity needed
+     * @return a buffer with position 0 and limit equal to its capacity
+     */
+    public ByteBuffer acquire(int minCapacity) {
+        this.outstanding.incrementAndGet();
+
+        int index = sizeClassIndex(minCapacity);
+        if (index < 0) {
+            this.misses.increment();
+            return allocate(minCapacity);
+        }
+
+        ByteBuffer buffer = null;
+        if (this.localCacheSize > 0) {
+            buffer = this.localCaches.get().poll(index);
+        }
+        if (buffer == null) {
+            buffer = this.freeLists[index].poll();
+        }
+
+        if (buffer != null) {
+            this.hits.increment();
+            this.bytesHeld.addAndGet(-buffer.capacity());
+            return buffer;
+        }
+
+        this.misses.increment();
+        return allocate(this.minSize << index);
+    }
+
+    /**
+     * Returns a buffer to the pool so it can be reused.
+     * The caller must not use the buffer after releasing it. Buffers that do not match
+     * a size class of this pool, or that arrive when the free list is full, are dropped.
+     *
+     * @param buffer the buffer previously obtained from {@link #acquire(int)}
+     */
+    public void release(ByteBuffer buffer) {
+        this.outstanding.decrementAndGet();
+
+        int capacity = buffer.capacity();
+        if (buffer.isDirect() != this.direct || Integer.bitCount(capacity) != 1
+                || capacity < this.minSize || capacity > this.maxSize) {
+            return;
+        }
+
+        buffer.clear();
+        int index = sizeClassIndex(capacity);
+
+        if ((this.localCacheSize > 0 && this.localCaches.get().offer(index, buffer)) || this.freeLists[index].offer(buffer)) {
+            this.bytesHeld.addAndGet(capacity);
+        }
+    }
+
+    /**
+     * Replaces a buffer with one from the next size class up, keeping its contents.
+     * The first bytesToKeep bytes are copied into the new buffer and the old buffer is released.
+     *
+     * @param buffer      the buffer to grow
+     * @param bytesToKeep the number of bytes at the start of the buffer to carry over
+     * @return a buffer with at least twice the capacity, holding the same leading bytes
+     */
+    public ByteBuffer grow(ByteBuffer buffer, int bytesToKeep) {
+        ByteBuffer larger = acquire(buffer.capacity() * 2);
+        larger.put(0, buffer, 0, bytesToKeep);
+        release(buffer);
+        return larger;
+    }
+
+    /**
+     * Returns whether this pool hands out direct buffers.
+     *
+     * @return true for a direct buffer pool, false for a heap buffer pool
+     */
+    public boolean isDirect() {
+        return this.direct;
+    }
+
+    /**
+     * Returns a snapshot of the pool's hit, miss, outstanding and held-bytes counters.
+     * Buffers cached by threads that have since exited are still counted as held.
+     *
+     * @return the current pool statistics
+     */
+    public BufferPoolStats getStats() {
+        return new BufferPoolStats(this.hits.sum(), this.misses.sum(), this.outstanding.get(), this.bytesHeld.get());
+    }
+
+    private int sizeClassIndex(int capacity) {
+        if (capacity <= this.minSize) {
+            return 0;
+        }
+        if (capacity > this.maxSize) {
+            return -1;
+        }
+        return 32 - Integer.numberOfLeadingZeros(capacity - 1) - this.minSizeShift;
+    }
+
+    private ByteBuffer allocate(int capacity) {
+        return this.direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    }
+
+    /**
+     * Small per-thread stacks of idle buffers, one per size class.
+     */
+    private static final class LocalCache {
+        private final ByteBuffer[][] stacks;
+        private final int[] sizes;
+
+        LocalCache(int sizeClasses, int capacity) {
+            this.stacks = new ByteBuffer[sizeClasses][capacity];
+            this.sizes = new int[sizeClasses];
+        }
+
+        ByteBuffer poll(int index) {
+            if (this.sizes[index] == 0) {
+                return null;
+            }
+            int top = --this.sizes[index];
+            ByteBuffer buffer = this.stacks[index][top];
+            this.stacks[index][top] = null;
+            return buffer;
+        }
+
+        boolean offer(int index, ByteBuffer buffer) {
+            if (this.sizes[index] == this.stacks[index].length) {
+                return false;
+            }
+            this.stacks[index][this.sizes[index]++] = buffer;
+            return true;
+        }
+    }
+}
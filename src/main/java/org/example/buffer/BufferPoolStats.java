@@ -0,0 +1,22 @@
+package org.example.buffer;
+
+/**
+ * A point-in-time snapshot of a BufferPool's counters.
+ *
+ * @param hits        the number of acquisitions served from a pooled buffer
+ * @param misses      the number of acquisitions that had to allocate a new buffer
+ * @param outstanding the number of buffers currently acquired and not yet released
+ * @param bytesHeld   the total capacity of the idle buffers currently held by the pool
+ */
+public record BufferPoolStats(long hits, long misses, long outstanding, long bytesHeld) {
+
+    /**
+     * Returns the fraction of acquisitions that were served from the pool.
+     *
+     * @return the hit rate between 0.0 and 1.0, or 0.0 if nothing has been acquired yet
+     */
+    public double hitRate() {
+        long total = this.hits + this.misses;
+        return total == 0 ? 0.0 : (double) this.hits / total;
+    }
+}
@@ -0,0 +1,477 @@
+package org.example.cache;
+
+import org.example.headers.HeaderNames;
+import org.example.request.BodySink;
+import org.example.request.Method;
+import org.example.request.Request;
+import org.example.response.Response;
+import org.example.response.StatusCode;
+import org.example.server.RequestHandler;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An in-memory HTTP cache in front of a handler. A GET or HEAD for a target that has a fresh
+ * cached response is answered without calling the handler at all.
+ * <p>
+ * Responses are stored as the Response the handler returned, with their body bytes; the
+ * ResponseWriter only has to encode the head, whose Date and Connection headers differ per request.
+ * Entries are keyed on the request target and on the request's values of the headers named by
+ * the response's Vary, so with a CompressionHandler behind the cache the gzip, deflate and
+ * identity variants are stored side by side. A request whose If-None-Match matches the cached
+ * ETag is answered with a prebuilt 304 Not Modified.
+ * <p>
+ * Only 200 responses to GET with a buffer body are stored, and not if they set a cookie, vary on
+ * every header, or are marked no-store, no-cache or private. A request carrying Authorization
+ * bypasses the cache. Freshness comes from the response's s-maxage or max-age, or a default TTL.
+ * A successful POST, PUT, DELETE or PATCH to a target drops its cached variants.
+ * <p>
+ * Lookups are two ConcurrentHashMap reads, so hits take no locks and never contend with each
+ * other. The cache is bounded by the approximate total size of its entries, and evicts with the
+ * CLOCK algorithm: a hit only sets the entry's referenced bit, and an insert that takes the cache
+ * over its size sweeps a queue of entries, giving referenced ones a second chance and removing
+ * the first unreferenced one. That approximates LRU without a shared list to reorder on every hit.
+ * Entries that leave the cache some other way, by expiring, being replaced or being invalidated,
+ * stay in the queue until a sweep reaches them; once they make up half of it, the queue is purged
+ * of them, so it stays within twice the number of cached entries even while nothing is evicted.
+ */
+public class ResponseCache implements RequestHandler {
+
+    private static final int ENTRY_OVERHEAD = 256;
+    private static final String[] NO_VARY = new String[0];
+
+    private final RequestHandler delegate;
+    private final long maxBytes;
+    private final long defaultTtlNanos;
+    private final ConcurrentHashMap<String, Variants> targets;
+    private final ConcurrentLinkedQueue<Entry> clock;
+    private final AtomicInteger queuedEntries;
+    private final AtomicInteger deadEntries;
+    private final ReentrantLock evictionLock;
+    private final AtomicLong totalBytes;
+    private final LongAdder hits;
+    private final LongAdder misses;
+
+    /**
+     * Creates a cache in front of a handler.
+     *
+     * @param delegate   the handler called on a miss
+     * @param maxBytes   the approximate maximum total size of the cached responses
+     * @param defaultTtl how long a response without max-age stays fresh
+     * @throws IllegalArgumentException if maxBytes or defaultTtl is negative
+     */
+    public ResponseCache(RequestHandler delegate, long maxBytes, Duration defaultTtl) {
+        if (maxBytes < 0 || defaultTtl.isNegative()) {
+            throw new IllegalArgumentException("maxBytes and defaultTtl must not be negative");
+        }
+
+        this.delegate = delegate;
+        this.maxBytes = maxBytes;
+        this.defaultTtlNanos = defaultTtl.toNanos();
+        this.targets = new ConcurrentHashMap<>();
+        this.clock = new ConcurrentLinkedQueue<>();
+        this.queuedEntries = new AtomicInteger();
+        this.deadEntries = new AtomicInteger();
+        this.evictionLock = new ReentrantLock();
+        this.totalBytes = new AtomicLong();
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+    }
+
+    /**
+     * Answers the request from the cache if it can, and otherwise passes it to the delegate,
+     * storing or invalidating as the request and response allow.
+     *
+     * @param request the parsed request
+     * @return the cached response, a 304, or the delegate's response
+     */
+    @Override
+    public Response handle(Request request) {
+        Method method = request.getRequestLine().getMethod();
+        String target = request.getRequestLine().requestTarget();
+
+        if (method != Method.GET && method != Method.HEAD) {
+            Response response = this.delegate.handle(request);
+            if (method != Method.OPTIONS && response.getStatus().getCode() < 400) {
+                invalidate(target);
+            }
+            return response;
+        }
+        if (request.getHeaders().contains(HeaderNames.AUTHORIZATION)) {
+            return this.delegate.handle(request);
+        }
+
+        Variants variants = this.targets.get(target);
+        if (variants != null) {
+            String key = variantKey(request, variants.varyNames);
+            Entry entry = variants.entries.get(key);
+            if (entry != null) {
+                if (System.nanoTime() - entry.expiresAt < 0) {
+                    this.hits.increment();
+                    if (!entry.referenced) {
+                        entry.referenced = true;
+                    }
+                    return entry.etag != null && matches(request.getHeaders().getValue(HeaderNames.IF_NONE_MATCH), entry.etag)
+                            ? entry.notModified : entry.response;
+                }
+                remove(entry);
+            }
+        }
+        this.misses.increment();
+
+        Response response = this.delegate.handle(request);
+        if (method == Method.GET) {
+            store(request, target, response);
+        }
+        return response;
+    }
+
+    /**
+     * Asks the delegate where the request body should go.
+     *
+     * @param request the request whose headers have been parsed
+     * @return the delegate's sink
+     */
+    @Override
+    public BodySink bodySink(Request request) {
+        return this.delegate.bodySink(request);
+    }
+
+    /**
+     * Releases requests if the wrapped handler does. Entries are keyed on Strings taken from the
+     * request, never on the request itself.
+     *
+     * @return the wrapped handler's answer
+     */
+    @Override
+    public boolean releasesRequest() {
+        return this.delegate.releasesRequest();
+    }
+
+    /**
+     * Drops every cached variant of a target.
+     *
+     * @param target the request target, exactly as it appears in the request line
+     */
+    public void invalidate(String target) {
+        Variants variants = this.targets.remove(target);
+        if (variants != null) {
+            for (Entry entry : variants.entries.values()) {
+                remove(entry);
+            }
+        }
+    }
+
+    /**
+     * Returns the approximate total size of the cached responses.
+     *
+     * @return the number of bytes accounted to cached entries
+     */
+    public long getTotalBytes() {
+        return this.totalBytes.get();
+    }
+
+    /**
+     * Returns the length of the eviction queue, which holds every cached entry and the removed
+     * ones that have not been swept out of it yet.
+     *
+     * @return the number of entries in the queue, at most about twice the number cached
+     */
+    public int getQueuedEntries() {
+        return this.queuedEntries.get();
+    }
+
+    /**
+     * Returns the number of requests answered from the cache.
+     *
+     * @return the hit count
+     */
+    public long getHits() {
+        return this.hits.sum();
+    }
+
+    /**
+     * Returns the number of cacheable requests passed to the delegate.
+     *
+     * @return the miss count
+     */
+    public long getMisses() {
+        return this.misses.sum();
+    }
+
+    private void store(Request request, String target, Response response) {
+        if (response.getStatus() != StatusCode.OK || response.getFileBody() != null
+                || response.getHeader("Set-Cookie") != null) {
+            return;
+        }
+        long ttlNanos = freshnessNanos(response.getHeader(HeaderNames.CACHE_CONTROL));
+        if (ttlNanos <= 0) {
+            return;
+        }
+        String[] varyNames = varyNames(response.getHeader(HeaderNames.VARY));
+        if (varyNames == null) {
+            return;
+        }
+
+        long size = response.getBodyLength() + ENTRY_OVERHEAD;
+        for (int i = 0; i < response.getHeaderCount(); i++) {
+            size += response.getHeaderName(i).length() + response.getHeaderValue(i).length();
+        }
+        if (size > this.maxBytes) {
+            return;
+        }
+
+        Variants[] replaced = new Variants[1];
+        Variants variants = this.targets.compute(target, (name, existing) -> {
+            if (existing != null && Arrays.equals(existing.varyNames, varyNames)) {
+                return existing;
+            }
+            replaced[0] = existing;
+            return new Variants(varyNames);
+        });
+        if (replaced[0] != null) {
+            for (Entry stale : replaced[0].entries.values()) {
+                remove(stale);
+            }
+        }
+
+        String key = variantKey(request, varyNames);
+        Entry entry = new Entry(variants, key, response, System.nanoTime() + ttlNanos, size);
+
+        Entry previous = variants.entries.put(key, entry);
+        this.totalBytes.addAndGet(size);
+        if (previous != null) {
+            this.totalBytes.addAndGet(-previous.size);
+            this.deadEntries.incrementAndGet();
+        }
+        this.clock.add(entry);
+        this.queuedEntries.incrementAndGet();
+
+        if (this.totalBytes.get() > this.maxBytes) {
+            evict();
+        } else if (this.deadEntries.get() * 2 > this.queuedEntries.get()) {
+            purge();
+        }
+    }
+
+    /**
+     * Sweeps the CLOCK queue until the cache is back under its size. Referenced entries have
+     * their bit cleared and go to the back of the queue; entries that are no longer cached are
+     * dropped from it. Only one thread sweeps at a time; others leave it to that thread.
+     */
+    private void evict() {
+        if (!this.evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            Entry entry;
+            while (this.totalBytes.get() > this.maxBytes && (entry = this.clock.poll()) != null) {
+                if (entry.variants.entries.get(entry.key) != entry) {
+                    this.queuedEntries.decrementAndGet();
+                    this.deadEntries.decrementAndGet();
+                } else if (entry.referenced) {
+                    entry.referenced = false;
+                    this.clock.add(entry);
+                } else {
+                    this.queuedEntries.decrementAndGet();
+                    if (entry.variants.entries.remove(entry.key, entry)) {
+                        this.totalBytes.addAndGet(-entry.size);
+                    } else {
+                        // removed meanwhile by a thread that counted it as still queued
+                        this.deadEntries.decrementAndGet();
+                    }
+                }
+            }
+        } finally {
+            this.evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Drops every entry that is no longer cached from the CLOCK queue, leaving the order of
+     * the rest alone. Skipped if another thread is sweeping; the next store tries again.
+     */
+    private void purge() {
+        if (!this.evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            Iterator<Entry> queued = this.clock.iterator();
+            while (queued.hasNext()) {
+                Entry entry = queued.next();
+                if (entry.variants.entries.get(entry.key) != entry) {
+                    queued.remove();
+                    this.queuedEntries.decrementAndGet();
+                    this.deadEntries.decrementAndGet();
+                }
+            }
+        } finally {
+            this.evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Removes an entry if it is still the cached one for its key. The byte count is only
+     * adjusted by the thread whose remove succeeds, so racing removals count it once, and
+     * the entry is counted as dead until a sweep takes it out of the CLOCK queue.
+     */
+    private void remove(Entry entry) {
+        if (entry.variants.entries.remove(entry.key, entry)) {
+            this.totalBytes.addAndGet(-entry.size);
+            this.deadEntries.incrementAndGet();
+        }
+    }
+
+    /**
+     * Works out how long a response may be served from the cache.
+     *
+     * @return the freshness lifetime in nanoseconds, or 0 if the response must not be stored
+     */
+    private long freshnessNanos(String cacheControl) {
+        if (cacheControl == null) {
+            return this.defaultTtlNanos;
+        }
+
+        long maxAge = -1;
+        long sharedMaxAge = -1;
+        for (String directive : cacheControl.split(",")) {
+            String trimmed = directive.trim().toLowerCase(Locale.ROOT);
+            if (trimmed.equals("no-store") || trimmed.equals("no-cache") || trimmed.startsWith("private")) {
+                return 0;
+            }
+            if (trimmed.startsWith("max-age=")) {
+                maxAge = parseSeconds(trimmed.substring("max-age=".length()));
+            } else if (trimmed.startsWith("s-maxage=")) {
+                sharedMaxAge = parseSeconds(trimmed.substring("s-maxage=".length()));
+            }
+        }
+
+        long seconds = sharedMaxAge != -1 ? sharedMaxAge : maxAge;
+        if (seconds == -1) {
+            return this.defaultTtlNanos;
+        }
+        return seconds >= Long.MAX_VALUE / 1_000_000_000L ? Long.MAX_VALUE / 2 : seconds * 1_000_000_000L;
+    }
+
+    private static long parseSeconds(String value) {
+        try {
+            return Math.max(0, Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Splits a Vary value into lowercase header names.
+     *
+     * @return the names, an empty array if there is no Vary, or null for "Vary: *"
+     */
+    private static String[] varyNames(String vary) {
+        if (vary == null) {
+            return NO_VARY;
+        }
+        String[] names = vary.split(",");
+        for (int i = 0; i < names.length; i++) {
+            names[i] = names[i].trim().toLowerCase(Locale.ROOT);
+            if (names[i].equals("*")) {
+                return null;
+            }
+        }
+        Arrays.sort(names);
+        return names;
+    }
+
+    /**
+     * Builds the secondary key from the request's values of the varying headers.
+     * An absent header is kept distinct from an empty one.
+     */
+    private static String variantKey(Request request, String[] varyNames) {
+        if (varyNames.length == 0) {
+            return "";
+        }
+        StringBuilder key = new StringBuilder();
+        for (String name : varyNames) {
+            String value = request.getHeaders().getValue(name);
+            if (value != null) {
+                key.append('=').append(value);
+            }
+            key.append('\0');
+        }
+        return key.toString();
+    }
+
+    /**
+     * Checks an If-None-Match value against an entity tag with the weak comparison
+     * that RFC 9110 requires for If-None-Match.
+     */
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String opaque = etag.startsWith("W/") ? etag.substring(2) : etag;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || (tag.startsWith("W/") ? tag.substring(2) : tag).equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The cached variants of one target, all varying on the same request headers.
+     */
+    private static final class Variants {
+        private final String[] varyNames;
+        private final ConcurrentHashMap<String, Entry> entries;
+
+        Variants(String[] varyNames) {
+            this.varyNames = varyNames;
+            this.entries = new ConcurrentHashMap<>();
+        }
+    }
+
+    /**
+     * One cached response, with the 304 that answers a matching If-None-Match built up front.
+     */
+    private static final class Entry {
+        private static final String[] NOT_MODIFIED_HEADERS = {"ETag", "Vary", "Cache-Control", "Last-Modified", "Expires"};
+
+        private final Variants variants;
+        private final String key;
+        private final Response response;
+        private final Response notModified;
+        private final String etag;
+        private final long expiresAt;
+        private final long size;
+        private volatile boolean referenced;
+
+        Entry(Variants variants, String key, Response response, long expiresAt, long size) {
+            this.variants = variants;
+            this.key = key;
+            this.response = response;
+            this.etag = response.getHeader(HeaderNames.ETAG);
+            this.expiresAt = expiresAt;
+            this.size = size;
+            this.referenced = false;
+
+            this.notModified = new Response(StatusCode.NOT_MODIFIED);
+            for (int i = 0; i < response.getHeaderCount(); i++) {
+                for (String name : NOT_MODIFIED_HEADERS) {
+                    if (response.getHeaderName(i).equalsIgnoreCase(name)) {
+                        this.notModified.setHeader(response.getHeaderName(i), response.getHeaderValue(i));
+                    }
+                }
+            }
+        }
+    }
+}
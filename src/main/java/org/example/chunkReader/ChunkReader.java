@@ -20,12 +20,23 @@ public class ChunkReader extends InputStream {
      * @throws IllegalArgumentException if numBytesPerRead is less than 1
      */
     public ChunkReader(String data, int numBytesPerRead) {
+        this(data.getBytes(), numBytesPerRead);
+    }
+
+    /**
+     * Creates a new chunkReader over a byte array, without copying it.
+     *
+     * @param data            the bytes to read from
+     * @param numBytesPerRead maximum bytes to read per operation
+     * @throws IllegalArgumentException if numBytesPerRead is less than 1
+     */
+    public ChunkReader(byte[] data, int numBytesPerRead) {
 
         if (numBytesPerRead < 1) {
             throw new IllegalArgumentException("numBytesPerRead must be at least 1, got: " + numBytesPerRead);
         }
 
-        this.data = data.getBytes();
+        this.data = data;
         this.numBytesPerRead = numBytesPerRead;
         this.position = 0;
     }
@@ -53,6 +64,20 @@ public class ChunkReader extends InputStream {
      */
     @Override
     public int read(byte[] buffer) throws IOException {
+        return read(buffer, 0, buffer.length);
+    }
+
+    /**
+     * Reads up to numBytesPerRead bytes into the provided buffer, starting at the given offset.
+     *
+     * @param buffer the buffer to read data into
+     * @param offset the index in the buffer at which to start writing
+     * @param length the maximum number of bytes to write into the buffer
+     * @return the number of bytes actually read, or -1 if end of stream
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
 
         if (position >= data.length) {
             return -1;
@@ -66,11 +91,11 @@ public class ChunkReader extends InputStream {
 
         int bytesToCopy = endIndex - position;
 
-        if (bytesToCopy > buffer.length) {
-            bytesToCopy = buffer.length;
+        if (bytesToCopy > length) {
+            bytesToCopy = length;
         }
 
-        System.arraycopy(data, position, buffer, 0, bytesToCopy);
+        System.arraycopy(data, position, buffer, offset, bytesToCopy);
 
         position += bytesToCopy;
 
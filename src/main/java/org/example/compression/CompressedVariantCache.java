@@ -0,0 +1,120 @@
+package org.example.compression;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache of compressed response bodies, bounded by the total number of bytes held.
+ * Entries are evicted least recently used first.
+ * <p>
+ * A variant is keyed by the request target, the response's ETag and the coding, so a resource that
+ * changes gets a new ETag and is compressed afresh, while the stale variant ages out. Bodies that
+ * did not shrink when compressed are remembered too, so they are not compressed again just to
+ * find that out.
+ */
+public class CompressedVariantCache {
+
+    private static final ByteBuffer NOT_SMALLER = ByteBuffer.allocate(0).asReadOnlyBuffer();
+
+    private final long maxBytes;
+    private final LinkedHashMap<Key, ByteBuffer> variants;
+    private long totalBytes;
+    private long hits;
+    private long misses;
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param maxBytes the maximum total size of the cached compressed bodies
+     * @throws IllegalArgumentException if maxBytes is negative
+     */
+    public CompressedVariantCache(long maxBytes) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("maxBytes must not be negative, got: " + maxBytes);
+        }
+
+        this.maxBytes = maxBytes;
+        this.variants = new LinkedHashMap<>(16, 0.75f, true);
+        this.totalBytes = 0;
+    }
+
+    /**
+     * Looks up a compressed variant.
+     *
+     * @param target   the request target the body was served for
+     * @param etag     the response's entity tag
+     * @param encoding the coding of the variant
+     * @return a read-only view of the compressed body, an empty buffer if compressing did not make
+     * the body smaller, or null if the variant is not cached
+     */
+    public synchronized ByteBuffer get(String target, String etag, ContentEncoding encoding) {
+        ByteBuffer variant = this.variants.get(new Key(target, etag, encoding));
+        if (variant == null) {
+            this.misses++;
+            return null;
+        }
+        this.hits++;
+        return variant.duplicate();
+    }
+
+    /**
+     * Stores a compressed variant, evicting the least recently used ones if the cache is over its size.
+     *
+     * @param target   the request target the body was served for
+     * @param etag     the response's entity tag
+     * @param encoding the coding of the variant
+     * @param variant  the compressed body, or null to record that compressing did not make it smaller
+     */
+    public void put(String target, String etag, ContentEncoding encoding, ByteBuffer variant) {
+        ByteBuffer stored = variant == null ? NOT_SMALLER : variant.asReadOnlyBuffer();
+        if (stored.remaining() > this.maxBytes) {
+            return;
+        }
+
+        synchronized (this) {
+            ByteBuffer previous = this.variants.put(new Key(target, etag, encoding), stored);
+            if (previous != null) {
+                this.totalBytes -= previous.remaining();
+            }
+            this.totalBytes += stored.remaining();
+
+            Iterator<Map.Entry<Key, ByteBuffer>> eldest = this.variants.entrySet().iterator();
+            while (this.totalBytes > this.maxBytes && eldest.hasNext()) {
+                this.totalBytes -= eldest.next().getValue().remaining();
+                eldest.remove();
+            }
+        }
+    }
+
+    /**
+     * Returns the total size of the cached compressed bodies.
+     *
+     * @return the number of bytes held
+     */
+    public synchronized long getTotalBytes() {
+        return this.totalBytes;
+    }
+
+    /**
+     * Returns the number of lookups that found a variant.
+     *
+     * @return the hit count
+     */
+    public synchronized long getHits() {
+        return this.hits;
+    }
+
+    /**
+     * Returns the number of lookups that found nothing.
+     *
+     * @return the miss count
+     */
+    public synchronized long getMisses() {
+        return this.misses;
+    }
+
+    private record Key(String target, String etag, ContentEncoding encoding) {
+    }
+}
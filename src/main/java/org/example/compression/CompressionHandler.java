@@ -0,0 +1,178 @@
+package org.example.compression;
+
+import org.example.headers.HeaderNames;
+import org.example.request.BodySink;
+import org.example.request.Request;
+import org.example.response.Response;
+import org.example.response.StatusCode;
+import org.example.server.RequestHandler;
+
+import java.nio.ByteBuffer;
+import java.util.Locale;
+
+/**
+ * Wraps a handler and compresses its responses with gzip or deflate, as negotiated from the
+ * request's Accept-Encoding header.
+ * <p>
+ * Only bodies worth the CPU are compressed: buffer bodies of at least a minimum size, whose
+ * Content-Type is text-like, that are not already encoded. File bodies are sent untouched, since
+ * they are streamed from disk with a Content-Length known in advance. Compression uses Deflaters
+ * from a DeflaterPool, so no native zlib state is allocated per response.
+ * <p>
+ * A response with an ETag is a stable representation, so its compressed variant is kept in a
+ * CompressedVariantCache and a hot resource is compressed only once. Responses without one are
+ * compressed every time they are sent. A compressed variant's ETag is made weak, as it is not
+ * byte-for-byte the tagged representation but still validates against it, so conditional
+ * requests from clients holding the compressed copy still get 304. Every compressible response
+ * carries Vary: Accept-Encoding, so caches keep the variants apart.
+ */
+public class CompressionHandler implements RequestHandler {
+
+    private static final int DEFAULT_MIN_LENGTH = 1024;
+    private static final long DEFAULT_CACHE_BYTES = 16L * 1024 * 1024;
+
+    private final RequestHandler delegate;
+    private final DeflaterPool deflaterPool;
+    private final CompressedVariantCache cache;
+    private final int minLength;
+
+    /**
+     * Creates a handler that compresses bodies of 1 KB or more with the default Deflater pool
+     * and a 16 MB variant cache.
+     *
+     * @param delegate the handler whose responses are compressed
+     */
+    public CompressionHandler(RequestHandler delegate) {
+        this(delegate, DeflaterPool.getDefault(), new CompressedVariantCache(DEFAULT_CACHE_BYTES), DEFAULT_MIN_LENGTH);
+    }
+
+    /**
+     * Creates a handler that compresses its delegate's responses.
+     *
+     * @param delegate     the handler whose responses are compressed
+     * @param deflaterPool the pool Deflaters are borrowed from
+     * @param cache        the cache of compressed variants of responses with an ETag
+     * @param minLength    the smallest body worth compressing, in bytes
+     */
+    public CompressionHandler(RequestHandler delegate, DeflaterPool deflaterPool, CompressedVariantCache cache, int minLength) {
+        this.delegate = delegate;
+        this.deflaterPool = deflaterPool;
+        this.cache = cache;
+        this.minLength = minLength;
+    }
+
+    /**
+     * Passes the request to the delegate and compresses its response if the client accepts it
+     * and the body is worth compressing.
+     *
+     * @param request the parsed request
+     * @return the delegate's response, or a compressed copy of it
+     */
+    @Override
+    public Response handle(Request request) {
+        Response response = this.delegate.handle(request);
+        if (!isCompressible(response)) {
+            return response;
+        }
+
+        ContentEncoding encoding = ContentEncoding.negotiate(request.getHeaders().getValue(HeaderNames.ACCEPT_ENCODING));
+        if (encoding == ContentEncoding.IDENTITY) {
+            return withHeaders(response, null, response.getBody());
+        }
+
+        String etag = response.getHeader(HeaderNames.ETAG);
+        String target = request.getRequestLine().requestTarget();
+        ByteBuffer compressed = etag == null ? null : this.cache.get(target, etag, encoding);
+
+        if (compressed == null) {
+            compressed = this.deflaterPool.compress(response.getBody(), encoding);
+            if (compressed.remaining() >= response.getBodyLength()) {
+                compressed = ByteBuffer.allocate(0);
+                if (etag != null) {
+                    this.cache.put(target, etag, encoding, null);
+                }
+            } else if (etag != null) {
+                this.cache.put(target, etag, encoding, compressed);
+            }
+        }
+
+        if (!compressed.hasRemaining()) {
+            return withHeaders(response, null, response.getBody());
+        }
+        return withHeaders(response, encoding, compressed);
+    }
+
+    /**
+     * Asks the delegate where the request body should go.
+     *
+     * @param request the request whose headers have been parsed
+     * @return the delegate's sink
+     */
+    @Override
+    public BodySink bodySink(Request request) {
+        return this.delegate.bodySink(request);
+    }
+
+    /**
+     * Asks the delegate whether requests may be reused. Negotiation only reads the request's
+     * Accept-Encoding header while the response is being built.
+     *
+     * @return the delegate's answer
+     */
+    @Override
+    public boolean releasesRequest() {
+        return this.delegate.releasesRequest();
+    }
+
+    private boolean isCompressible(Response response) {
+        if (response.getFileBody() != null || response.getBodyLength() < this.minLength
+                || response.getStatus() == StatusCode.NO_CONTENT || response.getStatus() == StatusCode.NOT_MODIFIED
+                || response.getHeader(HeaderNames.CONTENT_ENCODING) != null) {
+            return false;
+        }
+
+        String contentType = response.getHeader(HeaderNames.CONTENT_TYPE);
+        if (contentType == null) {
+            return false;
+        }
+        String type = contentType.toLowerCase(Locale.ROOT);
+        return type.startsWith("text/") || type.startsWith("application/json") || type.startsWith("application/javascript")
+                || type.startsWith("application/xml") || type.startsWith("image/svg+xml") || type.startsWith("application/wasm");
+    }
+
+    /**
+     * Copies a response with Vary: Accept-Encoding added, and, for a compressed variant,
+     * a Content-Encoding header and a weak ETag. The delegate's response is never modified,
+     * since a handler may send the same Response more than once.
+     *
+     * @param encoding the coding of the new body, or null if it is sent as is
+     */
+    private static Response withHeaders(Response response, ContentEncoding encoding, ByteBuffer body) {
+        Response copy = new Response(response.getStatus());
+        boolean varySet = false;
+
+        for (int i = 0; i < response.getHeaderCount(); i++) {
+            String name = response.getHeaderName(i);
+            String value = response.getHeaderValue(i);
+
+            if (name.equalsIgnoreCase(HeaderNames.VARY)) {
+                varySet = true;
+                if (!value.toLowerCase(Locale.ROOT).contains(HeaderNames.ACCEPT_ENCODING) && !value.trim().equals("*")) {
+                    value = value + ", Accept-Encoding";
+                }
+            } else if (encoding != null && name.equalsIgnoreCase(HeaderNames.ETAG) && !value.startsWith("W/")) {
+                value = "W/" + value;
+            }
+            copy.setHeader(name, value);
+        }
+
+        if (!varySet) {
+            copy.setHeader("Vary", "Accept-Encoding");
+        }
+        if (encoding != null) {
+            copy.setHeader("Content-Encoding", encoding.getToken());
+        }
+        copy.setBody(body);
+        return copy;
+    }
+}
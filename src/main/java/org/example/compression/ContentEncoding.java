@@ -0,0 +1,91 @@
+package org.example.compression;
+
+import java.util.Locale;
+
+/**
+ * The content codings the server can send, and negotiation of one of them from an Accept-Encoding value.
+ */
+public enum ContentEncoding {
+    GZIP("gzip"),
+    DEFLATE("deflate"),
+    IDENTITY("identity");
+
+    private final String token;
+
+    ContentEncoding(String token) {
+        this.token = token;
+    }
+
+    /**
+     * Returns the token sent in the Content-Encoding header.
+     *
+     * @return the coding's token, e.g. "gzip"
+     */
+    public String getToken() {
+        return this.token;
+    }
+
+    /**
+     * Chooses the coding to send for an Accept-Encoding value. The coding with the highest
+     * q-value wins, an explicit entry overrides "*", and q=0 rules a coding out. On a tie gzip
+     * is preferred to deflate, since some clients still mishandle raw deflate.
+     * Without an Accept-Encoding header the response is sent as is.
+     *
+     * @param acceptEncoding the Accept-Encoding header value, or null if there was none
+     * @return GZIP or DEFLATE if the client accepts one of them, otherwise IDENTITY
+     */
+    public static ContentEncoding negotiate(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return IDENTITY;
+        }
+
+        double gzip = -1;
+        double deflate = -1;
+        double wildcard = -1;
+
+        for (String element : acceptEncoding.split(",")) {
+            int semicolon = element.indexOf(';');
+            String coding = (semicolon == -1 ? element : element.substring(0, semicolon)).trim().toLowerCase(Locale.ROOT);
+            double quality = semicolon == -1 ? 1 : parseQuality(element.substring(semicolon + 1));
+
+            switch (coding) {
+                case "gzip", "x-gzip" -> gzip = Math.max(gzip, quality);
+                case "deflate" -> deflate = Math.max(deflate, quality);
+                case "*" -> wildcard = Math.max(wildcard, quality);
+                default -> {
+                }
+            }
+        }
+
+        if (gzip == -1) {
+            gzip = wildcard;
+        }
+        if (deflate == -1) {
+            deflate = wildcard;
+        }
+        if (gzip <= 0 && deflate <= 0) {
+            return IDENTITY;
+        }
+        return gzip >= deflate ? GZIP : DEFLATE;
+    }
+
+    /**
+     * Parses the parameters after a coding, returning its q-value.
+     *
+     * @return the q-value, 1 if there is none, or 0 if it is malformed
+     */
+    private static double parseQuality(String parameters) {
+        for (String parameter : parameters.split(";")) {
+            String trimmed = parameter.trim();
+            if (trimmed.length() > 2 && (trimmed.charAt(0) == 'q' || trimmed.charAt(0) == 'Q') && trimmed.charAt(1) == '=') {
+                try {
+                    double quality = Double.parseDouble(trimmed.substring(2));
+                    return quality >= 0 && quality <= 1 ? quality : 0;
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,151 @@
+package org.example.compression;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * A bounded pool of Deflaters at one compression level.
+ * <p>
+ * Every Deflater holds a zlib stream in native memory, which is only freed by {@link Deflater#end()}
+ * or, much later, by the garbage collector. Allocating one per response therefore costs a native
+ * allocation and leaves native memory waiting on GC. Pooled Deflaters are reset and reused instead.
+ * <p>
+ * Raw deflate streams, used inside gzip, and zlib-wrapped streams, used for the HTTP deflate coding,
+ * need differently configured Deflaters, so they are pooled separately. When a pool is empty a new
+ * Deflater is created; when it is full a returned Deflater is ended rather than kept.
+ */
+public class DeflaterPool {
+
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+    private static final int GZIP_TRAILER_SIZE = 8;
+    private static final int DEFAULT_MAX_IDLE = 2 * Runtime.getRuntime().availableProcessors();
+    private static final DeflaterPool DEFAULT = new DeflaterPool(Deflater.DEFAULT_COMPRESSION, DEFAULT_MAX_IDLE);
+
+    private final int level;
+    private final ArrayBlockingQueue<Deflater> raw;
+    private final ArrayBlockingQueue<Deflater> wrapped;
+
+    /**
+     * Creates an empty pool.
+     *
+     * @param level   the compression level, from 0 to 9, or Deflater.DEFAULT_COMPRESSION
+     * @param maxIdle the most Deflaters of each kind kept between uses
+     * @throws IllegalArgumentException if the level is out of range or maxIdle is less than 1
+     */
+    public DeflaterPool(int level, int maxIdle) {
+        if ((level < 0 || level > 9) && level != Deflater.DEFAULT_COMPRESSION) {
+            throw new IllegalArgumentException("Invalid compression level: " + level);
+        }
+        if (maxIdle < 1) {
+            throw new IllegalArgumentException("maxIdle must be at least 1, got: " + maxIdle);
+        }
+
+        this.level = level;
+        this.raw = new ArrayBlockingQueue<>(maxIdle);
+        this.wrapped = new ArrayBlockingQueue<>(maxIdle);
+    }
+
+    /**
+     * Returns the shared pool at the default compression level, keeping up to two idle
+     * Deflaters of each kind per available processor.
+     *
+     * @return the default pool
+     */
+    public static DeflaterPool getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Takes a Deflater from the pool, or creates one if none is idle.
+     *
+     * @param nowrap true for a raw deflate stream, false for a zlib-wrapped one
+     * @return a Deflater ready for new input
+     */
+    public Deflater acquire(boolean nowrap) {
+        Deflater deflater = (nowrap ? this.raw : this.wrapped).poll();
+        return deflater != null ? deflater : new Deflater(this.level, nowrap);
+    }
+
+    /**
+     * Resets a Deflater and returns it to the pool, or ends it if the pool is full.
+     *
+     * @param deflater a Deflater obtained from {@link #acquire(boolean)} with the same nowrap
+     * @param nowrap   the nowrap value it was acquired with
+     */
+    public void release(Deflater deflater, boolean nowrap) {
+        deflater.reset();
+        if (!(nowrap ? this.raw : this.wrapped).offer(deflater)) {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Compresses a whole body with a pooled Deflater.
+     *
+     * @param body     the bytes between the buffer's position and limit; the buffer itself is not changed
+     * @param encoding GZIP for a gzip member, DEFLATE for a zlib stream
+     * @return a new buffer holding exactly the encoded bytes
+     * @throws IllegalArgumentException if the encoding is IDENTITY
+     */
+    public ByteBuffer compress(ByteBuffer body, ContentEncoding encoding) {
+        if (encoding == ContentEncoding.IDENTITY) {
+            throw new IllegalArgumentException("Nothing to compress for the identity coding");
+        }
+
+        boolean gzip = encoding == ContentEncoding.GZIP;
+        int length = body.remaining();
+        // zlib's compressBound, so that one pass normally fits
+        byte[] out = new byte[length + (length >> 12) + (length >> 14) + (length >> 25) + 13
+                + GZIP_HEADER.length + GZIP_TRAILER_SIZE];
+        int position = 0;
+        if (gzip) {
+            System.arraycopy(GZIP_HEADER, 0, out, 0, GZIP_HEADER.length);
+            position = GZIP_HEADER.length;
+        }
+
+        Deflater deflater = acquire(gzip);
+        try {
+            deflater.setInput(body.duplicate());
+            deflater.finish();
+            while (!deflater.finished()) {
+                if (position == out.length) {
+                    out = Arrays.copyOf(out, out.length * 2);
+                }
+                position += deflater.deflate(out, position, out.length - position);
+            }
+        } finally {
+            release(deflater, gzip);
+        }
+
+        if (gzip) {
+            if (position + GZIP_TRAILER_SIZE > out.length) {
+                out = Arrays.copyOf(out, position + GZIP_TRAILER_SIZE);
+            }
+            CRC32 crc = new CRC32();
+            crc.update(body.duplicate());
+            position = putIntLittleEndian(out, position, (int) crc.getValue());
+            position = putIntLittleEndian(out, position, length);
+        }
+        return ByteBuffer.wrap(Arrays.copyOf(out, position));
+    }
+
+    /**
+     * Returns the number of idle Deflaters held.
+     *
+     * @return the idle count across both kinds
+     */
+    public int getIdleCount() {
+        return this.raw.size() + this.wrapped.size();
+    }
+
+    private static int putIntLittleEndian(byte[] out, int position, int value) {
+        out[position] = (byte) value;
+        out[position + 1] = (byte) (value >>> 8);
+        out[position + 2] = (byte) (value >>> 16);
+        out[position + 3] = (byte) (value >>> 24);
+        return position + 4;
+    }
+}
@@ -0,0 +1,112 @@
+package org.example.files;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * In-heap cache of small file contents, bounded by the total number of bytes held.
+ * Entries are evicted least recently used first. Each entry remembers the size and
+ * modification time the file had when it was read, and is reread if either has changed.
+ * <p>
+ * Files are read outside the cache lock, so a slow disk read never blocks hits on other files.
+ */
+public class FileCache {
+
+    private final long maxBytes;
+    private final LinkedHashMap<Path, Entry> entries;
+    private long totalBytes;
+    private long hits;
+    private long misses;
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param maxBytes the maximum total size of the cached file contents
+     * @throws IllegalArgumentException if maxBytes is negative
+     */
+    public FileCache(long maxBytes) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("maxBytes must not be negative, got: " + maxBytes);
+        }
+
+        this.maxBytes = maxBytes;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+        this.totalBytes = 0;
+    }
+
+    /**
+     * Returns the contents of a file, reading it into the cache if it is not cached
+     * or has changed since it was cached.
+     *
+     * @param path         the file to read
+     * @param size         the current size of the file
+     * @param lastModified the current modification time of the file, in milliseconds since the epoch
+     * @return a read-only buffer holding the file contents
+     * @throws IOException if the file cannot be read
+     */
+    public ByteBuffer get(Path path, long size, long lastModified) throws IOException {
+        synchronized (this) {
+            Entry entry = this.entries.get(path);
+            if (entry != null && entry.content.remaining() == size && entry.lastModified == lastModified) {
+                this.hits++;
+                return entry.content;
+            }
+            this.misses++;
+        }
+
+        ByteBuffer content = ByteBuffer.wrap(Files.readAllBytes(path)).asReadOnlyBuffer();
+        if (content.remaining() == size && size <= this.maxBytes) {
+            put(path, new Entry(content, lastModified));
+        }
+        return content;
+    }
+
+    /**
+     * Returns the total size of the cached file contents.
+     *
+     * @return the number of bytes held
+     */
+    public synchronized long getTotalBytes() {
+        return this.totalBytes;
+    }
+
+    /**
+     * Returns the number of lookups served from the cache.
+     *
+     * @return the hit count
+     */
+    public synchronized long getHits() {
+        return this.hits;
+    }
+
+    /**
+     * Returns the number of lookups that had to read the file.
+     *
+     * @return the miss count
+     */
+    public synchronized long getMisses() {
+        return this.misses;
+    }
+
+    private synchronized void put(Path path, Entry entry) {
+        Entry previous = this.entries.put(path, entry);
+        if (previous != null) {
+            this.totalBytes -= previous.content.remaining();
+        }
+        this.totalBytes += entry.content.remaining();
+
+        Iterator<Map.Entry<Path, Entry>> eldest = this.entries.entrySet().iterator();
+        while (this.totalBytes > this.maxBytes && eldest.hasNext()) {
+            this.totalBytes -= eldest.next().getValue().content.remaining();
+            eldest.remove();
+        }
+    }
+
+    private record Entry(ByteBuffer content, long lastModified) {
+    }
+}
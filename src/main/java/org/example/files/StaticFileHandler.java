@@ -0,0 +1,246 @@
+package org.example.files;
+
+import org.example.headers.HeaderNames;
+import org.example.request.Method;
+import org.example.request.Request;
+import org.example.response.DateCache;
+import org.example.response.FileRegion;
+import org.example.response.Response;
+import org.example.response.StatusCode;
+import org.example.server.RequestHandler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Serves the files under a root directory, mapping the request target path onto it.
+ * A request for a directory is served its index.html. Only GET and HEAD are allowed.
+ * <p>
+ * Files up to a configurable size are served from an in-heap FileCache, so hot small files
+ * cost no disk access. Larger files are sent as a FileRegion, which the server writes with
+ * FileChannel.transferTo straight from the page cache to the socket.
+ * <p>
+ * Every response carries an ETag built from the file's size and modification time and a
+ * Last-Modified date. A request whose If-None-Match matches the ETag, or, when there is no
+ * If-None-Match, whose If-Modified-Since is not older than the file, gets a 304 Not Modified.
+ */
+public class StaticFileHandler implements RequestHandler {
+
+    private static final long DEFAULT_CACHE_BYTES = 64L * 1024 * 1024;
+    private static final int DEFAULT_MAX_CACHED_FILE_SIZE = 64 * 1024;
+    private static final String INDEX_FILE = "index.html";
+    private static final String DEFAULT_CONTENT_TYPE = "application/octet-stream";
+
+    private static final Map<String, String> CONTENT_TYPES = Map.ofEntries(
+            Map.entry("html", "text/html; charset=utf-8"),
+            Map.entry("htm", "text/html; charset=utf-8"),
+            Map.entry("css", "text/css; charset=utf-8"),
+            Map.entry("js", "text/javascript; charset=utf-8"),
+            Map.entry("json", "application/json"),
+            Map.entry("txt", "text/plain; charset=utf-8"),
+            Map.entry("xml", "application/xml"),
+            Map.entry("svg", "image/svg+xml"),
+            Map.entry("png", "image/png"),
+            Map.entry("jpg", "image/jpeg"),
+            Map.entry("jpeg", "image/jpeg"),
+            Map.entry("gif", "image/gif"),
+            Map.entry("webp", "image/webp"),
+            Map.entry("ico", "image/x-icon"),
+            Map.entry("wasm", "application/wasm"),
+            Map.entry("pdf", "application/pdf"),
+            Map.entry("woff2", "font/woff2")
+    );
+
+    private final Path root;
+    private final FileCache cache;
+    private final int maxCachedFileSize;
+
+    /**
+     * Creates a handler serving the given directory with a 64 MB cache of files up to 64 KB.
+     *
+     * @param root the directory to serve
+     */
+    public StaticFileHandler(Path root) {
+        this(root, new FileCache(DEFAULT_CACHE_BYTES), DEFAULT_MAX_CACHED_FILE_SIZE);
+    }
+
+    /**
+     * Creates a handler serving the given directory.
+     *
+     * @param root              the directory to serve
+     * @param cache             the cache small files are served from
+     * @param maxCachedFileSize the largest file size served from the cache; larger files are sent with transferTo
+     */
+    public StaticFileHandler(Path root, FileCache cache, int maxCachedFileSize) {
+        this.root = root.toAbsolutePath().normalize();
+        this.cache = cache;
+        this.maxCachedFileSize = maxCachedFileSize;
+    }
+
+    /**
+     * Serves the file named by the request target.
+     *
+     * @param request the parsed request
+     * @return the file, a 304 Not Modified, or an error response
+     */
+    @Override
+    public Response handle(Request request) {
+        Method method = request.getRequestLine().getMethod();
+        if (method != Method.GET && method != Method.HEAD) {
+            Response response = Response.text(StatusCode.METHOD_NOT_ALLOWED, "Method Not Allowed");
+            response.setHeader("Allow", "GET, HEAD");
+            return response;
+        }
+
+        try {
+            Path path = resolve(request.getRequestLine().requestTargetBytes());
+            if (path == null) {
+                return Response.text(StatusCode.NOT_FOUND, "Not Found");
+            }
+
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            if (attributes.isDirectory()) {
+                path = path.resolve(INDEX_FILE);
+                attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            }
+            if (!attributes.isRegularFile()) {
+                return Response.text(StatusCode.NOT_FOUND, "Not Found");
+            }
+
+            return serve(request, path, attributes);
+        } catch (NoSuchFileException e) {
+            return Response.text(StatusCode.NOT_FOUND, "Not Found");
+        } catch (IOException e) {
+            return Response.text(StatusCode.INTERNAL_SERVER_ERROR, "Internal Server Error");
+        }
+    }
+
+    private Response serve(Request request, Path path, BasicFileAttributes attributes) throws IOException {
+        long size = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        String etag = "\"" + Long.toHexString(lastModified) + "-" + Long.toHexString(size) + "\"";
+        String lastModifiedDate = DateCache.format(Math.floorDiv(lastModified, 1000));
+
+        if (isNotModified(request, etag, Math.floorDiv(lastModified, 1000))) {
+            Response response = new Response(StatusCode.NOT_MODIFIED);
+            response.setHeader("ETag", etag);
+            response.setHeader("Last-Modified", lastModifiedDate);
+            return response;
+        }
+
+        Response response = new Response(StatusCode.OK);
+        response.setHeader("Content-Type", contentType(path));
+        response.setHeader("ETag", etag);
+        response.setHeader("Last-Modified", lastModifiedDate);
+
+        if (size <= this.maxCachedFileSize) {
+            response.setBody(this.cache.get(path, size, lastModified));
+        } else {
+            response.setBody(new FileRegion(path, 0, size));
+        }
+        return response;
+    }
+
+    /**
+     * Releases every request. Only the target and the conditional headers are read, while the
+     * response is being built; the response never refers back to the request.
+     *
+     * @return true
+     */
+    @Override
+    public boolean releasesRequest() {
+        return true;
+    }
+
+    /**
+     * Decides whether a conditional request can be answered with 304 Not Modified.
+     * If-None-Match takes precedence; If-Modified-Since is only used when it is absent.
+     */
+    private static boolean isNotModified(Request request, String etag, long lastModifiedSecond) {
+        String ifNoneMatch = request.getHeaders().getValue(HeaderNames.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if (tag.equals("*") || tag.equals(etag) || (tag.startsWith("W/") && tag.substring(2).equals(etag))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        String ifModifiedSince = request.getHeaders().getValue(HeaderNames.IF_MODIFIED_SINCE);
+        if (ifModifiedSince != null) {
+            long since = DateCache.parse(ifModifiedSince);
+            return since != -1 && lastModifiedSecond <= since;
+        }
+        return false;
+    }
+
+    /**
+     * Maps a request target onto a path under the root directory.
+     * The query string is dropped and percent-escapes are decoded. Targets that would
+     * escape the root, or contain a NUL byte, map to nothing.
+     *
+     * @param target the raw request target bytes
+     * @return the path under the root, or null if the target does not name one
+     */
+    private Path resolve(byte[] target) {
+        ByteArrayOutputStream decoded = new ByteArrayOutputStream(target.length);
+
+        for (int i = 0; i < target.length; i++) {
+            byte b = target[i];
+            if (b == '?' || b == '#') {
+                break;
+            }
+            if (b == '%' && i + 2 < target.length && hexValue(target[i + 1]) != -1 && hexValue(target[i + 2]) != -1) {
+                b = (byte) (hexValue(target[i + 1]) << 4 | hexValue(target[i + 2]));
+                i += 2;
+            }
+            if (b == 0) {
+                return null;
+            }
+            decoded.write(b);
+        }
+
+        try {
+            String relative = decoded.toString(StandardCharsets.UTF_8);
+            while (relative.startsWith("/")) {
+                relative = relative.substring(1);
+            }
+            Path path = this.root.resolve(relative).normalize();
+            return path.startsWith(this.root) ? path : null;
+        } catch (InvalidPathException e) {
+            return null;
+        }
+    }
+
+    private static int hexValue(byte b) {
+        if (b >= '0' && b <= '9') {
+            return b - '0';
+        }
+        if (b >= 'a' && b <= 'f') {
+            return b - 'a' + 10;
+        }
+        if (b >= 'A' && b <= 'F') {
+            return b - 'A' + 10;
+        }
+        return -1;
+    }
+
+    private static String contentType(Path path) {
+        String name = path.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        if (dot == -1) {
+            return DEFAULT_CONTENT_TYPE;
+        }
+        return CONTENT_TYPES.getOrDefault(name.substring(dot + 1).toLowerCase(Locale.ROOT), DEFAULT_CONTENT_TYPE);
+    }
+}
@@ -0,0 +1,167 @@
+package org.example.headers;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+/**
+ * Shared lowercase constants for well-known HTTP header names, and byte-level helpers
+ * for recognising and validating header names without building intermediate Strings.
+ * <p>
+ * Names are looked up with a table indexed by name length; each slot holds the few
+ * well-known names of that length, compared case-insensitively against the raw bytes.
+ * A match returns the shared constant, so parsing a common header allocates no String
+ * for its name and later lookups hit String.equals' identity fast path.
+ */
+public final class HeaderNames {
+
+    public static final String ACCEPT = "accept";
+    public static final String ACCEPT_CHARSET = "accept-charset";
+    public static final String ACCEPT_ENCODING = "accept-encoding";
+    public static final String ACCEPT_LANGUAGE = "accept-language";
+    public static final String AUTHORIZATION = "authorization";
+    public static final String CACHE_CONTROL = "cache-control";
+    public static final String CONNECTION = "connection";
+    public static final String CONTENT_ENCODING = "content-encoding";
+    public static final String CONTENT_LENGTH = "content-length";
+    public static final String CONTENT_TYPE = "content-type";
+    public static final String COOKIE = "cookie";
+    public static final String DATE = "date";
+    public static final String ETAG = "etag";
+    public static final String EXPECT = "expect";
+    public static final String FORWARDED = "forwarded";
+    public static final String HOST = "host";
+    public static final String IF_MATCH = "if-match";
+    public static final String IF_MODIFIED_SINCE = "if-modified-since";
+    public static final String IF_NONE_MATCH = "if-none-match";
+    public static final String IF_RANGE = "if-range";
+    public static final String IF_UNMODIFIED_SINCE = "if-unmodified-since";
+    public static final String KEEP_ALIVE = "keep-alive";
+    public static final String LAST_MODIFIED = "last-modified";
+    public static final String ORIGIN = "origin";
+    public static final String PRAGMA = "pragma";
+    public static final String RANGE = "range";
+    public static final String REFERER = "referer";
+    public static final String SEC_FETCH_DEST = "sec-fetch-dest";
+    public static final String SEC_FETCH_MODE = "sec-fetch-mode";
+    public static final String SEC_FETCH_SITE = "sec-fetch-site";
+    public static final String TE = "te";
+    public static final String TRAILER = "trailer";
+    public static final String TRANSFER_ENCODING = "transfer-encoding";
+    public static final String UPGRADE = "upgrade";
+    public static final String UPGRADE_INSECURE_REQUESTS = "upgrade-insecure-requests";
+    public static final String USER_AGENT = "user-agent";
+    public static final String VARY = "vary";
+    public static final String VIA = "via";
+    public static final String X_FORWARDED_FOR = "x-forwarded-for";
+    public static final String X_FORWARDED_PROTO = "x-forwarded-proto";
+    public static final String X_REQUESTED_WITH = "x-requested-with";
+
+    private static final String[] WELL_KNOWN = {
+            ACCEPT, ACCEPT_CHARSET, ACCEPT_ENCODING, ACCEPT_LANGUAGE, AUTHORIZATION, CACHE_CONTROL,
+            CONNECTION, CONTENT_ENCODING, CONTENT_LENGTH, CONTENT_TYPE, COOKIE, DATE, ETAG, EXPECT,
+            FORWARDED, HOST, IF_MATCH, IF_MODIFIED_SINCE, IF_NONE_MATCH, IF_RANGE, IF_UNMODIFIED_SINCE,
+            KEEP_ALIVE, LAST_MODIFIED, ORIGIN, PRAGMA, RANGE, REFERER, SEC_FETCH_DEST, SEC_FETCH_MODE,
+            SEC_FETCH_SITE, TE, TRAILER, TRANSFER_ENCODING, UPGRADE, UPGRADE_INSECURE_REQUESTS,
+            USER_AGENT, VARY, VIA, X_FORWARDED_FOR, X_FORWARDED_PROTO, X_REQUESTED_WITH
+    };
+
+    /**
+     * Fields a trailer must not carry (RFC 9110 section 6.5.1): they control framing, routing,
+     * authentication, request modifiers or the content format, so they must be known before the body.
+     */
+    private static final Set<String> NOT_ALLOWED_IN_TRAILER = Set.of(
+            CONTENT_LENGTH, TRANSFER_ENCODING, TRAILER, TE, CONNECTION, KEEP_ALIVE, UPGRADE, HOST,
+            AUTHORIZATION, "proxy-authorization", COOKIE, CACHE_CONTROL, EXPECT, "max-forwards", PRAGMA,
+            RANGE, IF_MATCH, IF_NONE_MATCH, IF_MODIFIED_SINCE, IF_UNMODIFIED_SINCE, IF_RANGE,
+            CONTENT_ENCODING, CONTENT_TYPE, "content-range");
+
+    private static final int MAX_LENGTH = 32;
+    private static final String[][] NAMES_BY_LENGTH = new String[MAX_LENGTH + 1][];
+    private static final byte[][][] BYTES_BY_LENGTH = new byte[MAX_LENGTH + 1][][];
+    private static final boolean[] TOKEN_CHARS = new boolean[256];
+
+    static {
+        for (int length = 0; length <= MAX_LENGTH; length++) {
+            int count = 0;
+            for (String name : WELL_KNOWN) {
+                if (name.length() == length) {
+                    count++;
+                }
+            }
+
+            NAMES_BY_LENGTH[length] = new String[count];
+            BYTES_BY_LENGTH[length] = new byte[count][];
+            int slot = 0;
+            for (String name : WELL_KNOWN) {
+                if (name.length() == length) {
+                    NAMES_BY_LENGTH[length][slot] = name;
+                    BYTES_BY_LENGTH[length][slot] = name.getBytes(StandardCharsets.US_ASCII);
+                    slot++;
+                }
+            }
+        }
+
+        for (int c = '0'; c <= '9'; c++) {
+            TOKEN_CHARS[c] = true;
+        }
+        for (int c = 'a'; c <= 'z'; c++) {
+            TOKEN_CHARS[c] = true;
+            TOKEN_CHARS[c - 'a' + 'A'] = true;
+        }
+        for (char c : "!#$%&'*+-.^_`|~".toCharArray()) {
+            TOKEN_CHARS[c] = true;
+        }
+    }
+
+    private HeaderNames() {
+    }
+
+    /**
+     * Looks up a header name held in a region of a byte array.
+     * The comparison is case-insensitive. The bytes must already have been validated
+     * as token characters, which is what makes the single-bit case fold safe.
+     *
+     * @param data   the byte array containing the header name
+     * @param offset the index of the first byte of the name
+     * @param length the length of the name in bytes
+     * @return the shared lowercase constant for the name, or null if it is not a well-known name
+     */
+    public static String lookup(byte[] data, int offset, int length) {
+        if (length > MAX_LENGTH) {
+            return null;
+        }
+
+        byte[][] candidates = BYTES_BY_LENGTH[length];
+        for (int slot = 0; slot < candidates.length; slot++) {
+            byte[] candidate = candidates[slot];
+            int i = 0;
+            while (i < length && (data[offset + i] | 0x20) == candidate[i]) {
+                i++;
+            }
+            if (i == length) {
+                return NAMES_BY_LENGTH[length][slot];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks whether a byte is a valid token character, as allowed in header names.
+     *
+     * @param b the byte to check
+     * @return true if the byte is a letter, digit or one of !#$%&'*+-.^_`|~
+     */
+    public static boolean isTokenChar(byte b) {
+        return TOKEN_CHARS[b & 0xFF];
+    }
+
+    /**
+     * Checks whether a field may be taken from the trailer section of a chunked body.
+     *
+     * @param name the lowercase header name
+     * @return false for framing, routing, authentication, request modifier and content format fields
+     */
+    public static boolean isAllowedInTrailer(String name) {
+        return !NOT_ALLOWED_IN_TRAILER.contains(name);
+    }
+}
@@ -1,33 +1,122 @@
 package org.example.headers;
 
+import org.example.request.ByteScanner;
+import org.example.request.RequestLimits;
 import org.example.request.RequestParser;
+import org.example.request.RequestTooLargeException;
+import org.example.response.StatusCode;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 
 /**
  * Represents HTTP headers and provides functionality to parse HTTP header data.
- * This class can incrementally parse header data from byte arrays, maintaining
+ * This class can incrementally parse header data from byte arrays in place, maintaining
  * state between parsing calls to handle partial data efficiently.
  * <p>
  * Headers are parsed according to HTTP/1.1 specification, where each header line
  * consists of a field name followed by a colon, optional whitespace, field value,
  * and terminated by CRLF. Multiple headers with the same name are combined with
  * comma separation.
+ * <p>
+ * Values are not decoded while parsing. The raw value bytes of each line are copied into
+ * a single byte array owned by this object and recorded as an (offset, length) slice; a
+ * value is decoded into a String only the first time it is asked for. The bytes have to be
+ * copied because the caller's buffer is compacted and refilled between reads. Checks that
+ * run on every request, such as looking for {@code close} in the Connection header, can
+ * compare the raw bytes directly without decoding anything.
+ * <p>
+ * Headers are kept in insertion order in parallel arrays indexed by slot, one slot per distinct
+ * name, and can be walked with {@link #size()}, {@link #getName(int)} and {@link #getValue(int)}
+ * without building a map. A typical request has few enough headers that a name is found by
+ * scanning an array of the names' hash codes, which Strings cache, and comparing the name itself
+ * only on a hash match; for the interned well-known names that comparison is an identity check.
+ * Beyond {@value #LINEAR_SCAN_LIMIT} headers, lookups go through a small open-addressing table of
+ * slot indexes keyed on the same hash codes, so a request with many headers stays linear.
+ * <p>
+ * Parsing enforces the header limits of a {@link RequestLimits}: the size of the header section,
+ * the number of header lines and the combined length of each value. An incomplete line is checked
+ * against the section limit before the rest of it arrives. A repeated header is extended in place when
+ * its value is the last one copied; otherwise the old value is copied to the end and left behind, and
+ * the dead bytes are compacted away the next time the value array would have to grow, so repeated
+ * names cannot make the copies grow faster than the header section itself.
  */
 public class Headers {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int INITIAL_VALUE_BYTES = 512;
+    private static final byte[] SEPARATOR = {',', ' '};
+    private static final int LINEAR_SCAN_LIMIT = 16;
+
+    private final RequestLimits limits;
+    private int[] slotTable;
+    private String[] names;
+    private int[] nameHashes;
+    private int[] valueOffsets;
+    private int[] valueLengths;
+    private String[] values;
+    private int count;
+    private byte[] valueBytes;
+    private int valueBytesLength;
+    private int deadValueBytes;
+    private int lineCount;
+    private int headerBytes;
     private Map<String, String> headerMap;
     private boolean isDone;
+    private int scannedBytes;
 
     /**
-     * Creates a new Headers instance initialized with an empty header map
-     * and ready to begin parsing.
+     * Creates a new Headers instance with no headers, ready to begin parsing within the default limits.
      */
     public Headers() {
-        this.headerMap = new HashMap<>();
+        this(RequestLimits.getDefault());
+    }
+
+    /**
+     * Creates a new Headers instance with no headers, ready to begin parsing.
+     *
+     * @param limits the header section size, header count and value length limits to parse within
+     */
+    public Headers(RequestLimits limits) {
+        this.limits = limits;
+        this.slotTable = null;
+        this.names = new String[INITIAL_CAPACITY];
+        this.nameHashes = new int[INITIAL_CAPACITY];
+        this.valueOffsets = new int[INITIAL_CAPACITY];
+        this.valueLengths = new int[INITIAL_CAPACITY];
+        this.values = new String[INITIAL_CAPACITY];
+        this.count = 0;
+        this.valueBytes = new byte[INITIAL_VALUE_BYTES];
+        this.valueBytesLength = 0;
+        this.headerMap = null;
+        this.isDone = false;
+        this.scannedBytes = 0;
+    }
+
+    /**
+     * Empties these headers so they can parse the next request's header section.
+     * The slot arrays, the value bytes and the lookup table are kept at their current size
+     * and overwritten, so a reused Headers allocates nothing for a request no larger than
+     * those it has already seen. Maps returned by {@link #getHeaderMap()} are left as they were.
+     */
+    public void reset() {
+        Arrays.fill(this.names, 0, this.count, null);
+        Arrays.fill(this.values, 0, this.count, null);
+        if (this.slotTable != null) {
+            Arrays.fill(this.slotTable, 0);
+        }
+        this.count = 0;
+        this.valueBytesLength = 0;
+        this.deadValueBytes = 0;
+        this.lineCount = 0;
+        this.headerBytes = 0;
+        this.headerMap = null;
         this.isDone = false;
+        this.scannedBytes = 0;
     }
 
     /**
@@ -37,21 +126,50 @@ public class Headers {
      * of the header section.
      *
      * @param data the byte array containing HTTP header data to parse
-     * @return the total number of bytes consumed from the input data, or -1 if more data is needed
+     * @return the total number of bytes consumed from the input data, or 0 if more data is needed
      * @throws IOException if the header data is malformed or contains invalid syntax
      */
     public int parse(byte[] data) throws IOException {
-        int totalBytesParsed = 0;
+        return parse(data, 0, data.length);
+    }
+
+    /**
+     * Parses HTTP header data held in a region of a byte array, in place.
+     * Continues parsing until all complete header lines are consumed or the end of the region is reached.
+     * <p>
+     * When the region ends part way through a header line, the number of bytes already searched
+     * for the line's CRLF is remembered. The next call must present the unconsumed bytes again,
+     * starting at the same byte, and the search resumes where it left off instead of rescanning
+     * the line from its start. This keeps parsing linear when data arrives in small reads.
+     * An incomplete line that can no longer fit in the header section limit is rejected straight away.
+     *
+     * @param data   the byte array containing HTTP header data to parse
+     * @param offset the index of the first unconsumed byte
+     * @param length the number of valid bytes starting at offset
+     * @return the total number of bytes consumed from the region, or 0 if more data is needed
+     * @throws RequestTooLargeException if the headers cross one of the limits
+     * @throws IOException              if the header data is malformed or contains invalid syntax
+     */
+    public int parse(byte[] data, int offset, int length) throws IOException {
+        int end = offset + length;
+        int position = offset;
+
         while (!this.isDone) {
-            int result = parseSingle(data, totalBytesParsed);
+            int crlfIndex = RequestParser.findCRLF(data, position + this.scannedBytes, end);
 
-            if (result == -1) {
+            if (crlfIndex == -1) {
+                this.scannedBytes = Math.max(0, end - position - 1);
+                if (this.headerBytes + end - position >= this.limits.maxHeaderBytes()) {
+                    throw tooLarge("Header section exceeds " + this.limits.maxHeaderBytes() + " bytes");
+                }
                 break;
             }
 
-            totalBytesParsed += result;
+            this.scannedBytes = 0;
+            parseLine(data, position, crlfIndex);
+            position = crlfIndex + 2;
         }
-        return totalBytesParsed;
+        return position - offset;
     }
 
     /**
@@ -62,7 +180,7 @@ public class Headers {
      * @param position the starting position in the byte array to begin parsing
      * @return the number of bytes consumed for this header line, or -1 if incomplete data
      * @throws IOException if the header format is invalid, contains illegal characters,
-     *                     or has improper spacing around the colon separator
+     *                     is missing the colon separator, or has improper spacing around it
      */
     public int parseSingle(byte[] data, int position) throws IOException {
         int crlfIndex = RequestParser.findCRLF(data, position);
@@ -71,66 +189,298 @@ public class Headers {
             return -1;
         }
 
+        parseLine(data, position, crlfIndex);
+        return crlfIndex + 2 - position;
+    }
+
+    /**
+     * Parses one complete header line, or marks the headers as done if the line is empty.
+     *
+     * @param data      the byte array containing the header line
+     * @param position  the index of the first byte of the line
+     * @param crlfIndex the index of the line's CRLF terminator
+     * @throws RequestTooLargeException if the line crosses one of the limits
+     * @throws IOException              if the header format is invalid
+     */
+    private void parseLine(byte[] data, int position, int crlfIndex) throws IOException {
+        this.headerBytes += crlfIndex + 2 - position;
+        if (this.headerBytes > this.limits.maxHeaderBytes()) {
+            throw tooLarge("Header section exceeds " + this.limits.maxHeaderBytes() + " bytes");
+        }
+
         if (crlfIndex == position) {
             this.isDone = true;
-            return 2;
+            return;
         }
 
-        int separatorIndex = position;
+        int separatorIndex = ByteScanner.indexOf(data, (byte) ':', position, crlfIndex);
 
-        for (int i = position; i < data.length - 1; i++) {
-            if (data[i] == ':' && data[i - 1] == ' ') {
-                throw new IOException("Invalid spacing in headers at byte index: " + i);
-            } else if (data[i] == ':') {
-                separatorIndex = i;
-                break;
+        if (++this.lineCount > this.limits.maxHeaderCount()) {
+            throw tooLarge("More than " + this.limits.maxHeaderCount() + " header lines");
+        }
+
+        if (separatorIndex <= position) {
+            throw new IOException("Missing colon separator in header at byte index: " + position);
+        }
+
+        if (data[separatorIndex - 1] == ' ') {
+            throw new IOException("Invalid spacing in headers at byte index: " + separatorIndex);
+        }
+
+        int nameStart = skipWhitespace(data, position, separatorIndex);
+        int nameEnd = trimWhitespace(data, nameStart, separatorIndex);
+
+        for (int i = nameStart; i < nameEnd; i++) {
+            if (!HeaderNames.isTokenChar(data[i])) {
+                throw new IOException("Invalid character in header name: " + (char) (data[i] & 0xFF));
             }
         }
 
-        if (separatorIndex == position) {
-            return -1;
+        if (nameStart == nameEnd) {
+            throw new IOException("Empty header name at byte index: " + position);
+        }
+
+        String key = HeaderNames.lookup(data, nameStart, nameEnd - nameStart);
+        if (key == null) {
+            key = new String(data, nameStart, nameEnd - nameStart, StandardCharsets.US_ASCII).toLowerCase(Locale.ROOT);
         }
 
-        String key = new String(data, position, separatorIndex - position, StandardCharsets.UTF_8);
-        key = key.trim().toLowerCase();
-        String value = new String(data, separatorIndex + 1, crlfIndex - (separatorIndex + 1), StandardCharsets.UTF_8);
-        value = value.trim();
+        int valueStart = skipWhitespace(data, separatorIndex + 1, crlfIndex);
+        int valueEnd = trimWhitespace(data, valueStart, crlfIndex);
+
+        int slot = findSlot(key);
+        int valueLength = valueEnd - valueStart;
+        int combinedLength = slot == -1 ? valueLength : this.valueLengths[slot] + SEPARATOR.length + valueLength;
+        if (combinedLength > this.limits.maxHeaderValueLength()) {
+            throw tooLarge("Value of header " + key + " exceeds " + this.limits.maxHeaderValueLength() + " bytes");
+        }
+
+        add(key, slot, data, valueStart, valueLength);
+    }
 
-        for (char c : key.toCharArray()) {
-            if (!isValidHeaderChar(c)) {
-                throw new IOException("Invalid character in header name: " + c);
+    /**
+     * Adds a header value under a lowercase header name.
+     * If the header is already present the values are combined with comma separation,
+     * exactly as for repeated header lines.
+     *
+     * @param key   the lowercase header name
+     * @param value the header value
+     */
+    public void add(String key, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        add(key, findSlot(key), bytes, 0, bytes.length);
+    }
+
+    /**
+     * Adds every header of another Headers object to this one, combining values
+     * for names that are already present. Values are copied as raw bytes without being decoded.
+     *
+     * @param other the headers to add, such as the trailer fields of a chunked body
+     */
+    public void addAll(Headers other) {
+        for (int i = 0; i < other.count; i++) {
+            add(other.names[i], findSlot(other.names[i]), other.valueBytes, other.valueOffsets[i], other.valueLengths[i]);
+        }
+    }
+
+    /**
+     * Merges the trailer fields of a chunked body into these headers. Fields that may not be sent
+     * in a trailer are dropped, so a trailer cannot change how the request was framed, routed or
+     * authorised after the fact. The trailer's lines and bytes count towards the limits of these
+     * headers, so the merged section is held to the same limits as a header section alone.
+     *
+     * @param trailers the trailer fields, parsed within the same limits
+     * @throws RequestTooLargeException if the merged headers cross one of the limits
+     */
+    public void addTrailers(Headers trailers) throws RequestTooLargeException {
+        this.headerBytes += trailers.headerBytes;
+        if (this.headerBytes > this.limits.maxHeaderBytes()) {
+            throw tooLarge("Header section and trailers exceed " + this.limits.maxHeaderBytes() + " bytes");
+        }
+        this.lineCount += trailers.lineCount;
+        if (this.lineCount > this.limits.maxHeaderCount()) {
+            throw tooLarge("More than " + this.limits.maxHeaderCount() + " header and trailer lines");
+        }
+
+        for (int i = 0; i < trailers.count; i++) {
+            String key = trailers.names[i];
+            if (!HeaderNames.isAllowedInTrailer(key)) {
+                continue;
+            }
+            int slot = findSlot(key);
+            int combinedLength = slot == -1 ? trailers.valueLengths[i]
+                    : this.valueLengths[slot] + SEPARATOR.length + trailers.valueLengths[i];
+            if (combinedLength > this.limits.maxHeaderValueLength()) {
+                throw tooLarge("Value of header " + key + " exceeds " + this.limits.maxHeaderValueLength() + " bytes");
             }
+            add(key, slot, trailers.valueBytes, trailers.valueOffsets[i], trailers.valueLengths[i]);
         }
+    }
+
+    /**
+     * Copies a raw header value into the value bytes and records its slice under the given name.
+     * A repeated name has the comma separator and the new value appended to its old value, which
+     * is first moved to the end of the value bytes unless it is already there.
+     *
+     * @param key    the lowercase header name
+     * @param slot   the slot already holding the name, or -1 if it is new
+     * @param data   the array holding the value bytes
+     * @param offset the index of the first value byte
+     * @param length the number of value bytes
+     */
+    private void add(String key, int slot, byte[] data, int offset, int length) {
+        this.headerMap = null;
 
-        if (headerMap.containsKey(key)) {
-            String combinedValue = headerMap.get(key) + ", " + value;
-            headerMap.put(key, combinedValue);
-        } else {
-            headerMap.put(key, value);
+        if (slot == -1) {
+            if (this.count == this.names.length) {
+                growSlots();
+            }
+            int added = this.count++;
+            this.names[added] = key;
+            this.nameHashes[added] = key.hashCode();
+            this.valueOffsets[added] = appendValueBytes(data, offset, length);
+            this.valueLengths[added] = length;
+            if (this.slotTable != null) {
+                insertIntoTable(added);
+            } else if (this.count > LINEAR_SCAN_LIMIT) {
+                rebuildTable();
+            }
+            return;
         }
 
-        return crlfIndex + 2;
+        int oldLength = this.valueLengths[slot];
+        ensureValueCapacity(oldLength + SEPARATOR.length + length);
+        if (this.valueOffsets[slot] + oldLength != this.valueBytesLength) {
+            this.valueOffsets[slot] = appendValueBytes(this.valueBytes, this.valueOffsets[slot], oldLength);
+            this.deadValueBytes += oldLength;
+        }
+        appendValueBytes(SEPARATOR, 0, SEPARATOR.length);
+        appendValueBytes(data, offset, length);
+        this.valueLengths[slot] = oldLength + SEPARATOR.length + length;
+        this.values[slot] = null;
     }
 
     /**
-     * Returns the complete header map containing all parsed headers.
+     * Returns a map of every header name to its decoded value, in the order the headers arrived.
      * Header names are stored in lowercase, and duplicate headers are combined with comma separation.
+     * Building the map decodes every value, so handlers that only need a few headers should
+     * use {@link #getValue(String)}, or walk the headers by index, instead.
+     * The map is a snapshot and is rebuilt if headers are added.
      *
      * @return a Map containing header names as keys and header values as values
      */
     public Map<String, String> getHeaderMap() {
+        if (this.headerMap == null) {
+            Map<String, String> map = new LinkedHashMap<>();
+            for (int i = 0; i < this.count; i++) {
+                map.put(this.names[i], decode(i));
+            }
+            this.headerMap = map;
+        }
         return this.headerMap;
     }
 
     /**
-     * Retrieves the value for a specific header by name.
-     * Header name lookup is case-insensitive as names are stored in lowercase.
+     * Retrieves the value for a specific header by name, decoding it on first use.
+     * Header name lookup ignores ASCII case; names are stored in lowercase.
      *
      * @param key the header name to look up
      * @return the header value, or null if the header is not present
      */
     public String getValue(String key) {
-        return this.headerMap.get(key);
+        int slot = findSlotIgnoreCase(key);
+        return slot == -1 ? null : decode(slot);
+    }
+
+    /**
+     * Returns the lowercase name of the header at the given index, in the order headers arrived.
+     *
+     * @param index the header index, from 0 to size() - 1
+     * @return the header name
+     * @throws IndexOutOfBoundsException if index is not between 0 and size() - 1
+     */
+    public String getName(int index) {
+        return this.names[Objects.checkIndex(index, this.count)];
+    }
+
+    /**
+     * Returns the value of the header at the given index, decoding it on first use.
+     *
+     * @param index the header index, from 0 to size() - 1
+     * @return the header value, with repeated headers combined
+     * @throws IndexOutOfBoundsException if index is not between 0 and size() - 1
+     */
+    public String getValue(int index) {
+        return decode(Objects.checkIndex(index, this.count));
+    }
+
+    /**
+     * Checks whether a header is present, without decoding its value.
+     *
+     * @param key the lowercase header name to look up
+     * @return true if the header is present
+     */
+    public boolean contains(String key) {
+        return findSlot(key) != -1;
+    }
+
+    /**
+     * Compares a header's raw value with an ASCII string, ignoring ASCII case,
+     * without decoding the value.
+     *
+     * @param key      the lowercase header name to look up
+     * @param expected the ASCII value to compare against
+     * @return true if the header is present and its whole value equals expected
+     */
+    public boolean valueEqualsIgnoreCase(String key, String expected) {
+        int slot = findSlot(key);
+        if (slot == -1) {
+            return false;
+        }
+        return regionEqualsIgnoreCase(this.valueOffsets[slot], this.valueLengths[slot], expected);
+    }
+
+    /**
+     * Checks whether a comma-separated header value contains the given token, ignoring ASCII case
+     * and whitespace around each element, without decoding the value.
+     * For example {@code containsToken("connection", "close")} matches {@code Connection: keep-alive, Close}.
+     *
+     * @param key   the lowercase header name to look up
+     * @param token the ASCII token to look for
+     * @return true if the header is present and one of its elements equals token
+     */
+    public boolean containsToken(String key, String token) {
+        int slot = findSlot(key);
+        if (slot == -1) {
+            return false;
+        }
+
+        int end = this.valueOffsets[slot] + this.valueLengths[slot];
+        int elementStart = this.valueOffsets[slot];
+
+        while (elementStart <= end) {
+            int elementEnd = elementStart;
+            while (elementEnd < end && this.valueBytes[elementEnd] != ',') {
+                elementEnd++;
+            }
+
+            int start = skipWhitespace(this.valueBytes, elementStart, elementEnd);
+            int stop = trimWhitespace(this.valueBytes, start, elementEnd);
+            if (regionEqualsIgnoreCase(start, stop - start, token)) {
+                return true;
+            }
+            elementStart = elementEnd + 1;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of distinct header names.
+     *
+     * @return the number of headers, with repeated names counted once
+     */
+    public int size() {
+        return this.count;
     }
 
     /**
@@ -145,10 +495,175 @@ public class Headers {
     }
 
 
-    private boolean isValidHeaderChar(char c) {
-        String validCharacters = "!#$%&'*+-.^_`|~";
-        if (Character.isLetterOrDigit(c)) return true;
-        else return validCharacters.contains(String.valueOf(c));
+    /**
+     * Finds the slot holding a header name, ignoring ASCII case. Names are stored in lowercase, so
+     * the name is looked up as given first and lowercased only if that fails and it has uppercase
+     * letters in it.
+     *
+     * @param key the header name
+     * @return the slot index, or -1 if the header is not present
+     */
+    private int findSlotIgnoreCase(String key) {
+        int slot = findSlot(key);
+        if (slot == -1 && hasUpperCase(key)) {
+            slot = findSlot(key.toLowerCase(Locale.ROOT));
+        }
+        return slot;
+    }
+
+    /**
+     * Finds the slot holding a lowercase header name.
+     *
+     * @param key the lowercase header name
+     * @return the slot index, or -1 if the header is not present
+     */
+    private int findSlot(String key) {
+        int hash = key.hashCode();
+        if (this.count <= LINEAR_SCAN_LIMIT) {
+            for (int i = 0; i < this.count; i++) {
+                if (this.nameHashes[i] == hash && nameEquals(i, key)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        int mask = this.slotTable.length - 1;
+        for (int i = spread(hash) & mask; this.slotTable[i] != 0; i = (i + 1) & mask) {
+            int slot = this.slotTable[i] - 1;
+            if (this.nameHashes[slot] == hash && nameEquals(slot, key)) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private boolean nameEquals(int slot, String key) {
+        String name = this.names[slot];
+        return name == key || name.equals(key);
+    }
+
+    /**
+     * Records a slot in the lookup table. The table holds slot + 1 so that 0 marks an empty entry,
+     * and is sized at twice the slot capacity so it is never more than half full. Once built, the
+     * table is kept up to date even after a reset, but only consulted beyond the linear scan limit.
+     *
+     * @param slot the slot to record
+     */
+    private void insertIntoTable(int slot) {
+        int mask = this.slotTable.length - 1;
+        int i = spread(this.nameHashes[slot]) & mask;
+        while (this.slotTable[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        this.slotTable[i] = slot + 1;
+    }
+
+    private void rebuildTable() {
+        this.slotTable = new int[this.names.length * 2];
+        for (int i = 0; i < this.count; i++) {
+            insertIntoTable(i);
+        }
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean hasUpperCase(String key) {
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private RequestTooLargeException tooLarge(String message) {
+        return new RequestTooLargeException(StatusCode.REQUEST_HEADER_FIELDS_TOO_LARGE, message);
+    }
+
+    private String decode(int slot) {
+        String value = this.values[slot];
+        if (value == null) {
+            value = new String(this.valueBytes, this.valueOffsets[slot], this.valueLengths[slot], StandardCharsets.UTF_8);
+            this.values[slot] = value;
+        }
+        return value;
+    }
+
+    private boolean regionEqualsIgnoreCase(int offset, int length, String expected) {
+        if (length != expected.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            int b = this.valueBytes[offset + i] & 0xFF;
+            int c = expected.charAt(i);
+            if (b != c && !(b >= 'A' && b <= 'Z' && b + 32 == c) && !(b >= 'a' && b <= 'z' && b - 32 == c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int appendValueBytes(byte[] data, int offset, int length) {
+        ensureValueCapacity(length);
+        int start = this.valueBytesLength;
+        System.arraycopy(data, offset, this.valueBytes, start, length);
+        this.valueBytesLength += length;
+        return start;
+    }
+
+    /**
+     * Makes room for more value bytes. When the array is full it is replaced by one holding only the
+     * live slices, which is only made larger if at least half of the old array was still live.
+     *
+     * @param additional the number of bytes about to be appended
+     */
+    private void ensureValueCapacity(int additional) {
+        if (this.valueBytesLength + additional <= this.valueBytes.length) {
+            return;
+        }
+
+        int live = this.valueBytesLength - this.deadValueBytes;
+        int capacity = this.deadValueBytes >= live ? this.valueBytes.length : this.valueBytes.length * 2;
+        byte[] compacted = new byte[Math.max(live + additional, capacity)];
+        int length = 0;
+        for (int i = 0; i < this.count; i++) {
+            System.arraycopy(this.valueBytes, this.valueOffsets[i], compacted, length, this.valueLengths[i]);
+            this.valueOffsets[i] = length;
+            length += this.valueLengths[i];
+        }
+        this.valueBytes = compacted;
+        this.valueBytesLength = length;
+        this.deadValueBytes = 0;
+    }
+
+    private void growSlots() {
+        int capacity = this.names.length * 2;
+        this.names = Arrays.copyOf(this.names, capacity);
+        this.nameHashes = Arrays.copyOf(this.nameHashes, capacity);
+        this.valueOffsets = Arrays.copyOf(this.valueOffsets, capacity);
+        this.valueLengths = Arrays.copyOf(this.valueLengths, capacity);
+        this.values = Arrays.copyOf(this.values, capacity);
+        if (this.slotTable != null) {
+            rebuildTable();
+        }
+    }
+
+    private static int skipWhitespace(byte[] data, int start, int end) {
+        while (start < end && (data[start] & 0xFF) <= ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    private static int trimWhitespace(byte[] data, int start, int end) {
+        while (end > start && (data[end - 1] & 0xFF) <= ' ') {
+            end--;
+        }
+        return end;
     }
 
 }
@@ -0,0 +1,132 @@
+package org.example.loadgen;
+
+/**
+ * Records latencies with a bounded relative error, in the style of HdrHistogram.
+ * Values are counted in buckets that are linear within each power of two: every power of
+ * two is split into 128 sub-buckets, so any recorded value is reported to within 0.8%,
+ * from single nanoseconds up to hours, in a fixed array of about 7,000 counters.
+ * Not thread-safe; the load generator records from its single event loop thread.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 8;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int HALF = SUB_BUCKETS / 2;
+
+    private final long[] counts;
+    private long count;
+    private long max;
+    private double sum;
+
+    /**
+     * Creates an empty histogram.
+     */
+    public LatencyHistogram() {
+        this.counts = new long[(64 - SUB_BUCKET_BITS + 1) * HALF + HALF];
+        this.count = 0;
+        this.max = 0;
+        this.sum = 0;
+    }
+
+    /**
+     * Records one value.
+     *
+     * @param value the value, in nanoseconds; negative values are recorded as 0
+     */
+    public void record(long value) {
+        long clamped = Math.max(0, value);
+        this.counts[indexOf(clamped)]++;
+        this.count++;
+        this.sum += clamped;
+        this.max = Math.max(this.max, clamped);
+    }
+
+    /**
+     * Records a value measured by a client that only sends its next request once the last
+     * response has arrived, correcting for coordinated omission. If the value is longer than
+     * the interval at which requests were meant to be sent, the requests that would have been
+     * sent, and delayed, during the stall are recorded too, with latencies decreasing by one
+     * interval each, as HdrHistogram's recordValueWithExpectedInterval does.
+     *
+     * @param value            the measured latency in nanoseconds
+     * @param expectedInterval the intended time between requests in nanoseconds, or 0 for no correction
+     */
+    public void recordCorrected(long value, long expectedInterval) {
+        record(value);
+        if (expectedInterval <= 0) {
+            return;
+        }
+        for (long missing = value - expectedInterval; missing >= expectedInterval; missing -= expectedInterval) {
+            record(missing);
+        }
+    }
+
+    /**
+     * Returns the value at a percentile of the recorded values.
+     *
+     * @param percentile the percentile, from 0 to 100
+     * @return the highest value that is equivalent, within the histogram's precision, to the value
+     * below which the given percentage of recorded values fall; 0 if nothing has been recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (this.count == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * this.count));
+        long seen = 0;
+        for (int i = 0; i < this.counts.length; i++) {
+            seen += this.counts[i];
+            if (seen >= rank) {
+                return Math.min(highestEquivalentValue(i), this.max);
+            }
+        }
+        return this.max;
+    }
+
+    /**
+     * Returns the number of values recorded.
+     *
+     * @return the count
+     */
+    public long getCount() {
+        return this.count;
+    }
+
+    /**
+     * Returns the largest value recorded.
+     *
+     * @return the exact maximum in nanoseconds, or 0 if nothing has been recorded
+     */
+    public long getMax() {
+        return this.max;
+    }
+
+    /**
+     * Returns the mean of the values recorded.
+     *
+     * @return the mean in nanoseconds, or 0 if nothing has been recorded
+     */
+    public double getMean() {
+        return this.count == 0 ? 0 : this.sum / this.count;
+    }
+
+    /**
+     * Returns the bucket index of a value. Values below 256 get a bucket each; above that,
+     * the index is the power of two's magnitude followed by the top 8 bits of the value.
+     */
+    private static int indexOf(long value) {
+        int magnitude = Math.max(0, 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS);
+        int subBucket = (int) (value >>> magnitude);
+        return magnitude == 0 ? subBucket : magnitude * HALF + subBucket;
+    }
+
+    private static long highestEquivalentValue(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int magnitude = index / HALF - 1;
+        long subBucket = index - (long) magnitude * HALF;
+        return ((subBucket + 1) << magnitude) - 1;
+    }
+}
@@ -0,0 +1,139 @@
+package org.example.loadgen;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Settings for one load generator run.
+ *
+ * @param host               the server host name
+ * @param port               the server port
+ * @param mode               whether requests are sent back to back on each connection or at a fixed rate
+ * @param connections        the number of connections to open
+ * @param rate               in OPEN mode, the total requests per second to send; in CLOSED mode, the rate the
+ *                           connections are expected to sustain, used to correct for coordinated omission,
+ *                           or 0 to report raw latencies
+ * @param warmup             how long to run before latencies are recorded
+ * @param duration           how long to record latencies for, after the warmup
+ * @param templates          the raw requests to send, in turn
+ * @param fragmentSize       the largest number of bytes of a request sent in one write, or 0 to send it whole
+ * @param fragmentDelayNanos the pause between the fragments of a request, in nanoseconds
+ */
+public record LoadConfig(String host, int port, Mode mode, int connections, double rate, Duration warmup,
+                         Duration duration, List<byte[]> templates, int fragmentSize, long fragmentDelayNanos) {
+
+    /**
+     * How the load generator decides when to send each request.
+     */
+    public enum Mode {
+        /** Each connection sends its next request as soon as the previous response arrives. */
+        CLOSED,
+        /** Requests are sent on a fixed schedule whatever the server's response times. */
+        OPEN
+    }
+
+    /**
+     * Validates the settings.
+     *
+     * @throws IllegalArgumentException if a setting is out of range
+     */
+    public LoadConfig {
+        if (connections < 1) {
+            throw new IllegalArgumentException("connections must be at least 1, got: " + connections);
+        }
+        if (mode == Mode.OPEN && rate <= 0) {
+            throw new IllegalArgumentException("OPEN mode needs a rate above 0");
+        }
+        if (rate < 0 || fragmentSize < 0 || fragmentDelayNanos < 0) {
+            throw new IllegalArgumentException("rate and fragment settings must not be negative");
+        }
+        if (templates.isEmpty()) {
+            throw new IllegalArgumentException("At least one request template is needed");
+        }
+        templates = List.copyOf(templates);
+    }
+
+    /**
+     * Parses command line options. Durations are written with a unit, e.g. "30s", "500ms" or "200us".
+     * <pre>
+     * --host localhost --port 9001 --mode closed|open --connections 64 --rate 10000
+     * --warmup 5s --duration 30s --template request.http ... --fragment 7 --fragment-delay 200us
+     * </pre>
+     * Template files hold one raw request each; files with bare LF line endings are converted to CRLF.
+     * Without a template, "GET / HTTP/1.1" with a Host header is sent.
+     *
+     * @param args the command line arguments
+     * @return the parsed settings
+     * @throws IllegalArgumentException if an option is unknown or its value is invalid
+     * @throws IOException              if a template file cannot be read
+     */
+    public static LoadConfig parse(String[] args) throws IOException {
+        String host = "localhost";
+        int port = 9001;
+        Mode mode = Mode.CLOSED;
+        int connections = 16;
+        double rate = 0;
+        Duration warmup = Duration.ofSeconds(2);
+        Duration duration = Duration.ofSeconds(10);
+        List<byte[]> templates = new ArrayList<>();
+        int fragmentSize = 0;
+        long fragmentDelayNanos = 0;
+
+        for (int i = 0; i < args.length; i++) {
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + args[i]);
+            }
+            String value = args[++i];
+            switch (args[i - 1]) {
+                case "--host" -> host = value;
+                case "--port" -> port = Integer.parseInt(value);
+                case "--mode" -> mode = Mode.valueOf(value.toUpperCase(Locale.ROOT));
+                case "--connections" -> connections = Integer.parseInt(value);
+                case "--rate" -> rate = Double.parseDouble(value);
+                case "--warmup" -> warmup = parseDuration(value);
+                case "--duration" -> duration = parseDuration(value);
+                case "--template" -> templates.add(readTemplate(Path.of(value)));
+                case "--fragment" -> fragmentSize = Integer.parseInt(value);
+                case "--fragment-delay" -> fragmentDelayNanos = parseDuration(value).toNanos();
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i - 1]);
+            }
+        }
+
+        if (templates.isEmpty()) {
+            templates.add(("GET / HTTP/1.1\r\nHost: " + host + ":" + port + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        }
+        return new LoadConfig(host, port, mode, connections, rate, warmup, duration, templates, fragmentSize, fragmentDelayNanos);
+    }
+
+    /**
+     * Parses a duration such as "30s", "500ms", "200us" or "1m".
+     *
+     * @param value the duration text
+     * @return the duration
+     * @throws IllegalArgumentException if the text has no recognised unit
+     */
+    static Duration parseDuration(String value) {
+        String[][] units = {{"ms", "1000000"}, {"us", "1000"}, {"ns", "1"}, {"s", "1000000000"}, {"m", "60000000000"}};
+        for (String[] unit : units) {
+            if (value.endsWith(unit[0])) {
+                double amount = Double.parseDouble(value.substring(0, value.length() - unit[0].length()));
+                return Duration.ofNanos((long) (amount * Long.parseLong(unit[1])));
+            }
+        }
+        throw new IllegalArgumentException("Duration needs a unit (ns, us, ms, s or m): " + value);
+    }
+
+    private static byte[] readTemplate(Path path) throws IOException {
+        String text = Files.readString(path, StandardCharsets.ISO_8859_1);
+        if (!text.contains("\r\n")) {
+            text = text.replace("\n", "\r\n");
+        }
+        return text.getBytes(StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,399 @@
+package org.example.loadgen;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * Load generator for measuring the server from the same machine.
+ * <p>
+ * All connections are driven by one thread on a Selector, each carrying one request at a time.
+ * In CLOSED mode every connection sends its next request as soon as the last response arrives.
+ * In OPEN mode requests fall due on a fixed schedule at the configured rate and are sent on
+ * the next idle connection; when every connection is busy they queue.
+ * <p>
+ * Latency is measured from the moment a request was due to be sent, not from when it was
+ * actually written, so time spent queued behind a slow response counts against the server
+ * rather than silently lowering the request rate. This is what keeps open-loop numbers free
+ * of coordinated omission. A closed-loop client cannot know when requests were due, so when
+ * it is given the rate the connections are expected to sustain, each slow response is also
+ * back-filled with the requests that would have been delayed behind it, as HdrHistogram does.
+ * <p>
+ * The loop waits in Selector.select, whose timeout has millisecond resolution, rather than
+ * spinning, so that on a small machine the generator does not take CPU time from the server.
+ * A request may therefore be written up to a millisecond after it fell due; that delay is
+ * part of its recorded latency, so it can only make the numbers worse, never better.
+ * <p>
+ * Requests can be sent in fragments of a few bytes, optionally with a pause between them
+ * (waited for with the same millisecond resolution),
+ * so the server's incremental parser sees them arrive piece by piece the way ChunkReader
+ * feeds them in tests.
+ * <p>
+ * Run it with {@code ./gradlew loadgen -PloadgenArgs="--mode open --rate 20000 --connections 64"};
+ * see {@link LoadConfig#parse(String[])} for the options.
+ */
+public class LoadGenerator {
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private static final long DRAIN_NANOS = 2_000_000_000L;
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+
+    private final LoadConfig config;
+    private final InetSocketAddress address;
+    private final ByteBuffer readBuffer;
+    private final byte[][] templates;
+    private final ArrayDeque<Client> idle;
+    private final Client[] clients;
+    private long[] due;
+    private int dueHead;
+    private int dueCount;
+    private int templateIndex;
+    private int busy;
+    private long measureFrom;
+    private long measureUntil;
+    private long completed;
+    private long errors;
+    private long non2xx;
+    private long unsent;
+    private LatencyHistogram latency;
+    private Selector selector;
+
+    /**
+     * Creates a load generator for the given settings.
+     *
+     * @param config the settings for the run
+     */
+    public LoadGenerator(LoadConfig config) {
+        this.config = config;
+        this.address = new InetSocketAddress(config.host(), config.port());
+        this.readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+        this.templates = config.templates().toArray(new byte[0][]);
+        this.idle = new ArrayDeque<>();
+        this.clients = new Client[config.connections()];
+        this.due = new long[1024];
+    }
+
+    /**
+     * Runs the load generator from the command line and prints its report.
+     *
+     * @param args the options described in {@link LoadConfig#parse(String[])}
+     * @throws IOException if a template cannot be read or the selector cannot be opened
+     */
+    public static void main(String[] args) throws IOException {
+        LoadConfig config = LoadConfig.parse(args);
+        System.out.print(new LoadGenerator(config).run().format());
+    }
+
+    /**
+     * Opens the connections, sends requests for the warmup and measured periods, and waits
+     * up to two seconds for outstanding responses. A generator can only be run once.
+     *
+     * @return the report for the measured period
+     * @throws IOException if the selector cannot be opened
+     */
+    public LoadReport run() throws IOException {
+        this.latency = new LatencyHistogram();
+        long start = System.nanoTime();
+        this.measureFrom = start + this.config.warmup().toNanos();
+        this.measureUntil = this.measureFrom + this.config.duration().toNanos();
+        boolean open = this.config.mode() == LoadConfig.Mode.OPEN;
+        long expectedInterval = !open && this.config.rate() > 0
+                ? (long) (1e9 * this.config.connections() / this.config.rate()) : 0;
+        long arrivals = 0;
+        long nextArrival = start;
+
+        try (Selector selector = Selector.open()) {
+            this.selector = selector;
+            for (int i = 0; i < this.clients.length; i++) {
+                this.clients[i] = new Client();
+                connect(this.clients[i]);
+            }
+
+            while (true) {
+                long now = System.nanoTime();
+
+                if (open) {
+                    while (nextArrival <= now && nextArrival < this.measureUntil) {
+                        enqueueDue(nextArrival);
+                        arrivals++;
+                        nextArrival = start + (long) (arrivals * 1e9 / this.config.rate());
+                    }
+                }
+
+                boolean ended = now >= this.measureUntil;
+                if (ended && ((this.busy == 0 && this.dueCount == 0) || now >= this.measureUntil + DRAIN_NANOS)) {
+                    finish(now);
+                    break;
+                }
+                while (!this.idle.isEmpty() && (open ? this.dueCount > 0 : !ended)) {
+                    send(this.idle.poll(), open ? dequeueDue() : now, now);
+                }
+
+                long wakeAt = ended ? this.measureUntil + DRAIN_NANOS : this.measureUntil;
+                if (open && nextArrival < this.measureUntil) {
+                    wakeAt = Math.min(wakeAt, nextArrival);
+                }
+                if (this.config.fragmentDelayNanos() > 0) {
+                    wakeAt = Math.min(wakeAt, sendDueFragments(now));
+                }
+
+                long timeout = wakeAt - System.nanoTime();
+                if (timeout <= 0) {
+                    selector.selectNow(key -> handleReadyKey(key, expectedInterval));
+                } else {
+                    selector.select(key -> handleReadyKey(key, expectedInterval),
+                            (timeout + NANOS_PER_MILLI - 1) / NANOS_PER_MILLI);
+                }
+            }
+        } finally {
+            for (Client client : this.clients) {
+                if (client != null && client.channel != null) {
+                    client.channel.close();
+                }
+            }
+        }
+
+        return new LoadReport(this.config, this.completed, this.errors, this.non2xx, this.unsent, this.latency);
+    }
+
+    private void handleReadyKey(SelectionKey key, long expectedInterval) {
+        Client client = (Client) key.attachment();
+
+        try {
+            if (!key.isValid()) {
+                return;
+            }
+            if (key.isConnectable()) {
+                client.channel.finishConnect();
+                client.channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                key.interestOps(SelectionKey.OP_READ);
+                this.idle.add(client);
+            } else {
+                if (key.isWritable()) {
+                    writeFragments(client, System.nanoTime());
+                }
+                if (key.isValid() && key.isReadable()) {
+                    read(client, expectedInterval);
+                }
+            }
+        } catch (IOException e) {
+            fail(client);
+        }
+    }
+
+    private void send(Client client, long dueAt, long now) {
+        client.request = this.templates[this.templateIndex++ % this.templates.length];
+        client.sent = 0;
+        client.dueAt = dueAt;
+        client.parser.reset(ResponseParser.isHeadRequest(client.request));
+        client.busy = true;
+        this.busy++;
+
+        try {
+            writeFragments(client, now);
+        } catch (IOException e) {
+            fail(client);
+        }
+    }
+
+    /**
+     * Writes the request's next fragments, stopping when the socket is full or, if a fragment
+     * delay is set, after each fragment.
+     */
+    private void writeFragments(Client client, long now) throws IOException {
+        int length = client.request.length;
+        int fragmentSize = this.config.fragmentSize() > 0 ? this.config.fragmentSize() : length;
+
+        while (client.sent < length) {
+            ByteBuffer fragment = ByteBuffer.wrap(client.request, client.sent, Math.min(fragmentSize, length - client.sent));
+            client.sent += client.channel.write(fragment);
+
+            if (fragment.hasRemaining()) {
+                client.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                return;
+            }
+            if (client.sent < length && this.config.fragmentDelayNanos() > 0) {
+                client.nextFragmentAt = now + this.config.fragmentDelayNanos();
+                client.key.interestOps(SelectionKey.OP_READ);
+                return;
+            }
+        }
+        client.nextFragmentAt = 0;
+        client.key.interestOps(SelectionKey.OP_READ);
+    }
+
+    /**
+     * Writes the fragments whose pause has elapsed.
+     *
+     * @return the time the next pending fragment is due, or Long.MAX_VALUE if there is none
+     */
+    private long sendDueFragments(long now) {
+        long next = Long.MAX_VALUE;
+        for (Client client : this.clients) {
+            if (client.nextFragmentAt == 0) {
+                continue;
+            }
+            if (client.nextFragmentAt <= now) {
+                try {
+                    writeFragments(client, now);
+                } catch (IOException e) {
+                    fail(client);
+                    continue;
+                }
+            }
+            if (client.nextFragmentAt != 0) {
+                next = Math.min(next, client.nextFragmentAt);
+            }
+        }
+        return next;
+    }
+
+    private void read(Client client, long expectedInterval) throws IOException {
+        this.readBuffer.clear();
+        int bytesRead = client.channel.read(this.readBuffer);
+
+        if (bytesRead == -1) {
+            if (client.busy) {
+                fail(client);
+            } else {
+                reconnect(client);
+            }
+            return;
+        }
+
+        if (bytesRead == 0) {
+            return;
+        }
+        if (!client.busy) {
+            throw new IOException("Unexpected bytes from an idle connection");
+        }
+
+        this.readBuffer.flip();
+        if (client.parser.feed(this.readBuffer)) {
+            if (this.readBuffer.hasRemaining()) {
+                throw new IOException("Unexpected bytes after a response");
+            }
+            complete(client, System.nanoTime(), expectedInterval);
+        }
+    }
+
+    private void complete(Client client, long now, long expectedInterval) throws IOException {
+        if (isMeasured(client.dueAt)) {
+            this.completed++;
+            int status = client.parser.getStatus();
+            if (status / 100 != 2 && status != 304) {
+                this.non2xx++;
+            }
+            this.latency.recordCorrected(now - client.dueAt, expectedInterval);
+        }
+
+        client.busy = false;
+        this.busy--;
+        // a server may answer before the whole request was sent, e.g. to reject it
+        if (client.parser.isClose() || client.sent < client.request.length) {
+            reconnect(client);
+        } else {
+            this.idle.add(client);
+        }
+    }
+
+    private void fail(Client client) {
+        if (client.busy) {
+            client.busy = false;
+            this.busy--;
+            if (isMeasured(client.dueAt)) {
+                this.errors++;
+            }
+        } else if (System.nanoTime() >= this.measureFrom) {
+            this.errors++;
+        }
+        try {
+            reconnect(client);
+        } catch (IOException e) {
+            client.channel = null;
+        }
+    }
+
+    /**
+     * Ends the run: requests that were due in the measured period but never answered are
+     * recorded with the time they had waited so far, so a stalled server cannot hide them.
+     */
+    private void finish(long now) {
+        for (Client client : this.clients) {
+            if (client.busy && isMeasured(client.dueAt)) {
+                this.unsent++;
+                this.latency.record(now - client.dueAt);
+            }
+        }
+        while (this.dueCount > 0) {
+            long dueAt = dequeueDue();
+            if (isMeasured(dueAt)) {
+                this.unsent++;
+                this.latency.record(now - dueAt);
+            }
+        }
+    }
+
+    private boolean isMeasured(long dueAt) {
+        return dueAt >= this.measureFrom && dueAt < this.measureUntil;
+    }
+
+    private void reconnect(Client client) throws IOException {
+        this.idle.remove(client);
+        if (client.channel != null) {
+            client.channel.close();
+        }
+        connect(client);
+    }
+
+    private void connect(Client client) throws IOException {
+        client.channel = SocketChannel.open();
+        client.channel.configureBlocking(false);
+        client.nextFragmentAt = 0;
+        if (client.channel.connect(this.address)) {
+            client.channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            client.key = client.channel.register(this.selector, SelectionKey.OP_READ, client);
+            this.idle.add(client);
+        } else {
+            client.key = client.channel.register(this.selector, SelectionKey.OP_CONNECT, client);
+        }
+    }
+
+    private void enqueueDue(long dueAt) {
+        if (this.dueCount == this.due.length) {
+            long[] grown = Arrays.copyOf(this.due, this.due.length * 2);
+            // unwrap the ring so the queued times stay in order
+            System.arraycopy(this.due, 0, grown, this.due.length, this.dueHead);
+            this.due = grown;
+        }
+        this.due[(this.dueHead + this.dueCount) % this.due.length] = dueAt;
+        this.dueCount++;
+    }
+
+    private long dequeueDue() {
+        long dueAt = this.due[this.dueHead];
+        this.dueHead = (this.dueHead + 1) % this.due.length;
+        this.dueCount--;
+        return dueAt;
+    }
+
+    /**
+     * One connection and the request it is currently carrying.
+     */
+    private static final class Client {
+        private final ResponseParser parser = new ResponseParser();
+        private SocketChannel channel;
+        private SelectionKey key;
+        private byte[] request;
+        private int sent;
+        private long dueAt;
+        private long nextFragmentAt;
+        private boolean busy;
+    }
+}
@@ -0,0 +1,54 @@
+package org.example.loadgen;
+
+import java.util.Locale;
+
+/**
+ * The outcome of a load generator run, covering the measured period after the warmup.
+ *
+ * @param config    the settings the run used
+ * @param completed the number of responses received for requests due in the measured period
+ * @param errors    the number of connections that failed or were closed part way through a request
+ * @param non2xx    the number of responses whose status was not 2xx or 304
+ * @param unsent    the number of requests due in the measured period that were never sent or never
+ *                  answered; their latency is recorded as the time they had waited when the run ended
+ * @param latency   the latencies of the measured requests, from when each was due to be sent
+ */
+public record LoadReport(LoadConfig config, long completed, long errors, long non2xx, long unsent,
+                         LatencyHistogram latency) {
+
+    /**
+     * Returns the completed responses per second over the measured period.
+     *
+     * @return the throughput in requests per second
+     */
+    public double throughput() {
+        return this.completed / (this.config.duration().toNanos() / 1e9);
+    }
+
+    /**
+     * Formats the report for the console.
+     *
+     * @return a few lines of text summarising the run
+     */
+    public String format() {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format(Locale.ROOT, "mode=%s connections=%d rate=%s duration=%.1fs%n",
+                this.config.mode().name().toLowerCase(Locale.ROOT), this.config.connections(),
+                this.config.rate() > 0 ? String.format(Locale.ROOT, "%.0f/s", this.config.rate()) : "unlimited",
+                this.config.duration().toNanos() / 1e9));
+        out.append(String.format(Locale.ROOT, "requests=%d errors=%d non2xx=%d unsent=%d throughput=%.1f req/s%n",
+                this.completed, this.errors, this.non2xx, this.unsent, throughput()));
+        out.append(String.format(Locale.ROOT, "latency p50=%s p99=%s p99.9=%s max=%s mean=%s%n",
+                millis(this.latency.getValueAtPercentile(50)), millis(this.latency.getValueAtPercentile(99)),
+                millis(this.latency.getValueAtPercentile(99.9)), millis(this.latency.getMax()),
+                millis((long) this.latency.getMean())));
+        if (this.config.mode() == LoadConfig.Mode.CLOSED && this.config.rate() == 0) {
+            out.append("note: closed loop without --rate; latencies are not corrected for coordinated omission\n");
+        }
+        return out.toString();
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3fms", nanos / 1e6);
+    }
+}
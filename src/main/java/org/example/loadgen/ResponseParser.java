@@ -0,0 +1,127 @@
+package org.example.loadgen;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Finds the end of each HTTP/1.1 response the load generator receives, without keeping
+ * its bytes. Only the status code and the Content-Length and Connection headers are read;
+ * chunked responses are not supported, since the server always sends a Content-Length.
+ */
+final class ResponseParser {
+
+    private static final int MAX_HEAD_SIZE = 64 * 1024;
+
+    private final StringBuilder head;
+    private boolean headRequest;
+    private boolean inBody;
+    private long bodyRemaining;
+    private int status;
+    private boolean close;
+
+    ResponseParser() {
+        this.head = new StringBuilder(256);
+    }
+
+    /**
+     * Prepares for the response to the next request.
+     *
+     * @param headRequest true if the request was a HEAD request, whose response has no body
+     */
+    void reset(boolean headRequest) {
+        this.head.setLength(0);
+        this.headRequest = headRequest;
+        this.inBody = false;
+        this.bodyRemaining = 0;
+        this.status = 0;
+        this.close = false;
+    }
+
+    /**
+     * Consumes received bytes up to the end of the current response.
+     *
+     * @param data the received bytes; its position is advanced past the bytes consumed
+     * @return true once the whole response has been received
+     * @throws IOException if the response is malformed or uses an unsupported framing
+     */
+    boolean feed(ByteBuffer data) throws IOException {
+        while (!this.inBody) {
+            if (!data.hasRemaining()) {
+                return false;
+            }
+            this.head.append((char) (data.get() & 0xff));
+            int length = this.head.length();
+            if (length >= 4 && this.head.charAt(length - 1) == '\n' && this.head.charAt(length - 2) == '\r'
+                    && this.head.charAt(length - 3) == '\n' && this.head.charAt(length - 4) == '\r') {
+                parseHead();
+                this.inBody = true;
+            } else if (length > MAX_HEAD_SIZE) {
+                throw new IOException("Response head too large");
+            }
+        }
+
+        int skipped = (int) Math.min(this.bodyRemaining, data.remaining());
+        data.position(data.position() + skipped);
+        this.bodyRemaining -= skipped;
+        return this.bodyRemaining == 0;
+    }
+
+    /**
+     * Returns the status code of the current response, once its head has been received.
+     *
+     * @return the status code
+     */
+    int getStatus() {
+        return this.status;
+    }
+
+    /**
+     * Returns whether the server will close the connection after the current response.
+     *
+     * @return true if the response carried "Connection: close"
+     */
+    boolean isClose() {
+        return this.close;
+    }
+
+    private void parseHead() throws IOException {
+        String[] lines = this.head.toString().split("\r\n");
+        if (!lines[0].startsWith("HTTP/1.1 ") || lines[0].length() < 12) {
+            throw new IOException("Malformed status line: " + lines[0]);
+        }
+        try {
+            this.status = Integer.parseInt(lines[0].substring(9, 12));
+        } catch (NumberFormatException e) {
+            throw new IOException("Malformed status line: " + lines[0]);
+        }
+
+        long contentLength = 0;
+        for (int i = 1; i < lines.length; i++) {
+            int colon = lines[i].indexOf(':');
+            if (colon == -1) {
+                continue;
+            }
+            String name = lines[i].substring(0, colon).trim();
+            String value = lines[i].substring(colon + 1).trim();
+            if (name.equalsIgnoreCase("Content-Length")) {
+                try {
+                    contentLength = Long.parseLong(value);
+                } catch (NumberFormatException e) {
+                    throw new IOException("Malformed Content-Length: " + value);
+                }
+            } else if (name.equalsIgnoreCase("Transfer-Encoding")) {
+                throw new IOException("Unsupported response Transfer-Encoding: " + value);
+            } else if (name.equalsIgnoreCase("Connection") && value.equalsIgnoreCase("close")) {
+                this.close = true;
+            }
+        }
+
+        boolean noBody = this.headRequest || this.status == 204 || this.status == 304 || this.status / 100 == 1;
+        this.bodyRemaining = noBody ? 0 : contentLength;
+    }
+
+    static boolean isHeadRequest(byte[] request) {
+        return request.length > 5 && new String(request, 0, 5, StandardCharsets.US_ASCII).equals("HEAD ");
+    }
+}
@@ -0,0 +1,312 @@
+package org.example.logging;
+
+import java.io.Closeable;
+import java.io.PrintStream;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Logger that keeps formatting and console output off the threads that log.
+ * <p>
+ * Each call claims a slot in a fixed-size ring buffer with a single compare-and-set,
+ * stores the message template, its arguments and a timestamp, and returns. A single
+ * background thread drains the ring in order, formats a batch of records into one buffer
+ * and writes it to the output stream with one call, so the stream's lock is taken once
+ * per batch instead of once per line. Each slot carries a sequence number, as in a
+ * bounded MPMC queue, which is how producers and the consumer hand slots to each other
+ * without locks.
+ * <p>
+ * Templates use "{}" as the placeholder for each argument, in order. Arguments are only
+ * converted to Strings on the background thread, so they must not be mutated after they
+ * are logged.
+ * <p>
+ * When the ring is full a record is either dropped or the logging thread waits for space,
+ * depending on the OverflowPolicy. Dropped records are counted, and the background thread
+ * reports how many were lost since its last report.
+ */
+public class AsyncLogger implements Closeable {
+
+    /**
+     * What a logging thread does when the ring buffer is full.
+     */
+    public enum OverflowPolicy {
+        /** Discard the record and count it as dropped. Logging never waits. */
+        DROP,
+        /** Wait for the background thread to free a slot. No record is lost while the logger is open. */
+        BLOCK
+    }
+
+    private static final int MAX_ARGUMENTS = 4;
+    private static final int MAX_BATCH = 256;
+    private static final long IDLE_PARK_NANOS = 1_000_000;
+    private static final long FULL_PARK_NANOS = 10_000;
+    /** Set on the tail by the writer thread once it is closing, so no more slots can be claimed. */
+    private static final long SEALED = Long.MIN_VALUE;
+
+    private final PrintStream out;
+    private final OverflowPolicy policy;
+    private final int mask;
+    private final AtomicLongArray sequences;
+    private final String[] templates;
+    private final Object[] arguments;
+    private final long[] timestamps;
+    private final AtomicLong tail;
+    private final LongAdder dropped;
+    private final Thread writer;
+    private long head;
+    private long droppedReported;
+    private volatile boolean running;
+
+    /**
+     * Creates a logger and starts its background writer thread.
+     *
+     * @param out      the stream formatted records are written to
+     * @param capacity the number of records the ring buffer holds; rounded up to a power of two
+     * @param policy   what to do when the ring buffer is full
+     * @throws IllegalArgumentException if capacity is less than 2
+     */
+    public AsyncLogger(PrintStream out, int capacity, OverflowPolicy policy) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("capacity must be at least 2, got: " + capacity);
+        }
+
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        this.out = out;
+        this.policy = policy;
+        this.mask = size - 1;
+        this.sequences = new AtomicLongArray(size);
+        this.templates = new String[size];
+        this.arguments = new Object[size * MAX_ARGUMENTS];
+        this.timestamps = new long[size];
+        this.tail = new AtomicLong();
+        this.dropped = new LongAdder();
+        this.head = 0;
+        this.droppedReported = 0;
+        this.running = true;
+
+        for (int i = 0; i < size; i++) {
+            this.sequences.set(i, i);
+        }
+
+        this.writer = new Thread(this::drainLoop, "async-logger");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Logs a message with no arguments.
+     *
+     * @param message the message
+     * @return true if the record was queued, false if it was dropped
+     */
+    public boolean log(String message) {
+        return append(message, null, null, null, null);
+    }
+
+    /**
+     * Logs a message with one argument.
+     *
+     * @param template the message template, with "{}" where the argument goes
+     * @param arg      the argument
+     * @return true if the record was queued, false if it was dropped
+     */
+    public boolean log(String template, Object arg) {
+        return append(template, arg, null, null, null);
+    }
+
+    /**
+     * Logs a message with two arguments.
+     *
+     * @param template the message template, with a "{}" for each argument
+     * @param arg1     the first argument
+     * @param arg2     the second argument
+     * @return true if the record was queued, false if it was dropped
+     */
+    public boolean log(String template, Object arg1, Object arg2) {
+        return append(template, arg1, arg2, null, null);
+    }
+
+    /**
+     * Logs a message with three arguments.
+     *
+     * @param template the message template, with a "{}" for each argument
+     * @param arg1     the first argument
+     * @param arg2     the second argument
+     * @param arg3     the third argument
+     * @return true if the record was queued, false if it was dropped
+     */
+    public boolean log(String template, Object arg1, Object arg2, Object arg3) {
+        return append(template, arg1, arg2, arg3, null);
+    }
+
+    /**
+     * Logs a message with four arguments.
+     *
+     * @param template the message template, with a "{}" for each argument
+     * @param arg1     the first argument
+     * @param arg2     the second argument
+     * @param arg3     the third argument
+     * @param arg4     the fourth argument
+     * @return true if the record was queued, false if it was dropped
+     */
+    public boolean log(String template, Object arg1, Object arg2, Object arg3, Object arg4) {
+        return append(template, arg1, arg2, arg3, arg4);
+    }
+
+    /**
+     * Returns the number of records dropped because the ring buffer was full or the logger was closed.
+     *
+     * @return the dropped record count
+     */
+    public long getDroppedCount() {
+        return this.dropped.sum();
+    }
+
+    /**
+     * Stops the background thread once it has written every record queued so far.
+     * Records logged after close are dropped.
+     */
+    @Override
+    public void close() {
+        this.running = false;
+        LockSupport.unpark(this.writer);
+        try {
+            this.writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean append(String template, Object arg1, Object arg2, Object arg3, Object arg4) {
+        long sequence;
+
+        while (true) {
+            if (!this.running) {
+                this.dropped.increment();
+                return false;
+            }
+
+            sequence = this.tail.get();
+            if (sequence < 0) {
+                // the writer has sealed the ring and will not read any further slot
+                this.dropped.increment();
+                return false;
+            }
+            long available = this.sequences.get((int) sequence & this.mask) - sequence;
+
+            if (available == 0) {
+                if (this.tail.compareAndSet(sequence, sequence + 1)) {
+                    break;
+                }
+            } else if (available < 0) {
+                if (this.policy == OverflowPolicy.DROP) {
+                    this.dropped.increment();
+                    return false;
+                }
+                LockSupport.parkNanos(FULL_PARK_NANOS);
+            }
+        }
+
+        int slot = (int) sequence & this.mask;
+        int argumentBase = slot * MAX_ARGUMENTS;
+        this.templates[slot] = template;
+        this.arguments[argumentBase] = arg1;
+        this.arguments[argumentBase + 1] = arg2;
+        this.arguments[argumentBase + 2] = arg3;
+        this.arguments[argumentBase + 3] = arg4;
+        this.timestamps[slot] = System.currentTimeMillis();
+        // publishes the slot's contents to the writer thread
+        this.sequences.set(slot, sequence + 1);
+        return true;
+    }
+
+    private void drainLoop() {
+        StringBuilder batch = new StringBuilder(MAX_BATCH * 64);
+
+        while (true) {
+            boolean wasRunning = this.running;
+            int drained = drain(batch);
+
+            if (drained == 0) {
+                // once closed, seal the tail so no producer can claim another slot, then stop
+                // only when every slot claimed before the seal has been published and written
+                if (!wasRunning && seal() == this.head) {
+                    break;
+                }
+                LockSupport.parkNanos(wasRunning ? IDLE_PARK_NANOS : FULL_PARK_NANOS);
+            }
+        }
+        this.out.flush();
+    }
+
+    /**
+     * Marks the tail as sealed, after which every append fails and is counted as dropped.
+     *
+     * @return the number of slots claimed before the seal
+     */
+    private long seal() {
+        return this.tail.accumulateAndGet(SEALED, (current, bit) -> current | bit) & ~SEALED;
+    }
+
+    /**
+     * Formats and writes up to one batch of published records, then frees their slots.
+     *
+     * @return the number of records written
+     */
+    private int drain(StringBuilder batch) {
+        batch.setLength(0);
+        int count = 0;
+
+        while (count < MAX_BATCH) {
+            int slot = (int) this.head & this.mask;
+            if (this.sequences.get(slot) != this.head + 1) {
+                break;
+            }
+
+            format(batch, slot);
+            int argumentBase = slot * MAX_ARGUMENTS;
+            this.templates[slot] = null;
+            for (int i = 0; i < MAX_ARGUMENTS; i++) {
+                this.arguments[argumentBase + i] = null;
+            }
+            this.sequences.set(slot, this.head + this.mask + 1);
+            this.head++;
+            count++;
+        }
+
+        long droppedNow = this.dropped.sum();
+        if (droppedNow != this.droppedReported) {
+            batch.append(Instant.now()).append(" [async-logger] ")
+                    .append(droppedNow - this.droppedReported).append(" log records dropped\n");
+            this.droppedReported = droppedNow;
+        }
+
+        if (batch.length() > 0) {
+            this.out.print(batch);
+            this.out.flush();
+        }
+        return count;
+    }
+
+    private void format(StringBuilder batch, int slot) {
+        String template = this.templates[slot];
+        int argumentBase = slot * MAX_ARGUMENTS;
+        int argument = 0;
+        int position = 0;
+
+        batch.append(Instant.ofEpochMilli(this.timestamps[slot])).append(' ');
+        while (true) {
+            int placeholder = template.indexOf("{}", position);
+            if (placeholder == -1 || argument == MAX_ARGUMENTS) {
+                batch.append(template, position, template.length());
+                break;
+            }
+            batch.append(template, position, placeholder).append(this.arguments[argumentBase + argument++]);
+            position = placeholder + 2;
+        }
+        batch.append('\n');
+    }
+}
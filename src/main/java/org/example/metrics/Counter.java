@@ -0,0 +1,42 @@
+package org.example.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A monotonically increasing count, exported as a Prometheus counter.
+ * Backed by a LongAdder, so threads incrementing it at the same time update
+ * separate cells instead of contending on one word.
+ */
+public final class Counter {
+
+    private final LongAdder count;
+
+    Counter() {
+        this.count = new LongAdder();
+    }
+
+    /**
+     * Adds one to the count.
+     */
+    public void increment() {
+        this.count.increment();
+    }
+
+    /**
+     * Adds to the count.
+     *
+     * @param amount the non-negative amount to add
+     */
+    public void add(long amount) {
+        this.count.add(amount);
+    }
+
+    /**
+     * Returns the current count.
+     *
+     * @return the sum of all increments so far
+     */
+    public long get() {
+        return this.count.sum();
+    }
+}
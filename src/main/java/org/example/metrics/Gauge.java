@@ -0,0 +1,39 @@
+package org.example.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A value that can go up and down, such as the number of open connections,
+ * exported as a Prometheus gauge. Like Counter it is backed by a LongAdder.
+ */
+public final class Gauge {
+
+    private final LongAdder value;
+
+    Gauge() {
+        this.value = new LongAdder();
+    }
+
+    /**
+     * Adds one to the value.
+     */
+    public void increment() {
+        this.value.increment();
+    }
+
+    /**
+     * Subtracts one from the value.
+     */
+    public void decrement() {
+        this.value.decrement();
+    }
+
+    /**
+     * Returns the current value.
+     *
+     * @return the sum of all increments and decrements so far
+     */
+    public long get() {
+        return this.value.sum();
+    }
+}
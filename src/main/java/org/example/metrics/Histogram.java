@@ -0,0 +1,134 @@
+package org.example.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A distribution of non-negative values, such as latencies in nanoseconds or sizes in bytes,
+ * counted in power-of-two buckets and exported as a Prometheus histogram.
+ * <p>
+ * Recording a value costs a leading-zero count and two uncontended atomic additions;
+ * the total count is not kept separately but summed from the buckets.
+ * Each recording thread is mapped to one of a fixed set of stripes by its thread id,
+ * the way LongAdder spreads its cells, so threads on different cores rarely touch the
+ * same cache line. The stripes are only merged when the histogram is scraped. A fixed
+ * stripe count, rather than one recorder per thread, keeps memory bounded when a
+ * virtual thread is started for every connection.
+ * <p>
+ * Bucket i holds the values above 2^(i-1) up to and including 2^i, and bucket 0 holds 0 and 1,
+ * so a bucket's upper bound is inclusive like a Prometheus {@code le} label. The exported
+ * buckets run from 2^minPower to 2^maxPower, with everything above falling into +Inf.
+ */
+public final class Histogram {
+
+    private static final int BUCKETS = 65;
+    private static final int SUM = BUCKETS;
+    // 72 longs keeps each stripe's counters on their own cache lines
+    private static final int STRIDE = 72;
+    private static final int STRIPES = stripeCount(Runtime.getRuntime().availableProcessors());
+
+    private final int minPower;
+    private final int maxPower;
+    private final double scale;
+    private final AtomicLongArray cells;
+
+    /**
+     * Creates a histogram.
+     *
+     * @param minPower the power of two of the lowest exported bucket boundary
+     * @param maxPower the power of two of the highest exported bucket boundary
+     * @param scale    the divisor applied to recorded values when they are exported,
+     *                 e.g. 1e9 to export nanoseconds as seconds
+     */
+    Histogram(int minPower, int maxPower, double scale) {
+        if (minPower < 0 || maxPower > 63 || minPower > maxPower) {
+            throw new IllegalArgumentException("Invalid bucket range: 2^" + minPower + " to 2^" + maxPower);
+        }
+        this.minPower = minPower;
+        this.maxPower = maxPower;
+        this.scale = scale;
+        this.cells = new AtomicLongArray(STRIPES * STRIDE);
+    }
+
+    /**
+     * Records one value.
+     *
+     * @param value the value to record; negative values are counted as 0
+     */
+    public void record(long value) {
+        long clamped = Math.max(0, value);
+        // bucketing value - 1 puts an exact power of two in the bucket it bounds
+        int bucket = 64 - Long.numberOfLeadingZeros(Math.max(1, clamped) - 1);
+        int base = (int) (Thread.currentThread().getId() & (STRIPES - 1)) * STRIDE;
+
+        this.cells.getAndIncrement(base + bucket);
+        this.cells.getAndAdd(base + SUM, clamped);
+    }
+
+    /**
+     * Merges the stripes into a point-in-time copy of the histogram.
+     * Values recorded while the snapshot is taken may or may not be included.
+     *
+     * @return the merged bucket counts, total count and sum
+     */
+    public Snapshot snapshot() {
+        long[] buckets = new long[BUCKETS];
+        long sum = 0;
+        long count = 0;
+
+        for (int stripe = 0; stripe < STRIPES; stripe++) {
+            int base = stripe * STRIDE;
+            for (int i = 0; i < BUCKETS; i++) {
+                long bucketCount = this.cells.get(base + i);
+                buckets[i] += bucketCount;
+                count += bucketCount;
+            }
+            sum += this.cells.get(base + SUM);
+        }
+        return new Snapshot(buckets, count, sum);
+    }
+
+    /**
+     * Returns the smallest power of two that is at least twice the number of processors.
+     */
+    private static int stripeCount(int processors) {
+        return Integer.highestOneBit(Math.max(1, processors * 2 - 1)) << 1;
+    }
+
+    int getMinPower() {
+        return this.minPower;
+    }
+
+    int getMaxPower() {
+        return this.maxPower;
+    }
+
+    double getScale() {
+        return this.scale;
+    }
+
+    /**
+     * A merged copy of a histogram's counters.
+     *
+     * @param buckets the count of values in each power-of-two bucket; index i counts the values
+     *                above 2^(i-1) and at most 2^i
+     * @param count   the number of values recorded
+     * @param sum     the sum of the values recorded
+     */
+    public record Snapshot(long[] buckets, long count, long sum) {
+
+        /**
+         * Returns the number of recorded values less than or equal to 2^power, which is the
+         * count Prometheus expects for the bucket {@code le="2^power"}.
+         *
+         * @param power the power of two of the bucket boundary
+         * @return the cumulative count up to and including bucket power
+         */
+        public long countAtMost(int power) {
+            long total = 0;
+            for (int i = 0; i <= power && i < this.buckets.length; i++) {
+                total += this.buckets[i];
+            }
+            return total;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package org.example.metrics;
+
+import org.example.request.Request;
+import org.example.response.Response;
+import org.example.response.StatusCode;
+import org.example.server.RequestHandler;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Serves a MetricsRegistry in the Prometheus text exposition format, for mounting at /metrics.
+ */
+public class MetricsHandler implements RequestHandler {
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final MetricsRegistry registry;
+
+    /**
+     * Creates a handler that serves the given registry.
+     *
+     * @param registry the registry to scrape on each request
+     */
+    public MetricsHandler(MetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Scrapes the registry.
+     *
+     * @param request the parsed request
+     * @return a 200 OK response carrying the current value of every metric
+     */
+    @Override
+    public Response handle(Request request) {
+        Response response = new Response(StatusCode.OK);
+        response.setHeader("Content-Type", CONTENT_TYPE);
+        response.setBody(this.registry.scrape().getBytes(StandardCharsets.UTF_8));
+        return response;
+    }
+
+    /**
+     * Releases every request; a scrape does not look at the request at all.
+     *
+     * @return true
+     */
+    @Override
+    public boolean releasesRequest() {
+        return true;
+    }
+}
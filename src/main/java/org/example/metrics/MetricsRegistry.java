@@ -0,0 +1,148 @@
+package org.example.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * A named set of metrics that can be written out in the Prometheus text exposition format.
+ * Metrics are created through the registry and then updated directly by the code that owns
+ * them; the registry is only involved again when it is scraped.
+ */
+public class MetricsRegistry {
+
+    private static final String NAME_PATTERN = "[a-zA-Z_:][a-zA-Z0-9_:]*";
+
+    private final List<Entry> entries;
+
+    /**
+     * Creates an empty registry.
+     */
+    public MetricsRegistry() {
+        this.entries = new ArrayList<>();
+    }
+
+    /**
+     * Creates and registers a counter.
+     *
+     * @param name the metric name, by convention ending in "_total"
+     * @param help a one-line description of the metric
+     * @return the new counter
+     * @throws IllegalArgumentException if the name is not a valid metric name or is already registered
+     */
+    public Counter counter(String name, String help) {
+        Counter counter = new Counter();
+        register(new Entry(name, help, "counter", counter));
+        return counter;
+    }
+
+    /**
+     * Creates and registers a gauge that is moved up and down by its owner.
+     *
+     * @param name the metric name
+     * @param help a one-line description of the metric
+     * @return the new gauge
+     * @throws IllegalArgumentException if the name is not a valid metric name or is already registered
+     */
+    public Gauge gauge(String name, String help) {
+        Gauge gauge = new Gauge();
+        register(new Entry(name, help, "gauge", gauge));
+        return gauge;
+    }
+
+    /**
+     * Registers a gauge whose value is read from a supplier each time the registry is scraped.
+     *
+     * @param name  the metric name
+     * @param help  a one-line description of the metric
+     * @param value supplies the current value; must be safe to call from any thread
+     * @throws IllegalArgumentException if the name is not a valid metric name or is already registered
+     */
+    public void gauge(String name, String help, LongSupplier value) {
+        register(new Entry(name, help, "gauge", value));
+    }
+
+    /**
+     * Creates and registers a histogram with power-of-two buckets.
+     *
+     * @param name     the metric name, by convention ending in the unit, e.g. "_seconds" or "_bytes"
+     * @param help     a one-line description of the metric
+     * @param minPower the power of two of the lowest exported bucket boundary, in recorded units
+     * @param maxPower the power of two of the highest exported bucket boundary, in recorded units
+     * @param scale    the divisor applied when exporting, e.g. 1e9 to record nanoseconds and export seconds
+     * @return the new histogram
+     * @throws IllegalArgumentException if the name is not a valid metric name or is already registered,
+     *                                  or the bucket range is invalid
+     */
+    public Histogram histogram(String name, String help, int minPower, int maxPower, double scale) {
+        Histogram histogram = new Histogram(minPower, maxPower, scale);
+        register(new Entry(name, help, "histogram", histogram));
+        return histogram;
+    }
+
+    /**
+     * Writes every registered metric in the Prometheus text exposition format, version 0.0.4.
+     *
+     * @return the exposition text
+     */
+    public String scrape() {
+        List<Entry> snapshot;
+        synchronized (this.entries) {
+            snapshot = new ArrayList<>(this.entries);
+        }
+
+        StringBuilder out = new StringBuilder(256 * snapshot.size());
+        for (Entry entry : snapshot) {
+            out.append("# HELP ").append(entry.name).append(' ').append(entry.help).append('\n');
+            out.append("# TYPE ").append(entry.name).append(' ').append(entry.type).append('\n');
+
+            if (entry.metric instanceof Counter counter) {
+                out.append(entry.name).append(' ').append(counter.get()).append('\n');
+            } else if (entry.metric instanceof Gauge gauge) {
+                out.append(entry.name).append(' ').append(gauge.get()).append('\n');
+            } else if (entry.metric instanceof LongSupplier supplier) {
+                out.append(entry.name).append(' ').append(supplier.getAsLong()).append('\n');
+            } else if (entry.metric instanceof Histogram histogram) {
+                writeHistogram(out, entry.name, histogram);
+            }
+        }
+        return out.toString();
+    }
+
+    private static void writeHistogram(StringBuilder out, String name, Histogram histogram) {
+        Histogram.Snapshot snapshot = histogram.snapshot();
+        double scale = histogram.getScale();
+
+        for (int power = histogram.getMinPower(); power <= histogram.getMaxPower(); power++) {
+            out.append(name).append("_bucket{le=\"").append(formatDouble((1L << power) / scale)).append("\"} ")
+                    .append(snapshot.countAtMost(power)).append('\n');
+        }
+        out.append(name).append("_bucket{le=\"+Inf\"} ").append(snapshot.count()).append('\n');
+        out.append(name).append("_sum ").append(formatDouble(snapshot.sum() / scale)).append('\n');
+        out.append(name).append("_count ").append(snapshot.count()).append('\n');
+    }
+
+    private static String formatDouble(double value) {
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    private void register(Entry entry) {
+        if (!entry.name.matches(NAME_PATTERN)) {
+            throw new IllegalArgumentException("Invalid metric name: " + entry.name);
+        }
+        synchronized (this.entries) {
+            for (Entry existing : this.entries) {
+                if (existing.name.equals(entry.name)) {
+                    throw new IllegalArgumentException("Metric already registered: " + entry.name);
+                }
+            }
+            this.entries.add(entry);
+        }
+    }
+
+    private record Entry(String name, String help, String type, Object metric) {
+    }
+}
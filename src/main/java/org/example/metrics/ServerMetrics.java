@@ -0,0 +1,184 @@
+package org.example.metrics;
+
+import org.example.buffer.BufferPool;
+
+/**
+ * The metrics the server records about itself: connection gauges, request counts,
+ * how long requests spend in each phase of parsing and how large read buffers grow.
+ * Phase times are measured from the first byte of a phase being presented to the parser
+ * to the end of that phase, so they include any time spent waiting for the client to
+ * send the rest of it.
+ */
+public final class ServerMetrics {
+
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    private static final ServerMetrics DEFAULT = new ServerMetrics(new MetricsRegistry(), BufferPool.getDefault());
+
+    private final MetricsRegistry registry;
+    private final Gauge connectionsOpen;
+    private final Counter connectionsAccepted;
+    private final Counter requests;
+    private final Histogram requestLineTime;
+    private final Histogram headersTime;
+    private final Histogram bodyTime;
+    private final Histogram requestBufferSize;
+
+    /**
+     * Creates the server metrics in the given registry.
+     *
+     * @param registry   the registry to create the metrics in
+     * @param bufferPool the buffer pool whose usage is reported
+     */
+    public ServerMetrics(MetricsRegistry registry, BufferPool bufferPool) {
+        this.registry = registry;
+        this.connectionsOpen = registry.gauge("http_connections_open",
+                "Client connections currently open.");
+        this.connectionsAccepted = registry.counter("http_connections_accepted_total",
+                "Client connections accepted.");
+        this.requests = registry.counter("http_requests_total",
+                "Requests parsed to completion.");
+        this.requestLineTime = registry.histogram("http_request_line_seconds",
+                "Time from the first byte of a request to the end of its request line.", 8, 34, NANOS_PER_SECOND);
+        this.headersTime = registry.histogram("http_request_headers_seconds",
+                "Time from the end of the request line to the end of the headers.", 8, 34, NANOS_PER_SECOND);
+        this.bodyTime = registry.histogram("http_request_body_seconds",
+                "Time from the end of the headers to the end of the body, for requests with a body.", 8, 34, NANOS_PER_SECOND);
+        this.requestBufferSize = registry.histogram("http_request_buffer_bytes",
+                "Capacity of the read buffer holding a request when its headers are complete.", 10, 24, 1);
+        registry.gauge("buffer_pool_outstanding_buffers",
+                "Buffers currently borrowed from the pool.", () -> bufferPool.getStats().outstanding());
+        registry.gauge("buffer_pool_held_bytes",
+                "Total capacity of the idle buffers held by the pool.", () -> bufferPool.getStats().bytesHeld());
+    }
+
+    /**
+     * Returns the metrics recorded by the server classes, reporting on the default buffer pool.
+     *
+     * @return the default ServerMetrics
+     */
+    public static ServerMetrics getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Returns the registry these metrics are exported from.
+     *
+     * @return the MetricsRegistry
+     */
+    public MetricsRegistry getRegistry() {
+        return this.registry;
+    }
+
+    /**
+     * Records a newly accepted connection.
+     */
+    public void connectionOpened() {
+        this.connectionsAccepted.increment();
+        this.connectionsOpen.increment();
+    }
+
+    /**
+     * Records a connection being closed.
+     */
+    public void connectionClosed() {
+        this.connectionsOpen.decrement();
+    }
+
+    /**
+     * Returns the number of client connections currently open.
+     *
+     * @return the open connection count
+     */
+    public long getConnectionsOpen() {
+        return this.connectionsOpen.get();
+    }
+
+    /**
+     * Returns the number of requests parsed to completion.
+     *
+     * @return the request count
+     */
+    public long getRequests() {
+        return this.requests.get();
+    }
+
+    /**
+     * Records the time taken to receive and parse a request line.
+     *
+     * @param nanos the elapsed time in nanoseconds
+     */
+    public void recordRequestLine(long nanos) {
+        this.requestLineTime.record(nanos);
+    }
+
+    /**
+     * Records the time taken to receive and parse a request's headers.
+     *
+     * @param nanos the elapsed time in nanoseconds
+     */
+    public void recordHeaders(long nanos) {
+        this.headersTime.record(nanos);
+    }
+
+    /**
+     * Records the time taken to receive and parse a request's body.
+     *
+     * @param nanos the elapsed time in nanoseconds
+     */
+    public void recordBody(long nanos) {
+        this.bodyTime.record(nanos);
+    }
+
+    /**
+     * Records a request parsed to completion.
+     */
+    public void requestCompleted() {
+        this.requests.increment();
+    }
+
+    /**
+     * Records the capacity of the read buffer holding a request once its headers are complete.
+     *
+     * @param bytes the buffer capacity in bytes
+     */
+    public void recordRequestBuffer(int bytes) {
+        this.requestBufferSize.record(bytes);
+    }
+
+    /**
+     * Returns the request line time histogram.
+     *
+     * @return the histogram of request line times in nanoseconds
+     */
+    public Histogram getRequestLineTime() {
+        return this.requestLineTime;
+    }
+
+    /**
+     * Returns the header time histogram.
+     *
+     * @return the histogram of header times in nanoseconds
+     */
+    public Histogram getHeadersTime() {
+        return this.headersTime;
+    }
+
+    /**
+     * Returns the body time histogram.
+     *
+     * @return the histogram of body times in nanoseconds
+     */
+    public Histogram getBodyTime() {
+        return this.bodyTime;
+    }
+
+    /**
+     * Returns the request buffer size histogram.
+     *
+     * @return the histogram of read buffer capacities in bytes
+     */
+    public Histogram getRequestBufferSize() {
+        return this.requestBufferSize;
+    }
+}
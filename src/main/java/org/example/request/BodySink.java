@@ -0,0 +1,31 @@
+package org.example.request;
+
+import java.io.IOException;
+
+/**
+ * Receives the bytes of a request body as they are parsed.
+ * Body data is handed over in whatever pieces it arrives in and is never buffered
+ * as a whole, so a sink that streams the bytes onwards keeps memory use bounded
+ * regardless of the size of the body.
+ */
+@FunctionalInterface
+public interface BodySink {
+
+    /**
+     * A sink that throws body bytes away.
+     */
+    BodySink DISCARD = (data, offset, length) -> {
+    };
+
+    /**
+     * Receives the next piece of the request body.
+     * The bytes are only valid for the duration of the call and must be copied
+     * if they are needed afterwards.
+     *
+     * @param data   the array holding the body bytes
+     * @param offset the index of the first body byte
+     * @param length the number of body bytes
+     * @throws IOException if the sink cannot accept the data
+     */
+    void onBody(byte[] data, int offset, int length) throws IOException;
+}
@@ -0,0 +1,123 @@
+package org.example.request;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * Searches byte arrays for delimiters eight bytes at a time.
+ * Each step reads a little-endian long from the array and uses SWAR (SIMD within a register)
+ * arithmetic to test all eight bytes for the wanted value at once, so a search costs roughly
+ * one load, a handful of arithmetic operations and one branch per eight bytes instead of one
+ * load and one branch per byte. Regions shorter than a word, and the tail of every region,
+ * are searched one byte at a time; the scalar versions are also public so they can be
+ * benchmarked against the word-at-a-time ones.
+ */
+public final class ByteScanner {
+
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+    private static final long CR_PATTERN = ONES * '\r';
+
+    private ByteScanner() {
+    }
+
+    /**
+     * Finds the first occurrence of a byte value in the region of a byte array
+     * between position (inclusive) and end (exclusive).
+     *
+     * @param data     the byte array to search
+     * @param value    the byte value to find
+     * @param position the index to start searching from
+     * @param end      the index one past the last byte to search
+     * @return the index of the first matching byte, or -1 if there is none
+     */
+    public static int indexOf(byte[] data, byte value, int position, int end) {
+        long pattern = ONES * (value & 0xFF);
+        int i = position;
+
+        for (; i <= end - Long.BYTES; i += Long.BYTES) {
+            long matches = zeroBytes((long) LONGS.get(data, i) ^ pattern);
+            if (matches != 0) {
+                return i + (Long.numberOfTrailingZeros(matches) >>> 3);
+            }
+        }
+        return indexOfScalar(data, value, i, end);
+    }
+
+    /**
+     * Finds the first CRLF sequence in the region of a byte array between position (inclusive)
+     * and end (exclusive), searching for the carriage return a word at a time.
+     *
+     * @param data     the byte array to search
+     * @param position the index to start searching from
+     * @param end      the index one past the last byte to search
+     * @return the index of the \r character if CRLF is found, -1 otherwise
+     */
+    public static int findCRLF(byte[] data, int position, int end) {
+        int i = position;
+
+        while (i <= end - Long.BYTES) {
+            long matches = zeroBytes((long) LONGS.get(data, i) ^ CR_PATTERN);
+            if (matches == 0) {
+                i += Long.BYTES;
+                continue;
+            }
+
+            int crIndex = i + (Long.numberOfTrailingZeros(matches) >>> 3);
+            if (crIndex + 1 >= end) {
+                return -1;
+            }
+            if (data[crIndex + 1] == '\n') {
+                return crIndex;
+            }
+            i = crIndex + 1;
+        }
+        return findCRLFScalar(data, i, end);
+    }
+
+    /**
+     * Byte-at-a-time version of {@link #indexOf(byte[], byte, int, int)}.
+     *
+     * @param data     the byte array to search
+     * @param value    the byte value to find
+     * @param position the index to start searching from
+     * @param end      the index one past the last byte to search
+     * @return the index of the first matching byte, or -1 if there is none
+     */
+    public static int indexOfScalar(byte[] data, byte value, int position, int end) {
+        for (int i = position; i < end; i++) {
+            if (data[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Byte-at-a-time version of {@link #findCRLF(byte[], int, int)}.
+     *
+     * @param data     the byte array to search
+     * @param position the index to start searching from
+     * @param end      the index one past the last byte to search
+     * @return the index of the \r character if CRLF is found, -1 otherwise
+     */
+    public static int findCRLFScalar(byte[] data, int position, int end) {
+        for (int i = position; i < end - 1; i++) {
+            if (data[i] == '\r' && data[i + 1] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Sets the high bit of every byte of the result whose corresponding byte in word is zero.
+     * A borrow can also set the high bit of a byte above a zero byte, but never below the
+     * first one, so the lowest set bit always marks the first zero byte.
+     */
+    private static long zeroBytes(long word) {
+        return (word - ONES) & ~word & HIGH_BITS;
+    }
+}
@@ -0,0 +1,192 @@
+package org.example.request;
+
+import org.example.headers.Headers;
+
+import java.io.IOException;
+
+/**
+ * Incremental decoder for request bodies sent with "Transfer-Encoding: chunked".
+ * Like the rest of the parser it works in place on a region of a byte array and can
+ * be fed any amount of data at a time. Chunk data is passed to a BodySink as soon as
+ * it arrives, so the decoded body is never buffered.
+ * <p>
+ * Each chunk is a hexadecimal size line, optionally followed by chunk extensions,
+ * then that many bytes of data and a CRLF. A zero-sized chunk ends the body and is
+ * followed by optional trailer fields and an empty line. Chunk extensions are ignored;
+ * trailer fields are collected so they can be merged into the request headers.
+ * <p>
+ * A chunk-size line, extensions included, may be at most {@value #MAX_CHUNK_SIZE_LINE_LENGTH} bytes
+ * long, and the trailers are held to the header limits of the request, so nothing a client sends
+ * between chunks can make the read buffer grow.
+ */
+public class ChunkedDecoder {
+
+    private static final int MAX_CHUNK_SIZE_DIGITS = 15;
+    private static final int MAX_CHUNK_SIZE_LINE_LENGTH = 4096;
+
+    private enum State {
+        SIZE,
+        DATA,
+        DATA_CRLF,
+        TRAILERS,
+        DONE
+    }
+
+    private State state;
+    private long chunkBytesRemaining;
+    private int scannedBytes;
+    private final Headers trailers;
+
+    /**
+     * Creates a decoder positioned at the start of the first chunk-size line,
+     * parsing trailers within the default limits.
+     */
+    public ChunkedDecoder() {
+        this(RequestLimits.getDefault());
+    }
+
+    /**
+     * Creates a decoder positioned at the start of the first chunk-size line.
+     *
+     * @param limits the header limits the trailer section is parsed within
+     */
+    public ChunkedDecoder(RequestLimits limits) {
+        this.state = State.SIZE;
+        this.trailers = new Headers(limits);
+    }
+
+    /**
+     * Returns the decoder to the start of the first chunk-size line so it can decode another body,
+     * keeping its trailer storage.
+     */
+    public void reset() {
+        this.state = State.SIZE;
+        this.chunkBytesRemaining = 0;
+        this.scannedBytes = 0;
+        this.trailers.reset();
+    }
+
+    /**
+     * Decodes chunked body data held in a region of a byte array.
+     * Follows the same contract as Request.parse: unconsumed bytes must be presented
+     * again on the next call, starting at the same byte, followed by any new data.
+     *
+     * @param data   the byte array containing chunked body data
+     * @param offset the index of the first unconsumed byte
+     * @param length the number of valid bytes starting at offset
+     * @param sink   the sink that receives decoded chunk data
+     * @return the number of bytes consumed from the region, or 0 if more data is needed
+     * @throws IOException if the chunked encoding is malformed, or the sink fails
+     */
+    public int decode(byte[] data, int offset, int length, BodySink sink) throws IOException {
+        int end = offset + length;
+        int position = offset;
+
+        while (this.state != State.DONE) {
+            switch (this.state) {
+                case SIZE:
+                    int crlfIndex = RequestParser.findCRLF(data, position + this.scannedBytes, end);
+                    if (crlfIndex == -1) {
+                        this.scannedBytes = Math.max(0, end - position - 1);
+                        if (end - position >= MAX_CHUNK_SIZE_LINE_LENGTH) {
+                            throw new IOException("Chunk size line too long at byte index: " + position);
+                        }
+                        return position - offset;
+                    }
+                    this.scannedBytes = 0;
+                    this.chunkBytesRemaining = parseChunkSize(data, position, crlfIndex);
+                    this.state = this.chunkBytesRemaining == 0 ? State.TRAILERS : State.DATA;
+                    position = crlfIndex + 2;
+                    break;
+                case DATA:
+                    int dataBytes = (int) Math.min(this.chunkBytesRemaining, end - position);
+                    if (dataBytes == 0) {
+                        return position - offset;
+                    }
+                    sink.onBody(data, position, dataBytes);
+                    this.chunkBytesRemaining -= dataBytes;
+                    position += dataBytes;
+                    if (this.chunkBytesRemaining == 0) {
+                        this.state = State.DATA_CRLF;
+                    }
+                    break;
+                case DATA_CRLF:
+                    if (end - position < 2) {
+                        return position - offset;
+                    }
+                    if (data[position] != '\r' || data[position + 1] != '\n') {
+                        throw new IOException("Missing CRLF after chunk data at byte index: " + position);
+                    }
+                    this.state = State.SIZE;
+                    position += 2;
+                    break;
+                case TRAILERS:
+                    position += this.trailers.parse(data, position, end - position);
+                    if (!this.trailers.isDone()) {
+                        return position - offset;
+                    }
+                    this.state = State.DONE;
+                    break;
+                default:
+                    throw new IllegalStateException("Invalid chunked decoding state: " + this.state);
+            }
+        }
+        return position - offset;
+    }
+
+    /**
+     * Checks whether the final chunk and the trailer section have been decoded.
+     *
+     * @return true if the whole chunked body has been consumed, false otherwise
+     */
+    public boolean isDone() {
+        return this.state == State.DONE;
+    }
+
+    /**
+     * Returns the trailer fields sent after the last chunk.
+     * Only complete once {@link #isDone()} returns true.
+     *
+     * @return the trailer fields, with lowercase names
+     */
+    public Headers getTrailers() {
+        return this.trailers;
+    }
+
+    /**
+     * Parses the hexadecimal size at the start of a chunk-size line.
+     * Whitespace and chunk extensions after the size are allowed and ignored.
+     *
+     * @param data      the byte array containing the line
+     * @param position  the index of the first byte of the line
+     * @param crlfIndex the index of the line's CRLF terminator
+     * @return the chunk size in bytes
+     * @throws IOException if the line does not start with a valid hexadecimal size
+     */
+    private static long parseChunkSize(byte[] data, int position, int crlfIndex) throws IOException {
+        long size = 0;
+        int i = position;
+
+        while (i < crlfIndex && Character.digit(data[i], 16) != -1) {
+            if (i - position == MAX_CHUNK_SIZE_DIGITS) {
+                throw new IOException("Chunk size too large at byte index: " + position);
+            }
+            size = (size << 4) | Character.digit(data[i], 16);
+            i++;
+        }
+
+        if (i == position) {
+            throw new IOException("Invalid chunk size at byte index: " + position);
+        }
+
+        while (i < crlfIndex && (data[i] == ' ' || data[i] == '\t')) {
+            i++;
+        }
+
+        if (i < crlfIndex && data[i] != ';') {
+            throw new IOException("Invalid chunk size line at byte index: " + i);
+        }
+
+        return size;
+    }
+}
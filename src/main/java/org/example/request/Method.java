@@ -0,0 +1,64 @@
+package org.example.request;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The HTTP request methods accepted by the parser.
+ * Methods are case-sensitive, so a method token is recognised only if its bytes
+ * exactly match one of the names below.
+ */
+public enum Method {
+    GET,
+    POST,
+    PUT,
+    DELETE,
+    PATCH,
+    HEAD,
+    OPTIONS;
+
+    private static final Method[] VALUES = values();
+
+    private final byte[] bytes;
+
+    Method() {
+        this.bytes = name().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Finds the method whose name matches a region of a byte array, without decoding it.
+     *
+     * @param data   the byte array holding the method token
+     * @param offset the index of the first byte of the token
+     * @param length the length of the token
+     * @return the matching Method, or null if the token is not a supported method
+     */
+    public static Method lookup(byte[] data, int offset, int length) {
+        for (Method method : VALUES) {
+            if (method.matches(data, offset, length)) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the method name as ASCII bytes. The returned array is shared and must not be modified.
+     *
+     * @return the bytes of the method name
+     */
+    public byte[] getBytes() {
+        return this.bytes;
+    }
+
+    private boolean matches(byte[] data, int offset, int length) {
+        if (length != this.bytes.length || data[offset] != this.bytes[0]) {
+            return false;
+        }
+        for (int i = 1; i < length; i++) {
+            if (data[offset + i] != this.bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -1,21 +1,49 @@
 package org.example.request;
 
+import org.example.headers.HeaderNames;
 import org.example.headers.Headers;
+import org.example.metrics.ServerMetrics;
+import org.example.response.StatusCode;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 /**
  * Represents an HTTP request.
  * This class can incrementally parse HTTP request data from byte streams,
  * maintaining parsing state between calls to handle partial data.
- * The parser progresses through states: INITIALISED → PARSING_HEADERS → DONE
- * Supports parsing both the HTTP request line and headers.
+ * The parser progresses through states: INITIALISED → PARSING_HEADERS → PARSING_BODY → DONE
+ * Supports parsing the HTTP request line, headers and a body delimited either by
+ * Content-Length or by chunked Transfer-Encoding. The body is never buffered;
+ * its bytes are passed to a BodySink as they are parsed.
+ * <p>
+ * The request line and headers are parsed within a set of {@link RequestLimits}. A request that
+ * crosses one is rejected with a RequestTooLargeException as soon as it does, even part way through
+ * a line, so the caller never has to buffer more than the limits allow.
+ * <p>
+ * A Request can be {@link #reset()} once it has been handled and used to parse the next request
+ * on the same connection. It keeps its header storage, and keeps its request line if the next
+ * request asks for the same target, so that a keep-alive connection sending requests of a
+ * familiar size parses each one without allocating.
+ * <p>
+ * The time spent in each phase, from the first byte of the phase being presented to the
+ * parser to the end of the phase, is recorded in the default ServerMetrics.
  */
 public class Request {
+    private static final ServerMetrics METRICS = ServerMetrics.getDefault();
+
+    private final RequestLimits limits;
     RequestLine requestLine;
     private Status status;
     private final Headers headers;
-
+    private int scannedBytes;
+    private long contentLength;
+    private long bodyBytesRemaining;
+    private boolean chunked;
+    private ChunkedDecoder chunkedDecoder;
+    private RequestLine previousRequestLine;
+    private BodySink bodySink;
+    private long phaseStart;
 
     /**
      * Represents the current state of the HTTP request parser.
@@ -23,57 +51,157 @@ public class Request {
     public enum Status {
         INITIALISED,
         PARSING_HEADERS,
+        PARSING_BODY,
         DONE
     }
 
     /**
-     * Creates a new Request instance in the INITIALISED state.
+     * Creates a new Request instance in the INITIALISED state, parsed within the default limits.
      */
     public Request() {
+        this(RequestLimits.getDefault());
+    }
+
+    /**
+     * Creates a new Request instance in the INITIALISED state.
+     *
+     * @param limits the request line and header limits to parse within
+     */
+    public Request(RequestLimits limits) {
+        this.limits = limits;
+        this.status = Status.INITIALISED;
+        this.headers = new Headers(limits);
+        this.contentLength = -1;
+        this.bodySink = BodySink.DISCARD;
+    }
+
+    /**
+     * Returns this request to the INITIALISED state so it can parse the next request.
+     * The headers are reset in place and the chunked decoder, if there was one, is kept for reuse.
+     * The RequestLine is kept aside and reused if the next request has the same method and target.
+     * <p>
+     * Anything obtained from this request before the reset, such as its Headers, must not be used
+     * afterwards. Header value Strings and the RequestLine are immutable and stay valid.
+     *
+     * @return this request, ready to parse
+     */
+    public Request reset() {
+        if (this.requestLine != null) {
+            this.previousRequestLine = this.requestLine;
+        }
+        this.requestLine = null;
         this.status = Status.INITIALISED;
-        this.headers = new Headers();
+        this.headers.reset();
+        this.scannedBytes = 0;
+        this.contentLength = -1;
+        this.bodyBytesRemaining = 0;
+        this.chunked = false;
+        this.bodySink = BodySink.DISCARD;
+        this.phaseStart = 0;
+        return this;
     }
 
     /**
      * Attempts to parse HTTP request data from the provided byte array.
      * This method can be called multiple times with incremental data until
-     * a complete request line is found.
+     * the request is complete.
      *
      * @param data the byte array containing HTTP request data to parse
      * @return the number of bytes consumed from the input data, or 0 if more data is needed
      * @throws IOException if the request data is malformed or contains invalid HTTP syntax
      */
     public int parse(byte[] data) throws IOException {
+        return parse(data, 0, data.length);
+    }
+
+    /**
+     * Attempts to parse HTTP request data from the remaining bytes of a heap ByteBuffer, in place.
+     * The buffer's position is advanced past the bytes consumed.
+     *
+     * @param buffer the buffer whose remaining bytes contain HTTP request data to parse
+     * @return the number of bytes consumed from the buffer, or 0 if more data is needed
+     * @throws IOException              if the request data is malformed or contains invalid HTTP syntax
+     * @throws IllegalArgumentException if the buffer is not backed by an accessible array
+     */
+    public int parse(ByteBuffer buffer) throws IOException {
+        if (!buffer.hasArray()) {
+            throw new IllegalArgumentException("Request parsing requires a heap ByteBuffer");
+        }
+
+        int bytesParsed = parse(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        buffer.position(buffer.position() + bytesParsed);
+        return bytesParsed;
+    }
+
+    /**
+     * Attempts to parse HTTP request data held in a region of a byte array, in place.
+     * This method can be called multiple times with incremental data until the request is complete.
+     * <p>
+     * Unconsumed bytes must be presented again on the next call, starting at the same byte,
+     * followed by any newly received data. The parser remembers how far it has already searched
+     * for the end of the current line, so each byte is scanned once no matter how small the
+     * reads are, and a call that cannot complete a line allocates nothing.
+     * <p>
+     * When the headers announce a body, parsing stops at the end of the headers with the
+     * request in the PARSING_BODY state. This gives the caller a chance to attach a BodySink
+     * before any body bytes are consumed; subsequent calls pass the body to that sink.
+     *
+     * @param data   the byte array containing HTTP request data to parse
+     * @param offset the index of the first unconsumed byte
+     * @param length the number of valid bytes starting at offset
+     * @return the number of bytes consumed from the region, or 0 if more data is needed
+     * @throws RequestTooLargeException if the request line or headers cross one of the limits
+     * @throws IOException              if the request data is malformed or contains invalid HTTP syntax
+     */
+    @SuppressWarnings("fallthrough")
+    public int parse(byte[] data, int offset, int length) throws IOException {
+        int end = offset + length;
+        int position = offset;
 
         switch (this.status) {
             case INITIALISED:
-                RequestLineParseResult result = RequestParser.parseRequestLine(data);
-                if (result.getRequestLine() == null) {
+                if (this.phaseStart == 0 && length > 0) {
+                    this.phaseStart = System.nanoTime();
+                }
+                int crlfIndex = RequestParser.findCRLF(data, position + this.scannedBytes, end);
+                if (crlfIndex == -1) {
+                    this.scannedBytes = Math.max(0, length - 1);
+                    if (length >= this.limits.maxRequestLineLength()) {
+                        throw requestLineTooLong();
+                    }
                     return 0;
                 }
-                this.requestLine = result.getRequestLine();
+                if (crlfIndex + 2 - position > this.limits.maxRequestLineLength()) {
+                    throw requestLineTooLong();
+                }
+                this.scannedBytes = 0;
+                this.requestLine = RequestParser.parseRequestLine(data, position, crlfIndex - position,
+                        this.previousRequestLine);
                 this.status = Status.PARSING_HEADERS;
-
-                int headerBytes = this.headers.parse(result.getRestOfMessage());
-
+                endPhase(Status.INITIALISED);
+                position = crlfIndex + 2;
+                // fall through to parse any headers that arrived with the request line
+            case PARSING_HEADERS:
+                position += this.headers.parse(data, position, end - position);
                 if (this.headers.isDone()) {
-                    this.status = Status.DONE;
+                    endPhase(Status.PARSING_HEADERS);
+                    startBody();
                 }
-
-                if (headerBytes == -1) {
-                    return result.getBytesConsumed();
+                return position - offset;
+            case PARSING_BODY:
+                if (this.chunked) {
+                    return parseChunkedBody(data, position, end - position);
                 }
-
-                return result.getBytesConsumed() + headerBytes;
-            case PARSING_HEADERS:
-                headerBytes = this.headers.parse(data);
-                if (this.headers.isDone()) {
-                    this.status = Status.DONE;
+                int bodyBytes = (int) Math.min(this.bodyBytesRemaining, end - position);
+                if (bodyBytes > 0) {
+                    this.bodySink.onBody(data, position, bodyBytes);
+                    this.bodyBytesRemaining -= bodyBytes;
                 }
-                if (headerBytes == -1) {
-                    return 0;
+                if (this.bodyBytesRemaining == 0) {
+                    this.status = Status.DONE;
+                    endPhase(Status.PARSING_BODY);
                 }
-                return headerBytes;
+                return bodyBytes;
             case DONE:
                 return 0;
             default:
@@ -81,9 +209,174 @@ public class Request {
         }
     }
 
+    /**
+     * Moves from the headers to the body once the header section is complete.
+     * A chunked Transfer-Encoding takes the body through the ChunkedDecoder; otherwise
+     * requests without a Content-Length, or with a length of zero, have no body.
+     *
+     * @throws IOException if the Content-Length header is not a valid length, the transfer coding
+     *                     is not supported, or both Transfer-Encoding and Content-Length are present
+     */
+    private void startBody() throws IOException {
+        String value = this.headers.getValue(HeaderNames.CONTENT_LENGTH);
+
+        if (this.headers.contains(HeaderNames.TRANSFER_ENCODING)) {
+            if (value != null) {
+                throw new IOException("Request has both Transfer-Encoding and Content-Length");
+            }
+            if (!this.headers.valueEqualsIgnoreCase(HeaderNames.TRANSFER_ENCODING, "chunked")) {
+                throw new IOException("Unsupported Transfer-Encoding: " + this.headers.getValue(HeaderNames.TRANSFER_ENCODING));
+            }
+            if (this.chunkedDecoder == null) {
+                this.chunkedDecoder = new ChunkedDecoder(this.limits);
+            } else {
+                this.chunkedDecoder.reset();
+            }
+            this.chunked = true;
+            this.bodyBytesRemaining = -1;
+            this.status = Status.PARSING_BODY;
+            return;
+        }
+
+        if (value != null) {
+            this.contentLength = parseContentLength(value);
+        }
+
+        if (this.contentLength > 0) {
+            this.bodyBytesRemaining = this.contentLength;
+            this.status = Status.PARSING_BODY;
+        } else {
+            this.status = Status.DONE;
+            METRICS.requestCompleted();
+        }
+    }
+
+    /**
+     * Feeds body data to the chunked decoder, merging the trailer fields that are allowed
+     * in a trailer into the request headers once the last chunk has been decoded.
+     *
+     * @param data     the byte array containing chunked body data
+     * @param position the index of the first unconsumed byte
+     * @param length   the number of valid bytes starting at position
+     * @return the number of bytes consumed
+     * @throws RequestTooLargeException if the headers and trailers together cross the header limits
+     * @throws IOException              if the chunked encoding is malformed
+     */
+    private int parseChunkedBody(byte[] data, int position, int length) throws IOException {
+        int consumed = this.chunkedDecoder.decode(data, position, length, this.bodySink);
+
+        if (this.chunkedDecoder.isDone()) {
+            this.headers.addTrailers(this.chunkedDecoder.getTrailers());
+            this.bodyBytesRemaining = 0;
+            this.status = Status.DONE;
+            endPhase(Status.PARSING_BODY);
+        }
+        return consumed;
+    }
+
+    private RequestTooLargeException requestLineTooLong() {
+        return new RequestTooLargeException(StatusCode.URI_TOO_LONG,
+                "Request line exceeds " + this.limits.maxRequestLineLength() + " bytes");
+    }
+
+    /**
+     * Records the time spent in a parsing phase that has just ended, and starts timing the next.
+     * A request is counted as completed when its body phase ends.
+     *
+     * @param phase the phase that ended
+     */
+    private void endPhase(Status phase) {
+        long now = System.nanoTime();
+        long elapsed = now - this.phaseStart;
+        this.phaseStart = now;
+
+        switch (phase) {
+            case INITIALISED -> METRICS.recordRequestLine(elapsed);
+            case PARSING_HEADERS -> METRICS.recordHeaders(elapsed);
+            case PARSING_BODY -> {
+                METRICS.recordBody(elapsed);
+                METRICS.requestCompleted();
+            }
+            default -> throw new IllegalStateException("Not a timed phase: " + phase);
+        }
+    }
+
+    /**
+     * Parses a Content-Length value. Repeated Content-Length headers are combined into
+     * a comma separated list by Headers, which is accepted only if every entry is identical.
+     *
+     * @param value the Content-Length header value
+     * @return the body length in bytes
+     * @throws IOException if the value is not a non-negative decimal number, or lists different lengths
+     */
+    private static long parseContentLength(String value) throws IOException {
+        long length = -1;
+
+        for (String entry : value.split(",")) {
+            String digits = entry.trim();
+
+            if (digits.isEmpty() || digits.length() > 18) {
+                throw new IOException("Invalid Content-Length: " + value);
+            }
+            for (int i = 0; i < digits.length(); i++) {
+                if (digits.charAt(i) < '0' || digits.charAt(i) > '9') {
+                    throw new IOException("Invalid Content-Length: " + value);
+                }
+            }
+
+            long parsed = Long.parseLong(digits);
+            if (length != -1 && parsed != length) {
+                throw new IOException("Conflicting Content-Length values: " + value);
+            }
+            length = parsed;
+        }
+        return length;
+    }
+
+    /**
+     * Sets the sink that receives the request body as it is parsed.
+     * Should be called once the request reaches the PARSING_BODY state and before
+     * parsing continues. Without a sink, body bytes are discarded.
+     *
+     * @param bodySink the sink to pass body bytes to
+     */
+    public void setBodySink(BodySink bodySink) {
+        this.bodySink = bodySink;
+    }
+
+    /**
+     * Checks whether the request body uses chunked Transfer-Encoding.
+     * Only meaningful once the headers have been parsed.
+     *
+     * @return true if the body is chunked, false otherwise
+     */
+    public boolean isChunked() {
+        return this.chunked;
+    }
+
+    /**
+     * Returns the length of the body announced by the Content-Length header.
+     * Only meaningful once the headers have been parsed.
+     *
+     * @return the body length in bytes, or -1 if the request has no Content-Length header
+     */
+    public long getContentLength() {
+        return this.contentLength;
+    }
+
+    /**
+     * Returns the number of body bytes that have not been parsed yet.
+     *
+     * @return the remaining body length in bytes, 0 if there is no body left to read,
+     * or -1 while a chunked body whose length is not known in advance is being read
+     */
+    public long getBodyBytesRemaining() {
+        return this.bodyBytesRemaining;
+    }
+
     /**
      * Returns the parsed HTTP request line.
-     * Only available after the parser reaches DONE status.
+     * Only available once the request line has been parsed.
      *
      * @return the parsed RequestLine object, or null if parsing is not complete
      */
@@ -94,12 +387,23 @@ public class Request {
     /**
      * Returns the current parsing status of this Request.
      *
-     * @return the current Status (INITIALISED, PARSING_HEADERS, or DONE)
+     * @return the current Status (INITIALISED, PARSING_HEADERS, PARSING_BODY, or DONE)
      */
     public Status getStatus() {
         return this.status;
     }
 
+    /**
+     * Checks whether the connection may be reused for another request after this one.
+     * HTTP/1.1 connections are persistent by default unless the client sends
+     * a Connection header containing the "close" option.
+     *
+     * @return false if the client asked for the connection to be closed, true otherwise
+     */
+    public boolean isKeepAlive() {
+        return !this.headers.containsToken(HeaderNames.CONNECTION, "close");
+    }
+
     /**
      * Returns the parsed HTTP headers.
      * The Headers object contains all header field-value pairs parsed from the request,
@@ -0,0 +1,57 @@
+package org.example.request;
+
+/**
+ * Hard limits on the size of a request's line and header section.
+ * The parser checks them as bytes arrive, before a line is complete, so an oversized request is
+ * rejected as soon as it crosses a limit instead of after the read buffer has grown to hold it.
+ * <ul>
+ *   <li>{@code maxRequestLineLength}: the longest request line, counting its CRLF. Longer lines are
+ *       rejected with 414 URI Too Long, since in practice only the target makes a line long.</li>
+ *   <li>{@code maxHeaderBytes}: the size of the whole header section, counting every line's CRLF
+ *       and the empty line that ends it.</li>
+ *   <li>{@code maxHeaderCount}: the number of header lines, with repeated names counted every time.</li>
+ *   <li>{@code maxHeaderValueLength}: the longest value of a single header, after repeated lines
+ *       for the same name have been combined.</li>
+ * </ul>
+ * Header limits are rejected with 431 Request Header Fields Too Large. Chunked trailers are
+ * held to the same header limits on their own while they are parsed, and again together with the
+ * headers when they are merged into them.
+ * <p>
+ * The parser consumes every complete line, so a read buffer only ever has to hold one incomplete
+ * line. Neither the request line nor a header line can outgrow its limit, so a connection's read
+ * buffer never grows beyond the smallest buffer pool size class that holds
+ * {@code max(maxRequestLineLength, maxHeaderBytes)} bytes, and the copied header values never take
+ * more than twice maxHeaderBytes.
+ *
+ * @param maxRequestLineLength the longest request line in bytes, including its CRLF
+ * @param maxHeaderBytes       the largest header section in bytes, including the terminating empty line
+ * @param maxHeaderCount       the most header lines a request may have
+ * @param maxHeaderValueLength the longest combined value of one header in bytes
+ */
+public record RequestLimits(int maxRequestLineLength, int maxHeaderBytes, int maxHeaderCount, int maxHeaderValueLength) {
+
+    private static final RequestLimits DEFAULT = new RequestLimits(8192, 32768, 100, 8192);
+
+    /**
+     * Creates a set of request limits.
+     *
+     * @throws IllegalArgumentException if any limit is less than 1, or the request line limit cannot fit
+     *                                  the shortest valid request line
+     */
+    public RequestLimits {
+        if (maxRequestLineLength < 16 || maxHeaderBytes < 2 || maxHeaderCount < 1 || maxHeaderValueLength < 1) {
+            throw new IllegalArgumentException("Request limits are too small: " + maxRequestLineLength + ", "
+                    + maxHeaderBytes + ", " + maxHeaderCount + ", " + maxHeaderValueLength);
+        }
+    }
+
+    /**
+     * Returns the default limits: an 8 KiB request line, a 32 KiB header section,
+     * 100 header lines and an 8 KiB value per header.
+     *
+     * @return the default limits
+     */
+    public static RequestLimits getDefault() {
+        return DEFAULT;
+    }
+}
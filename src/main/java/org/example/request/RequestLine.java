@@ -1,11 +1,124 @@
 package org.example.request;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
 /**
  * Represents the first line of an HTTP request containing the method, target, and version.
- *
- * @param method        the HTTP method (e.g., "GET", "POST", "PUT", "DELETE")
- * @param requestTarget the request target path (e.g., "/", "/coffee", "/api/users")
- * @param httpVersion   the HTTP version number (e.g., "1.1" for HTTP/1.1)
+ * The method is held as a Method constant and the request target as its raw bytes;
+ * the target is decoded into a String only the first time it is asked for.
+ * Only HTTP/1.1 request lines are accepted by the parser, so the version is not stored.
  */
-public record RequestLine(String method, String requestTarget, String httpVersion) {
+public final class RequestLine {
+    private static final String HTTP_VERSION = "1.1";
+
+    private final Method method;
+    private final byte[] requestTargetBytes;
+    private String requestTarget;
+
+    /**
+     * Creates a request line from a method and a request target held in a region of a byte array.
+     * The target bytes are copied, so the array may be reused afterwards.
+     *
+     * @param method the HTTP method
+     * @param data   the byte array holding the request target
+     * @param offset the index of the first byte of the target
+     * @param length the length of the target
+     */
+    public RequestLine(Method method, byte[] data, int offset, int length) {
+        this.method = method;
+        this.requestTargetBytes = Arrays.copyOfRange(data, offset, offset + length);
+    }
+
+    /**
+     * Creates a request line from a method and a request target.
+     *
+     * @param method        the HTTP method
+     * @param requestTarget the request target path (e.g., "/", "/coffee", "/api/users")
+     */
+    public RequestLine(Method method, String requestTarget) {
+        this.method = method;
+        this.requestTargetBytes = requestTarget.getBytes(StandardCharsets.UTF_8);
+        this.requestTarget = requestTarget;
+    }
+
+    /**
+     * Returns the HTTP method name.
+     *
+     * @return the HTTP method (e.g., "GET", "POST", "PUT", "DELETE")
+     */
+    public String method() {
+        return this.method.name();
+    }
+
+    /**
+     * Returns the HTTP method as a Method constant, which can be compared without string equality.
+     *
+     * @return the HTTP method
+     */
+    public Method getMethod() {
+        return this.method;
+    }
+
+    /**
+     * Returns the request target, decoding it from its raw bytes on first use.
+     *
+     * @return the request target path (e.g., "/", "/coffee", "/api/users")
+     */
+    public String requestTarget() {
+        if (this.requestTarget == null) {
+            this.requestTarget = new String(this.requestTargetBytes, StandardCharsets.UTF_8);
+        }
+        return this.requestTarget;
+    }
+
+    /**
+     * Returns the raw bytes of the request target.
+     * The returned array is owned by this RequestLine and must not be modified.
+     *
+     * @return the request target bytes
+     */
+    public byte[] requestTargetBytes() {
+        return this.requestTargetBytes;
+    }
+
+    /**
+     * Returns the HTTP version number.
+     *
+     * @return the HTTP version number, always "1.1"
+     */
+    public String httpVersion() {
+        return HTTP_VERSION;
+    }
+
+    /**
+     * Checks whether this line has the given method and a target equal to a region of a byte array.
+     *
+     * @param method the HTTP method
+     * @param data   the byte array holding a request target
+     * @param offset the index of the first byte of the target
+     * @param length the length of the target
+     * @return true if both the method and the target bytes are the same
+     */
+    boolean matches(Method method, byte[] data, int offset, int length) {
+        return this.method == method
+                && Arrays.equals(this.requestTargetBytes, 0, this.requestTargetBytes.length, data, offset, offset + length);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof RequestLine line
+                && this.method == line.method
+                && Arrays.equals(this.requestTargetBytes, line.requestTargetBytes);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * this.method.hashCode() + Arrays.hashCode(this.requestTargetBytes);
+    }
+
+    @Override
+    public String toString() {
+        return "RequestLine[method=" + method() + ", requestTarget=" + requestTarget() + ", httpVersion=" + HTTP_VERSION + "]";
+    }
 }
@@ -3,115 +3,136 @@ package org.example.request;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
-import java.util.Set;
 
 public class RequestParser {
 
+    private static final byte SP = ' ';
+    private static final byte[] HTTP_PREFIX = "HTTP/".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] HTTP_1_1 = "HTTP/1.1".getBytes(StandardCharsets.US_ASCII);
+
     /**
-     * Parses an HTTP request from an InputStream using incremental buffering.
-     * This method reads data in chunks, accumulating it in a growing buffer until
-     * a complete request line is found. Uses a stateful Request object to track
-     * parsing progress and handle partial data efficiently.
+     * Parses a single HTTP request from an InputStream using incremental buffering.
+     * Any request body is read and discarded. Any bytes received after the end of the
+     * request are also discarded; use a RequestReader to read several requests from the same stream.
      *
      * @param inputStream the input stream containing the HTTP request data
-     * @return a Request object containing the parsed request line
+     * @return a Request object containing the parsed request line and headers
      * @throws IOException if the stream ends before a complete request is found,
      *                     or if the request data is malformed
      */
     public static Request requestFromReader(InputStream inputStream) throws IOException {
-        Request request = new Request();
+        return requestFromReader(inputStream, BodySink.DISCARD);
+    }
 
-        byte[] buffer = new byte[8];
-        int totalBytesInBuffer = 0;
+    /**
+     * Parses a single HTTP request from an InputStream using incremental buffering,
+     * streaming its body to the given sink as it is read.
+     * Any bytes received after the end of the request are discarded.
+     *
+     * @param inputStream the input stream containing the HTTP request data
+     * @param bodySink    the sink to receive the request body
+     * @return a Request object containing the parsed request line and headers
+     * @throws IOException if the stream ends before a complete request is found,
+     *                     or if the request data is malformed
+     */
+    public static Request requestFromReader(InputStream inputStream, BodySink bodySink) throws IOException {
+        RequestReader reader = new RequestReader(inputStream);
 
-        while (request.getStatus() != Request.Status.DONE) {
-            int bytesRead = inputStream.read(buffer, totalBytesInBuffer, buffer.length - totalBytesInBuffer);
+        try {
+            Request request = reader.next();
 
-            if (bytesRead == -1) {
+            if (request == null) {
                 throw new IOException("Stream ended before complete request");
             }
 
-            totalBytesInBuffer += bytesRead;
-
-            byte[] parseData = Arrays.copyOfRange(buffer, 0, totalBytesInBuffer);
-
-            int bytesParsed = request.parse(parseData);
-
-            if (bytesParsed > 0) {
-                System.arraycopy(buffer, bytesParsed, buffer, 0, totalBytesInBuffer - bytesParsed);
-                totalBytesInBuffer -= bytesParsed;
-            }
-
-            if (totalBytesInBuffer >= buffer.length - 1) {
-                buffer = Arrays.copyOf(buffer, buffer.length * 2);
-            }
-
+            reader.readBody(bodySink);
+            return request;
+        } finally {
+            reader.release();
         }
-
-        return request;
-
     }
 
     /**
-     * Parses HTTP request line data from a byte array and returns parsing results.
-     * Searches for a complete request line ending with \\r\\n, validates the HTTP format,
-     * and returns both the parsed RequestLine and any remaining unparsed data.
+     * Parses a complete HTTP request line held in a region of a byte array.
+     * The region must contain the whole line without its CRLF terminator.
+     * The line is tokenized in a single pass over its bytes: the method is matched against the
+     * Method constants and the version against the bytes of "HTTP/1.1", so nothing is decoded
+     * unless the line is invalid. Only the request target bytes are copied.
      *
-     * @param rawData the byte array containing HTTP request data to parse
-     * @return a RequestLineParseResult containing the parsed RequestLine (or null if incomplete),
-     * remaining unparsed data, and the number of bytes consumed
+     * @param data   the byte array containing the request line
+     * @param offset the index of the first byte of the request line
+     * @param length the length of the request line, excluding the CRLF terminator
+     * @return the parsed RequestLine
      * @throws IOException if the request line format is invalid, contains an unsupported method,
      *                     invalid request target, or unsupported HTTP version
      */
-    public static RequestLineParseResult parseRequestLine(byte[] rawData) throws IOException {
-
-        if (rawData == null || rawData.length < 2) {
-            return new RequestLineParseResult(null, null, 0);
-        }
+    public static RequestLine parseRequestLine(byte[] data, int offset, int length) throws IOException {
+        return parseRequestLine(data, offset, length, null);
+    }
 
-        int crlfindex = findCRLF(rawData);
+    /**
+     * Parses a complete HTTP request line, returning the given previous RequestLine instead of a new
+     * one if the line has the same method and target. RequestLine is immutable, so a keep-alive
+     * connection that asks for the same resource again shares one instance, and its decoded target,
+     * between requests without copying anything.
+     *
+     * @param data     the byte array containing the request line
+     * @param offset   the index of the first byte of the request line
+     * @param length   the length of the request line, excluding the CRLF terminator
+     * @param previous the request line of the previous request parsed by the caller, or null
+     * @return the parsed RequestLine, which may be previous
+     * @throws IOException if the request line is invalid, exactly as for {@link #parseRequestLine(byte[], int, int)}
+     */
+    static RequestLine parseRequestLine(byte[] data, int offset, int length, RequestLine previous) throws IOException {
+        int end = offset + length;
+        int methodEnd = ByteScanner.indexOf(data, SP, offset, end);
+        int targetEnd = methodEnd == -1 ? -1 : ByteScanner.indexOf(data, SP, methodEnd + 1, end);
 
-        if (crlfindex == -1) {
-            return new RequestLineParseResult(null, null, 0);
+        if (targetEnd == -1 || methodEnd == offset || targetEnd == methodEnd + 1
+                || ByteScanner.indexOf(data, SP, targetEnd + 1, end) != -1) {
+            throw new IOException("Invalid request line format");
         }
 
-        int bytesConsumed = crlfindex + 2;
-
-        String requestLine = new String(rawData, 0, crlfindex, StandardCharsets.UTF_8);
-        byte[] restOfMessage = new byte[rawData.length - bytesConsumed];
-        System.arraycopy(rawData, bytesConsumed, restOfMessage, 0, rawData.length - bytesConsumed);
-
-        String[] parts = requestLine.split(" ");
-
-        if (parts.length != 3) {
-            throw new IOException("Invalid request line format");
+        int versionStart = targetEnd + 1;
+        if (!startsWith(data, versionStart, end - versionStart, HTTP_PREFIX)) {
+            throw new IOException("Invalid HTTP version format: " + ascii(data, versionStart, end));
         }
 
-        String method = parts[0];
-        String requestTarget = parts[1];
+        Method method = Method.lookup(data, offset, methodEnd - offset);
 
-        if (!parts[2].startsWith("HTTP/")) {
-            throw new IOException("Invalid HTTP version format: " + parts[2]);
+        if (method == null) {
+            throw new IOException("Invalid HTTP method: " + ascii(data, offset, methodEnd));
         }
 
-        String httpVersion = parts[2].replace("HTTP/", "");
-
-        Set<String> validMethods = Set.of("GET", "POST", "PUT", "DELETE", "PATCH", "HEAD", "OPTIONS");
+        int targetStart = methodEnd + 1;
+        if (data[targetStart] != '/' && !(method == Method.OPTIONS && data[targetStart] == '*')) {
+            throw new IOException("Invalid request target: " + ascii(data, targetStart, targetEnd));
+        }
 
-        if (!validMethods.contains(method)) {
-            throw new IOException("Invalid HTTP method: " + parts[0]);
+        if (end - versionStart != HTTP_1_1.length || !startsWith(data, versionStart, end - versionStart, HTTP_1_1)) {
+            throw new IOException("Unsupported HTTP version");
         }
 
-        if (!requestTarget.startsWith("/") && !(method.equals("OPTIONS") && parts[1].startsWith("*"))) {
-            throw new IOException("Invalid request target: " + parts[1]);
+        if (previous != null && previous.matches(method, data, targetStart, targetEnd - targetStart)) {
+            return previous;
         }
+        return new RequestLine(method, data, targetStart, targetEnd - targetStart);
+    }
 
-        if (!httpVersion.equals("1.1")) {
-            throw new IOException("Unsupported HTTP version");
+    private static boolean startsWith(byte[] data, int offset, int length, byte[] prefix) {
+        if (length < prefix.length) {
+            return false;
         }
+        for (int i = 0; i < prefix.length; i++) {
+            if (data[offset + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
 
-        return new RequestLineParseResult(new RequestLine(method, requestTarget, httpVersion), restOfMessage, bytesConsumed);
+    private static String ascii(byte[] data, int start, int end) {
+        return new String(data, start, end - start, StandardCharsets.US_ASCII);
     }
 
     /**
@@ -122,12 +143,7 @@ public class RequestParser {
      * @return the index of the \r character if CRLF is found, -1 otherwise
      */
     public static int findCRLF(byte[] data) {
-        for (int i = 0; i < data.length - 1; i++) {
-            if (data[i] == '\r' && data[i + 1] == '\n') {
-                return i;
-            }
-        }
-        return -1;
+        return findCRLF(data, 0, data.length);
     }
 
     /**
@@ -141,12 +157,22 @@ public class RequestParser {
      * @return the index of the \r character if CRLF is found, -1 otherwise
      */
     public static int findCRLF(byte[] data, int position) {
-        for (int i = position; i < data.length - 1; i++) {
-            if (data[i] == '\r' && data[i + 1] == '\n') {
-                return i;
-            }
-        }
-        return -1;
+        return findCRLF(data, position, data.length);
+    }
+
+    /**
+     * Searches for the first occurrence of CRLF (\r\n) sequence in the region of a byte array
+     * between position (inclusive) and end (exclusive).
+     * Used when the valid data only occupies part of a larger buffer.
+     * The search is done a word at a time by {@link ByteScanner}.
+     *
+     * @param data     the byte array to search
+     * @param position the starting position in the byte array to begin searching
+     * @param end      the index one past the last valid byte
+     * @return the index of the \r character if CRLF is found, -1 otherwise
+     */
+    public static int findCRLF(byte[] data, int position, int end) {
+        return ByteScanner.findCRLF(data, position, end);
     }
 
 }
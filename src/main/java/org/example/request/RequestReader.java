@@ -0,0 +1,337 @@
+package org.example.request;
+
+import org.example.buffer.BufferPool;
+import org.example.metrics.ServerMetrics;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Reads successive HTTP requests from a single InputStream.
+ * The read buffer outlives each Request, so any bytes received after the end of
+ * one request are kept and used to seed the next one. This allows a persistent
+ * connection to carry many requests, including pipelined requests that arrive
+ * back to back in the same read.
+ * <p>
+ * Request bodies are streamed rather than buffered: they can be pushed to a BodySink
+ * or pulled through an InputStream, one read buffer at a time.
+ * <p>
+ * The read buffer is borrowed from a BufferPool and must be handed back with
+ * {@link #release()} once the connection is finished with. Requests are parsed within a set of
+ * {@link RequestLimits}, which bound how far the buffer can grow while a request line or header
+ * line is incomplete.
+ */
+public class RequestReader {
+
+    private static final int INITIAL_BUFFER_SIZE = 4096;
+
+    private final InputStream inputStream;
+    private final BufferPool bufferPool;
+    private final RequestLimits limits;
+    private ByteBuffer buffer;
+    private int totalBytesInBuffer;
+    private Request current;
+    private long generation;
+
+    /**
+     * Creates a RequestReader over the given stream, borrowing its buffer from the default pool.
+     *
+     * @param inputStream the input stream containing one or more HTTP requests
+     */
+    public RequestReader(InputStream inputStream) {
+        this(inputStream, BufferPool.getDefault());
+    }
+
+    /**
+     * Creates a RequestReader over the given stream, borrowing its buffer from the given pool
+     * and parsing within the default limits.
+     *
+     * @param inputStream the input stream containing one or more HTTP requests
+     * @param bufferPool  the heap buffer pool to borrow the read buffer from
+     * @throws IllegalArgumentException if the pool hands out direct buffers
+     */
+    public RequestReader(InputStream inputStream, BufferPool bufferPool) {
+        this(inputStream, bufferPool, RequestLimits.getDefault());
+    }
+
+    /**
+     * Creates a RequestReader over the given stream, borrowing its buffer from the given pool.
+     *
+     * @param inputStream the input stream containing one or more HTTP requests
+     * @param bufferPool  the heap buffer pool to borrow the read buffer from
+     * @param limits      the request line and header limits each request is parsed within
+     * @throws IllegalArgumentException if the pool hands out direct buffers
+     */
+    public RequestReader(InputStream inputStream, BufferPool bufferPool, RequestLimits limits) {
+        if (bufferPool.isDirect()) {
+            throw new IllegalArgumentException("RequestReader requires a heap buffer pool");
+        }
+
+        this.inputStream = inputStream;
+        this.bufferPool = bufferPool;
+        this.limits = limits;
+        this.buffer = bufferPool.acquire(INITIAL_BUFFER_SIZE);
+        this.totalBytesInBuffer = 0;
+    }
+
+    /**
+     * Reads the next request from the stream, up to the end of its headers.
+     * Bytes left over from the previous request are parsed before any further reads,
+     * and bytes beyond the end of this request's headers are kept for later calls.
+     * <p>
+     * If the returned request is in the PARSING_BODY state its body is still unread and can be
+     * consumed with {@link #readBody(BodySink)} or {@link #getBody()}. Any part of the body
+     * that is left unread is skipped when next() is called again.
+     *
+     * @return the next Request, or null if the stream ended cleanly between requests
+     * @throws RequestTooLargeException if the request line or headers cross one of the limits
+     * @throws IOException              if the stream ends part way through a request,
+     *                                  or if the request data is malformed
+     */
+    public Request next() throws IOException {
+        skipUnreadBody();
+        return read(new Request(this.limits));
+    }
+
+    /**
+     * Reads the next request from the stream into an existing Request, which is reset first.
+     * Behaves exactly like {@link #next()} otherwise, but lets a connection reuse one Request
+     * for all of its requests. The request is parsed within its own limits.
+     *
+     * @param request the request to reset and parse into, typically the one returned by the previous call
+     * @return the given request, or null if the stream ended cleanly between requests
+     * @throws RequestTooLargeException if the request line or headers cross one of the limits
+     * @throws IOException              if the stream ends part way through a request,
+     *                                  or if the request data is malformed
+     */
+    public Request next(Request request) throws IOException {
+        skipUnreadBody();
+        return read(request.reset());
+    }
+
+    private void skipUnreadBody() throws IOException {
+        if (this.current != null && this.current.getStatus() != Request.Status.DONE) {
+            readBody(BodySink.DISCARD);
+        }
+    }
+
+    private Request read(Request request) throws IOException {
+        this.current = request;
+        this.generation++;
+
+        while (true) {
+            if (this.totalBytesInBuffer > 0) {
+                consume(request, this.totalBytesInBuffer);
+
+                if (request.getStatus() == Request.Status.PARSING_BODY || request.getStatus() == Request.Status.DONE) {
+                    ServerMetrics.getDefault().recordRequestBuffer(this.buffer.capacity());
+                    return request;
+                }
+            }
+
+            if (fill() == -1) {
+                if (this.totalBytesInBuffer == 0 && request.getStatus() == Request.Status.INITIALISED) {
+                    return null;
+                }
+                throw new IOException("Stream ended before complete request");
+            }
+        }
+    }
+
+    /**
+     * Reads the rest of the current request's body, passing it to the given sink
+     * piece by piece as it arrives. Only one read buffer's worth of body is held at a time.
+     *
+     * @param sink the sink to receive the body bytes
+     * @throws IOException if the stream ends before the body is complete, or the sink fails
+     */
+    public void readBody(BodySink sink) throws IOException {
+        Request request = this.current;
+
+        if (request == null || request.getStatus() == Request.Status.DONE) {
+            return;
+        }
+
+        request.setBodySink(sink);
+
+        while (request.getStatus() != Request.Status.DONE) {
+            if (this.totalBytesInBuffer == 0 || consume(request, this.totalBytesInBuffer) == 0) {
+                if (fill() == -1) {
+                    throw new IOException("Stream ended before complete request body");
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns an InputStream over the rest of the current request's body.
+     * Reading from it pulls body bytes from the connection on demand, so the body is
+     * never held in memory as a whole. The stream reports end of stream once the body
+     * is complete, and stops being usable once {@link #next()} is called again, even if the
+     * next request is read into the same Request object.
+     *
+     * @return a stream over the unread part of the current request body
+     * @throws IllegalStateException if no request has been read yet
+     */
+    public InputStream getBody() {
+        if (this.current == null) {
+            throw new IllegalStateException("No request has been read");
+        }
+        return new BodyInputStream(this.current, this.generation);
+    }
+
+    /**
+     * Returns the number of bytes received beyond the requests returned so far.
+     *
+     * @return the number of buffered bytes not yet consumed by a request
+     */
+    public int getBufferedBytes() {
+        return this.totalBytesInBuffer;
+    }
+
+    /**
+     * Returns the read buffer to its pool. Any buffered bytes are discarded and the
+     * reader must not be used afterwards. The underlying stream is not closed.
+     */
+    public void release() {
+        if (this.buffer != null) {
+            this.bufferPool.release(this.buffer);
+            this.buffer = null;
+            this.totalBytesInBuffer = 0;
+        }
+    }
+
+    /**
+     * Parses up to maxBytes buffered bytes into the request and drops whatever it consumed.
+     *
+     * @param request  the request to parse into
+     * @param maxBytes the maximum number of buffered bytes to offer the parser
+     * @return the number of bytes consumed, or 0 if the parser needs more data to make progress
+     * @throws IOException if the request data is malformed
+     */
+    private int consume(Request request, int maxBytes) throws IOException {
+        byte[] data = this.buffer.array();
+        int offset = this.buffer.arrayOffset();
+
+        int bytesParsed = request.parse(data, offset, maxBytes);
+
+        if (bytesParsed > 0) {
+            System.arraycopy(data, offset + bytesParsed, data, offset, this.totalBytesInBuffer - bytesParsed);
+            this.totalBytesInBuffer -= bytesParsed;
+        }
+        return bytesParsed;
+    }
+
+    /**
+     * Reads more bytes from the stream into the free end of the buffer,
+     * growing the buffer first if it is full.
+     *
+     * @return the number of bytes read, or -1 at end of stream
+     * @throws IOException if reading from the stream fails
+     */
+    private int fill() throws IOException {
+        if (this.totalBytesInBuffer >= this.buffer.capacity() - 1) {
+            this.buffer = this.bufferPool.grow(this.buffer, this.totalBytesInBuffer);
+        }
+
+        int bytesRead = this.inputStream.read(this.buffer.array(), this.buffer.arrayOffset() + this.totalBytesInBuffer,
+                this.buffer.capacity() - this.totalBytesInBuffer);
+
+        if (bytesRead > 0) {
+            this.totalBytesInBuffer += bytesRead;
+        }
+        return bytesRead;
+    }
+
+    /**
+     * Pull-based view of a request body. It acts as the request's BodySink, so parsed body
+     * bytes are copied straight into the caller's array. A chunked body can decode to more
+     * bytes than the caller asked for in one parse step; the excess is held in a small
+     * overflow array, bounded by the read buffer size, and returned by the next read.
+     */
+    private final class BodyInputStream extends InputStream implements BodySink {
+        private final Request request;
+        private final long generation;
+        private final byte[] single;
+        private byte[] target;
+        private int targetOffset;
+        private int targetLength;
+        private int copied;
+        private byte[] overflow;
+        private int overflowStart;
+        private int overflowEnd;
+
+        BodyInputStream(Request request, long generation) {
+            this.request = request;
+            this.generation = generation;
+            this.single = new byte[1];
+            this.overflow = new byte[0];
+            request.setBodySink(this);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int bytesRead = read(this.single, 0, 1);
+            return bytesRead == -1 ? -1 : Byte.toUnsignedInt(this.single[0]);
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            // a reused Request is the same object for every request, so compare generations
+            if (this.generation != RequestReader.this.generation) {
+                throw new IOException("Request body is no longer available");
+            }
+            if (length == 0) {
+                return 0;
+            }
+
+            if (this.overflowStart < this.overflowEnd) {
+                int bytesToCopy = Math.min(length, this.overflowEnd - this.overflowStart);
+                System.arraycopy(this.overflow, this.overflowStart, buffer, offset, bytesToCopy);
+                this.overflowStart += bytesToCopy;
+                return bytesToCopy;
+            }
+
+            while (this.request.getStatus() != Request.Status.DONE) {
+                if (RequestReader.this.totalBytesInBuffer == 0 && fill() == -1) {
+                    throw new IOException("Stream ended before complete request body");
+                }
+
+                this.target = buffer;
+                this.targetOffset = offset;
+                this.targetLength = length;
+                this.copied = 0;
+                this.overflowStart = 0;
+                this.overflowEnd = 0;
+                int bytesParsed = consume(this.request, RequestReader.this.totalBytesInBuffer);
+                this.target = null;
+
+                if (this.copied > 0) {
+                    return this.copied;
+                }
+                if (bytesParsed == 0 && fill() == -1) {
+                    throw new IOException("Stream ended before complete request body");
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public void onBody(byte[] data, int offset, int length) {
+            int direct = Math.min(length, this.targetLength - this.copied);
+            System.arraycopy(data, offset, this.target, this.targetOffset + this.copied, direct);
+            this.copied += direct;
+
+            int excess = length - direct;
+            if (excess > 0) {
+                if (this.overflowEnd + excess > this.overflow.length) {
+                    this.overflow = Arrays.copyOf(this.overflow, Math.max(this.overflowEnd + excess, this.overflow.length * 2));
+                }
+                System.arraycopy(data, offset + direct, this.overflow, this.overflowEnd, excess);
+                this.overflowEnd += excess;
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package org.example.request;
+
+import org.example.response.StatusCode;
+
+import java.io.IOException;
+
+/**
+ * Thrown by the parser when a request crosses one of its {@link RequestLimits}.
+ * Unlike other parse errors the request is well formed as far as it got, so the server
+ * answers with the status carried here before closing the connection.
+ */
+public class RequestTooLargeException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final StatusCode statusCode;
+
+    /**
+     * Creates an exception for a request that crossed a limit.
+     *
+     * @param statusCode the status to answer with, 414 or 431
+     * @param message    a description of the limit that was crossed
+     */
+    public RequestTooLargeException(StatusCode statusCode, String message) {
+        super(message);
+        this.statusCode = statusCode;
+    }
+
+    /**
+     * Returns the status the request should be answered with.
+     *
+     * @return URI_TOO_LONG for an oversized request line, REQUEST_HEADER_FIELDS_TOO_LARGE for oversized headers
+     */
+    public StatusCode getStatusCode() {
+        return this.statusCode;
+    }
+}
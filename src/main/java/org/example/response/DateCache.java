@@ -0,0 +1,91 @@
+package org.example.response;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+/**
+ * Supplies the encoded Date header line for responses.
+ * The HTTP date only has one-second resolution, so the header line is formatted at most
+ * once per second and shared by every response sent within that second. The cached line
+ * is published through a volatile field, so any number of threads can read it without locking;
+ * two threads that see the second change at the same moment simply both format it.
+ */
+public final class DateCache {
+
+    private static final DateTimeFormatter HTTP_DATE =
+            DateTimeFormatter.ofPattern("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.ENGLISH).withZone(ZoneOffset.UTC);
+
+    private static final DateCache DEFAULT = new DateCache(Clock.systemUTC());
+
+    private final Clock clock;
+    private volatile Entry current;
+
+    /**
+     * Creates a date cache that reads the time from the given clock.
+     *
+     * @param clock the clock to read the current time from
+     */
+    public DateCache(Clock clock) {
+        this.clock = clock;
+        this.current = new Entry(Long.MIN_VALUE, null);
+    }
+
+    /**
+     * Returns the shared date cache backed by the system clock.
+     *
+     * @return the default DateCache
+     */
+    public static DateCache getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Returns the complete Date header line for the current second, including its CRLF.
+     * The returned array is shared and must not be modified.
+     *
+     * @return the bytes of e.g. "Date: Sat, 17 Oct 2026 09:30:00 GMT\r\n"
+     */
+    public byte[] getDateHeader() {
+        long second = Math.floorDiv(this.clock.millis(), 1000);
+        Entry entry = this.current;
+
+        if (entry.second != second) {
+            byte[] headerLine = ("Date: " + format(second) + "\r\n").getBytes(StandardCharsets.US_ASCII);
+            entry = new Entry(second, headerLine);
+            this.current = entry;
+        }
+        return entry.headerLine;
+    }
+
+    /**
+     * Formats a time as an HTTP date, e.g. "Sat, 17 Oct 2026 09:30:00 GMT".
+     *
+     * @param epochSecond the time in seconds since the epoch
+     * @return the IMF-fixdate form used by HTTP
+     */
+    public static String format(long epochSecond) {
+        return HTTP_DATE.format(Instant.ofEpochSecond(epochSecond));
+    }
+
+    /**
+     * Parses an HTTP date in the IMF-fixdate form, as sent in If-Modified-Since.
+     *
+     * @param value the header value, e.g. "Sat, 17 Oct 2026 09:30:00 GMT"
+     * @return the time in seconds since the epoch, or -1 if the value is not a valid HTTP date
+     */
+    public static long parse(String value) {
+        try {
+            return Instant.from(HTTP_DATE.parse(value)).getEpochSecond();
+        } catch (DateTimeException e) {
+            return -1;
+        }
+    }
+
+    private record Entry(long second, byte[] headerLine) {
+    }
+}
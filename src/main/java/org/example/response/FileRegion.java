@@ -0,0 +1,78 @@
+package org.example.response;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A range of bytes in a file to be sent as a response body.
+ * The bytes are sent with {@link FileChannel#transferTo(long, long, WritableByteChannel)}, which
+ * on Linux becomes sendfile, so they go from the page cache to the socket without being copied
+ * through the Java heap. A FileRegion only describes the range; each send opens its own
+ * {@link Transfer}, so one Response with a file body can be sent any number of times.
+ *
+ * @param path     the file to send
+ * @param position the offset of the first byte to send
+ * @param count    the number of bytes to send
+ */
+public record FileRegion(Path path, long position, long count) {
+
+    /**
+     * Opens the file for sending this region.
+     *
+     * @return a Transfer positioned at the start of the region
+     * @throws IOException if the file cannot be opened
+     */
+    public Transfer open() throws IOException {
+        return new Transfer(FileChannel.open(this.path, StandardOpenOption.READ), this.position, this.position + this.count);
+    }
+
+    /**
+     * The progress of sending one FileRegion. Must be closed once it is done or abandoned.
+     */
+    public static final class Transfer implements AutoCloseable {
+        private final FileChannel file;
+        private final long end;
+        private long position;
+
+        private Transfer(FileChannel file, long position, long end) {
+            this.file = file;
+            this.position = position;
+            this.end = end;
+        }
+
+        /**
+         * Sends as many of the remaining bytes as the target channel will take.
+         * On a non-blocking channel this may send nothing.
+         *
+         * @param target the channel to send to
+         * @return true once every byte of the region has been sent
+         * @throws IOException if the transfer fails, or the file is now shorter than the region
+         */
+        public boolean transferTo(WritableByteChannel target) throws IOException {
+            while (this.position < this.end) {
+                long transferred = this.file.transferTo(this.position, this.end - this.position, target);
+                if (transferred <= 0) {
+                    if (this.position >= this.file.size()) {
+                        throw new IOException("File truncated while being sent");
+                    }
+                    return false;
+                }
+                this.position += transferred;
+            }
+            return true;
+        }
+
+        /**
+         * Closes the file.
+         *
+         * @throws IOException if the file cannot be closed
+         */
+        @Override
+        public void close() throws IOException {
+            this.file.close();
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package org.example.response;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * An HTTP response to be sent by a ResponseWriter: a status, a list of headers and an optional body.
+ * Headers are kept in the order they are set and sent as given. The Date and Content-Length
+ * headers, and Connection: close when the connection is about to be closed, are always written
+ * by the ResponseWriter and cannot be set here.
+ * <p>
+ * The body is held either as a ByteBuffer between its position and limit, or as a FileRegion
+ * that is sent straight from the file. The writer only ever reads a view of a buffer body and
+ * opens its own transfer for a file body, so one Response can be sent any number of times.
+ */
+public class Response {
+    private static final int INITIAL_HEADER_CAPACITY = 8;
+    private static final ByteBuffer EMPTY_BODY = ByteBuffer.allocate(0).asReadOnlyBuffer();
+
+    private final StatusCode status;
+    private String[] headerNames;
+    private String[] headerValues;
+    private int headerCount;
+    private ByteBuffer body;
+    private FileRegion fileBody;
+
+    /**
+     * Creates a response with the given status, no headers and an empty body.
+     *
+     * @param status the response status
+     */
+    public Response(StatusCode status) {
+        this.status = status;
+        this.headerNames = new String[INITIAL_HEADER_CAPACITY];
+        this.headerValues = new String[INITIAL_HEADER_CAPACITY];
+        this.headerCount = 0;
+        this.body = EMPTY_BODY;
+        this.fileBody = null;
+    }
+
+    /**
+     * Creates a response with a UTF-8 text/plain body.
+     *
+     * @param status the response status
+     * @param text   the body text
+     * @return a new Response with a Content-Type of "text/plain; charset=utf-8"
+     */
+    public static Response text(StatusCode status, String text) {
+        Response response = new Response(status);
+        response.setHeader("Content-Type", "text/plain; charset=utf-8");
+        response.setBody(text.getBytes(StandardCharsets.UTF_8));
+        return response;
+    }
+
+    /**
+     * Adds a header to the response. Setting a name that is already present adds a second
+     * header line rather than replacing the first.
+     * Names and values must be ASCII; any other character is sent as '?'.
+     *
+     * @param name  the header name, e.g. "Content-Type"
+     * @param value the header value
+     * @throws IllegalArgumentException if the name is Content-Length or Date, which the writer
+     *                                  always supplies, or if the name or value contains CR or LF
+     */
+    public void setHeader(String name, String value) {
+        if (name.equalsIgnoreCase("content-length") || name.equalsIgnoreCase("date")) {
+            throw new IllegalArgumentException(name + " is written by the ResponseWriter");
+        }
+        if (containsLineBreak(name) || containsLineBreak(value)) {
+            throw new IllegalArgumentException("Header contains a line break: " + name);
+        }
+
+        if (this.headerCount == this.headerNames.length) {
+            this.headerNames = Arrays.copyOf(this.headerNames, this.headerCount * 2);
+            this.headerValues = Arrays.copyOf(this.headerValues, this.headerCount * 2);
+        }
+        this.headerNames[this.headerCount] = name;
+        this.headerValues[this.headerCount] = value;
+        this.headerCount++;
+    }
+
+    /**
+     * Sets the response body to the whole of a byte array. The array is not copied.
+     *
+     * @param body the body bytes
+     */
+    public void setBody(byte[] body) {
+        setBody(ByteBuffer.wrap(body));
+    }
+
+    /**
+     * Sets the response body to the bytes between the buffer's position and limit.
+     * The buffer is not copied and its position is never changed by writing.
+     *
+     * @param body the body bytes
+     */
+    public void setBody(ByteBuffer body) {
+        this.body = body;
+        this.fileBody = null;
+    }
+
+    /**
+     * Sets the response body to a range of a file, which is sent without being read into memory.
+     *
+     * @param fileBody the file range to send
+     */
+    public void setBody(FileRegion fileBody) {
+        this.body = EMPTY_BODY;
+        this.fileBody = fileBody;
+    }
+
+    /**
+     * Returns the response status.
+     *
+     * @return the status code
+     */
+    public StatusCode getStatus() {
+        return this.status;
+    }
+
+    /**
+     * Returns the number of headers set on this response.
+     *
+     * @return the header count
+     */
+    public int getHeaderCount() {
+        return this.headerCount;
+    }
+
+    /**
+     * Returns the name of the header at the given index, in the order headers were set.
+     *
+     * @param index the header index, from 0 to getHeaderCount() - 1
+     * @return the header name as it was set
+     */
+    public String getHeaderName(int index) {
+        return this.headerNames[index];
+    }
+
+    /**
+     * Returns the value of the header at the given index, in the order headers were set.
+     *
+     * @param index the header index, from 0 to getHeaderCount() - 1
+     * @return the header value
+     */
+    public String getHeaderValue(int index) {
+        return this.headerValues[index];
+    }
+
+    /**
+     * Returns the value of the first header with the given name, ignoring case.
+     *
+     * @param name the header name to look up
+     * @return the header value, or null if no header with that name has been set
+     */
+    public String getHeader(String name) {
+        for (int i = 0; i < this.headerCount; i++) {
+            if (this.headerNames[i].equalsIgnoreCase(name)) {
+                return this.headerValues[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns a read-only view of the body. The view has its own position,
+     * so reading it does not affect the response.
+     *
+     * @return the body bytes between position and limit, or an empty buffer if the body is a file
+     */
+    public ByteBuffer getBody() {
+        return this.body.asReadOnlyBuffer();
+    }
+
+    /**
+     * Returns the file body, if the body was set to a FileRegion.
+     *
+     * @return the file range to send, or null if the body is held in a buffer
+     */
+    public FileRegion getFileBody() {
+        return this.fileBody;
+    }
+
+    /**
+     * Returns the number of body bytes.
+     *
+     * @return the body length in bytes
+     */
+    public long getBodyLength() {
+        return this.fileBody != null ? this.fileBody.count() : this.body.remaining();
+    }
+
+    private static boolean containsLineBreak(String text) {
+        return text.indexOf('\r') != -1 || text.indexOf('\n') != -1;
+    }
+}
@@ -0,0 +1,189 @@
+package org.example.response;
+
+import org.example.request.Method;
+import org.example.request.Request;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encodes Responses for sending on a channel.
+ * The status line and headers are encoded straight into a reusable head buffer: the status
+ * line and the header lines the writer adds itself are pre-encoded byte constants, and header
+ * names, values and the Content-Length digits are copied in byte by byte without building
+ * intermediate Strings. The head and the body are then sent together with a single gathering
+ * {@code write(ByteBuffer[])}, so a response normally costs one system call and the body is
+ * never copied into the head. A file body is sent after the head with
+ * {@link java.nio.channels.FileChannel#transferTo}, without passing through the heap.
+ * <p>
+ * A ResponseWriter reuses its head buffer and is not thread-safe; each I/O thread should have its own.
+ */
+public class ResponseWriter {
+
+    private static final int INITIAL_HEAD_SIZE = 1024;
+    private static final int MAX_LONG_DIGITS = 19;
+    private static final byte[] CONTENT_LENGTH = "Content-Length: ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CONNECTION_CLOSE = "Connection: close\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] HEADER_SEPARATOR = {':', ' '};
+    private static final byte[] CRLF = {'\r', '\n'};
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+    private final DateCache dateCache;
+    private final ByteBuffer[] buffers;
+    private ByteBuffer head;
+
+    /**
+     * Creates a response writer that takes its Date header from the default DateCache.
+     */
+    public ResponseWriter() {
+        this(DateCache.getDefault());
+    }
+
+    /**
+     * Creates a response writer that takes its Date header from the given cache.
+     *
+     * @param dateCache the source of the Date header line
+     */
+    public ResponseWriter(DateCache dateCache) {
+        this.dateCache = dateCache;
+        this.buffers = new ByteBuffer[2];
+        this.head = ByteBuffer.allocate(INITIAL_HEAD_SIZE);
+    }
+
+    /**
+     * Writes a complete response to a blocking channel.
+     *
+     * @param channel  the blocking channel to write to
+     * @param response the response to send
+     * @param request  the request being answered, which decides whether the connection is
+     *                 kept alive and whether the body is sent at all
+     * @throws IOException if writing to the channel fails
+     */
+    public void write(GatheringByteChannel channel, Response response, Request request) throws IOException {
+        ByteBuffer[] encoded = encode(response, request);
+        while (encoded[0].hasRemaining() || encoded[1].hasRemaining()) {
+            channel.write(encoded);
+        }
+
+        FileRegion fileBody = fileBody(response, request);
+        if (fileBody != null) {
+            try (FileRegion.Transfer transfer = fileBody.open()) {
+                while (!transfer.transferTo(channel)) {
+                    Thread.onSpinWait();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the file range that has to be sent after the encoded head, if any.
+     * This is the response's file body unless the request was a HEAD request
+     * or the response status does not allow a body.
+     *
+     * @param response the response being sent
+     * @param request  the request being answered
+     * @return the file range to send after the head, or null if there is none
+     */
+    public FileRegion fileBody(Response response, Request request) {
+        if (response.getFileBody() == null || !response.getStatus().allowsBody() || isHeadRequest(request)) {
+            return null;
+        }
+        return response.getFileBody();
+    }
+
+    /**
+     * Encodes a response to a request. See {@link #encode(Response, boolean, boolean)}.
+     *
+     * @param response the response to encode
+     * @param request  the request being answered
+     * @return the head and body buffers, ready for a gathering write
+     */
+    public ByteBuffer[] encode(Response response, Request request) {
+        return encode(response, request.isKeepAlive(), isHeadRequest(request));
+    }
+
+    /**
+     * Encodes a response into a head buffer holding the status line and headers, and a body buffer.
+     * The returned array and the head buffer are reused by the next call on this writer, so they must
+     * be written, or their remaining bytes copied, before this writer encodes another response.
+     * The body buffer is an independent view of the response body.
+     * <p>
+     * Responses whose status does not allow a body get neither a body nor a Content-Length header.
+     * Responses to HEAD requests get the Content-Length of the body they would have had, but no body.
+     * The body buffer is empty for a file body, which has to be sent separately after the head;
+     * see {@link #fileBody(Response, Request)}.
+     *
+     * @param response    the response to encode
+     * @param keepAlive   false to add "Connection: close"
+     * @param headRequest true if the request was a HEAD request
+     * @return an array holding the head buffer followed by the body buffer
+     */
+    public ByteBuffer[] encode(Response response, boolean keepAlive, boolean headRequest) {
+        StatusCode status = response.getStatus();
+        byte[] dateHeader = this.dateCache.getDateHeader();
+
+        int headSize = status.getStatusLine().length + dateHeader.length
+                + CONTENT_LENGTH.length + MAX_LONG_DIGITS + CRLF.length + CONNECTION_CLOSE.length + CRLF.length;
+        for (int i = 0; i < response.getHeaderCount(); i++) {
+            headSize += response.getHeaderName(i).length() + HEADER_SEPARATOR.length
+                    + response.getHeaderValue(i).length() + CRLF.length;
+        }
+        if (headSize > this.head.capacity()) {
+            this.head = ByteBuffer.allocate(Math.max(headSize, this.head.capacity() * 2));
+        }
+
+        ByteBuffer head = this.head;
+        head.clear();
+        head.put(status.getStatusLine());
+        head.put(dateHeader);
+
+        if (status.allowsBody()) {
+            head.put(CONTENT_LENGTH);
+            putDecimal(head, response.getBodyLength());
+            head.put(CRLF);
+        }
+        if (!keepAlive) {
+            head.put(CONNECTION_CLOSE);
+        }
+        for (int i = 0; i < response.getHeaderCount(); i++) {
+            putAscii(head, response.getHeaderName(i));
+            head.put(HEADER_SEPARATOR);
+            putAscii(head, response.getHeaderValue(i));
+            head.put(CRLF);
+        }
+        head.put(CRLF);
+        head.flip();
+
+        this.buffers[0] = head;
+        this.buffers[1] = status.allowsBody() && !headRequest ? response.getBody() : EMPTY;
+        return this.buffers;
+    }
+
+    private static boolean isHeadRequest(Request request) {
+        return request.getRequestLine() != null && request.getRequestLine().getMethod() == Method.HEAD;
+    }
+
+    private static void putAscii(ByteBuffer buffer, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            buffer.put(c < 0x80 ? (byte) c : (byte) '?');
+        }
+    }
+
+    private static void putDecimal(ByteBuffer buffer, long value) {
+        int digits = 1;
+        for (long remaining = value / 10; remaining > 0; remaining /= 10) {
+            digits++;
+        }
+
+        byte[] array = buffer.array();
+        int end = buffer.arrayOffset() + buffer.position() + digits;
+        for (int i = end - 1; i >= end - digits; i--) {
+            array[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        buffer.position(buffer.position() + digits);
+    }
+}
@@ -0,0 +1,74 @@
+package org.example.response;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * HTTP status codes the server can send, each with its status line pre-encoded
+ * so that writing a response never has to format or encode it.
+ */
+public enum StatusCode {
+    OK(200, "OK"),
+    CREATED(201, "Created"),
+    NO_CONTENT(204, "No Content"),
+    MOVED_PERMANENTLY(301, "Moved Permanently"),
+    FOUND(302, "Found"),
+    NOT_MODIFIED(304, "Not Modified"),
+    BAD_REQUEST(400, "Bad Request"),
+    FORBIDDEN(403, "Forbidden"),
+    NOT_FOUND(404, "Not Found"),
+    METHOD_NOT_ALLOWED(405, "Method Not Allowed"),
+    REQUEST_TIMEOUT(408, "Request Timeout"),
+    PAYLOAD_TOO_LARGE(413, "Payload Too Large"),
+    URI_TOO_LONG(414, "URI Too Long"),
+    REQUEST_HEADER_FIELDS_TOO_LARGE(431, "Request Header Fields Too Large"),
+    INTERNAL_SERVER_ERROR(500, "Internal Server Error"),
+    SERVICE_UNAVAILABLE(503, "Service Unavailable");
+
+    private final int code;
+    private final String reason;
+    private final byte[] statusLine;
+
+    StatusCode(int code, String reason) {
+        this.code = code;
+        this.reason = reason;
+        this.statusLine = ("HTTP/1.1 " + code + " " + reason + "\r\n").getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Returns the numeric status code.
+     *
+     * @return the three-digit status code, e.g. 200
+     */
+    public int getCode() {
+        return this.code;
+    }
+
+    /**
+     * Returns the reason phrase sent after the status code.
+     *
+     * @return the reason phrase, e.g. "OK"
+     */
+    public String getReason() {
+        return this.reason;
+    }
+
+    /**
+     * Returns the encoded status line including its CRLF terminator.
+     * The returned array is shared and must not be modified.
+     *
+     * @return the bytes of the status line, e.g. "HTTP/1.1 200 OK\r\n"
+     */
+    public byte[] getStatusLine() {
+        return this.statusLine;
+    }
+
+    /**
+     * Checks whether a response with this status may carry a body.
+     * 204 and 304 responses never have a body or a Content-Length header.
+     *
+     * @return false for 204 No Content and 304 Not Modified, true otherwise
+     */
+    public boolean allowsBody() {
+        return this != NO_CONTENT && this != NOT_MODIFIED;
+    }
+}
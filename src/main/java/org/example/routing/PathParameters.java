@@ -0,0 +1,111 @@
+package org.example.routing;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * The values captured by a route's path parameters for one request.
+ * Values are recorded as ranges of the raw request target bytes while the route is matched,
+ * and are only percent-decoded into Strings when they are asked for.
+ */
+public final class PathParameters {
+    private static final int INITIAL_CAPACITY = 4;
+
+    private final byte[] target;
+    private String[] names;
+    private int[] starts;
+    private int[] ends;
+    private int count;
+
+    PathParameters(byte[] target) {
+        this.target = target;
+        this.names = new String[INITIAL_CAPACITY];
+        this.starts = new int[INITIAL_CAPACITY];
+        this.ends = new int[INITIAL_CAPACITY];
+        this.count = 0;
+    }
+
+    /**
+     * Returns the decoded value of a parameter.
+     *
+     * @param name the parameter name, as written in the route pattern without braces or '*'
+     * @return the percent-decoded value, or null if the route has no such parameter
+     */
+    public String get(String name) {
+        for (int i = 0; i < this.count; i++) {
+            if (this.names[i].equals(name)) {
+                return getValue(i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the number of captured parameters.
+     *
+     * @return the parameter count
+     */
+    public int size() {
+        return this.count;
+    }
+
+    /**
+     * Returns the name of the parameter at the given index, in the order they appear in the pattern.
+     *
+     * @param index the parameter index, from 0 to size() - 1
+     * @return the parameter name
+     */
+    public String getName(int index) {
+        return this.names[index];
+    }
+
+    /**
+     * Returns the decoded value of the parameter at the given index.
+     *
+     * @param index the parameter index, from 0 to size() - 1
+     * @return the percent-decoded value
+     */
+    public String getValue(int index) {
+        return decode(this.target, this.starts[index], this.ends[index]);
+    }
+
+    void add(String name, int start, int end) {
+        if (this.count == this.names.length) {
+            this.names = Arrays.copyOf(this.names, this.count * 2);
+            this.starts = Arrays.copyOf(this.starts, this.count * 2);
+            this.ends = Arrays.copyOf(this.ends, this.count * 2);
+        }
+        this.names[this.count] = name;
+        this.starts[this.count] = start;
+        this.ends[this.count] = end;
+        this.count++;
+    }
+
+    void truncate(int size) {
+        this.count = size;
+    }
+
+    private static String decode(byte[] data, int start, int end) {
+        int escape = start;
+        while (escape < end && data[escape] != '%') {
+            escape++;
+        }
+        if (escape == end) {
+            return new String(data, start, end - start, StandardCharsets.UTF_8);
+        }
+
+        ByteArrayOutputStream decoded = new ByteArrayOutputStream(end - start);
+        for (int i = start; i < end; i++) {
+            int high = i + 2 < end ? Character.digit(data[i + 1], 16) : -1;
+            int low = i + 2 < end ? Character.digit(data[i + 2], 16) : -1;
+            if (data[i] == '%' && high != -1 && low != -1) {
+                decoded.write(high << 4 | low);
+                i += 2;
+            } else {
+                decoded.write(data[i]);
+            }
+        }
+        return decoded.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,47 @@
+package org.example.routing;
+
+import org.example.request.BodySink;
+import org.example.request.Request;
+import org.example.response.Response;
+import org.example.server.RequestHandler;
+
+/**
+ * Handler for the requests matched by one route of a Router.
+ * Receives the values captured by the route's path parameters along with the request.
+ */
+@FunctionalInterface
+public interface RouteHandler {
+
+    /**
+     * Handles a request matched by this route.
+     *
+     * @param request    the parsed request, in the DONE state
+     * @param parameters the values captured by the route's {name} and {*name} segments
+     * @return the response to send, never null
+     */
+    Response handle(Request request, PathParameters parameters);
+
+    /**
+     * Chooses where the body of a request matched by this route should go.
+     * The default implementation discards the body.
+     *
+     * @param request    the request whose headers have been parsed, in the PARSING_BODY state
+     * @param parameters the values captured by the route's path parameters
+     * @return the sink to stream the request body into
+     */
+    default BodySink bodySink(Request request, PathParameters parameters) {
+        return BodySink.DISCARD;
+    }
+
+    /**
+     * Returns whether this handler is finished with each Request once handle returns.
+     * A Router releases its requests only if every one of its route handlers does.
+     * The default is false.
+     *
+     * @return true if requests are not used after handle returns
+     * @see RequestHandler#releasesRequest()
+     */
+    default boolean releasesRequest() {
+        return false;
+    }
+}
@@ -0,0 +1,398 @@
+package org.example.routing;
+
+import org.example.request.BodySink;
+import org.example.request.Method;
+import org.example.request.Request;
+import org.example.response.Response;
+import org.example.response.StatusCode;
+import org.example.server.RequestHandler;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.StringJoiner;
+
+/**
+ * Dispatches requests to RouteHandlers by method and request target path.
+ * <p>
+ * Routes are stored in a compressed radix trie keyed on the bytes of their path. A pattern is
+ * made of static text and whole-segment parameters: {@code {name}} matches one non-empty path
+ * segment and {@code {*name}} matches the rest of the path, including any further slashes, and
+ * must come last. For example {@code /users/{id}/orders} or {@code /static/{*file}}.
+ * <p>
+ * Matching walks the raw request target bytes without decoding or splitting them into Strings,
+ * so its cost depends on the length of the path rather than the number of routes. Static text
+ * is preferred over a parameter, and a parameter over a catch-all; if a more specific branch
+ * fails further down, matching backtracks to the next one. The query string is ignored.
+ * Static text is compared with the target as sent, before percent-decoding.
+ * <p>
+ * A path that matches no route is passed to the fallback handler, or answered with 404 if there
+ * is none. A path that matches a route for other methods only is answered with 405 and an Allow
+ * header. Routes must all be added before the router starts handling requests.
+ * <p>
+ * The router releases its requests, so servers may reuse them, only if the fallback and every
+ * route handler do.
+ */
+public class Router implements RequestHandler {
+
+    private static final int ALL_METHODS = Method.values().length;
+
+    private final Node root;
+    private final RequestHandler fallback;
+    private boolean releasesRequest;
+
+    /**
+     * Creates a router that answers unmatched requests with 404 Not Found.
+     */
+    public Router() {
+        this(null);
+    }
+
+    /**
+     * Creates a router that passes unmatched requests to a fallback handler.
+     *
+     * @param fallback the handler for requests no route matches, or null to answer them with 404
+     */
+    public Router(RequestHandler fallback) {
+        this.root = new Node(new byte[0]);
+        this.fallback = fallback;
+        this.releasesRequest = fallback == null || fallback.releasesRequest();
+    }
+
+    /**
+     * Adds a route.
+     *
+     * @param method  the method the route handles
+     * @param pattern the path pattern, starting with '/'
+     * @param handler the handler for requests the route matches
+     * @throws IllegalArgumentException if the pattern is malformed, or conflicts with an existing route
+     */
+    public void add(Method method, String pattern, RouteHandler handler) {
+        if (!pattern.startsWith("/")) {
+            throw new IllegalArgumentException("Route pattern must start with '/': " + pattern);
+        }
+
+        Node node = this.root;
+        int position = 0;
+
+        while (position < pattern.length()) {
+            int brace = pattern.indexOf('{', position);
+            int staticEnd = brace == -1 ? pattern.length() : brace;
+
+            if (staticEnd > position) {
+                node = insertStatic(node, pattern.substring(position, staticEnd).getBytes(StandardCharsets.UTF_8), 0);
+                position = staticEnd;
+                continue;
+            }
+
+            int close = pattern.indexOf('}', brace);
+            if (close == -1 || pattern.charAt(brace - 1) != '/') {
+                throw new IllegalArgumentException("Malformed parameter in route pattern: " + pattern);
+            }
+
+            boolean catchAll = pattern.charAt(brace + 1) == '*';
+            String name = pattern.substring(brace + (catchAll ? 2 : 1), close);
+            if (name.isEmpty() || name.indexOf('/') != -1 || name.indexOf('{') != -1) {
+                throw new IllegalArgumentException("Malformed parameter in route pattern: " + pattern);
+            }
+            if (catchAll ? close != pattern.length() - 1 : close + 1 < pattern.length() && pattern.charAt(close + 1) != '/') {
+                throw new IllegalArgumentException("Parameter must be a whole path segment, and a catch-all must come last: " + pattern);
+            }
+
+            node = catchAll ? node.catchAllChild(name, pattern) : node.parameterChild(name, pattern);
+            position = close + 1;
+        }
+
+        if (node.handlers[method.ordinal()] != null) {
+            throw new IllegalArgumentException("Duplicate route: " + method + " " + pattern);
+        }
+        node.handlers[method.ordinal()] = handler;
+        this.releasesRequest &= handler.releasesRequest();
+    }
+
+    /**
+     * Adds a route served by a handler that does not need the route's path parameters.
+     * The handler also chooses the body sink and says whether it releases requests.
+     *
+     * @param method  the method the route handles
+     * @param pattern the path pattern, starting with '/'
+     * @param handler the handler for requests the route matches
+     * @throws IllegalArgumentException if the pattern is malformed, or conflicts with an existing route
+     */
+    public void add(Method method, String pattern, RequestHandler handler) {
+        add(method, pattern, new RequestHandlerRoute(handler));
+    }
+
+    /**
+     * Dispatches a request to the handler of the route matching its method and path.
+     *
+     * @param request the parsed request
+     * @return the route handler's response, the fallback's response, 404 or 405
+     */
+    @Override
+    public Response handle(Request request) {
+        Method method = request.getRequestLine().getMethod();
+        byte[] target = request.getRequestLine().requestTargetBytes();
+        PathParameters parameters = new PathParameters(target);
+        Node node = match(this.root, target, 0, pathEnd(target), method.ordinal(), parameters);
+
+        if (node != null) {
+            return node.handlers[method.ordinal()].handle(request, parameters);
+        }
+
+        Node otherMethods = match(this.root, target, 0, pathEnd(target), ALL_METHODS, new PathParameters(target));
+        if (otherMethods != null) {
+            Response response = Response.text(StatusCode.METHOD_NOT_ALLOWED, "Method Not Allowed");
+            response.setHeader("Allow", otherMethods.allowedMethods());
+            return response;
+        }
+        if (this.fallback != null) {
+            return this.fallback.handle(request);
+        }
+        return Response.text(StatusCode.NOT_FOUND, "Not Found");
+    }
+
+    /**
+     * Asks the matching route's handler, or the fallback, where the request body should go.
+     *
+     * @param request the request whose headers have been parsed
+     * @return the sink chosen by the handler that will handle the request
+     */
+    @Override
+    public BodySink bodySink(Request request) {
+        Method method = request.getRequestLine().getMethod();
+        byte[] target = request.getRequestLine().requestTargetBytes();
+        PathParameters parameters = new PathParameters(target);
+        Node node = match(this.root, target, 0, pathEnd(target), method.ordinal(), parameters);
+
+        if (node != null) {
+            return node.handlers[method.ordinal()].bodySink(request, parameters);
+        }
+        if (this.fallback != null) {
+            return this.fallback.bodySink(request);
+        }
+        return BodySink.DISCARD;
+    }
+
+    /**
+     * Reports whether every route handler and the fallback release their requests.
+     *
+     * @return true if no handler this router dispatches to uses a request after handle returns
+     */
+    @Override
+    public boolean releasesRequest() {
+        return this.releasesRequest;
+    }
+
+    /**
+     * Inserts static path bytes below a node, splitting an existing edge where the new
+     * path diverges from it part way along.
+     *
+     * @return the node at the end of the inserted bytes
+     */
+    private static Node insertStatic(Node node, byte[] path, int position) {
+        while (position < path.length) {
+            int index = node.staticChildIndex(path[position]);
+
+            if (index == -1) {
+                Node child = new Node(Arrays.copyOfRange(path, position, path.length));
+                node.addStaticChild(child);
+                return child;
+            }
+
+            Node child = node.staticChildren[index];
+            int common = 0;
+            while (common < child.prefix.length && position + common < path.length
+                    && child.prefix[common] == path[position + common]) {
+                common++;
+            }
+
+            if (common < child.prefix.length) {
+                Node split = new Node(Arrays.copyOf(child.prefix, common));
+                child.prefix = Arrays.copyOfRange(child.prefix, common, child.prefix.length);
+                split.addStaticChild(child);
+                node.staticChildren[index] = split;
+                node.staticFirstBytes[index] = split.prefix[0];
+                child = split;
+            }
+
+            position += common;
+            node = child;
+        }
+        return node;
+    }
+
+    /**
+     * Finds the node for the route matching target[position, end) below a node whose own
+     * prefix has already been matched. Static children are tried first, then the parameter
+     * child, then the catch-all child.
+     *
+     * @param methodIndex the ordinal of the method the route must handle, or ALL_METHODS for any
+     * @return the matching node, or null if there is none
+     */
+    private static Node match(Node node, byte[] target, int position, int end, int methodIndex, PathParameters parameters) {
+        if (position == end && node.handles(methodIndex)) {
+            return node;
+        }
+
+        if (position < end) {
+            int index = node.staticChildIndex(target[position]);
+            if (index != -1) {
+                Node child = node.staticChildren[index];
+                if (startsWith(target, position, end, child.prefix)) {
+                    Node found = match(child, target, position + child.prefix.length, end, methodIndex, parameters);
+                    if (found != null) {
+                        return found;
+                    }
+                }
+            }
+
+            if (node.parameterChild != null) {
+                int segmentEnd = position;
+                while (segmentEnd < end && target[segmentEnd] != '/') {
+                    segmentEnd++;
+                }
+                if (segmentEnd > position) {
+                    int mark = parameters.size();
+                    parameters.add(node.parameterChild.name, position, segmentEnd);
+                    Node found = match(node.parameterChild, target, segmentEnd, end, methodIndex, parameters);
+                    if (found != null) {
+                        return found;
+                    }
+                    parameters.truncate(mark);
+                }
+            }
+        }
+
+        if (node.catchAllChild != null && node.catchAllChild.handles(methodIndex)) {
+            parameters.add(node.catchAllChild.name, position, end);
+            return node.catchAllChild;
+        }
+        return null;
+    }
+
+    private static boolean startsWith(byte[] target, int position, int end, byte[] prefix) {
+        if (end - position < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (target[position + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int pathEnd(byte[] target) {
+        for (int i = 0; i < target.length; i++) {
+            if (target[i] == '?' || target[i] == '#') {
+                return i;
+            }
+        }
+        return target.length;
+    }
+
+    /**
+     * Adapts a RequestHandler to a route, ignoring the path parameters.
+     */
+    private record RequestHandlerRoute(RequestHandler handler) implements RouteHandler {
+
+        @Override
+        public Response handle(Request request, PathParameters parameters) {
+            return this.handler.handle(request);
+        }
+
+        @Override
+        public BodySink bodySink(Request request, PathParameters parameters) {
+            return this.handler.bodySink(request);
+        }
+
+        @Override
+        public boolean releasesRequest() {
+            return this.handler.releasesRequest();
+        }
+    }
+
+    /**
+     * A node of the routing trie. Static children are found by the first byte of their
+     * prefix; parameter and catch-all children have no prefix and carry a parameter name instead.
+     */
+    private static final class Node {
+        private static final Node[] NO_CHILDREN = new Node[0];
+
+        private byte[] prefix;
+        private byte[] staticFirstBytes;
+        private Node[] staticChildren;
+        private Node parameterChild;
+        private Node catchAllChild;
+        private String name;
+        private final RouteHandler[] handlers;
+
+        Node(byte[] prefix) {
+            this.prefix = prefix;
+            this.staticFirstBytes = new byte[0];
+            this.staticChildren = NO_CHILDREN;
+            this.handlers = new RouteHandler[ALL_METHODS];
+        }
+
+        int staticChildIndex(byte firstByte) {
+            for (int i = 0; i < this.staticFirstBytes.length; i++) {
+                if (this.staticFirstBytes[i] == firstByte) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        void addStaticChild(Node child) {
+            int count = this.staticChildren.length;
+            this.staticChildren = Arrays.copyOf(this.staticChildren, count + 1);
+            this.staticFirstBytes = Arrays.copyOf(this.staticFirstBytes, count + 1);
+            this.staticChildren[count] = child;
+            this.staticFirstBytes[count] = child.prefix[0];
+        }
+
+        Node parameterChild(String parameterName, String pattern) {
+            if (this.parameterChild == null) {
+                this.parameterChild = new Node(new byte[0]);
+                this.parameterChild.name = parameterName;
+            } else if (!this.parameterChild.name.equals(parameterName)) {
+                throw new IllegalArgumentException("Parameter {" + parameterName + "} conflicts with {"
+                        + this.parameterChild.name + "} in route pattern: " + pattern);
+            }
+            return this.parameterChild;
+        }
+
+        Node catchAllChild(String parameterName, String pattern) {
+            if (this.catchAllChild == null) {
+                this.catchAllChild = new Node(new byte[0]);
+                this.catchAllChild.name = parameterName;
+            } else if (!this.catchAllChild.name.equals(parameterName)) {
+                throw new IllegalArgumentException("Parameter {*" + parameterName + "} conflicts with {*"
+                        + this.catchAllChild.name + "} in route pattern: " + pattern);
+            }
+            return this.catchAllChild;
+        }
+
+        boolean handles(int methodIndex) {
+            if (methodIndex != ALL_METHODS) {
+                return this.handlers[methodIndex] != null;
+            }
+            for (RouteHandler handler : this.handlers) {
+                if (handler != null) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        String allowedMethods() {
+            StringJoiner allowed = new StringJoiner(", ");
+            for (Method method : Method.values()) {
+                if (this.handlers[method.ordinal()] != null) {
+                    allowed.add(method.name());
+                }
+            }
+            return allowed.toString();
+        }
+    }
+}
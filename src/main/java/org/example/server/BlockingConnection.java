@@ -0,0 +1,158 @@
+package org.example.server;
+
+import org.example.buffer.BufferPool;
+import org.example.metrics.ServerMetrics;
+import org.example.request.Request;
+import org.example.request.RequestLimits;
+import org.example.request.RequestReader;
+import org.example.request.RequestTooLargeException;
+import org.example.response.Response;
+import org.example.response.ResponseWriter;
+import org.example.response.StatusCode;
+import org.example.timer.HashedWheelTimer;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Serves a persistent connection on the calling thread using blocking reads and writes.
+ * Shared by the servers that dedicate a thread to each connection.
+ * <p>
+ * A blocked read cannot be interrupted by a deadline of its own, so the idle, header-read and
+ * body-read timeouts are enforced by the server's timing wheel thread closing the channel, which
+ * wakes the read with an exception. Writes are not timed, and a timed-out client is closed
+ * without a 408, since writing it could stall the timer thread.
+ * <p>
+ * A request whose line or headers cross the {@link RequestLimits} is answered with 414 or 431
+ * on the serving thread, and the connection is then closed. A malformed request is answered with a
+ * best-effort 400 before the connection is closed. A handler that releases its requests
+ * gets one Request per connection, reset before each read.
+ */
+final class BlockingConnection {
+
+    private BlockingConnection() {
+    }
+
+    /**
+     * Reads and handles requests from the channel, writing each response before reading
+     * the next request, until the client closes the connection or sends a request with
+     * "Connection: close", or sends a request that crosses the limits.
+     * The channel is left open unless a timeout closed it; closing it is the caller's responsibility.
+     *
+     * @param client   the connected client channel, in blocking mode
+     * @param handler  the handler invoked for every completed request
+     * @param timer    the running timing wheel that enforces the timeouts
+     * @param timeouts how long the client may idle, or take over a request's headers or body
+     * @param limits   the request line and header limits, beyond which requests get 414 or 431
+     * @throws IOException if reading or writing fails, or a request is malformed, after a best-effort 400
+     */
+    static void serve(SocketChannel client, RequestHandler handler, HashedWheelTimer timer, Timeouts timeouts,
+                      RequestLimits limits) throws IOException {
+        ConnectionTimeout timeout = new ConnectionTimeout(timer, timeouts, () -> closeQuietly(client));
+        RequestReader reader = new RequestReader(new TimedInputStream(Channels.newInputStream(client), timeout),
+                BufferPool.getDefault(), limits);
+        ResponseWriter responseWriter = new ResponseWriter();
+        ServerMetrics.getDefault().connectionOpened();
+
+        try {
+            timeout.enter(ConnectionTimeout.Phase.IDLE);
+            Request reusable = handler.releasesRequest() ? new Request(limits) : null;
+            while (true) {
+                Request request;
+                try {
+                    request = reusable == null ? reader.next() : reader.next(reusable);
+                    if (request == null) {
+                        return;
+                    }
+                    if (request.getStatus() == Request.Status.PARSING_BODY) {
+                        timeout.enter(ConnectionTimeout.Phase.BODY);
+                        reader.readBody(handler.bodySink(request));
+                    }
+                } catch (RequestTooLargeException | ClosedChannelException e) {
+                    throw e;
+                } catch (IOException e) {
+                    timeout.cancel();
+                    rejectMalformed(client, responseWriter, e);
+                    throw e;
+                }
+                timeout.cancel();
+                responseWriter.write(client, handler.handle(request), request);
+
+                if (!request.isKeepAlive()) {
+                    return;
+                }
+                timeout.enter(ConnectionTimeout.Phase.IDLE);
+            }
+        } catch (RequestTooLargeException e) {
+            timeout.cancel();
+            reject(client, responseWriter, e.getStatusCode());
+        } catch (ClosedChannelException e) {
+            if (client.isOpen()) {
+                throw e;
+            }
+        } finally {
+            timeout.cancel();
+            reader.release();
+            ServerMetrics.getDefault().connectionClosed();
+        }
+    }
+
+    /**
+     * Answers a request that could not be parsed with a best-effort 400. A failure to write it
+     * is recorded on the parse error rather than replacing it.
+     */
+    private static void rejectMalformed(SocketChannel client, ResponseWriter responseWriter, IOException e) {
+        try {
+            reject(client, responseWriter, StatusCode.BAD_REQUEST);
+        } catch (IOException writeError) {
+            e.addSuppressed(writeError);
+        }
+    }
+
+    private static void reject(SocketChannel client, ResponseWriter responseWriter, StatusCode status) throws IOException {
+        ByteBuffer[] encoded = responseWriter.encode(Response.text(status, status.getReason()), false, false);
+        while (encoded[0].hasRemaining() || encoded[1].hasRemaining()) {
+            client.write(encoded);
+        }
+    }
+
+    private static void closeQuietly(SocketChannel client) {
+        try {
+            client.close();
+        } catch (IOException e) {
+            System.err.println("Error closing timed out connection: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Moves the connection's timeout along as bytes arrive: the first byte of a request starts
+     * its header budget, and every read of a body resets the body deadline.
+     */
+    private static final class TimedInputStream extends FilterInputStream {
+        private final ConnectionTimeout timeout;
+
+        TimedInputStream(InputStream in, ConnectionTimeout timeout) {
+            super(in);
+            this.timeout = timeout;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int bytesRead = this.in.read(buffer, offset, length);
+            if (bytesRead > 0) {
+                ConnectionTimeout.Phase phase = this.timeout.getPhase();
+                if (phase == ConnectionTimeout.Phase.IDLE) {
+                    this.timeout.enter(ConnectionTimeout.Phase.HEADERS);
+                } else if (phase == ConnectionTimeout.Phase.BODY) {
+                    this.timeout.enter(ConnectionTimeout.Phase.BODY);
+                }
+            }
+            return bytesRead;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package org.example.server;
+
+import org.example.request.RequestLimits;
+import org.example.timer.HashedWheelTimer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serial HTTP server that accepts one client connection at a time.
+ * Each connection is served until the client closes it or asks for it to be
+ * closed before the next one is accepted, so a single slow or persistent
+ * client holds up every other client. The connection's timeouts bound how long that can last.
+ */
+public class BlockingServer implements Runnable, Closeable {
+
+    private static final int ACCEPT_BACKLOG = 1024;
+    private static final int TICKS_PER_WHEEL = 512;
+
+    private final ServerSocketChannel serverChannel;
+    private final RequestHandler handler;
+    private final Timeouts timeouts;
+    private final RequestLimits limits;
+    private final HashedWheelTimer timer;
+
+    /**
+     * Creates a blocking server bound to the given port with the default timeouts.
+     * The server does not start accepting connections until {@link #run()} is called.
+     *
+     * @param port    the port to listen on, or 0 for an ephemeral port
+     * @param handler the handler invoked for every completed request
+     * @throws IOException if the port cannot be bound
+     */
+    public BlockingServer(int port, RequestHandler handler) throws IOException {
+        this(port, handler, Timeouts.getDefault());
+    }
+
+    /**
+     * Creates a blocking server bound to the given port with the default request limits.
+     * The server does not start accepting connections until {@link #run()} is called.
+     *
+     * @param port     the port to listen on, or 0 for an ephemeral port
+     * @param handler  the handler invoked for every completed request
+     * @param timeouts how long a connection may idle, or take over a request's headers or body
+     * @throws IOException if the port cannot be bound
+     */
+    public BlockingServer(int port, RequestHandler handler, Timeouts timeouts) throws IOException {
+        this(port, handler, timeouts, RequestLimits.getDefault());
+    }
+
+    /**
+     * Creates a blocking server bound to the given port.
+     * The server does not start accepting connections until {@link #run()} is called.
+     *
+     * @param port     the port to listen on, or 0 for an ephemeral port
+     * @param handler  the handler invoked for every completed request
+     * @param timeouts how long a connection may idle, or take over a request's headers or body
+     * @param limits   the request line and header limits, beyond which requests get 414 or 431
+     * @throws IOException if the port cannot be bound
+     */
+    public BlockingServer(int port, RequestHandler handler, Timeouts timeouts, RequestLimits limits) throws IOException {
+        this.handler = handler;
+        this.timeouts = timeouts;
+        this.limits = limits;
+        this.timer = new HashedWheelTimer(timeouts.tickNanos(), TimeUnit.NANOSECONDS, TICKS_PER_WHEEL);
+        this.serverChannel = ServerSocketChannel.open();
+        try {
+            this.serverChannel.bind(new InetSocketAddress(port), ACCEPT_BACKLOG);
+        } catch (IOException | RuntimeException e) {
+            this.serverChannel.close();
+            throw e;
+        }
+        this.timer.start("blocking-server-timer");
+    }
+
+    /**
+     * Returns the port this server is listening on.
+     *
+     * @return the local port of the server channel
+     */
+    public int getPort() {
+        return this.serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * Runs the accept loop until {@link #close()} is called.
+     */
+    @Override
+    public void run() {
+        while (this.serverChannel.isOpen()) {
+            try {
+                SocketChannel client = this.serverChannel.accept();
+                try (client) {
+                    BlockingConnection.serve(client, this.handler, this.timer, this.timeouts, this.limits);
+                }
+            } catch (IOException e) {
+                if (this.serverChannel.isOpen()) {
+                    System.err.println("Error handling client connection: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops accepting connections, closes the server channel and stops the timeout thread.
+     *
+     * @throws IOException if the server channel cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        this.timer.close();
+        this.serverChannel.close();
+    }
+}
@@ -0,0 +1,345 @@
+package org.example.server;
+
+import org.example.buffer.BufferPool;
+import org.example.metrics.ServerMetrics;
+import org.example.request.Request;
+import org.example.request.RequestLimits;
+import org.example.request.RequestTooLargeException;
+import org.example.response.FileRegion;
+import org.example.response.Response;
+import org.example.response.ResponseWriter;
+import org.example.response.StatusCode;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Per-connection state for the non-blocking event loop.
+ * Holds the bytes received so far and the Request currently being parsed,
+ * so that data can be pushed into the parser as it arrives instead of
+ * blocking a thread until the request is complete. The buffer outlives each
+ * Request, so a persistent connection can carry many requests. Body bytes are
+ * streamed to the handler's BodySink as they arrive, so the buffer never has
+ * to hold more than one read's worth of body.
+ * <p>
+ * The read buffer is borrowed from a BufferPool only while there are unparsed
+ * bytes to hold. An idle keep-alive connection gives its buffer back to the pool.
+ * <p>
+ * Responses are written as soon as the handler returns them. When the socket cannot take
+ * a whole response, the connection keeps the unwritten part, stops reading and parsing, and
+ * waits for the channel to become writable. Any pipelined requests already in the buffer are
+ * handled once the response has been written, so at most one response per connection is ever
+ * held back and a client that does not read its responses cannot make the server buffer more.
+ * <p>
+ * Each connection keeps one timeout on the event loop's timing wheel, re-armed whenever the
+ * connection moves between waiting for a request, reading headers, reading a body and waiting
+ * to write. A client that stalls part way through a request is sent 408 before it is closed.
+ * <p>
+ * A request whose line or headers cross the {@link RequestLimits} is answered with 414 or 431 and
+ * the connection is closed. The parser rejects it before the read buffer has to grow past the limits.
+ * A malformed request is answered with 400 and the connection is closed.
+ * <p>
+ * If the handler {@linkplain RequestHandler#releasesRequest() releases its requests}, the connection
+ * resets and reuses one Request for all of its requests rather than allocating one per request.
+ */
+class Connection {
+
+    private static final int INITIAL_BUFFER_SIZE = 4096;
+
+    private final SelectionKey key;
+    private final SocketChannel channel;
+    private final RequestHandler handler;
+    private final BufferPool bufferPool;
+    private final ResponseWriter responseWriter;
+    private final ByteBuffer[] pendingBuffers;
+    private final ConnectionTimeout timeout;
+    private final RequestLimits limits;
+    private final boolean reuseRequests;
+    private FileRegion.Transfer pendingFile;
+    private ByteBuffer buffer;
+    private int totalBytesInBuffer;
+    private Request request;
+    private boolean closeAfterWrite;
+
+    /**
+     * Creates connection state for a newly accepted channel.
+     *
+     * @param key            the selection key the client channel is registered with
+     * @param handler        the handler invoked for each completed request
+     * @param bufferPool     the heap buffer pool to borrow read buffers from
+     * @param responseWriter the event loop's response writer
+     * @param timeout        the connection's timeout, which is armed for the idle phase straight away
+     * @param limits         the request line and header limits each request is parsed within
+     */
+    Connection(SelectionKey key, RequestHandler handler, BufferPool bufferPool, ResponseWriter responseWriter,
+               ConnectionTimeout timeout, RequestLimits limits) {
+        this.key = key;
+        this.channel = (SocketChannel) key.channel();
+        this.handler = handler;
+        this.bufferPool = bufferPool;
+        this.responseWriter = responseWriter;
+        this.pendingBuffers = new ByteBuffer[2];
+        this.timeout = timeout;
+        this.limits = limits;
+        this.reuseRequests = handler.releasesRequest();
+        this.pendingFile = null;
+        this.buffer = null;
+        this.totalBytesInBuffer = 0;
+        this.request = new Request(limits);
+        this.closeAfterWrite = false;
+        timeout.enter(ConnectionTimeout.Phase.IDLE);
+    }
+
+    /**
+     * Reads whatever bytes are currently available on the channel, feeds them into
+     * the request parser, hands every request completed by them to the handler and
+     * writes the handler's response.
+     * When a request's headers are complete, the handler is asked for a BodySink
+     * before any of the body is parsed.
+     * Bytes beyond the end of one request seed the next, so several pipelined
+     * requests arriving in one read are all handled.
+     *
+     * @return true if the connection should stay open, false if the client closed it
+     * or asked for it to be closed and its last response has been written
+     * @throws IOException if the channel reaches end of stream part way through a request,
+     *                     or if the request data is malformed
+     */
+    boolean onReadable() throws IOException {
+        if (this.buffer == null) {
+            this.buffer = this.bufferPool.acquire(INITIAL_BUFFER_SIZE);
+        }
+
+        this.buffer.limit(this.buffer.capacity()).position(this.totalBytesInBuffer);
+        int bytesRead = this.channel.read(this.buffer);
+
+        if (bytesRead == -1) {
+            if (this.totalBytesInBuffer == 0 && this.request.getStatus() == Request.Status.INITIALISED) {
+                return false;
+            }
+            throw new IOException("Stream ended before complete request");
+        }
+
+        this.totalBytesInBuffer += bytesRead;
+        return handleBufferedRequests();
+    }
+
+    /**
+     * Writes as much of the held-back response as the channel will take.
+     * Once it has all been written the connection goes back to handling requests,
+     * starting with any pipelined requests already in the buffer, or is closed if
+     * the last request asked for that.
+     *
+     * @return true if the connection should stay open, false if it should now be closed
+     * @throws IOException if writing to the channel fails
+     */
+    boolean onWritable() throws IOException {
+        if (!flush()) {
+            this.timeout.enter(ConnectionTimeout.Phase.WRITE);
+            return true;
+        }
+        if (this.closeAfterWrite) {
+            return false;
+        }
+        this.key.interestOps(SelectionKey.OP_READ);
+        return handleBufferedRequests();
+    }
+
+    /**
+     * Parses the buffered bytes and handles every request they complete, stopping early
+     * if a response cannot be written in full.
+     *
+     * @return false if the connection should now be closed, including after a request that crossed the limits
+     * @throws IOException if the request data is malformed, after a best-effort 400, or writing fails
+     */
+    private boolean handleBufferedRequests() throws IOException {
+        byte[] data = this.buffer == null ? null : this.buffer.array();
+        int offset = this.buffer == null ? 0 : this.buffer.arrayOffset();
+
+        while (this.totalBytesInBuffer > 0) {
+            Request.Status statusBefore = this.request.getStatus();
+            int bytesParsed;
+            try {
+                bytesParsed = this.request.parse(data, offset, this.totalBytesInBuffer);
+            } catch (RequestTooLargeException e) {
+                reject(e.getStatusCode());
+                return false;
+            } catch (IOException e) {
+                reject(StatusCode.BAD_REQUEST);
+                throw e;
+            }
+
+            if (bytesParsed > 0) {
+                System.arraycopy(data, offset + bytesParsed, data, offset, this.totalBytesInBuffer - bytesParsed);
+                this.totalBytesInBuffer -= bytesParsed;
+            }
+
+            boolean headersCompleted = statusBefore.compareTo(Request.Status.PARSING_BODY) < 0
+                    && this.request.getStatus().compareTo(Request.Status.PARSING_BODY) >= 0;
+            if (headersCompleted) {
+                ServerMetrics.getDefault().recordRequestBuffer(this.buffer.capacity());
+                if (this.request.getStatus() == Request.Status.PARSING_BODY) {
+                    this.request.setBodySink(this.handler.bodySink(this.request));
+                }
+            }
+
+            if (this.request.getStatus() != Request.Status.DONE) {
+                if (bytesParsed == 0) {
+                    break;
+                }
+                continue;
+            }
+
+            Request completed = this.request;
+            this.timeout.requestCompleted();
+            boolean written = send(this.handler.handle(completed), completed);
+
+            if (!completed.isKeepAlive()) {
+                this.closeAfterWrite = true;
+            }
+            this.request = this.reuseRequests ? completed.reset() : new Request(this.limits);
+            if (!written) {
+                this.key.interestOps(SelectionKey.OP_WRITE);
+                this.timeout.enter(ConnectionTimeout.Phase.WRITE);
+                return true;
+            }
+            if (this.closeAfterWrite) {
+                return false;
+            }
+        }
+
+        if (this.totalBytesInBuffer == 0) {
+            releaseBuffer();
+        } else if (this.totalBytesInBuffer >= this.buffer.capacity() - 1) {
+            this.buffer = this.bufferPool.grow(this.buffer, this.totalBytesInBuffer);
+        }
+
+        if (this.request.getStatus() == Request.Status.PARSING_BODY) {
+            this.timeout.enter(ConnectionTimeout.Phase.BODY);
+        } else if (this.request.getStatus() == Request.Status.INITIALISED && this.totalBytesInBuffer == 0) {
+            this.timeout.enter(ConnectionTimeout.Phase.IDLE);
+        } else {
+            this.timeout.enter(ConnectionTimeout.Phase.HEADERS);
+        }
+        return true;
+    }
+
+    /**
+     * Called on the event loop thread when the connection overstays its current phase, just before
+     * it is closed. A client that stalled part way through sending a request is told so with a
+     * best-effort 408 Request Timeout; an idle connection, or one that stopped reading its
+     * response, is closed without another word.
+     */
+    void onTimeout() {
+        ConnectionTimeout.Phase phase = this.timeout.getPhase();
+        if (phase != ConnectionTimeout.Phase.HEADERS && phase != ConnectionTimeout.Phase.BODY) {
+            return;
+        }
+        try {
+            this.channel.write(this.responseWriter.encode(Response.text(StatusCode.REQUEST_TIMEOUT, "Request Timeout"), false, false));
+        } catch (IOException e) {
+            System.err.println("Error writing timeout response: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Answers a request the parser refused with the status it calls for, best effort,
+     * just before the connection is closed.
+     *
+     * @param status 414 or 431 for a request that crossed the limits, 400 for a malformed one
+     */
+    private void reject(StatusCode status) {
+        try {
+            this.channel.write(this.responseWriter.encode(Response.text(status, status.getReason()), false, false));
+        } catch (IOException writeError) {
+            System.err.println("Error writing rejection response: " + writeError.getMessage());
+        }
+    }
+
+    /**
+     * Writes a response, holding back whatever the channel does not take straight away.
+     * The head buffer belongs to the shared ResponseWriter, so unwritten head bytes are
+     * copied before they are held; the body buffer is an independent view and is held as is.
+     *
+     * @param response the response returned by the handler
+     * @param request  the request being answered
+     * @return true if the whole response was written
+     * @throws IOException if writing to the channel fails
+     */
+    private boolean send(Response response, Request request) throws IOException {
+        ByteBuffer[] encoded = this.responseWriter.encode(response, request);
+        this.channel.write(encoded);
+
+        ByteBuffer head = encoded[0];
+        if (head.hasRemaining()) {
+            head = ByteBuffer.allocate(head.remaining()).put(head).flip();
+        }
+        this.pendingBuffers[0] = head;
+        this.pendingBuffers[1] = encoded[1];
+
+        FileRegion fileBody = this.responseWriter.fileBody(response, request);
+        if (fileBody != null) {
+            this.pendingFile = fileBody.open();
+        }
+        return flush();
+    }
+
+    /**
+     * Writes the held-back buffers and then the held-back file range.
+     *
+     * @return true once nothing is held back
+     * @throws IOException if writing to the channel fails
+     */
+    private boolean flush() throws IOException {
+        if (this.pendingBuffers[0].hasRemaining() || this.pendingBuffers[1].hasRemaining()) {
+            this.channel.write(this.pendingBuffers);
+            if (this.pendingBuffers[0].hasRemaining() || this.pendingBuffers[1].hasRemaining()) {
+                return false;
+            }
+        }
+
+        if (this.pendingFile != null) {
+            if (!this.pendingFile.transferTo(this.channel)) {
+                return false;
+            }
+            this.pendingFile.close();
+            this.pendingFile = null;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the read buffer to its pool, if the connection currently holds one,
+     * closes any file that was part way through being sent and disarms the connection's timeout.
+     * Must be called when the connection is closed.
+     */
+    void release() {
+        releaseBuffer();
+        this.timeout.cancel();
+        if (this.pendingFile != null) {
+            try {
+                this.pendingFile.close();
+            } catch (IOException e) {
+                System.err.println("Error closing file: " + e.getMessage());
+            }
+            this.pendingFile = null;
+        }
+    }
+
+    private void releaseBuffer() {
+        if (this.buffer != null) {
+            this.bufferPool.release(this.buffer);
+            this.buffer = null;
+        }
+    }
+
+    /**
+     * Returns the channel this connection reads from.
+     *
+     * @return the client SocketChannel
+     */
+    SocketChannel getChannel() {
+        return this.channel;
+    }
+}
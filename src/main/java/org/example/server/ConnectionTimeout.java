@@ -0,0 +1,93 @@
+package org.example.server;
+
+import org.example.timer.HashedWheelTimer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracks which phase a connection is in and keeps its single wheel timeout armed with the
+ * deadline for that phase. Moving between phases, or making progress in a phase that is reset
+ * by progress, only rewrites the deadline, so it costs no allocation.
+ */
+final class ConnectionTimeout {
+
+    /**
+     * The phases of a connection that each have their own timeout.
+     */
+    enum Phase {
+        IDLE,
+        HEADERS,
+        BODY,
+        WRITE
+    }
+
+    private final HashedWheelTimer.Timeout timeout;
+    private final long idleNanos;
+    private final long headerNanos;
+    private final long bodyNanos;
+    private volatile Phase phase;
+
+    /**
+     * Creates the timeout for one connection. It is not armed until the first phase is entered.
+     *
+     * @param timer    the wheel to schedule on
+     * @param timeouts the limit for each phase
+     * @param onExpiry run on the timer's thread when the connection overstays its phase
+     */
+    ConnectionTimeout(HashedWheelTimer timer, Timeouts timeouts, Runnable onExpiry) {
+        this.timeout = timer.newTimeout(onExpiry);
+        this.idleNanos = timeouts.idle().toNanos();
+        this.headerNanos = timeouts.headerRead().toNanos();
+        this.bodyNanos = timeouts.bodyRead().toNanos();
+        this.phase = null;
+    }
+
+    /**
+     * Records that the connection is now in the given phase. Entering the header phase when
+     * already in it keeps the original deadline; every other call starts a new deadline.
+     *
+     * @param next the phase the connection is now in
+     */
+    void enter(Phase next) {
+        if (next == Phase.HEADERS && this.phase == Phase.HEADERS) {
+            return;
+        }
+        this.phase = next;
+
+        long nanos = switch (next) {
+            case IDLE, WRITE -> this.idleNanos;
+            case HEADERS -> this.headerNanos;
+            case BODY -> this.bodyNanos;
+        };
+        if (nanos == 0) {
+            this.timeout.cancel();
+        } else {
+            this.timeout.reset(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Records that a request has been read in full, so that the next request's headers get a
+     * fresh budget even if they are already buffered. The deadline is left as it is until the
+     * next phase is entered.
+     */
+    void requestCompleted() {
+        this.phase = null;
+    }
+
+    /**
+     * Returns the phase the connection was last recorded in.
+     *
+     * @return the current phase, or null if none has been entered
+     */
+    Phase getPhase() {
+        return this.phase;
+    }
+
+    /**
+     * Disarms the timeout for good. Must be called when the connection is closed.
+     */
+    void cancel() {
+        this.timeout.cancel();
+    }
+}
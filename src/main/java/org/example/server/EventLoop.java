@@ -0,0 +1,388 @@
+package org.example.server;
+
+import org.example.buffer.BufferPool;
+import org.example.metrics.ServerMetrics;
+import org.example.request.RequestLimits;
+import org.example.response.ResponseWriter;
+import org.example.timer.HashedWheelTimer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Non-blocking HTTP server built on a single Selector.
+ * Accepts connections and multiplexes reads and writes for all of them on one thread,
+ * pushing bytes into each connection's incremental Request parser as they arrive and
+ * writing each handler's response back on the same thread.
+ * Connections are kept open between requests unless the client asks for them to be closed.
+ * A client that trickles its request in slowly only costs a registered key,
+ * not a blocked thread, so it cannot hold up other connections.
+ * <p>
+ * It cannot hold on forever either: every connection has an idle, header-read or body-read
+ * deadline according to the {@link Timeouts}, kept on a hashed timing wheel that the loop
+ * advances between selects, so the cost of enforcing them does not grow with the number of
+ * connections. The number of open connections is capped; at the cap the loop stops accepting,
+ * leaving further clients in the listen backlog until a connection closes.
+ */
+public class EventLoop implements Runnable, Closeable {
+
+    private static final int ACCEPT_BACKLOG = 1024;
+    private static final int DEFAULT_MAX_CONNECTIONS = 10_000;
+    private static final int TICKS_PER_WHEEL = 512;
+
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final RequestHandler handler;
+    private final BufferPool bufferPool;
+    private final ResponseWriter responseWriter;
+    private final Timeouts timeouts;
+    private final RequestLimits limits;
+    private final HashedWheelTimer timer;
+    private final int maxConnections;
+    private final SelectionKey serverKey;
+    private final Runnable onConnectionClosed;
+    private final ConcurrentLinkedQueue<SocketChannel> adopted;
+    private int openConnections;
+    private volatile boolean running;
+
+    /**
+     * Creates an event loop bound to the given port that borrows read buffers from the default pool.
+     * The loop does not start accepting connections until {@link #run()} is called.
+     *
+     * @param port    the port to listen on, or 0 for an ephemeral port
+     * @param handler the handler invoked for every completed request
+     * @throws IOException if the selector cannot be opened or the port cannot be bound
+     */
+    public EventLoop(int port, RequestHandler handler) throws IOException {
+        this(port, handler, BufferPool.getDefault());
+    }
+
+    /**
+     * Creates an event loop bound to the given port with the default timeouts and connection cap.
+     * The loop does not start accepting connections until {@link #run()} is called.
+     *
+     * @param port       the port to listen on, or 0 for an ephemeral port
+     * @param handler    the handler invoked for every completed request
+     * @param bufferPool the heap buffer pool connections borrow their read buffers from
+     * @throws IOException              if the selector cannot be opened or the port cannot be bound
+     * @throws IllegalArgumentException if the pool hands out direct buffers
+     */
+    public EventLoop(int port, RequestHandler handler, BufferPool bufferPool) throws IOException {
+        this(port, handler, bufferPool, Timeouts.getDefault(), DEFAULT_MAX_CONNECTIONS);
+    }
+
+    /**
+     * Creates an event loop bound to the given port with the default request limits.
+     * The loop does not start accepting connections until {@link #run()} is called.
+     *
+     * @param port           the port to listen on, or 0 for an ephemeral port
+     * @param handler        the handler invoked for every completed request
+     * @param bufferPool     the heap buffer pool connections borrow their read buffers from
+     * @param timeouts       how long a connection may idle, or take over a request's headers or body
+     * @param maxConnections the maximum number of connections open at the same time
+     * @throws IOException              if the selector cannot be opened or the port cannot be bound
+     * @throws IllegalArgumentException if the pool hands out direct buffers, or maxConnections is less than 1
+     */
+    public EventLoop(int port, RequestHandler handler, BufferPool bufferPool, Timeouts timeouts, int maxConnections)
+            throws IOException {
+        this(port, handler, bufferPool, timeouts, RequestLimits.getDefault(), maxConnections);
+    }
+
+    /**
+     * Creates an event loop bound to the given port.
+     * The loop does not start accepting connections until {@link #run()} is called.
+     *
+     * @param port           the port to listen on, or 0 for an ephemeral port
+     * @param handler        the handler invoked for every completed request
+     * @param bufferPool     the heap buffer pool connections borrow their read buffers from
+     * @param timeouts       how long a connection may idle, or take over a request's headers or body
+     * @param limits         the request line and header limits, beyond which requests get 414 or 431
+     * @param maxConnections the maximum number of connections open at the same time
+     * @throws IOException              if the selector cannot be opened or the port cannot be bound
+     * @throws IllegalArgumentException if the pool hands out direct buffers, or maxConnections is less than 1
+     */
+    public EventLoop(int port, RequestHandler handler, BufferPool bufferPool, Timeouts timeouts, RequestLimits limits,
+                     int maxConnections) throws IOException {
+        this(openServerChannel(port, false), handler, bufferPool, timeouts, limits, maxConnections, null);
+    }
+
+    /**
+     * Creates an event loop that accepts from an already bound server channel, or, if there is none,
+     * only serves the connections handed to it with {@link #adopt(SocketChannel)}.
+     *
+     * @param serverChannel      the bound server channel to accept from, or null
+     * @param handler            the handler invoked for every completed request
+     * @param bufferPool         the heap buffer pool connections borrow their read buffers from
+     * @param timeouts           how long a connection may idle, or take over a request's headers or body
+     * @param limits             the request line and header limits, beyond which requests get 414 or 431
+     * @param maxConnections     the maximum number of connections this loop accepts at the same time
+     * @param onConnectionClosed run on the loop thread whenever a connection closes, or null
+     * @throws IOException              if the selector cannot be opened
+     * @throws IllegalArgumentException if the pool hands out direct buffers, or maxConnections is less than 1
+     */
+    EventLoop(ServerSocketChannel serverChannel, RequestHandler handler, BufferPool bufferPool, Timeouts timeouts,
+              RequestLimits limits, int maxConnections, Runnable onConnectionClosed) throws IOException {
+        if (bufferPool.isDirect() || maxConnections < 1) {
+            if (serverChannel != null) {
+                serverChannel.close();
+            }
+            throw new IllegalArgumentException(bufferPool.isDirect() ? "EventLoop requires a heap buffer pool"
+                    : "maxConnections must be at least 1, got: " + maxConnections);
+        }
+
+        this.handler = handler;
+        this.bufferPool = bufferPool;
+        this.responseWriter = new ResponseWriter();
+        this.timeouts = timeouts;
+        this.limits = limits;
+        this.timer = new HashedWheelTimer(timeouts.tickNanos(), TimeUnit.NANOSECONDS, TICKS_PER_WHEEL);
+        this.maxConnections = maxConnections;
+        this.onConnectionClosed = onConnectionClosed;
+        this.adopted = new ConcurrentLinkedQueue<>();
+        this.openConnections = 0;
+        this.serverChannel = serverChannel;
+        Selector selector = null;
+        try {
+            selector = Selector.open();
+            if (serverChannel != null) {
+                serverChannel.configureBlocking(false);
+                this.serverKey = serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+            } else {
+                this.serverKey = null;
+            }
+        } catch (IOException | RuntimeException e) {
+            if (selector != null) {
+                selector.close();
+            }
+            if (serverChannel != null) {
+                serverChannel.close();
+            }
+            throw e;
+        }
+        this.selector = selector;
+        this.running = true;
+    }
+
+    /**
+     * Opens a server channel bound to the given port.
+     *
+     * @param port      the port to listen on, or 0 for an ephemeral port
+     * @param reusePort whether to set SO_REUSEPORT, so several channels can share the port
+     * @return the bound channel, in blocking mode
+     * @throws IOException if the port cannot be bound
+     */
+    static ServerSocketChannel openServerChannel(int port, boolean reusePort) throws IOException {
+        ServerSocketChannel serverChannel = ServerSocketChannel.open();
+        try {
+            if (reusePort) {
+                serverChannel.setOption(StandardSocketOptions.SO_REUSEPORT, true);
+            }
+            serverChannel.bind(new InetSocketAddress(port), ACCEPT_BACKLOG);
+        } catch (IOException | RuntimeException e) {
+            serverChannel.close();
+            throw e;
+        }
+        return serverChannel;
+    }
+
+    /**
+     * Returns the port this event loop is listening on.
+     *
+     * @return the local port of the server channel, or -1 if the loop only serves adopted connections
+     */
+    public int getPort() {
+        return this.serverChannel == null ? -1 : this.serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * Hands a connection accepted elsewhere to this loop, which serves it from then on.
+     * Safe to call from any thread; the channel is registered on the loop thread.
+     *
+     * @param client the accepted client channel, in non-blocking mode
+     */
+    void adopt(SocketChannel client) {
+        this.adopted.add(client);
+        this.selector.wakeup();
+    }
+
+    /**
+     * Runs the select loop until {@link #close()} is called.
+     * Each ready key is either an accept on the server channel, or a read or a write on a client connection.
+     * Selects wait no longer than the timing wheel's next tick, and the wheel is advanced after each one.
+     */
+    @Override
+    public void run() {
+        try {
+            while (this.running) {
+                long selectMillis = TimeUnit.NANOSECONDS.toMillis(this.timer.nanosUntilNextTick(System.nanoTime()));
+                this.selector.select(Math.max(1, selectMillis));
+
+                Iterator<SelectionKey> keys = this.selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+
+                    if (!key.isValid()) {
+                        continue;
+                    }
+
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else if (key.isWritable()) {
+                        write(key);
+                    } else if (key.isReadable()) {
+                        read(key);
+                    }
+                }
+
+                registerAdopted();
+                this.timer.advance(System.nanoTime());
+            }
+        } catch (IOException e) {
+            System.err.println("Error in event loop: " + e.getMessage());
+        } finally {
+            closeAll();
+        }
+    }
+
+    /**
+     * Stops the event loop and releases the server channel and all open connections.
+     */
+    @Override
+    public void close() {
+        this.running = false;
+        this.selector.wakeup();
+    }
+
+    /**
+     * Releases the selector and server channel of a loop whose {@link #run()} was never started.
+     * {@link #close()} leaves that to the loop thread, which a loop that never ran does not have.
+     */
+    void closeUnstarted() {
+        this.running = false;
+        try {
+            if (this.serverChannel != null) {
+                this.serverChannel.close();
+            }
+        } catch (IOException e) {
+            System.err.println("Error closing server channel: " + e.getMessage());
+        }
+        try {
+            this.selector.close();
+        } catch (IOException e) {
+            System.err.println("Error closing selector: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Accepts waiting clients until there are none left or the connection cap is reached.
+     * At the cap the server channel stops being selected for accepts until a connection closes.
+     */
+    private void accept() throws IOException {
+        SocketChannel client;
+        while (this.openConnections < this.maxConnections && (client = this.serverChannel.accept()) != null) {
+            client.configureBlocking(false);
+            register(client);
+        }
+        if (this.openConnections >= this.maxConnections) {
+            this.serverKey.interestOps(0);
+        }
+    }
+
+    private void registerAdopted() throws IOException {
+        SocketChannel client;
+        while ((client = this.adopted.poll()) != null) {
+            register(client);
+        }
+    }
+
+    private void register(SocketChannel client) throws IOException {
+        SelectionKey key = client.register(this.selector, SelectionKey.OP_READ);
+        ConnectionTimeout timeout = new ConnectionTimeout(this.timer, this.timeouts, () -> expire(key));
+        key.attach(new Connection(key, this.handler, this.bufferPool, this.responseWriter, timeout, this.limits));
+        this.openConnections++;
+        ServerMetrics.getDefault().connectionOpened();
+    }
+
+    private void expire(SelectionKey key) {
+        if (key.attachment() instanceof Connection connection) {
+            connection.onTimeout();
+            closeConnection(key);
+        }
+    }
+
+    private void read(SelectionKey key) {
+        Connection connection = (Connection) key.attachment();
+        try {
+            if (!connection.onReadable()) {
+                closeConnection(key);
+            }
+        } catch (IOException e) {
+            System.err.println("Error handling client connection: " + e.getMessage());
+            closeConnection(key);
+        }
+    }
+
+    private void write(SelectionKey key) {
+        Connection connection = (Connection) key.attachment();
+        try {
+            if (!connection.onWritable()) {
+                closeConnection(key);
+            }
+        } catch (IOException e) {
+            System.err.println("Error writing to client connection: " + e.getMessage());
+            closeConnection(key);
+        }
+    }
+
+    private void closeConnection(SelectionKey key) {
+        key.cancel();
+        if (key.attachment() instanceof Connection connection) {
+            connection.release();
+            key.attach(null);
+            ServerMetrics.getDefault().connectionClosed();
+            if (this.openConnections-- == this.maxConnections && this.serverKey != null && this.serverKey.isValid()) {
+                this.serverKey.interestOps(SelectionKey.OP_ACCEPT);
+            }
+            if (this.onConnectionClosed != null) {
+                this.onConnectionClosed.run();
+            }
+        }
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            System.err.println("Error closing client connection: " + e.getMessage());
+        }
+    }
+
+    private void closeAll() {
+        for (SelectionKey key : this.selector.keys()) {
+            closeConnection(key);
+        }
+        SocketChannel client;
+        while ((client = this.adopted.poll()) != null) {
+            try {
+                client.close();
+            } catch (IOException e) {
+                System.err.println("Error closing client connection: " + e.getMessage());
+            }
+            if (this.onConnectionClosed != null) {
+                this.onConnectionClosed.run();
+            }
+        }
+        try {
+            this.selector.close();
+        } catch (IOException e) {
+            System.err.println("Error closing selector: " + e.getMessage());
+        }
+    }
+}
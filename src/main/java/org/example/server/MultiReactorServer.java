@@ -0,0 +1,279 @@
+package org.example.server;
+
+import org.example.buffer.BufferPool;
+import org.example.request.RequestLimits;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.Semaphore;
+
+/**
+ * HTTP server that spreads connections over several EventLoops, one thread each, so that
+ * a many-core machine is not limited to what one selector thread can do.
+ * <p>
+ * Where the platform supports SO_REUSEPORT, every loop gets its own server channel bound to the
+ * same port and the kernel balances new connections between them, so there is no shared accept
+ * path at all. Otherwise a single acceptor thread accepts every connection and deals them out to
+ * the loops in turn. Either way a connection belongs to one loop, and so one thread, for its whole
+ * life: its buffers, parser state and timeouts are never touched by another thread.
+ * <p>
+ * The connection cap is shared between the loops. With SO_REUSEPORT each loop accepts up to its
+ * share of it, the shares differing by at most one and adding up to the cap, so there cannot be
+ * more loops than connections; with an acceptor the cap is enforced globally before each accept.
+ */
+public class MultiReactorServer implements Runnable, Closeable {
+
+    private static final int DEFAULT_MAX_CONNECTIONS = 10_000;
+
+    private final EventLoop[] loops;
+    private final ServerSocketChannel acceptorChannel;
+    private final Semaphore connectionPermits;
+    private final int port;
+    private volatile boolean running;
+
+    /**
+     * Creates a server with the given number of loops, using SO_REUSEPORT if it is supported,
+     * the default buffer pool, the default timeouts and the default connection cap.
+     * The server does not start accepting connections until {@link #run()} is called.
+     *
+     * @param port    the port to listen on, or 0 for an ephemeral port
+     * @param loops   the number of event loops, usually the number of cores
+     * @param handler the handler invoked for every completed request, from every loop thread
+     * @throws IOException              if a selector cannot be opened or the port cannot be bound
+     * @throws IllegalArgumentException if loops is less than 1, or SO_REUSEPORT is used and loops exceeds the default cap
+     */
+    public MultiReactorServer(int port, int loops, RequestHandler handler) throws IOException {
+        this(port, loops, handler, BufferPool.getDefault(), Timeouts.getDefault(), DEFAULT_MAX_CONNECTIONS,
+                isReusePortSupported());
+    }
+
+    /**
+     * Creates a server with the given number of loops and the default request limits.
+     * The server does not start accepting connections until {@link #run()} is called.
+     *
+     * @param port           the port to listen on, or 0 for an ephemeral port
+     * @param loops          the number of event loops, usually the number of cores
+     * @param handler        the handler invoked for every completed request, from every loop thread
+     * @param bufferPool     the heap buffer pool connections borrow their read buffers from
+     * @param timeouts       how long a connection may idle, or take over a request's headers or body
+     * @param maxConnections the maximum number of connections open at the same time across all loops
+     * @param reusePort      true to give each loop its own SO_REUSEPORT channel, false to use one acceptor
+     * @throws IOException                   if a selector cannot be opened or the port cannot be bound
+     * @throws IllegalArgumentException      if loops or maxConnections is less than 1, reusePort is true and loops exceeds
+     *                                       maxConnections, or the pool hands out direct buffers
+     * @throws UnsupportedOperationException if reusePort is true and SO_REUSEPORT is not supported
+     */
+    public MultiReactorServer(int port, int loops, RequestHandler handler, BufferPool bufferPool, Timeouts timeouts,
+                              int maxConnections, boolean reusePort) throws IOException {
+        this(port, loops, handler, bufferPool, timeouts, RequestLimits.getDefault(), maxConnections, reusePort);
+    }
+
+    /**
+     * Creates a server with the given number of loops.
+     * The server does not start accepting connections until {@link #run()} is called.
+     *
+     * @param port           the port to listen on, or 0 for an ephemeral port
+     * @param loops          the number of event loops, usually the number of cores
+     * @param handler        the handler invoked for every completed request, from every loop thread
+     * @param bufferPool     the heap buffer pool connections borrow their read buffers from
+     * @param timeouts       how long a connection may idle, or take over a request's headers or body
+     * @param limits         the request line and header limits, beyond which requests get 414 or 431
+     * @param maxConnections the maximum number of connections open at the same time across all loops
+     * @param reusePort      true to give each loop its own SO_REUSEPORT channel, false to use one acceptor
+     * @throws IOException                   if a selector cannot be opened or the port cannot be bound
+     * @throws IllegalArgumentException      if loops or maxConnections is less than 1, reusePort is true and loops exceeds
+     *                                       maxConnections, or the pool hands out direct buffers
+     * @throws UnsupportedOperationException if reusePort is true and SO_REUSEPORT is not supported
+     */
+    public MultiReactorServer(int port, int loops, RequestHandler handler, BufferPool bufferPool, Timeouts timeouts,
+                              RequestLimits limits, int maxConnections, boolean reusePort) throws IOException {
+        if (loops < 1 || maxConnections < 1) {
+            throw new IllegalArgumentException("loops and maxConnections must be at least 1, got: " + loops + ", " + maxConnections);
+        }
+        if (reusePort && loops > maxConnections) {
+            throw new IllegalArgumentException("With SO_REUSEPORT every loop needs at least one connection, got "
+                    + loops + " loops for " + maxConnections + " connections");
+        }
+
+        this.loops = new EventLoop[loops];
+        try {
+            if (reusePort) {
+                this.acceptorChannel = null;
+                this.connectionPermits = null;
+                int[] shares = connectionShares(maxConnections, loops);
+                int boundPort = port;
+                for (int i = 0; i < loops; i++) {
+                    ServerSocketChannel channel = EventLoop.openServerChannel(boundPort, true);
+                    boundPort = channel.socket().getLocalPort();
+                    this.loops[i] = new EventLoop(channel, handler, bufferPool, timeouts, limits, shares[i], null);
+                }
+                this.port = boundPort;
+            } else {
+                Semaphore permits = new Semaphore(maxConnections);
+                this.connectionPermits = permits;
+                for (int i = 0; i < loops; i++) {
+                    this.loops[i] = new EventLoop(null, handler, bufferPool, timeouts, limits, maxConnections, permits::release);
+                }
+                this.acceptorChannel = EventLoop.openServerChannel(port, false);
+                this.port = this.acceptorChannel.socket().getLocalPort();
+            }
+        } catch (IOException | RuntimeException e) {
+            // no loop has run, so none will release its selector and channel by itself
+            for (EventLoop loop : this.loops) {
+                if (loop != null) {
+                    loop.closeUnstarted();
+                }
+            }
+            throw e;
+        }
+        this.running = true;
+    }
+
+    /**
+     * Splits a connection cap between SO_REUSEPORT loops. Every loop gets the same share, and
+     * the remainder goes one connection each to the first loops, so the shares add up to the cap.
+     *
+     * @param maxConnections the connection cap across all loops
+     * @param loops          the number of loops
+     * @return the cap of each loop, in loop order
+     * @throws IllegalArgumentException if loops is less than 1 or greater than maxConnections
+     */
+    public static int[] connectionShares(int maxConnections, int loops) {
+        if (loops < 1 || loops > maxConnections) {
+            throw new IllegalArgumentException("Cannot share " + maxConnections + " connections between " + loops + " loops");
+        }
+        int[] shares = new int[loops];
+        for (int i = 0; i < loops; i++) {
+            shares[i] = maxConnections / loops + (i < maxConnections % loops ? 1 : 0);
+        }
+        return shares;
+    }
+
+    /**
+     * Returns whether server channels on this platform support SO_REUSEPORT.
+     *
+     * @return true if several server channels can be bound to the same port
+     */
+    public static boolean isReusePortSupported() {
+        try (ServerSocketChannel channel = ServerSocketChannel.open()) {
+            return channel.supportedOptions().contains(StandardSocketOptions.SO_REUSEPORT);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns the port this server is listening on.
+     *
+     * @return the local port shared by the server channels
+     */
+    public int getPort() {
+        return this.port;
+    }
+
+    /**
+     * Returns the number of event loops.
+     *
+     * @return the loop count
+     */
+    public int getLoopCount() {
+        return this.loops.length;
+    }
+
+    /**
+     * Returns whether each loop accepts from its own SO_REUSEPORT channel.
+     *
+     * @return true for SO_REUSEPORT channels, false for a single acceptor
+     */
+    public boolean isReusePort() {
+        return this.acceptorChannel == null;
+    }
+
+    /**
+     * Starts a thread for each loop and serves until {@link #close()} is called.
+     * With a single acceptor, the accept loop runs on the calling thread.
+     */
+    @Override
+    public void run() {
+        Thread[] threads = new Thread[this.loops.length];
+        for (int i = 0; i < this.loops.length; i++) {
+            threads[i] = new Thread(this.loops[i], "event-loop-" + i);
+            threads[i].start();
+        }
+
+        if (this.acceptorChannel != null) {
+            acceptLoop();
+        }
+
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Stops accepting connections and closes every loop along with its connections.
+     *
+     * @throws IOException if the acceptor's server channel cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        this.running = false;
+        try {
+            if (this.acceptorChannel != null) {
+                this.acceptorChannel.close();
+            }
+        } finally {
+            closeLoops();
+        }
+    }
+
+    /**
+     * Accepts connections on the shared channel and hands them to the loops in turn.
+     * A permit is taken before each accept so the cap holds across all loops; the loop
+     * that serves a connection gives its permit back when the connection closes.
+     */
+    private void acceptLoop() {
+        int next = 0;
+        while (this.running) {
+            try {
+                this.connectionPermits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            try {
+                SocketChannel client = this.acceptorChannel.accept();
+                try {
+                    client.configureBlocking(false);
+                } catch (IOException e) {
+                    client.close();
+                    throw e;
+                }
+                this.loops[next].adopt(client);
+                next = next + 1 == this.loops.length ? 0 : next + 1;
+            } catch (IOException e) {
+                this.connectionPermits.release();
+                if (this.acceptorChannel.isOpen()) {
+                    System.err.println("Error accepting client connection: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void closeLoops() {
+        for (EventLoop loop : this.loops) {
+            if (loop != null) {
+                loop.close();
+            }
+        }
+    }
+}
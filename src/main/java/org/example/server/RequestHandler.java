@@ -0,0 +1,55 @@
+package org.example.server;
+
+import org.example.request.BodySink;
+import org.example.request.Request;
+import org.example.response.Response;
+
+/**
+ * Callback invoked by a server once a complete HTTP request has been parsed.
+ * The handler returns the Response to send back, which the server writes before
+ * handling the next request on the same connection.
+ * Implementations are called on the server's I/O thread and should return quickly.
+ * <p>
+ * Request bodies are not buffered. A handler that needs the body supplies a BodySink
+ * from {@link #bodySink(Request)}, which the server streams the body into before
+ * {@link #handle(Request)} is called.
+ * <p>
+ * A handler that never keeps a Request, or its Headers, past the return of handle can say so with
+ * {@link #releasesRequest()}. The servers then reset and reuse one Request per connection instead
+ * of allocating a new one for every request.
+ */
+@FunctionalInterface
+public interface RequestHandler {
+
+    /**
+     * Handles a fully parsed HTTP request.
+     *
+     * @param request the parsed request, in the DONE state
+     * @return the response to send, never null
+     */
+    Response handle(Request request);
+
+    /**
+     * Chooses where the body of a request should go.
+     * Called once the request's headers have been parsed and before any of its body is read.
+     * The default implementation discards the body.
+     *
+     * @param request the request whose headers have been parsed, in the PARSING_BODY state
+     * @return the sink to stream the request body into
+     */
+    default BodySink bodySink(Request request) {
+        return BodySink.DISCARD;
+    }
+
+    /**
+     * Returns whether this handler is finished with each Request once handle returns, so that the
+     * server may reset it and parse the connection's next request into the same object.
+     * Strings and the RequestLine taken from a request stay valid after it is reset; the Request
+     * and its Headers do not. The default is false, which gives every request its own Request.
+     *
+     * @return true if requests are not used after handle returns
+     */
+    default boolean releasesRequest() {
+        return false;
+    }
+}
@@ -0,0 +1,60 @@
+package org.example.server;
+
+import java.time.Duration;
+
+/**
+ * How long a connection may sit in each phase of its life before the server closes it.
+ * <ul>
+ *   <li>{@code idle}: waiting for the first byte of a request, on a new or kept-alive connection.
+ *       Also bounds how long an event loop waits for a client to take any more of a held-back response.</li>
+ *   <li>{@code headerRead}: from the first byte of a request to the end of its headers. This is a
+ *       total budget, not reset by each byte, so a client trickling headers in cannot extend it.</li>
+ *   <li>{@code bodyRead}: between successive reads of a request body. It is reset by every read
+ *       that makes progress, so a large upload is not cut off while it keeps moving.</li>
+ * </ul>
+ * A zero duration disables that timeout.
+ *
+ * @param idle       the keep-alive idle timeout
+ * @param headerRead the total time allowed to receive a request's line and headers
+ * @param bodyRead   the time allowed between reads of a request body
+ */
+public record Timeouts(Duration idle, Duration headerRead, Duration bodyRead) {
+
+    private static final Timeouts DEFAULT = new Timeouts(Duration.ofSeconds(60), Duration.ofSeconds(10), Duration.ofSeconds(30));
+
+    /**
+     * Creates a set of timeouts.
+     *
+     * @throws IllegalArgumentException if any duration is negative
+     */
+    public Timeouts {
+        if (idle.isNegative() || headerRead.isNegative() || bodyRead.isNegative()) {
+            throw new IllegalArgumentException("Timeouts must not be negative");
+        }
+    }
+
+    /**
+     * Returns the default timeouts: 60 seconds idle, 10 seconds for headers and 30 seconds between body reads.
+     *
+     * @return the default timeouts
+     */
+    public static Timeouts getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Returns a tick length suitable for a timing wheel enforcing these timeouts: a tenth of the
+     * shortest enabled timeout, between 1 millisecond and 100 milliseconds.
+     *
+     * @return the tick length in nanoseconds
+     */
+    long tickNanos() {
+        long shortest = Long.MAX_VALUE;
+        for (Duration timeout : new Duration[]{this.idle, this.headerRead, this.bodyRead}) {
+            if (!timeout.isZero()) {
+                shortest = Math.min(shortest, timeout.toNanos());
+            }
+        }
+        return Math.max(1_000_000L, Math.min(100_000_000L, shortest / 10));
+    }
+}
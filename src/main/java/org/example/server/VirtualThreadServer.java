@@ -0,0 +1,188 @@
+package org.example.server;
+
+import org.example.request.RequestLimits;
+import org.example.timer.HashedWheelTimer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTTP server that hands every accepted connection to its own virtual thread.
+ * Connections are still parsed with the blocking RequestReader code path, but a
+ * blocked read only parks a cheap virtual thread instead of the accept loop.
+ * Each thread keeps serving its connection for as long as the client keeps it alive.
+ * <p>
+ * The number of connections being served at once is capped by a semaphore.
+ * When the cap is reached the accept loop stops accepting until a connection
+ * finishes, leaving further clients queued in the listen backlog. The connection timeouts are
+ * kept on one timing wheel shared by all connections, so idle or stalled clients give their
+ * permits back without a timer per socket.
+ * <p>
+ * Virtual threads require Java 21. On older runtimes the server falls back to
+ * a cached platform thread pool, which keeps the same behaviour at a lower
+ * practical concurrency.
+ */
+public class VirtualThreadServer implements Runnable, Closeable {
+
+    private static final int ACCEPT_BACKLOG = 1024;
+    private static final int TICKS_PER_WHEEL = 512;
+
+    private final ServerSocketChannel serverChannel;
+    private final RequestHandler handler;
+    private final ExecutorService executor;
+    private final Semaphore connectionPermits;
+    private final Timeouts timeouts;
+    private final RequestLimits limits;
+    private final HashedWheelTimer timer;
+
+    /**
+     * Creates a virtual-thread server bound to the given port with the default timeouts.
+     * The server does not start accepting connections until {@link #run()} is called.
+     *
+     * @param port               the port to listen on, or 0 for an ephemeral port
+     * @param maxConcurrency     the maximum number of connections served at the same time
+     * @param handler            the handler invoked for every completed request
+     * @throws IOException              if the port cannot be bound
+     * @throws IllegalArgumentException if maxConcurrency is less than 1
+     */
+    public VirtualThreadServer(int port, int maxConcurrency, RequestHandler handler) throws IOException {
+        this(port, maxConcurrency, handler, Timeouts.getDefault());
+    }
+
+    /**
+     * Creates a virtual-thread server bound to the given port with the default request limits.
+     * The server does not start accepting connections until {@link #run()} is called.
+     *
+     * @param port               the port to listen on, or 0 for an ephemeral port
+     * @param maxConcurrency     the maximum number of connections served at the same time
+     * @param handler            the handler invoked for every completed request
+     * @param timeouts           how long a connection may idle, or take over a request's headers or body
+     * @throws IOException              if the port cannot be bound
+     * @throws IllegalArgumentException if maxConcurrency is less than 1
+     */
+    public VirtualThreadServer(int port, int maxConcurrency, RequestHandler handler, Timeouts timeouts)
+            throws IOException {
+        this(port, maxConcurrency, handler, timeouts, RequestLimits.getDefault());
+    }
+
+    /**
+     * Creates a virtual-thread server bound to the given port.
+     * The server does not start accepting connections until {@link #run()} is called.
+     *
+     * @param port               the port to listen on, or 0 for an ephemeral port
+     * @param maxConcurrency     the maximum number of connections served at the same time
+     * @param handler            the handler invoked for every completed request
+     * @param timeouts           how long a connection may idle, or take over a request's headers or body
+     * @param limits             the request line and header limits, beyond which requests get 414 or 431
+     * @throws IOException              if the port cannot be bound
+     * @throws IllegalArgumentException if maxConcurrency is less than 1
+     */
+    public VirtualThreadServer(int port, int maxConcurrency, RequestHandler handler, Timeouts timeouts,
+                               RequestLimits limits) throws IOException {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency must be at least 1, got: " + maxConcurrency);
+        }
+
+        this.handler = handler;
+        this.connectionPermits = new Semaphore(maxConcurrency);
+        this.timeouts = timeouts;
+        this.limits = limits;
+        this.timer = new HashedWheelTimer(timeouts.tickNanos(), TimeUnit.NANOSECONDS, TICKS_PER_WHEEL);
+        this.executor = newThreadPerTaskExecutor();
+        this.serverChannel = ServerSocketChannel.open();
+        try {
+            this.serverChannel.bind(new InetSocketAddress(port), ACCEPT_BACKLOG);
+        } catch (IOException | RuntimeException e) {
+            this.serverChannel.close();
+            this.executor.shutdown();
+            throw e;
+        }
+        this.timer.start("virtual-thread-server-timer");
+    }
+
+    /**
+     * Returns the port this server is listening on.
+     *
+     * @return the local port of the server channel
+     */
+    public int getPort() {
+        return this.serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * Runs the accept loop until {@link #close()} is called.
+     * A permit is taken before each accept so that no more than the configured
+     * number of connections are ever in flight.
+     */
+    @Override
+    public void run() {
+        while (this.serverChannel.isOpen()) {
+            try {
+                this.connectionPermits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            try {
+                SocketChannel client = this.serverChannel.accept();
+                this.executor.execute(() -> serve(client));
+            } catch (IOException e) {
+                this.connectionPermits.release();
+                if (this.serverChannel.isOpen()) {
+                    System.err.println("Error accepting client connection: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops accepting connections, closes the server channel and shuts down the executor.
+     * Connections that are already being served are allowed to finish, no longer subject to timeouts.
+     *
+     * @throws IOException if the server channel cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        this.timer.close();
+        this.serverChannel.close();
+        this.executor.shutdown();
+    }
+
+    private void serve(SocketChannel client) {
+        try (client) {
+            BlockingConnection.serve(client, this.handler, this.timer, this.timeouts, this.limits);
+        } catch (IOException e) {
+            System.err.println("Error handling client connection: " + e.getMessage());
+        } finally {
+            this.connectionPermits.release();
+        }
+    }
+
+    /**
+     * Creates an executor that starts a new virtual thread for each task.
+     * Looked up reflectively so the project still builds and runs on Java 17.
+     *
+     * @return a virtual-thread-per-task executor, or a cached thread pool if virtual threads are unavailable
+     */
+    private static ExecutorService newThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) MethodHandles.publicLookup()
+                    .findStatic(Executors.class, "newVirtualThreadPerTaskExecutor", MethodType.methodType(ExecutorService.class))
+                    .invokeExact();
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return Executors.newCachedThreadPool();
+        } catch (Throwable e) {
+            throw new IllegalStateException("Unable to create virtual thread executor", e);
+        }
+    }
+}
@@ -0,0 +1,347 @@
+package org.example.timer;
+
+import java.io.Closeable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+/**
+ * A hashed timing wheel for large numbers of coarse timeouts, such as one per connection.
+ * <p>
+ * Time is divided into ticks, and the wheel is a ring of buckets, one per tick. A timeout is
+ * placed in the bucket of the tick it falls in, with a count of how many more laps of the wheel
+ * must pass first. Each tick visits a single bucket, so scheduling, rescheduling and cancelling
+ * are O(1) and the cost of a tick does not depend on the total number of timeouts.
+ * <p>
+ * Timeouts are long-lived and reusable. Pushing a deadline back only writes the new deadline;
+ * the entry stays where it is in the wheel, and when its old bucket comes round it is moved
+ * to the bucket for the new deadline. A connection that resets its timeout on every request
+ * therefore never allocates and costs the wheel at most one extra visit per timeout period.
+ * Bringing a deadline forward, past the one the entry was placed for, queues the entry to be
+ * moved to its earlier bucket on the next tick.
+ * <p>
+ * The wheel is advanced by one owning thread, either by calling {@link #advance(long)} from
+ * an event loop or by a thread started with {@link #start(String)}. Expired tasks run on that
+ * thread. Timeouts may be reset and cancelled from any thread.
+ */
+public final class HashedWheelTimer implements Closeable {
+
+    private final long tickNanos;
+    private final int mask;
+    private final Bucket[] wheel;
+    private final LongSupplier clock;
+    private final long startTime;
+    private final ConcurrentLinkedQueue<Timeout> pending;
+    private long tick;
+    private volatile Thread worker;
+
+    /**
+     * Creates a timer. The wheel covers ticksPerWheel ticks per lap; longer timeouts take several laps.
+     *
+     * @param tickDuration  the length of one tick; timeouts fire up to one tick late
+     * @param unit          the unit of tickDuration
+     * @param ticksPerWheel the number of buckets, rounded up to a power of two
+     * @throws IllegalArgumentException if tickDuration or ticksPerWheel is not positive
+     */
+    public HashedWheelTimer(long tickDuration, TimeUnit unit, int ticksPerWheel) {
+        this(tickDuration, unit, ticksPerWheel, System::nanoTime);
+    }
+
+    /**
+     * Creates a timer that reads the time from the given clock instead of System.nanoTime().
+     * Timeouts are reset relative to it and {@link #advance(long)} must be given times from it.
+     *
+     * @param tickDuration  the length of one tick; timeouts fire up to one tick late
+     * @param unit          the unit of tickDuration
+     * @param ticksPerWheel the number of buckets, rounded up to a power of two
+     * @param clock         the source of the current time in nanoseconds
+     * @throws IllegalArgumentException if tickDuration or ticksPerWheel is not positive
+     */
+    public HashedWheelTimer(long tickDuration, TimeUnit unit, int ticksPerWheel, LongSupplier clock) {
+        if (tickDuration <= 0 || ticksPerWheel <= 0) {
+            throw new IllegalArgumentException("tickDuration and ticksPerWheel must be positive");
+        }
+
+        int size = ticksPerWheel == 1 ? 1 : Integer.highestOneBit(ticksPerWheel - 1) << 1;
+        this.tickNanos = Math.max(1, unit.toNanos(tickDuration));
+        this.mask = size - 1;
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            this.wheel[i] = new Bucket();
+        }
+        this.clock = clock;
+        this.startTime = clock.getAsLong();
+        this.pending = new ConcurrentLinkedQueue<>();
+        this.tick = 0;
+    }
+
+    /**
+     * Creates a timeout that runs the given task when it expires. It is not armed until it is reset.
+     *
+     * @param task the task to run on the timer's thread when the timeout expires
+     * @return the new, unarmed timeout
+     */
+    public Timeout newTimeout(Runnable task) {
+        return new Timeout(this, task);
+    }
+
+    /**
+     * Returns the length of one tick.
+     *
+     * @return the tick duration in nanoseconds
+     */
+    public long getTickNanos() {
+        return this.tickNanos;
+    }
+
+    /**
+     * Runs every tick that has ended by the given time, expiring the timeouts due in them.
+     * Must only be called by the one thread that owns the wheel.
+     *
+     * @param now the current time on the timer's clock
+     * @return the number of timeouts that expired
+     */
+    public int advance(long now) {
+        int expired = 0;
+
+        while (this.startTime + (this.tick + 1) * this.tickNanos <= now) {
+            drainPending();
+            Bucket bucket = this.wheel[(int) (this.tick & this.mask)];
+            Timeout timeout = bucket.head;
+
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.remainingRounds > 0) {
+                    timeout.remainingRounds--;
+                } else {
+                    bucket.remove(timeout);
+                    if (expire(timeout, now)) {
+                        expired++;
+                    }
+                }
+                timeout = next;
+            }
+            this.tick++;
+        }
+        return expired;
+    }
+
+    /**
+     * Returns the time until the current tick ends, for use as an event loop's select timeout.
+     *
+     * @param now the current time on the timer's clock
+     * @return the nanoseconds until {@link #advance(long)} next has work to do, at least 0
+     */
+    public long nanosUntilNextTick(long now) {
+        return Math.max(0, this.startTime + (this.tick + 1) * this.tickNanos - now);
+    }
+
+    /**
+     * Starts a daemon thread that advances the wheel once per tick.
+     *
+     * @param threadName the name of the thread
+     * @throws IllegalStateException if the timer has already been started
+     */
+    public synchronized void start(String threadName) {
+        if (this.worker != null) {
+            throw new IllegalStateException("Timer already started");
+        }
+        Thread thread = new Thread(() -> {
+            while (this.worker == Thread.currentThread()) {
+                long sleep = nanosUntilNextTick(this.clock.getAsLong());
+                if (sleep > 0) {
+                    try {
+                        TimeUnit.NANOSECONDS.sleep(sleep);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                advance(this.clock.getAsLong());
+            }
+        }, threadName);
+        thread.setDaemon(true);
+        this.worker = thread;
+        thread.start();
+    }
+
+    /**
+     * Stops the thread started by {@link #start(String)}, if any. Pending timeouts no longer fire.
+     */
+    @Override
+    public synchronized void close() {
+        Thread thread = this.worker;
+        this.worker = null;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * Handles a timeout whose bucket has come round. Cancelled timeouts leave the wheel,
+     * timeouts whose deadline has been pushed back are placed again, and the rest fire.
+     *
+     * @return true if the timeout fired
+     */
+    private boolean expire(Timeout timeout, long now) {
+        long deadline = timeout.deadline;
+        if (deadline != Timeout.DISARMED && deadline > now) {
+            place(timeout, deadline);
+            return false;
+        }
+
+        // leave the wheel before re-reading the deadline, so a concurrent reset either sees
+        // the timeout out of the wheel and re-adds it, or is seen here and re-placed
+        timeout.inWheel.set(false);
+        deadline = timeout.deadline;
+        if (deadline == Timeout.DISARMED) {
+            return false;
+        }
+        if (deadline > now) {
+            if (timeout.inWheel.compareAndSet(false, true)) {
+                place(timeout, deadline);
+            }
+            return false;
+        }
+
+        timeout.deadline = Timeout.DISARMED;
+        timeout.task.run();
+        return true;
+    }
+
+    /**
+     * Places the timeouts queued by resets. A timeout queued to move to an earlier bucket is
+     * taken out of its current one first; one that has fired or been dropped since it was
+     * queued is skipped.
+     */
+    private void drainPending() {
+        Timeout timeout;
+        while ((timeout = this.pending.poll()) != null) {
+            timeout.moving.set(false);
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            } else if (!timeout.inWheel.get()) {
+                continue;
+            }
+
+            long deadline = timeout.deadline;
+            if (deadline == Timeout.DISARMED) {
+                timeout.inWheel.set(false);
+                if (timeout.deadline == Timeout.DISARMED || !timeout.inWheel.compareAndSet(false, true)) {
+                    continue;
+                }
+                deadline = timeout.deadline;
+            }
+            place(timeout, deadline);
+        }
+    }
+
+    private void place(Timeout timeout, long deadline) {
+        long deadlineTick = Math.max(this.tick, (deadline - this.startTime) / this.tickNanos);
+        timeout.remainingRounds = (deadlineTick - this.tick) / this.wheel.length;
+        this.wheel[(int) (deadlineTick & this.mask)].add(timeout);
+
+        // publish the deadline placed for before re-reading the current one, so a concurrent
+        // reset to an earlier deadline either sees it and queues the move itself or is seen here
+        timeout.placedDeadline = deadline;
+        long current = timeout.deadline;
+        if (current != Timeout.DISARMED && current < deadline && timeout.moving.compareAndSet(false, true)) {
+            this.pending.add(timeout);
+        }
+    }
+
+    /**
+     * A reusable timeout. Resetting it arms it with a new deadline; cancelling disarms it.
+     */
+    public static final class Timeout {
+        private static final long DISARMED = Long.MIN_VALUE;
+
+        private final HashedWheelTimer timer;
+        private final Runnable task;
+        private final AtomicBoolean inWheel;
+        private final AtomicBoolean moving;
+        private volatile long deadline;
+        private volatile long placedDeadline;
+        private long remainingRounds;
+        private Bucket bucket;
+        private Timeout next;
+        private Timeout previous;
+
+        private Timeout(HashedWheelTimer timer, Runnable task) {
+            this.timer = timer;
+            this.task = task;
+            this.inWheel = new AtomicBoolean(false);
+            this.moving = new AtomicBoolean(false);
+            this.deadline = DISARMED;
+            this.placedDeadline = DISARMED;
+        }
+
+        /**
+         * Arms the timeout to expire after the given delay, replacing any earlier deadline.
+         *
+         * @param delay the delay from now
+         * @param unit  the unit of delay
+         */
+        public void reset(long delay, TimeUnit unit) {
+            long deadline = this.timer.clock.getAsLong() + unit.toNanos(delay);
+            this.deadline = deadline;
+            if (this.inWheel.compareAndSet(false, true)) {
+                this.timer.pending.add(this);
+            } else if (deadline < this.placedDeadline && this.moving.compareAndSet(false, true)) {
+                this.timer.pending.add(this);
+            }
+        }
+
+        /**
+         * Disarms the timeout. Its task will not run unless it is reset again.
+         */
+        public void cancel() {
+            this.deadline = DISARMED;
+        }
+
+        /**
+         * Returns whether the timeout is armed.
+         *
+         * @return true if the timeout has a deadline and has not yet fired or been cancelled
+         */
+        public boolean isArmed() {
+            return this.deadline != DISARMED;
+        }
+    }
+
+    /**
+     * A doubly linked list of the timeouts in one bucket, so that any of them can be unlinked in O(1).
+     */
+    private static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.next = null;
+            timeout.previous = this.tail;
+            if (this.tail == null) {
+                this.head = timeout;
+            } else {
+                this.tail.next = timeout;
+            }
+            this.tail = timeout;
+            timeout.bucket = this;
+        }
+
+        void remove(Timeout timeout) {
+            if (timeout.previous == null) {
+                this.head = timeout.next;
+            } else {
+                timeout.previous.next = timeout.next;
+            }
+            if (timeout.next == null) {
+                this.tail = timeout.previous;
+            } else {
+                timeout.next.previous = timeout.previous;
+            }
+            timeout.next = null;
+            timeout.previous = null;
+            timeout.bucket = null;
+        }
+    }
+}
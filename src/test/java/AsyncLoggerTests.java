@@ -0,0 +1,152 @@
+import org.example.logging.AsyncLogger;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AsyncLoggerTests {
+
+    @Test
+    public void TestRecordsFormattedInOrder() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        AsyncLogger logger = new AsyncLogger(new PrintStream(bytes, true, StandardCharsets.UTF_8), 16, AsyncLogger.OverflowPolicy.BLOCK);
+
+        logger.log("plain message");
+        logger.log("one {}", 1);
+        logger.log("{} and {}", "a", null);
+        logger.log("{}{}{}", 'x', 'y', 'z');
+        logger.log("{}-{}-{}-{} {}", 1, 2, 3, 4);
+        logger.close();
+
+        String[] lines = bytes.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(5, lines.length);
+        assertTrue(lines[0].endsWith(" plain message"));
+        assertTrue(lines[1].endsWith(" one 1"));
+        assertTrue(lines[2].endsWith(" a and null"));
+        assertTrue(lines[3].endsWith(" xyz"));
+        assertTrue(lines[4].endsWith(" 1-2-3-4 {}"));
+        assertEquals(0, logger.getDroppedCount());
+    }
+
+    @Test
+    public void TestBlockPolicyKeepsEveryRecord() throws InterruptedException {
+        CountingStream counting = new CountingStream();
+        AsyncLogger logger = new AsyncLogger(new PrintStream(counting, false, StandardCharsets.UTF_8), 8, AsyncLogger.OverflowPolicy.BLOCK);
+        Thread[] threads = new Thread[4];
+
+        for (int t = 0; t < threads.length; t++) {
+            int id = t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 5_000; i++) {
+                    assertTrue(logger.log("thread {} record {}", id, i));
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        logger.close();
+
+        assertEquals(20_000, counting.lines);
+        assertEquals(0, logger.getDroppedCount());
+    }
+
+    @Test
+    public void TestDropPolicyCountsAndReportsDroppedRecords() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountingStream stalled = new CountingStream() {
+            @Override
+            public void write(byte[] b, int off, int len) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.write(b, off, len);
+            }
+        };
+        AsyncLogger logger = new AsyncLogger(new PrintStream(stalled, false, StandardCharsets.UTF_8), 4, AsyncLogger.OverflowPolicy.DROP);
+
+        int queued = 0;
+        for (int i = 0; i < 100; i++) {
+            if (logger.log("record {}", i)) {
+                queued++;
+            }
+        }
+        release.countDown();
+        logger.close();
+
+        assertTrue(logger.getDroppedCount() > 0);
+        assertEquals(100, queued + logger.getDroppedCount());
+        assertTrue(stalled.text.toString().contains(" log records dropped"));
+        assertEquals(queued, stalled.text.toString().lines().filter(line -> line.contains(" record ")).count());
+    }
+
+    @Test
+    public void TestRecordsAfterCloseAreDropped() {
+        AsyncLogger logger = new AsyncLogger(new PrintStream(OutputStream.nullOutputStream()), 4, AsyncLogger.OverflowPolicy.BLOCK);
+        logger.close();
+
+        assertFalse(logger.log("too late"));
+        assertEquals(1, logger.getDroppedCount());
+        assertThrows(IllegalArgumentException.class, () -> new AsyncLogger(System.out, 1, AsyncLogger.OverflowPolicy.DROP));
+    }
+
+    @Test
+    public void TestRecordsRacingCloseAreWrittenOrCounted() throws InterruptedException {
+        for (int round = 0; round < 50; round++) {
+            CountingStream counting = new CountingStream();
+            AsyncLogger logger = new AsyncLogger(new PrintStream(counting, false, StandardCharsets.UTF_8), 64, AsyncLogger.OverflowPolicy.BLOCK);
+            AtomicInteger queued = new AtomicInteger();
+            CountDownLatch started = new CountDownLatch(4);
+            Thread[] threads = new Thread[4];
+
+            for (int t = 0; t < threads.length; t++) {
+                threads[t] = new Thread(() -> {
+                    started.countDown();
+                    for (int i = 0; i < 2_000; i++) {
+                        if (logger.log("record {}", i)) {
+                            queued.incrementAndGet();
+                        }
+                    }
+                });
+                threads[t].start();
+            }
+            started.await();
+            logger.close();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            assertEquals(8_000, queued.get() + logger.getDroppedCount());
+            assertEquals(queued.get(), counting.text.toString().lines().filter(line -> line.contains(" record ")).count());
+        }
+    }
+
+    private static class CountingStream extends OutputStream {
+        final StringBuilder text = new StringBuilder();
+        int lines;
+
+        @Override
+        public void write(int b) {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                if (b[i] == '\n') {
+                    this.lines++;
+                }
+            }
+            this.text.append(new String(b, off, len, StandardCharsets.UTF_8));
+        }
+    }
+}
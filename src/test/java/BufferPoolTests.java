@@ -0,0 +1,124 @@
+import org.example.buffer.BufferPool;
+import org.example.buffer.BufferPoolStats;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BufferPoolTests {
+
+    @Test
+    public void TestAcquireRoundsUpToSizeClass() {
+        BufferPool pool = new BufferPool(false, 1024, 8192, 4, 0);
+
+        assertEquals(1024, pool.acquire(1).capacity());
+        assertEquals(1024, pool.acquire(1024).capacity());
+        assertEquals(2048, pool.acquire(1025).capacity());
+        assertEquals(8192, pool.acquire(5000).capacity());
+    }
+
+    @Test
+    public void TestReleasedBufferIsReused() {
+        BufferPool pool = new BufferPool(false, 1024, 8192, 4, 0);
+
+        ByteBuffer first = pool.acquire(2000);
+        first.put((byte) 1);
+        pool.release(first);
+
+        ByteBuffer second = pool.acquire(2048);
+        assertSame(first, second);
+        assertEquals(0, second.position());
+        assertEquals(second.capacity(), second.limit());
+
+        BufferPoolStats stats = pool.getStats();
+        assertEquals(1, stats.hits());
+        assertEquals(1, stats.misses());
+        assertEquals(0.5, stats.hitRate(), 0.0001);
+    }
+
+    @Test
+    public void TestOutstandingAndBytesHeld() {
+        BufferPool pool = new BufferPool(false, 1024, 8192, 4, 0);
+
+        ByteBuffer small = pool.acquire(1024);
+        ByteBuffer large = pool.acquire(4096);
+        assertEquals(2, pool.getStats().outstanding());
+        assertEquals(0, pool.getStats().bytesHeld());
+
+        pool.release(small);
+        pool.release(large);
+        assertEquals(0, pool.getStats().outstanding());
+        assertEquals(1024 + 4096, pool.getStats().bytesHeld());
+
+        pool.acquire(4096);
+        assertEquals(1024, pool.getStats().bytesHeld());
+    }
+
+    @Test
+    public void TestOversizedBuffersAreNotPooled() {
+        BufferPool pool = new BufferPool(false, 1024, 8192, 4, 0);
+
+        ByteBuffer huge = pool.acquire(10_000);
+        assertEquals(10_000, huge.capacity());
+        pool.release(huge);
+
+        assertEquals(0, pool.getStats().bytesHeld());
+        assertEquals(0, pool.getStats().outstanding());
+    }
+
+    @Test
+    public void TestFreeListIsBounded() {
+        BufferPool pool = new BufferPool(false, 1024, 1024, 1, 0);
+
+        ByteBuffer first = pool.acquire(1024);
+        ByteBuffer second = pool.acquire(1024);
+        pool.release(first);
+        pool.release(second);
+
+        assertEquals(1024, pool.getStats().bytesHeld());
+    }
+
+    @Test
+    public void TestThreadLocalCache() throws InterruptedException {
+        BufferPool pool = new BufferPool(false, 1024, 1024, 1, 2);
+
+        ByteBuffer first = pool.acquire(1024);
+        pool.release(first);
+
+        ByteBuffer[] otherThread = new ByteBuffer[1];
+        Thread thread = new Thread(() -> otherThread[0] = pool.acquire(1024));
+        thread.start();
+        thread.join();
+
+        assertNotSame(first, otherThread[0]);
+        assertSame(first, pool.acquire(1024));
+    }
+
+    @Test
+    public void TestGrowKeepsContents() {
+        BufferPool pool = new BufferPool(false, 1024, 8192, 4, 0);
+
+        ByteBuffer buffer = pool.acquire(1024);
+        buffer.put(0, (byte) 'a').put(1, (byte) 'b');
+        ByteBuffer larger = pool.grow(buffer, 2);
+
+        assertEquals(2048, larger.capacity());
+        assertEquals('a', larger.get(0));
+        assertEquals('b', larger.get(1));
+        assertEquals(1, pool.getStats().outstanding());
+        assertEquals(1024, pool.getStats().bytesHeld());
+    }
+
+    @Test
+    public void TestDirectPool() {
+        BufferPool pool = new BufferPool(true, 1024, 8192, 4, 0);
+        assertTrue(pool.acquire(100).isDirect());
+    }
+
+    @Test
+    public void TestInvalidSizeClasses() {
+        assertThrows(IllegalArgumentException.class, () -> new BufferPool(false, 1000, 8192, 4, 0));
+        assertThrows(IllegalArgumentException.class, () -> new BufferPool(false, 8192, 1024, 4, 0));
+    }
+}
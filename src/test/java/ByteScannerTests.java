@@ -0,0 +1,60 @@
+import org.example.request.ByteScanner;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ByteScannerTests {
+
+    @Test
+    public void TestFindCRLF() {
+        byte[] data = "Host: localhost\r\nAccept: */*\r\n\r\n".getBytes();
+
+        assertEquals(15, ByteScanner.findCRLF(data, 0, data.length));
+        assertEquals(28, ByteScanner.findCRLF(data, 16, data.length));
+        assertEquals(30, ByteScanner.findCRLF(data, 29, data.length));
+        assertEquals(-1, ByteScanner.findCRLF(data, 0, 16));
+        assertEquals(-1, ByteScanner.findCRLF(data, 0, 0));
+    }
+
+    @Test
+    public void TestLoneCarriageReturnsAreSkipped() {
+        byte[] data = "a\rb\rc\rd\re\rf\rg\rh\r\r\n".getBytes();
+
+        assertEquals(16, ByteScanner.findCRLF(data, 0, data.length));
+        assertEquals(-1, ByteScanner.findCRLF(data, 0, data.length - 1));
+    }
+
+    @Test
+    public void TestIndexOf() {
+        byte[] data = "Content-Length: 5".getBytes();
+
+        assertEquals(14, ByteScanner.indexOf(data, (byte) ':', 0, data.length));
+        assertEquals(-1, ByteScanner.indexOf(data, (byte) ':', 0, 14));
+        assertEquals(-1, ByteScanner.indexOf(data, (byte) ':', 15, data.length));
+        assertEquals(0, ByteScanner.indexOf(new byte[]{(byte) 0xFF}, (byte) 0xFF, 0, 1));
+    }
+
+    @Test
+    public void TestMatchesScalarOnRandomData() {
+        Random random = new Random(42);
+        byte[] alphabet = {'\r', '\n', ':', 'a', ' ', (byte) 0x80, 0};
+
+        for (int round = 0; round < 2000; round++) {
+            byte[] data = new byte[random.nextInt(64)];
+            for (int i = 0; i < data.length; i++) {
+                data[i] = alphabet[random.nextInt(alphabet.length)];
+            }
+
+            for (int start = 0; start <= data.length; start++) {
+                int end = start + random.nextInt(data.length - start + 1);
+                assertEquals(ByteScanner.findCRLFScalar(data, start, end), ByteScanner.findCRLF(data, start, end));
+                assertEquals(ByteScanner.indexOfScalar(data, (byte) ':', start, end),
+                        ByteScanner.indexOf(data, (byte) ':', start, end));
+                assertEquals(ByteScanner.indexOfScalar(data, (byte) 0x80, start, end),
+                        ByteScanner.indexOf(data, (byte) 0x80, start, end));
+            }
+        }
+    }
+}
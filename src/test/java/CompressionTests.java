@@ -0,0 +1,123 @@
+import org.example.compression.CompressedVariantCache;
+import org.example.compression.CompressionHandler;
+import org.example.compression.ContentEncoding;
+import org.example.compression.DeflaterPool;
+import org.example.request.Request;
+import org.example.response.Response;
+import org.example.response.StatusCode;
+import org.example.server.RequestHandler;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompressionTests {
+
+    private static final String TEXT = "The quick brown fox jumps over the lazy dog. ".repeat(200);
+
+    @Test
+    public void TestNegotiation() {
+        assertEquals(ContentEncoding.IDENTITY, ContentEncoding.negotiate(null));
+        assertEquals(ContentEncoding.IDENTITY, ContentEncoding.negotiate(""));
+        assertEquals(ContentEncoding.GZIP, ContentEncoding.negotiate("gzip, deflate, br"));
+        assertEquals(ContentEncoding.GZIP, ContentEncoding.negotiate("deflate, gzip"));
+        assertEquals(ContentEncoding.DEFLATE, ContentEncoding.negotiate("gzip;q=0.5, deflate"));
+        assertEquals(ContentEncoding.DEFLATE, ContentEncoding.negotiate("gzip;q=0, *"));
+        assertEquals(ContentEncoding.GZIP, ContentEncoding.negotiate("*;q=0.1"));
+        assertEquals(ContentEncoding.IDENTITY, ContentEncoding.negotiate("br, identity"));
+        assertEquals(ContentEncoding.IDENTITY, ContentEncoding.negotiate("gzip;q=0, deflate;q=0"));
+        assertEquals(ContentEncoding.GZIP, ContentEncoding.negotiate("GZIP ; Q=1.0"));
+    }
+
+    @Test
+    public void TestPooledDeflatersRoundTrip() throws IOException {
+        DeflaterPool pool = new DeflaterPool(Deflater.DEFAULT_COMPRESSION, 2);
+        byte[] text = TEXT.getBytes(StandardCharsets.US_ASCII);
+
+        for (int i = 0; i < 3; i++) {
+            ByteBuffer gzip = pool.compress(ByteBuffer.wrap(text), ContentEncoding.GZIP);
+            assertArrayEquals(text, new GZIPInputStream(new ByteArrayInputStream(bytes(gzip))).readAllBytes());
+
+            ByteBuffer deflate = pool.compress(ByteBuffer.wrap(text), ContentEncoding.DEFLATE);
+            assertArrayEquals(text, new InflaterInputStream(new ByteArrayInputStream(bytes(deflate))).readAllBytes());
+            assertTrue(deflate.remaining() < text.length / 10);
+        }
+        assertEquals(2, pool.getIdleCount());
+
+        ByteBuffer empty = pool.compress(ByteBuffer.allocate(0), ContentEncoding.GZIP);
+        assertEquals(0, new GZIPInputStream(new ByteArrayInputStream(bytes(empty))).readAllBytes().length);
+        assertThrows(IllegalArgumentException.class, () -> pool.compress(ByteBuffer.allocate(1), ContentEncoding.IDENTITY));
+    }
+
+    @Test
+    public void TestHandlerCompressesNegotiatedResponses() throws IOException {
+        CompressionHandler handler = new CompressionHandler(request -> Response.text(StatusCode.OK, TEXT));
+
+        Response gzip = handler.handle(HttpFixtures.request("GET / HTTP/1.1\r\nAccept-Encoding: gzip, deflate\r\n\r\n"));
+        assertEquals("gzip", gzip.getHeader("Content-Encoding"));
+        assertEquals("Accept-Encoding", gzip.getHeader("Vary"));
+        assertEquals(TEXT, new String(new GZIPInputStream(stream(gzip)).readAllBytes(), StandardCharsets.UTF_8));
+
+        Response plain = handler.handle(HttpFixtures.request("GET / HTTP/1.1\r\n\r\n"));
+        assertNull(plain.getHeader("Content-Encoding"));
+        assertEquals("Accept-Encoding", plain.getHeader("Vary"));
+        assertEquals(TEXT.length(), plain.getBodyLength());
+    }
+
+    @Test
+    public void TestSmallAndBinaryBodiesUntouched() throws IOException {
+        Response small = Response.text(StatusCode.OK, "short");
+        Response image = new Response(StatusCode.OK);
+        image.setHeader("Content-Type", "image/png");
+        image.setBody(TEXT.getBytes(StandardCharsets.US_ASCII));
+
+        Request request = HttpFixtures.request("GET / HTTP/1.1\r\nAccept-Encoding: gzip\r\n\r\n");
+        assertSame(small, new CompressionHandler(r -> small).handle(request));
+        assertSame(image, new CompressionHandler(r -> image).handle(request));
+    }
+
+    @Test
+    public void TestTaggedVariantsCompressedOnce() throws IOException {
+        AtomicInteger calls = new AtomicInteger();
+        Response tagged = Response.text(StatusCode.OK, TEXT);
+        tagged.setHeader("ETag", "\"v1\"");
+        RequestHandler delegate = request -> {
+            calls.incrementAndGet();
+            return tagged;
+        };
+        CompressedVariantCache cache = new CompressedVariantCache(1024 * 1024);
+        CompressionHandler handler = new CompressionHandler(delegate, DeflaterPool.getDefault(), cache, 1024);
+
+        Response first = handler.handle(HttpFixtures.request("GET /page HTTP/1.1\r\nAccept-Encoding: gzip\r\n\r\n"));
+        Response second = handler.handle(HttpFixtures.request("GET /page HTTP/1.1\r\nAccept-Encoding: gzip\r\n\r\n"));
+        handler.handle(HttpFixtures.request("GET /page HTTP/1.1\r\nAccept-Encoding: deflate\r\n\r\n"));
+
+        assertEquals(3, calls.get());
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+        assertEquals("W/\"v1\"", first.getHeader("ETag"));
+        assertEquals("\"v1\"", tagged.getHeader("ETag"));
+        assertEquals(2, tagged.getHeaderCount());
+        assertEquals(HttpFixtures.bytes(first).length, HttpFixtures.bytes(second).length);
+        assertEquals(TEXT, new String(new GZIPInputStream(stream(second)).readAllBytes(), StandardCharsets.UTF_8));
+    }
+
+    private static InputStream stream(Response response) {
+        return new ByteArrayInputStream(HttpFixtures.bytes(response));
+    }
+
+    private static byte[] bytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,433 @@
+import org.example.buffer.BufferPool;
+import org.example.request.BodySink;
+import org.example.request.Request;
+import org.example.request.RequestLimits;
+import org.example.response.FileRegion;
+import org.example.response.Response;
+import org.example.response.StatusCode;
+import org.example.server.EventLoop;
+import org.example.server.RequestHandler;
+import org.example.server.Timeouts;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EventLoopTests {
+
+    @Test
+    void TestSlowClientDoesNotBlockOthers() throws Exception {
+        BlockingQueue<Request> requests = new LinkedBlockingQueue<>();
+
+        try (EventLoop eventLoop = new EventLoop(0, recordTo(requests))) {
+            Thread thread = new Thread(eventLoop);
+            thread.start();
+
+            try (Socket slow = new Socket("localhost", eventLoop.getPort());
+                 Socket fast = new Socket("localhost", eventLoop.getPort())) {
+                OutputStream slowOut = slow.getOutputStream();
+                slowOut.write("GET /slow HTTP/1.1\r\nHo".getBytes());
+                slowOut.flush();
+
+                send(fast, "GET /fast HTTP/1.1\r\nHost: localhost\r\n\r\n");
+                Request first = requests.poll(5, TimeUnit.SECONDS);
+                assertNotNull(first);
+                assertEquals("/fast", first.getRequestLine().requestTarget());
+
+                slowOut.write("st: localhost\r\n\r\n".getBytes());
+                slowOut.flush();
+                Request second = requests.poll(5, TimeUnit.SECONDS);
+                assertNotNull(second);
+                assertEquals("/slow", second.getRequestLine().requestTarget());
+                assertEquals("localhost", second.getHeaders().getValue("host"));
+            }
+
+            eventLoop.close();
+            thread.join(5000);
+            assertFalse(thread.isAlive());
+        }
+    }
+
+    @Test
+    void TestWholeRequestInSingleRead() throws Exception {
+        BlockingQueue<Request> requests = new LinkedBlockingQueue<>();
+
+        try (EventLoop eventLoop = new EventLoop(0, recordTo(requests))) {
+            new Thread(eventLoop).start();
+
+            try (Socket client = new Socket("localhost", eventLoop.getPort())) {
+                send(client, "POST /coffee HTTP/1.1\r\nHost: localhost\r\nUser-Agent: curl/7.81.0\r\nAccept: */*\r\n\r\n");
+                Request request = requests.poll(5, TimeUnit.SECONDS);
+                assertNotNull(request);
+                assertEquals("POST", request.getRequestLine().method());
+                assertEquals("curl/7.81.0", request.getHeaders().getValue("user-agent"));
+                assertEquals("*/*", request.getHeaders().getValue("accept"));
+            }
+        }
+    }
+
+    @Test
+    void TestPipelinedRequestsOnPersistentConnection() throws Exception {
+        BlockingQueue<Request> requests = new LinkedBlockingQueue<>();
+
+        try (EventLoop eventLoop = new EventLoop(0, recordTo(requests))) {
+            new Thread(eventLoop).start();
+
+            try (Socket client = new Socket("localhost", eventLoop.getPort())) {
+                send(client, "GET /one HTTP/1.1\r\nHost: localhost\r\n\r\nGET /two HTTP/1.1\r\nHost: localhost\r\n\r\n");
+                assertEquals("/one", requests.poll(5, TimeUnit.SECONDS).getRequestLine().requestTarget());
+                assertEquals("/two", requests.poll(5, TimeUnit.SECONDS).getRequestLine().requestTarget());
+
+                send(client, "GET /three HTTP/1.1\r\nConnection: close\r\n\r\n");
+                assertEquals("/three", requests.poll(5, TimeUnit.SECONDS).getRequestLine().requestTarget());
+
+                client.setSoTimeout(5000);
+                String responses = new String(client.getInputStream().readAllBytes(), StandardCharsets.US_ASCII);
+                assertEquals(3, responses.split("HTTP/1.1 200 OK\r\n", -1).length - 1);
+                assertTrue(responses.endsWith("Connection: close\r\nContent-Type: text/plain; charset=utf-8\r\n\r\nok"), responses);
+            }
+        }
+    }
+
+    @Test
+    void TestIdleConnectionsReturnBuffers() throws Exception {
+        BlockingQueue<Request> requests = new LinkedBlockingQueue<>();
+        BufferPool pool = new BufferPool(false, 1024, 64 * 1024, 16, 0);
+
+        try (EventLoop eventLoop = new EventLoop(0, recordTo(requests), pool)) {
+            new Thread(eventLoop).start();
+
+            try (Socket client = new Socket("localhost", eventLoop.getPort())) {
+                send(client, "GET /one HTTP/1.1\r\nHo");
+                Thread.sleep(100);
+                assertEquals(1, pool.getStats().outstanding());
+
+                send(client, "st: localhost\r\n\r\n");
+                assertNotNull(requests.poll(5, TimeUnit.SECONDS));
+                awaitNoOutstandingBuffers(pool);
+
+                send(client, "GET /two HTTP/1.1\r\nHost: localhost\r\n\r\n");
+                assertNotNull(requests.poll(5, TimeUnit.SECONDS));
+                awaitNoOutstandingBuffers(pool);
+                assertTrue(pool.getStats().hits() >= 1);
+            }
+        }
+    }
+
+    @Test
+    void TestBodyStreamedToHandlerSink() throws Exception {
+        BlockingQueue<Request> requests = new LinkedBlockingQueue<>();
+        ByteArrayOutputStream received = new ByteArrayOutputStream();
+
+        RequestHandler handler = new RequestHandler() {
+            @Override
+            public Response handle(Request request) {
+                requests.add(request);
+                return new Response(StatusCode.NO_CONTENT);
+            }
+
+            @Override
+            public BodySink bodySink(Request request) {
+                return received::write;
+            }
+        };
+
+        try (EventLoop eventLoop = new EventLoop(0, handler)) {
+            new Thread(eventLoop).start();
+
+            try (Socket client = new Socket("localhost", eventLoop.getPort())) {
+                send(client, "POST /upload HTTP/1.1\r\nContent-Length: 10\r\n\r\nhello");
+                Thread.sleep(100);
+                send(client, "world");
+                send(client, "GET /next HTTP/1.1\r\n\r\n");
+
+                assertEquals("/upload", requests.poll(5, TimeUnit.SECONDS).getRequestLine().requestTarget());
+                assertEquals("helloworld", received.toString());
+                assertEquals("/next", requests.poll(5, TimeUnit.SECONDS).getRequestLine().requestTarget());
+            }
+        }
+    }
+
+    @Test
+    void TestLargeResponseWaitsForSlowReader() throws Exception {
+        byte[] body = new byte[8 * 1024 * 1024];
+        Arrays.fill(body, (byte) 'x');
+        RequestHandler handler = request -> {
+            Response response = new Response(StatusCode.OK);
+            response.setBody(body);
+            return response;
+        };
+
+        try (EventLoop eventLoop = new EventLoop(0, handler)) {
+            new Thread(eventLoop).start();
+
+            try (Socket client = new Socket("localhost", eventLoop.getPort())) {
+                send(client, "GET /big HTTP/1.1\r\n\r\nGET /big HTTP/1.1\r\nConnection: close\r\n\r\n");
+                Thread.sleep(200);
+
+                client.setSoTimeout(5000);
+                byte[] received = client.getInputStream().readAllBytes();
+                String text = new String(received, StandardCharsets.US_ASCII);
+                assertTrue(text.startsWith("HTTP/1.1 200 OK\r\n"));
+                assertTrue(text.contains("Content-Length: 8388608\r\n"));
+                assertEquals(2, text.split("HTTP/1.1 200 OK\r\n", -1).length - 1);
+                assertTrue(received.length > 2 * body.length);
+            }
+        }
+    }
+
+    @Test
+    void TestFileBodySentFromDisk(@TempDir Path directory) throws Exception {
+        Path file = directory.resolve("large.bin");
+        byte[] content = new byte[4 * 1024 * 1024];
+        new Random(7).nextBytes(content);
+        Files.write(file, content);
+        RequestHandler handler = request -> {
+            Response response = new Response(StatusCode.OK);
+            response.setBody(new FileRegion(file, 1, content.length - 1));
+            return response;
+        };
+
+        try (EventLoop eventLoop = new EventLoop(0, handler)) {
+            new Thread(eventLoop).start();
+
+            try (Socket client = new Socket("localhost", eventLoop.getPort())) {
+                send(client, "GET /file HTTP/1.1\r\nConnection: close\r\n\r\n");
+                Thread.sleep(200);
+
+                client.setSoTimeout(5000);
+                byte[] received = client.getInputStream().readAllBytes();
+                int headEnd = new String(received, StandardCharsets.ISO_8859_1).indexOf("\r\n\r\n") + 4;
+                assertArrayEquals(Arrays.copyOfRange(content, 1, content.length), Arrays.copyOfRange(received, headEnd, received.length));
+            }
+        }
+    }
+
+    @Test
+    void TestStalledHeadersAnsweredWithRequestTimeout() throws Exception {
+        BlockingQueue<Request> requests = new LinkedBlockingQueue<>();
+        Timeouts timeouts = new Timeouts(Duration.ofSeconds(10), Duration.ofMillis(300), Duration.ofSeconds(10));
+
+        try (EventLoop eventLoop = new EventLoop(0, recordTo(requests), BufferPool.getDefault(), timeouts, 100)) {
+            new Thread(eventLoop).start();
+
+            try (Socket client = new Socket("localhost", eventLoop.getPort())) {
+                client.setSoTimeout(5000);
+                OutputStream out = client.getOutputStream();
+                long start = System.nanoTime();
+                out.write("GET /slow HTTP/1.1\r\nX-Slow: ".getBytes());
+                for (int i = 0; i < 3; i++) {
+                    out.write("x".getBytes());
+                    out.flush();
+                    Thread.sleep(50);
+                }
+
+                String response = new String(client.getInputStream().readAllBytes(), StandardCharsets.ISO_8859_1);
+                long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                assertTrue(response.startsWith("HTTP/1.1 408 Request Timeout\r\n"), response);
+                assertTrue(response.contains("Connection: close\r\n"));
+                assertTrue(elapsedMillis >= 250 && elapsedMillis < 3000, "closed after " + elapsedMillis + "ms");
+                assertTrue(requests.isEmpty());
+            }
+        }
+    }
+
+    @Test
+    void TestHeaderTimeoutAppliesAfterIdling() throws Exception {
+        BlockingQueue<Request> requests = new LinkedBlockingQueue<>();
+        Timeouts timeouts = new Timeouts(Duration.ofSeconds(5), Duration.ofMillis(300), Duration.ofSeconds(10));
+
+        try (EventLoop eventLoop = new EventLoop(0, recordTo(requests), BufferPool.getDefault(), timeouts, 100)) {
+            new Thread(eventLoop).start();
+
+            try (Socket client = new Socket("localhost", eventLoop.getPort())) {
+                client.setSoTimeout(5000);
+                OutputStream out = client.getOutputStream();
+                // idle for several ticks, so the idle deadline is already in the wheel
+                Thread.sleep(200);
+                long start = System.nanoTime();
+                out.write("GET /slow HTTP/1.1\r\nX-Slow: ".getBytes());
+                out.flush();
+
+                String response = new String(client.getInputStream().readAllBytes(), StandardCharsets.ISO_8859_1);
+                long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                assertTrue(response.startsWith("HTTP/1.1 408 Request Timeout\r\n"), response);
+                assertTrue(elapsedMillis >= 250 && elapsedMillis < 2000, "closed after " + elapsedMillis + "ms");
+                assertTrue(requests.isEmpty());
+            }
+        }
+    }
+
+    @Test
+    void TestIdleKeepAliveConnectionClosed() throws Exception {
+        BlockingQueue<Request> requests = new LinkedBlockingQueue<>();
+        Timeouts timeouts = new Timeouts(Duration.ofMillis(300), Duration.ofSeconds(10), Duration.ofSeconds(10));
+
+        try (EventLoop eventLoop = new EventLoop(0, recordTo(requests), BufferPool.getDefault(), timeouts, 100)) {
+            new Thread(eventLoop).start();
+
+            try (Socket client = new Socket("localhost", eventLoop.getPort())) {
+                client.setSoTimeout(5000);
+                send(client, "GET /first HTTP/1.1\r\n\r\n");
+                assertNotNull(requests.poll(5, TimeUnit.SECONDS));
+
+                String response = new String(client.getInputStream().readAllBytes(), StandardCharsets.ISO_8859_1);
+                assertTrue(response.startsWith("HTTP/1.1 200 OK\r\n"), response);
+                assertFalse(response.contains("408"));
+            }
+        }
+    }
+
+    @Test
+    void TestConnectionCapDefersAccept() throws Exception {
+        BlockingQueue<Request> requests = new LinkedBlockingQueue<>();
+
+        try (EventLoop eventLoop = new EventLoop(0, recordTo(requests), BufferPool.getDefault(), Timeouts.getDefault(), 1)) {
+            new Thread(eventLoop).start();
+
+            try (Socket first = new Socket("localhost", eventLoop.getPort());
+                 Socket second = new Socket("localhost", eventLoop.getPort())) {
+                send(first, "GET /first HTTP/1.1\r\n\r\n");
+                assertEquals("/first", requests.poll(5, TimeUnit.SECONDS).getRequestLine().requestTarget());
+
+                send(second, "GET /second HTTP/1.1\r\n\r\n");
+                assertNull(requests.poll(300, TimeUnit.MILLISECONDS));
+
+                first.close();
+                Request deferred = requests.poll(5, TimeUnit.SECONDS);
+                assertNotNull(deferred);
+                assertEquals("/second", deferred.getRequestLine().requestTarget());
+            }
+        }
+    }
+
+    @Test
+    void TestReleasingHandlerReusesOneRequestPerConnection() throws Exception {
+        Set<Request> seen = ConcurrentHashMap.newKeySet();
+        RequestHandler handler = new RequestHandler() {
+            @Override
+            public Response handle(Request request) {
+                seen.add(request);
+                return Response.text(StatusCode.OK, request.getRequestLine().requestTarget()
+                        + " " + request.getHeaders().getValue("x-n"));
+            }
+
+            @Override
+            public boolean releasesRequest() {
+                return true;
+            }
+        };
+
+        try (EventLoop eventLoop = new EventLoop(0, handler)) {
+            new Thread(eventLoop).start();
+
+            try (Socket client = new Socket("localhost", eventLoop.getPort())) {
+                client.setSoTimeout(5000);
+                send(client, "GET /a HTTP/1.1\r\nX-N: 1\r\n\r\n"
+                        + "POST /b HTTP/1.1\r\nContent-Length: 3\r\n\r\nabc"
+                        + "GET /a HTTP/1.1\r\nConnection: close\r\n\r\n");
+
+                String responses = new String(client.getInputStream().readAllBytes(), StandardCharsets.ISO_8859_1);
+                String[] parts = responses.split("HTTP/1.1 200 OK\r\n");
+                assertEquals(4, parts.length, responses);
+                assertTrue(parts[1].endsWith("\r\n\r\n/a 1"));
+                assertTrue(parts[2].endsWith("\r\n\r\n/b null"));
+                assertTrue(parts[3].endsWith("\r\n\r\n/a null"));
+                assertEquals(1, seen.size());
+            }
+        }
+    }
+
+    @Test
+    void TestOversizedHeadersAnsweredWith431() throws Exception {
+        BlockingQueue<Request> requests = new LinkedBlockingQueue<>();
+        RequestLimits limits = new RequestLimits(1024, 1024, 100, 512);
+
+        try (EventLoop eventLoop = new EventLoop(0, recordTo(requests), BufferPool.getDefault(), Timeouts.getDefault(),
+                limits, 100)) {
+            new Thread(eventLoop).start();
+
+            try (Socket client = new Socket("localhost", eventLoop.getPort())) {
+                client.setSoTimeout(5000);
+                send(client, "GET / HTTP/1.1\r\nX-Large: " + "a".repeat(600) + "\r\n");
+
+                String response = new String(client.getInputStream().readAllBytes(), StandardCharsets.ISO_8859_1);
+                assertTrue(response.startsWith("HTTP/1.1 431 Request Header Fields Too Large\r\n"), response);
+                assertTrue(response.contains("Connection: close\r\n"));
+            }
+
+            try (Socket client = new Socket("localhost", eventLoop.getPort())) {
+                client.setSoTimeout(5000);
+                send(client, "GET /" + "a".repeat(1100));
+
+                String response = new String(client.getInputStream().readAllBytes(), StandardCharsets.ISO_8859_1);
+                assertTrue(response.startsWith("HTTP/1.1 414 URI Too Long\r\n"), response);
+            }
+            assertTrue(requests.isEmpty());
+        }
+    }
+
+    @Test
+    void TestMalformedRequestAnsweredWith400() throws Exception {
+        BlockingQueue<Request> requests = new LinkedBlockingQueue<>();
+
+        try (EventLoop eventLoop = new EventLoop(0, recordTo(requests))) {
+            new Thread(eventLoop).start();
+
+            try (Socket client = new Socket("localhost", eventLoop.getPort())) {
+                client.setSoTimeout(5000);
+                send(client, "GET /\r\n\r\n");
+
+                String response = new String(client.getInputStream().readAllBytes(), StandardCharsets.ISO_8859_1);
+                assertTrue(response.startsWith("HTTP/1.1 400 Bad Request\r\n"), response);
+                assertTrue(response.contains("Connection: close\r\n"));
+            }
+
+            try (Socket client = new Socket("localhost", eventLoop.getPort())) {
+                client.setSoTimeout(5000);
+                send(client, "POST / HTTP/1.1\r\nContent-Length: 1\r\nTransfer-Encoding: chunked\r\n\r\n");
+
+                String response = new String(client.getInputStream().readAllBytes(), StandardCharsets.ISO_8859_1);
+                assertTrue(response.startsWith("HTTP/1.1 400 Bad Request\r\n"), response);
+            }
+            assertTrue(requests.isEmpty());
+        }
+    }
+
+    private static RequestHandler recordTo(BlockingQueue<Request> requests) {
+        return request -> {
+            requests.add(request);
+            return Response.text(StatusCode.OK, "ok");
+        };
+    }
+
+    private static void send(Socket socket, String data) throws IOException {
+        OutputStream out = socket.getOutputStream();
+        out.write(data.getBytes());
+        out.flush();
+    }
+
+    private static void awaitNoOutstandingBuffers(BufferPool pool) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (pool.getStats().outstanding() != 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, pool.getStats().outstanding());
+    }
+}
@@ -0,0 +1,126 @@
+import org.example.timer.HashedWheelTimer;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HashedWheelTimerTests {
+
+    private static final long MILLIS = 1_000_000L;
+
+    @Test
+    public void TestTimeoutFiresOnceAfterDeadline() {
+        AtomicLong clock = new AtomicLong();
+        HashedWheelTimer timer = new HashedWheelTimer(10, TimeUnit.MILLISECONDS, 8, clock::get);
+        AtomicInteger fired = new AtomicInteger();
+        HashedWheelTimer.Timeout timeout = timer.newTimeout(fired::incrementAndGet);
+        timeout.reset(50, TimeUnit.MILLISECONDS);
+
+        assertEquals(0, timer.advance(59 * MILLIS));
+        assertTrue(timeout.isArmed());
+        assertEquals(1, timer.advance(60 * MILLIS));
+        assertEquals(1, fired.get());
+        assertFalse(timeout.isArmed());
+        assertEquals(0, timer.advance(500 * MILLIS));
+        assertEquals(1, fired.get());
+    }
+
+    @Test
+    public void TestResetPushesDeadlineBackAndCancelDisarms() {
+        AtomicLong clock = new AtomicLong();
+        HashedWheelTimer timer = new HashedWheelTimer(10, TimeUnit.MILLISECONDS, 8, clock::get);
+        AtomicInteger fired = new AtomicInteger();
+        HashedWheelTimer.Timeout extended = timer.newTimeout(fired::incrementAndGet);
+        HashedWheelTimer.Timeout cancelled = timer.newTimeout(fired::incrementAndGet);
+        extended.reset(30, TimeUnit.MILLISECONDS);
+        cancelled.reset(30, TimeUnit.MILLISECONDS);
+
+        assertEquals(0, timer.advance(10 * MILLIS));
+        clock.set(10 * MILLIS);
+        extended.reset(200, TimeUnit.MILLISECONDS);
+        cancelled.cancel();
+
+        assertEquals(0, timer.advance(209 * MILLIS));
+        assertTrue(extended.isArmed());
+        assertEquals(1, timer.advance(220 * MILLIS));
+        assertEquals(1, fired.get());
+
+        clock.set(300 * MILLIS);
+        cancelled.reset(20, TimeUnit.MILLISECONDS);
+        assertEquals(0, timer.advance(329 * MILLIS));
+        assertEquals(1, timer.advance(330 * MILLIS));
+        assertEquals(2, fired.get());
+    }
+
+    @Test
+    public void TestResetBringsDeadlineForward() {
+        AtomicLong clock = new AtomicLong();
+        HashedWheelTimer timer = new HashedWheelTimer(10, TimeUnit.MILLISECONDS, 8, clock::get);
+        AtomicInteger fired = new AtomicInteger();
+        HashedWheelTimer.Timeout timeout = timer.newTimeout(fired::incrementAndGet);
+        timeout.reset(500, TimeUnit.MILLISECONDS);
+
+        // idle for several ticks, so the timeout is already in the bucket for its long deadline
+        assertEquals(0, timer.advance(200 * MILLIS));
+        clock.set(200 * MILLIS);
+        timeout.reset(30, TimeUnit.MILLISECONDS);
+
+        assertEquals(0, timer.advance(239 * MILLIS));
+        assertEquals(1, timer.advance(240 * MILLIS));
+        assertFalse(timeout.isArmed());
+        assertEquals(0, timer.advance(600 * MILLIS));
+        assertEquals(1, fired.get());
+    }
+
+    @Test
+    public void TestResetForwardThenBackFiresOnlyOnce() {
+        AtomicLong clock = new AtomicLong();
+        HashedWheelTimer timer = new HashedWheelTimer(10, TimeUnit.MILLISECONDS, 8, clock::get);
+        AtomicInteger fired = new AtomicInteger();
+        HashedWheelTimer.Timeout timeout = timer.newTimeout(fired::incrementAndGet);
+        timeout.reset(500, TimeUnit.MILLISECONDS);
+        assertEquals(0, timer.advance(100 * MILLIS));
+
+        clock.set(100 * MILLIS);
+        timeout.reset(30, TimeUnit.MILLISECONDS);
+        timeout.reset(300, TimeUnit.MILLISECONDS);
+
+        assertEquals(0, timer.advance(409 * MILLIS));
+        assertEquals(1, timer.advance(410 * MILLIS));
+        assertEquals(0, timer.advance(1000 * MILLIS));
+        assertEquals(1, fired.get());
+    }
+
+    @Test
+    public void TestTimeoutsBeyondOneLapWaitForTheirRound() {
+        AtomicLong clock = new AtomicLong();
+        HashedWheelTimer timer = new HashedWheelTimer(1, TimeUnit.MILLISECONDS, 4, clock::get);
+        AtomicInteger fired = new AtomicInteger();
+        for (int i = 1; i <= 100; i++) {
+            timer.newTimeout(fired::incrementAndGet).reset(i, TimeUnit.MILLISECONDS);
+        }
+
+        // the timeout due at i ms sits in tick i, which ends at i + 1 ms
+        assertEquals(0, timer.advance(1 * MILLIS));
+        for (int i = 2; i <= 101; i++) {
+            assertEquals(1, timer.advance(i * MILLIS), "tick " + i);
+            assertEquals(i - 1, fired.get());
+        }
+        assertEquals(0, timer.advance(200 * MILLIS));
+    }
+
+    @Test
+    public void TestStartedTimerFiresOnItsOwnThread() throws InterruptedException {
+        try (HashedWheelTimer timer = new HashedWheelTimer(5, TimeUnit.MILLISECONDS, 16)) {
+            CountDownLatch fired = new CountDownLatch(1);
+            timer.start("test-timer");
+            timer.newTimeout(fired::countDown).reset(20, TimeUnit.MILLISECONDS);
+            assertTrue(fired.await(5, TimeUnit.SECONDS));
+            assertThrows(IllegalStateException.class, () -> timer.start("again"));
+        }
+    }
+}
@@ -1,7 +1,14 @@
+import org.example.headers.HeaderNames;
 import org.example.headers.Headers;
+import org.example.request.RequestLimits;
+import org.example.request.RequestTooLargeException;
+import org.example.response.StatusCode;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -86,4 +93,218 @@ public class HeadersTests {
         String data = "H@st: localhost:9001\r\n\r\n";
         assertThrows(IOException.class, () -> headers.parse(data.getBytes()));
     }
+
+    @Test
+    public void TestMultipleHeadersInSingleParse() throws IOException {
+        Headers headers = new Headers();
+        String data = "Host: localhost:9001\r\nTest: anotherTestHeader\r\n\r\n";
+
+        int bytesParsed = headers.parse(data.getBytes());
+        assertEquals(data.length(), bytesParsed);
+        assertTrue(headers.isDone());
+        assertEquals("localhost:9001", headers.getHeaderMap().get("host"));
+        assertEquals("anotherTestHeader", headers.getHeaderMap().get("test"));
+    }
+
+    @Test
+    public void TestMissingColon() throws IOException {
+        Headers headers = new Headers();
+        String data = "Host localhost\r\n\r\n";
+        assertThrows(IOException.class, () -> headers.parse(data.getBytes()));
+    }
+
+    @Test
+    public void TestWellKnownNamesAreInterned() throws IOException {
+        Headers headers = new Headers();
+        String data = "HOST: localhost:9001\r\nContent-Length: 5\r\nuser-agent: curl\r\nX-Custom-Thing: 1\r\n\r\n";
+        headers.parse(data.getBytes());
+
+        for (String key : headers.getHeaderMap().keySet()) {
+            if (!key.equals("x-custom-thing")) {
+                assertSame(HeaderNames.lookup(key.getBytes(), 0, key.length()), key);
+            }
+        }
+        assertEquals("5", headers.getValue(HeaderNames.CONTENT_LENGTH));
+        assertEquals("1", headers.getValue("x-custom-thing"));
+    }
+
+    @Test
+    public void TestHeaderNameLookup() {
+        byte[] name = "xxTrAnSfEr-EnCoDiNgxx".getBytes();
+        assertSame(HeaderNames.TRANSFER_ENCODING, HeaderNames.lookup(name, 2, 17));
+        assertNull(HeaderNames.lookup(name, 2, 16));
+        assertNull(HeaderNames.lookup("hosts".getBytes(), 0, 5));
+        assertNull(HeaderNames.lookup("x".repeat(100).getBytes(), 0, 100));
+    }
+
+    @Test
+    public void TestTokenChars() {
+        for (char c : "azAZ09!#$%&'*+-.^_`|~".toCharArray()) {
+            assertTrue(HeaderNames.isTokenChar((byte) c), String.valueOf(c));
+        }
+        for (char c : " \t\r\n:@()<>,;\\\"/[]?={}".toCharArray()) {
+            assertFalse(HeaderNames.isTokenChar((byte) c), String.valueOf(c));
+        }
+        assertFalse(HeaderNames.isTokenChar((byte) 0xC3));
+    }
+
+    @Test
+    public void TestNonAsciiHeaderNameRejected() {
+        Headers headers = new Headers();
+        byte[] data = "H\u00e9st: localhost\r\n\r\n".getBytes(StandardCharsets.UTF_8);
+        assertThrows(IOException.class, () -> headers.parse(data));
+    }
+
+    @Test
+    public void TestValuesSurviveBufferReuse() throws IOException {
+        Headers headers = new Headers();
+        byte[] buffer = "Host: localhost:9001\r\nAccept: */*\r\n\r\n".getBytes();
+        headers.parse(buffer);
+        Arrays.fill(buffer, (byte) 'x');
+
+        assertEquals("localhost:9001", headers.getValue("host"));
+        assertEquals("*/*", headers.getValue("accept"));
+        assertSame(headers.getValue("host"), headers.getValue("host"));
+        assertEquals(2, headers.size());
+    }
+
+    @Test
+    public void TestByteLevelValueChecks() throws IOException {
+        Headers headers = new Headers();
+        String data = "Connection: keep-alive,  Close \r\nTransfer-Encoding: Chunked\r\nConnection: upgrade\r\n\r\n";
+        headers.parse(data.getBytes());
+
+        assertTrue(headers.containsToken("connection", "close"));
+        assertTrue(headers.containsToken("connection", "upgrade"));
+        assertFalse(headers.containsToken("connection", "keep"));
+        assertFalse(headers.containsToken("upgrade", "close"));
+        assertTrue(headers.valueEqualsIgnoreCase("transfer-encoding", "chunked"));
+        assertFalse(headers.valueEqualsIgnoreCase("transfer-encoding", "chunke"));
+        assertTrue(headers.contains("transfer-encoding"));
+        assertEquals("keep-alive,  Close, upgrade", headers.getValue("connection"));
+    }
+
+    @Test
+    public void TestAddAllMergesRawValues() throws IOException {
+        Headers headers = new Headers();
+        Headers trailers = new Headers();
+        headers.parse("Host: localhost\r\nX-Checksum: a\r\n\r\n".getBytes());
+        trailers.parse("X-Checksum: b\r\nExpires: never\r\n\r\n".getBytes());
+
+        headers.addAll(trailers);
+
+        assertEquals("a, b", headers.getValue("x-checksum"));
+        assertEquals("never", headers.getHeaderMap().get("expires"));
+        assertEquals(3, headers.getHeaderMap().size());
+    }
+
+    @Test
+    public void TestHeaderLimits() {
+        RequestLimits limits = new RequestLimits(8192, 256, 4, 32);
+
+        String tooMany = "A: 1\r\nB: 2\r\nC: 3\r\nD: 4\r\nE: 5\r\n\r\n";
+        RequestTooLargeException e = assertThrows(RequestTooLargeException.class,
+                () -> new Headers(limits).parse(tooMany.getBytes()));
+        assertEquals(StatusCode.REQUEST_HEADER_FIELDS_TOO_LARGE, e.getStatusCode());
+
+        String longValue = "A: " + "x".repeat(33) + "\r\n\r\n";
+        assertThrows(RequestTooLargeException.class, () -> new Headers(limits).parse(longValue.getBytes()));
+
+        String longCombined = "A: " + "x".repeat(16) + "\r\nA: " + "y".repeat(16) + "\r\n\r\n";
+        assertThrows(RequestTooLargeException.class, () -> new Headers(limits).parse(longCombined.getBytes()));
+
+        byte[] unterminated = ("A: " + "x".repeat(300)).getBytes();
+        Headers headers = new Headers(limits);
+        assertEquals(0, (int) assertDoesNotThrow(() -> headers.parse(unterminated, 0, 255)));
+        assertThrows(RequestTooLargeException.class, () -> headers.parse(unterminated, 0, 256));
+    }
+
+    @Test
+    public void TestTrailersDropForbiddenFieldsAndShareTheLimits() throws IOException {
+        Headers headers = new Headers();
+        Headers trailers = new Headers();
+        headers.parse("Host: localhost\r\nContent-Length: 3\r\nX-Checksum: a\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+        trailers.parse(("Host: evil\r\nContent-Length: 999\r\nTransfer-Encoding: chunked\r\n"
+                + "Authorization: Basic eA==\r\nX-Checksum: b\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+
+        headers.addTrailers(trailers);
+
+        assertEquals("localhost", headers.getValue(HeaderNames.HOST));
+        assertEquals("3", headers.getValue(HeaderNames.CONTENT_LENGTH));
+        assertNull(headers.getValue(HeaderNames.TRANSFER_ENCODING));
+        assertNull(headers.getValue(HeaderNames.AUTHORIZATION));
+        assertEquals("a, b", headers.getValue("x-checksum"));
+
+        RequestLimits limits = new RequestLimits(8192, 256, 4, 32);
+        Headers full = new Headers(limits);
+        Headers more = new Headers(limits);
+        full.parse("A: 1\r\nB: 2\r\nC: 3\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+        more.parse("D: 4\r\nE: 5\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+        RequestTooLargeException e = assertThrows(RequestTooLargeException.class, () -> full.addTrailers(more));
+        assertEquals(StatusCode.REQUEST_HEADER_FIELDS_TOO_LARGE, e.getStatusCode());
+
+        Headers value = new Headers(limits);
+        Headers longer = new Headers(limits);
+        value.parse(("A: " + "x".repeat(20) + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        longer.parse(("A: " + "y".repeat(20) + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        assertThrows(RequestTooLargeException.class, () -> value.addTrailers(longer));
+    }
+
+    @Test
+    public void TestInterleavedRepeatedHeadersAreCompacted() throws IOException {
+        RequestLimits limits = new RequestLimits(8192, 1 << 20, 10_000, 1 << 20);
+        Headers headers = new Headers(limits);
+        StringBuilder data = new StringBuilder();
+        StringBuilder expectedA = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            data.append("A: ").append(i).append("\r\nB: ").append(i).append("\r\n");
+            expectedA.append(i == 0 ? "" : ", ").append(i);
+        }
+        data.append("\r\n");
+
+        headers.parse(data.toString().getBytes());
+        assertTrue(headers.isDone());
+        assertEquals(expectedA.toString(), headers.getValue("a"));
+        assertEquals(expectedA.toString(), headers.getValue("b"));
+    }
+
+    @Test
+    public void TestIterationInInsertionOrder() throws IOException {
+        Headers headers = new Headers();
+        headers.parse("Host: a\r\nX-First: 1\r\nAccept: */*\r\nX-First: 2\r\n\r\n".getBytes());
+
+        assertEquals(3, headers.size());
+        assertEquals("host", headers.getName(0));
+        assertEquals("x-first", headers.getName(1));
+        assertEquals("1, 2", headers.getValue(1));
+        assertEquals("accept", headers.getName(2));
+        assertEquals("*/*", headers.getValue(2));
+        assertEquals(Arrays.asList("host", "x-first", "accept"), List.copyOf(headers.getHeaderMap().keySet()));
+        assertThrows(IndexOutOfBoundsException.class, () -> headers.getName(3));
+        assertThrows(IndexOutOfBoundsException.class, () -> headers.getValue(-1));
+    }
+
+    @Test
+    public void TestLookupIgnoresCaseBeyondLinearScan() throws IOException {
+        Headers headers = new Headers();
+        StringBuilder data = new StringBuilder();
+        for (int i = 0; i < 40; i++) {
+            data.append("X-Header-").append(i).append(": ").append(i).append("\r\n");
+        }
+        data.append("X-Header-7: again\r\n\r\n");
+        headers.parse(data.toString().getBytes());
+
+        assertEquals(40, headers.size());
+        for (int i = 0; i < 40; i++) {
+            assertEquals(i == 7 ? "7, again" : String.valueOf(i), headers.getValue("x-header-" + i));
+            assertEquals(headers.getValue("x-header-" + i), headers.getValue("X-HEADER-" + i));
+            assertTrue(headers.contains("x-header-" + i));
+        }
+        assertNull(headers.getValue("x-header-40"));
+        assertFalse(headers.contains("x-header"));
+
+        Headers small = new Headers();
+        small.parse("Content-Type: text/plain\r\n\r\n".getBytes());
+        assertEquals("text/plain", small.getValue("Content-Type"));
+    }
 }
@@ -0,0 +1,47 @@
+import org.example.request.Request;
+import org.example.response.Response;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Helpers shared by the handler tests for building requests and reading responses.
+ */
+final class HttpFixtures {
+
+    private HttpFixtures() {
+    }
+
+    /**
+     * Parses a complete request, which must not need any more bytes.
+     *
+     * @param raw the request line, headers and body, in US-ASCII
+     * @return the parsed request, in the DONE state
+     */
+    static Request request(String raw) throws IOException {
+        Request request = new Request();
+        request.parse(raw.getBytes(StandardCharsets.US_ASCII));
+        assertEquals(Request.Status.DONE, request.getStatus());
+        return request;
+    }
+
+    /**
+     * Returns the bytes of a response body without consuming the response's buffer.
+     */
+    static byte[] bytes(Response response) {
+        ByteBuffer body = response.getBody().duplicate();
+        byte[] bytes = new byte[body.remaining()];
+        body.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Decodes a response body as UTF-8.
+     */
+    static String body(Response response) {
+        return new String(bytes(response), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,114 @@
+import org.example.loadgen.LatencyHistogram;
+import org.example.loadgen.LoadConfig;
+import org.example.loadgen.LoadGenerator;
+import org.example.loadgen.LoadReport;
+import org.example.response.Response;
+import org.example.response.StatusCode;
+import org.example.server.EventLoop;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LoadGeneratorTests {
+
+    @Test
+    public void TestHistogramPercentilesWithinPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 100_000; i++) {
+            histogram.record(i * 1_000);
+        }
+
+        assertEquals(100_000, histogram.getCount());
+        assertEquals(100_000_000, histogram.getMax());
+        assertEquals(50_000_000, histogram.getValueAtPercentile(50), 50_000_000 * 0.008);
+        assertEquals(99_000_000, histogram.getValueAtPercentile(99), 99_000_000 * 0.008);
+        assertEquals(99_900_000, histogram.getValueAtPercentile(99.9), 99_900_000 * 0.008);
+        assertEquals(100_000_000, histogram.getValueAtPercentile(100));
+        assertEquals(50_000_500, histogram.getMean(), 1);
+        assertEquals(0, new LatencyHistogram().getValueAtPercentile(99));
+    }
+
+    @Test
+    public void TestCoordinatedOmissionCorrection() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 99; i++) {
+            histogram.recordCorrected(1_000_000, 10_000_000);
+        }
+        histogram.recordCorrected(1_000_000_000, 10_000_000);
+
+        // the one-second stall also delayed the 99 requests due behind it
+        assertEquals(199, histogram.getCount());
+        assertTrue(histogram.getValueAtPercentile(50) > 10_000_000);
+    }
+
+    @Test
+    public void TestParseOptions() throws IOException {
+        LoadConfig config = LoadConfig.parse(new String[]{
+                "--port", "8080", "--mode", "open", "--rate", "5000", "--connections", "4",
+                "--warmup", "500ms", "--duration", "2s", "--fragment", "3", "--fragment-delay", "50us"});
+
+        assertEquals(8080, config.port());
+        assertEquals(LoadConfig.Mode.OPEN, config.mode());
+        assertEquals(5000.0, config.rate());
+        assertEquals(Duration.ofMillis(500), config.warmup());
+        assertEquals(Duration.ofSeconds(2), config.duration());
+        assertEquals(3, config.fragmentSize());
+        assertEquals(50_000, config.fragmentDelayNanos());
+        assertEquals("GET / HTTP/1.1\r\nHost: localhost:8080\r\n\r\n", new String(config.templates().get(0), StandardCharsets.US_ASCII));
+
+        assertThrows(IllegalArgumentException.class, () -> LoadConfig.parse(new String[]{"--mode", "open"}));
+        assertThrows(IllegalArgumentException.class, () -> LoadConfig.parse(new String[]{"--duration", "10"}));
+        assertThrows(IllegalArgumentException.class, () -> LoadConfig.parse(new String[]{"--bogus", "1"}));
+    }
+
+    @Test
+    public void TestClosedLoopAgainstEventLoop() throws Exception {
+        List<byte[]> templates = List.of(
+                "GET /a HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes(StandardCharsets.US_ASCII),
+                "HEAD /b HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes(StandardCharsets.US_ASCII),
+                "POST /c HTTP/1.1\r\nHost: localhost\r\nContent-Length: 5\r\n\r\nhello".getBytes(StandardCharsets.US_ASCII));
+
+        LoadReport report = runAgainstServer(port -> new LoadConfig("localhost", port, LoadConfig.Mode.CLOSED, 4, 0,
+                Duration.ofMillis(100), Duration.ofMillis(400), templates, 0, 0));
+
+        assertTrue(report.completed() > 100);
+        assertEquals(0, report.errors());
+        assertEquals(0, report.non2xx());
+        assertEquals(report.completed(), report.latency().getCount());
+    }
+
+    @Test
+    public void TestOpenLoopWithFragmentedSends() throws Exception {
+        List<byte[]> templates = List.of(
+                "GET /fragmented HTTP/1.1\r\nHost: localhost\r\nAccept: */*\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+
+        LoadReport report = runAgainstServer(port -> new LoadConfig("localhost", port, LoadConfig.Mode.OPEN, 8, 500,
+                Duration.ofMillis(100), Duration.ofMillis(400), templates, 5, 20_000));
+
+        assertEquals(200, report.completed() + report.unsent(), 5);
+        assertEquals(0, report.errors());
+        assertTrue(report.format().contains("mode=open connections=8 rate=500/s"));
+    }
+
+    private interface ConfigForPort {
+        LoadConfig create(int port);
+    }
+
+    private static LoadReport runAgainstServer(ConfigForPort configForPort) throws Exception {
+        try (EventLoop eventLoop = new EventLoop(0, request -> Response.text(StatusCode.OK, "ok"))) {
+            Thread serverThread = new Thread(eventLoop);
+            serverThread.start();
+            try {
+                return new LoadGenerator(configForPort.create(eventLoop.getPort())).run();
+            } finally {
+                eventLoop.close();
+                serverThread.join();
+            }
+        }
+    }
+}
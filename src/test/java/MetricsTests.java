@@ -0,0 +1,169 @@
+import org.example.metrics.Counter;
+import org.example.metrics.Gauge;
+import org.example.metrics.Histogram;
+import org.example.metrics.MetricsHandler;
+import org.example.metrics.MetricsRegistry;
+import org.example.metrics.ServerMetrics;
+import org.example.request.Request;
+import org.example.response.Response;
+import org.example.response.StatusCode;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MetricsTests {
+
+    @Test
+    public void TestHistogramPowerOfTwoBuckets() {
+        Histogram histogram = new MetricsRegistry().histogram("sizes_bytes", "Sizes.", 0, 10, 1);
+        histogram.record(0);
+        histogram.record(1);
+        histogram.record(3);
+        histogram.record(4);
+        histogram.record(1000);
+        histogram.record(-5);
+
+        Histogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(6, snapshot.count());
+        assertEquals(1008, snapshot.sum());
+        assertEquals(3, snapshot.countAtMost(0));
+        assertEquals(3, snapshot.countAtMost(1));
+        assertEquals(5, snapshot.countAtMost(2));
+        assertEquals(5, snapshot.countAtMost(3));
+        assertEquals(5, snapshot.countAtMost(9));
+        assertEquals(6, snapshot.countAtMost(10));
+    }
+
+    @Test
+    public void TestPowerOfTwoCountedInTheBucketItBounds() {
+        MetricsRegistry registry = new MetricsRegistry();
+        Histogram histogram = registry.histogram("sizes_bytes", "Sizes.", 1, 3, 1);
+        for (long value : new long[]{2, 3, 4, 5, 8, 9, 1L << 62, Long.MAX_VALUE}) {
+            histogram.record(value);
+        }
+
+        Histogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(1, snapshot.countAtMost(1));
+        assertEquals(3, snapshot.countAtMost(2));
+        assertEquals(5, snapshot.countAtMost(3));
+        assertEquals(7, snapshot.countAtMost(62));
+        assertEquals(8, snapshot.countAtMost(63));
+
+        String text = registry.scrape();
+        assertTrue(text.contains("sizes_bytes_bucket{le=\"2\"} 1\n"), text);
+        assertTrue(text.contains("sizes_bytes_bucket{le=\"4\"} 3\n"), text);
+        assertTrue(text.contains("sizes_bytes_bucket{le=\"8\"} 5\n"), text);
+        assertTrue(text.contains("sizes_bytes_bucket{le=\"+Inf\"} 8\n"), text);
+    }
+
+    @Test
+    public void TestConcurrentRecordingMergedOnSnapshot() throws InterruptedException {
+        MetricsRegistry registry = new MetricsRegistry();
+        Histogram histogram = registry.histogram("latency_seconds", "Latency.", 0, 20, 1e9);
+        Counter counter = registry.counter("events_total", "Events.");
+        Thread[] threads = new Thread[8];
+
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    histogram.record(i);
+                    counter.increment();
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(80_000, histogram.snapshot().count());
+        assertEquals(8L * (9_999L * 10_000 / 2), histogram.snapshot().sum());
+        assertEquals(80_000, counter.get());
+    }
+
+    @Test
+    public void TestPrometheusTextFormat() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("requests_total", "Requests handled.").add(3);
+        Gauge open = registry.gauge("connections_open", "Open connections.");
+        open.increment();
+        open.increment();
+        open.decrement();
+        registry.gauge("pool_bytes", "Pooled bytes.", () -> 4096);
+        Histogram latency = registry.histogram("latency_seconds", "Latency.", 29, 31, 1e9);
+        latency.record(600_000_000L);
+        latency.record(3_000_000_000L);
+
+        assertEquals("""
+                # HELP requests_total Requests handled.
+                # TYPE requests_total counter
+                requests_total 3
+                # HELP connections_open Open connections.
+                # TYPE connections_open gauge
+                connections_open 1
+                # HELP pool_bytes Pooled bytes.
+                # TYPE pool_bytes gauge
+                pool_bytes 4096
+                # HELP latency_seconds Latency.
+                # TYPE latency_seconds histogram
+                latency_seconds_bucket{le="0.536870912"} 0
+                latency_seconds_bucket{le="1.073741824"} 1
+                latency_seconds_bucket{le="2.147483648"} 1
+                latency_seconds_bucket{le="+Inf"} 2
+                latency_seconds_sum 3.6
+                latency_seconds_count 2
+                """, registry.scrape());
+    }
+
+    @Test
+    public void TestInvalidAndDuplicateNamesRejected() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("requests_total", "Requests.");
+
+        assertThrows(IllegalArgumentException.class, () -> registry.counter("requests_total", "Again."));
+        assertThrows(IllegalArgumentException.class, () -> registry.gauge("1st", "Bad name."));
+        assertThrows(IllegalArgumentException.class, () -> registry.gauge("with space", "Bad name."));
+        assertThrows(IllegalArgumentException.class, () -> registry.histogram("range_bytes", "Bad range.", 10, 5, 1));
+    }
+
+    @Test
+    public void TestRequestParsePhasesRecorded() throws IOException {
+        ServerMetrics metrics = ServerMetrics.getDefault();
+        long requests = metrics.getRequests();
+        long requestLines = metrics.getRequestLineTime().snapshot().count();
+        long headers = metrics.getHeadersTime().snapshot().count();
+        long bodies = metrics.getBodyTime().snapshot().count();
+
+        Request noBody = new Request();
+        noBody.parse("GET / HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes());
+        Request withBody = new Request();
+        byte[] raw = "POST /upload HTTP/1.1\r\nContent-Length: 5\r\n\r\nhello".getBytes();
+        int parsed = withBody.parse(raw);
+        withBody.parse(raw, parsed, raw.length - parsed);
+
+        assertEquals(Request.Status.DONE, withBody.getStatus());
+        assertTrue(metrics.getRequests() >= requests + 2);
+        assertTrue(metrics.getRequestLineTime().snapshot().count() >= requestLines + 2);
+        assertTrue(metrics.getHeadersTime().snapshot().count() >= headers + 2);
+        assertTrue(metrics.getBodyTime().snapshot().count() >= bodies + 1);
+    }
+
+    @Test
+    public void TestMetricsHandlerServesRegistry() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("hits_total", "Hits.").increment();
+
+        Response response = new MetricsHandler(registry).handle(new Request());
+        ByteBuffer body = response.getBody();
+        byte[] bytes = new byte[body.remaining()];
+        body.get(bytes);
+
+        assertEquals(StatusCode.OK, response.getStatus());
+        assertEquals("text/plain; version=0.0.4; charset=utf-8", response.getHeader("Content-Type"));
+        assertTrue(new String(bytes, StandardCharsets.UTF_8).endsWith("hits_total 1\n"));
+    }
+}
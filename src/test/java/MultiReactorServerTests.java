@@ -0,0 +1,123 @@
+import org.example.buffer.BufferPool;
+import org.example.response.Response;
+import org.example.response.StatusCode;
+import org.example.server.MultiReactorServer;
+import org.example.server.RequestHandler;
+import org.example.server.Timeouts;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MultiReactorServerTests {
+
+    private static final RequestHandler THREAD_NAME = request -> Response.text(StatusCode.OK, Thread.currentThread().getName());
+
+    @Test
+    void TestAcceptorDealsConnectionsToEveryLoop() throws Exception {
+        try (MultiReactorServer server = new MultiReactorServer(0, 3, THREAD_NAME, BufferPool.getDefault(),
+                Timeouts.getDefault(), 100, false)) {
+            assertFalse(server.isReusePort());
+            new Thread(server).start();
+
+            Set<String> loops = new HashSet<>();
+            for (int i = 0; i < 6; i++) {
+                try (Socket client = new Socket("localhost", server.getPort())) {
+                    loops.add(exchange(client, "GET / HTTP/1.1\r\n\r\n"));
+                }
+            }
+            assertEquals(3, loops.size());
+        }
+    }
+
+    @Test
+    void TestConnectionStaysOnOneLoop() throws Exception {
+        boolean[] modes = MultiReactorServer.isReusePortSupported() ? new boolean[]{false, true} : new boolean[]{false};
+
+        for (boolean reusePort : modes) {
+            try (MultiReactorServer server = new MultiReactorServer(0, 4, THREAD_NAME, BufferPool.getDefault(),
+                    Timeouts.getDefault(), 100, reusePort)) {
+                assertEquals(reusePort, server.isReusePort());
+                assertEquals(4, server.getLoopCount());
+                new Thread(server).start();
+
+                try (Socket client = new Socket("localhost", server.getPort())) {
+                    String loop = exchange(client, "GET /one HTTP/1.1\r\n\r\n");
+                    assertTrue(loop.startsWith("event-loop-"), loop);
+                    assertEquals(loop, exchange(client, "GET /two HTTP/1.1\r\n\r\n"));
+                    assertEquals(loop, exchange(client, "GET /three HTTP/1.1\r\n\r\n"));
+                }
+            }
+        }
+    }
+
+    @Test
+    void TestConnectionSharesAddUpToTheCap() {
+        for (int loops = 1; loops <= 16; loops++) {
+            for (int maxConnections = loops; maxConnections <= 40; maxConnections++) {
+                int[] shares = MultiReactorServer.connectionShares(maxConnections, loops);
+                assertEquals(loops, shares.length);
+                assertEquals(maxConnections, Arrays.stream(shares).sum(), maxConnections + " over " + loops);
+                assertTrue(shares[0] - shares[loops - 1] <= 1);
+                assertTrue(shares[loops - 1] >= 1);
+            }
+        }
+        assertEquals("[4, 3, 3]", Arrays.toString(MultiReactorServer.connectionShares(10, 3)));
+        assertThrows(IllegalArgumentException.class, () -> MultiReactorServer.connectionShares(3, 4));
+        assertThrows(IllegalArgumentException.class, () -> new MultiReactorServer(0, 4, THREAD_NAME,
+                BufferPool.getDefault(), Timeouts.getDefault(), 3, true));
+    }
+
+    @Test
+    void TestInvalidLoopCount() {
+        assertThrows(IllegalArgumentException.class, () -> new MultiReactorServer(0, 0, THREAD_NAME));
+    }
+
+    @Test
+    void TestFailedConstructionReleasesEveryLoop() throws Exception {
+        assertTrue(ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.UnixOperatingSystemMXBean);
+        com.sun.management.UnixOperatingSystemMXBean os =
+                (com.sun.management.UnixOperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+
+        try (ServerSocket taken = new ServerSocket(0)) {
+            long before = os.getOpenFileDescriptorCount();
+            for (int i = 0; i < 10; i++) {
+                assertThrows(IOException.class, () -> new MultiReactorServer(taken.getLocalPort(), 4, THREAD_NAME,
+                        BufferPool.getDefault(), Timeouts.getDefault(), 100, false));
+            }
+            long leaked = os.getOpenFileDescriptorCount() - before;
+            assertTrue(leaked < 8, "leaked " + leaked + " file descriptors");
+        }
+    }
+
+    /**
+     * Sends one request and reads its response, which must carry a Content-Length body.
+     */
+    private static String exchange(Socket socket, String request) throws IOException {
+        socket.setSoTimeout(5000);
+        OutputStream out = socket.getOutputStream();
+        out.write(request.getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+
+        InputStream in = socket.getInputStream();
+        StringBuilder head = new StringBuilder();
+        while (!head.toString().endsWith("\r\n\r\n")) {
+            int b = in.read();
+            assertNotEquals(-1, b);
+            head.append((char) b);
+        }
+        int lengthStart = head.indexOf("Content-Length: ") + "Content-Length: ".length();
+        int length = Integer.parseInt(head.substring(lengthStart, head.indexOf("\r\n", lengthStart)));
+        return new String(in.readNBytes(length), StandardCharsets.US_ASCII);
+    }
+}
@@ -1,14 +1,28 @@
+import org.example.buffer.BufferPool;
 import org.example.chunkReader.ChunkReader;
+import org.example.request.Method;
 import org.example.request.Request;
+import org.example.request.RequestLimits;
+import org.example.request.RequestLine;
 import org.example.request.RequestParser;
+import org.example.request.RequestReader;
+import org.example.request.RequestTooLargeException;
+import org.example.response.StatusCode;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 public class RequestTests {
 
+    private static final RequestLimits LARGE_LIMITS = new RequestLimits(8192, 1 << 20, 100, 1 << 20);
+
     @Test
     void TestGoodRequestLine() {
         String raw =
@@ -225,4 +239,476 @@ public class RequestTests {
         assertThrows(IOException.class, () -> RequestParser.requestFromReader(reader));
     }
 
+    @Test
+    public void TestPipelinedRequests() throws IOException {
+        String raw =
+                "GET /first HTTP/1.1\r\n" +
+                        "Host: localhost:9001\r\n\r\n" +
+                        "POST /second HTTP/1.1\r\n" +
+                        "Host: localhost:9001\r\n" +
+                        "Connection: close\r\n\r\n";
+
+        RequestReader reader = new RequestReader(new ChunkReader(raw, 200));
+
+        Request first = reader.next();
+        assertNotNull(first);
+        assertEquals("/first", first.getRequestLine().requestTarget());
+        assertTrue(first.isKeepAlive());
+
+        Request second = reader.next();
+        assertNotNull(second);
+        assertEquals("POST", second.getRequestLine().method());
+        assertEquals("/second", second.getRequestLine().requestTarget());
+        assertFalse(second.isKeepAlive());
+
+        assertNull(reader.next());
+    }
+
+    @Test
+    public void TestPipelinedRequestsWithSmallChunks() throws IOException {
+        String raw = "GET /a HTTP/1.1\r\nHost: a\r\n\r\nGET /b HTTP/1.1\r\nHost: b\r\n\r\n";
+
+        RequestReader reader = new RequestReader(new ChunkReader(raw, 7));
+        assertEquals("a", reader.next().getHeaders().getValue("host"));
+        assertEquals("b", reader.next().getHeaders().getValue("host"));
+        assertNull(reader.next());
+    }
+
+    @Test
+    public void TestConnectionCloseOption() {
+        String raw = "GET / HTTP/1.1\r\nConnection: Upgrade, Close\r\n\r\n";
+
+        ChunkReader reader = new ChunkReader(raw, 3);
+        Request request = assertDoesNotThrow(() -> RequestParser.requestFromReader(reader));
+        assertFalse(request.isKeepAlive());
+    }
+
+    @Test
+    public void TestStreamEndsPartWayThroughSecondRequest() throws IOException {
+        String raw = "GET / HTTP/1.1\r\n\r\nGET / HTTP/1.1\r\nHost: a";
+
+        RequestReader reader = new RequestReader(new ChunkReader(raw, 3));
+        assertNotNull(reader.next());
+        assertThrows(IOException.class, reader::next);
+    }
+
+    @Test
+    public void TestParseInPlaceWithOffset() throws IOException {
+        byte[] data = "xxGET /offset HTTP/1.1\r\nHost: localhost\r\n\r\nyy".getBytes();
+
+        Request request = new Request();
+        int bytesParsed = request.parse(data, 2, data.length - 4);
+        assertEquals(data.length - 4, bytesParsed);
+        assertEquals(Request.Status.DONE, request.getStatus());
+        assertEquals("/offset", request.getRequestLine().requestTarget());
+        assertEquals("localhost", request.getHeaders().getValue("host"));
+    }
+
+    @Test
+    public void TestParseByteBufferAdvancesPosition() throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap("GET / HTTP/1.1\r\nHost: a\r\nAcc".getBytes());
+
+        Request request = new Request();
+        request.parse(buffer);
+        assertEquals(Request.Status.PARSING_HEADERS, request.getStatus());
+        assertEquals("Acc".length(), buffer.remaining());
+        assertEquals("a", request.getHeaders().getValue("host"));
+    }
+
+    @Test
+    public void TestLinearParsingWithSingleByteReads() throws IOException {
+        String small = requestWithHeaderValueOf(8 * 1024);
+        String large = requestWithHeaderValueOf(64 * 1024);
+
+        for (int i = 0; i < 3; i++) {
+            timeSingleByteParse(small);
+            timeSingleByteParse(large);
+        }
+
+        long smallNanos = Long.MAX_VALUE;
+        long largeNanos = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            smallNanos = Math.min(smallNanos, timeSingleByteParse(small));
+            largeNanos = Math.min(largeNanos, timeSingleByteParse(large));
+        }
+
+        // 8x the input should cost roughly 8x the time; quadratic parsing would cost 64x
+        assertTrue(largeNanos < smallNanos * 24, "8x input took " + ((double) largeNanos / smallNanos) + "x longer");
+    }
+
+    @Test
+    public void TestReaderBorrowsAndReturnsPooledBuffer() throws IOException {
+        BufferPool pool = new BufferPool(false, 1024, 64 * 1024, 8, 0);
+        String raw = "GET / HTTP/1.1\r\nX-Large: " + "a".repeat(10_000) + "\r\n\r\n";
+
+        RequestReader reader = new RequestReader(new ChunkReader(raw, 512), pool, LARGE_LIMITS);
+        assertEquals(10_000, reader.next().getHeaders().getValue("x-large").length());
+        assertEquals(1, pool.getStats().outstanding());
+
+        reader.release();
+        assertEquals(0, pool.getStats().outstanding());
+
+        RequestReader second = new RequestReader(new ChunkReader(raw, 512), pool, LARGE_LIMITS);
+        assertNotNull(second.next());
+        second.release();
+        assertTrue(pool.getStats().hits() > 0);
+    }
+
+    @Test
+    public void TestContentLengthBodyWithOddChunkSizes() throws IOException {
+        String body = "The quick brown fox jumps over the lazy dog. ".repeat(200);
+        String raw = "POST /upload HTTP/1.1\r\nHost: localhost:9001\r\nContent-Length: " + body.length() + "\r\n\r\n" + body;
+
+        for (int chunkSize : new int[]{1, 3, 7, 13, 997, 4099}) {
+            ByteArrayOutputStream received = new ByteArrayOutputStream();
+            Request request = RequestParser.requestFromReader(new ChunkReader(raw, chunkSize), received::write);
+
+            assertEquals(Request.Status.DONE, request.getStatus());
+            assertEquals(body.length(), request.getContentLength());
+            assertEquals(body, received.toString(), "chunk size " + chunkSize);
+        }
+    }
+
+    @Test
+    public void TestBodyAsInputStreamWithPipelinedRequests() throws IOException {
+        String raw =
+                "POST /first HTTP/1.1\r\nContent-Length: 11\r\n\r\nhello world" +
+                        "POST /second HTTP/1.1\r\nContent-Length: 5\r\n\r\nskip!" +
+                        "GET /third HTTP/1.1\r\n\r\n";
+
+        RequestReader reader = new RequestReader(new ChunkReader(raw, 5));
+
+        Request first = reader.next();
+        assertEquals(Request.Status.PARSING_BODY, first.getStatus());
+        InputStream body = reader.getBody();
+        assertEquals("hello world", new String(body.readAllBytes()));
+        assertEquals(-1, body.read());
+        assertEquals(Request.Status.DONE, first.getStatus());
+
+        Request second = reader.next();
+        assertEquals("/second", second.getRequestLine().requestTarget());
+        assertEquals(5, second.getBodyBytesRemaining());
+
+        Request third = reader.next();
+        assertEquals("/third", third.getRequestLine().requestTarget());
+        assertEquals(Request.Status.DONE, third.getStatus());
+        assertEquals(-1, third.getContentLength());
+        assertNull(reader.next());
+    }
+
+    @Test
+    public void TestParseStopsAtEndOfHeadersWhenBodyFollows() throws IOException {
+        byte[] data = "POST / HTTP/1.1\r\nContent-Length: 3\r\n\r\nabc".getBytes();
+
+        Request request = new Request();
+        int headerBytes = request.parse(data, 0, data.length);
+        assertEquals(data.length - 3, headerBytes);
+        assertEquals(Request.Status.PARSING_BODY, request.getStatus());
+
+        ByteArrayOutputStream received = new ByteArrayOutputStream();
+        request.setBodySink(received::write);
+        assertEquals(3, request.parse(data, headerBytes, 3));
+        assertEquals(Request.Status.DONE, request.getStatus());
+        assertEquals("abc", received.toString());
+    }
+
+    @Test
+    public void TestBodyEndsEarly() {
+        String raw = "POST / HTTP/1.1\r\nContent-Length: 100\r\n\r\ntoo short";
+
+        ChunkReader reader = new ChunkReader(raw, 3);
+        assertThrows(IOException.class, () -> RequestParser.requestFromReader(reader));
+    }
+
+    @Test
+    public void TestInvalidContentLength() {
+        for (String value : new String[]{"abc", "-5", "1 2", "", "5, 6"}) {
+            String raw = "POST / HTTP/1.1\r\nContent-Length: " + value + "\r\n\r\n";
+
+            ChunkReader reader = new ChunkReader(raw, 3);
+            assertThrows(IOException.class, () -> RequestParser.requestFromReader(reader), value);
+        }
+    }
+
+    @Test
+    public void TestRepeatedIdenticalContentLength() throws IOException {
+        String raw = "POST / HTTP/1.1\r\nContent-Length: 2\r\nContent-Length: 2\r\n\r\nok";
+
+        ByteArrayOutputStream received = new ByteArrayOutputStream();
+        RequestParser.requestFromReader(new ChunkReader(raw, 3), received::write);
+        assertEquals("ok", received.toString());
+    }
+
+    @Test
+    public void TestChunkedBodyWithTrailersAndOddChunkSizes() throws IOException {
+        String raw =
+                "POST /chunked HTTP/1.1\r\n" +
+                        "Host: localhost:9001\r\n" +
+                        "Transfer-Encoding: chunked\r\n\r\n" +
+                        "5\r\nhello\r\n" +
+                        "1;name=value\r\n \r\n" +
+                        "1A \r\nabcdefghijklmnopqrstuvwxyz\r\n" +
+                        "0\r\n" +
+                        "Checksum: abc123\r\n\r\n";
+
+        for (int chunkSize : new int[]{1, 2, 5, 11, 64, 4096}) {
+            ByteArrayOutputStream received = new ByteArrayOutputStream();
+            Request request = RequestParser.requestFromReader(new ChunkReader(raw, chunkSize), received::write);
+
+            assertTrue(request.isChunked());
+            assertEquals(Request.Status.DONE, request.getStatus());
+            assertEquals("hello abcdefghijklmnopqrstuvwxyz", received.toString(), "chunk size " + chunkSize);
+            assertEquals("abc123", request.getHeaders().getValue("checksum"));
+        }
+    }
+
+    @Test
+    public void TestTrailersCannotChangeFramingOrRouting() throws IOException {
+        byte[] raw = ("POST /upload HTTP/1.1\r\nHost: localhost\r\nTransfer-Encoding: chunked\r\n\r\n"
+                + "3\r\nabc\r\n0\r\nContent-Length: 100\r\nHost: evil\r\nX-Checksum: c\r\n\r\n")
+                .getBytes(StandardCharsets.US_ASCII);
+        Request request = new Request();
+        int consumed = request.parse(raw);
+        request.parse(raw, consumed, raw.length - consumed);
+
+        assertEquals(Request.Status.DONE, request.getStatus());
+        assertTrue(request.isChunked());
+        assertNull(request.getHeaders().getValue("content-length"));
+        assertEquals("localhost", request.getHeaders().getValue("host"));
+        assertEquals("c", request.getHeaders().getValue("x-checksum"));
+
+        byte[] crowded = ("POST /upload HTTP/1.1\r\nTransfer-Encoding: chunked\r\nA: 1\r\n\r\n"
+                + "0\r\nB: 2\r\nC: 3\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+        Request limited = new Request(new RequestLimits(8192, 1024, 3, 1024));
+        int parsed = limited.parse(crowded);
+        RequestTooLargeException e = assertThrows(RequestTooLargeException.class,
+                () -> limited.parse(crowded, parsed, crowded.length - parsed));
+        assertEquals(StatusCode.REQUEST_HEADER_FIELDS_TOO_LARGE, e.getStatusCode());
+    }
+
+    @Test
+    public void TestChunkedBodyAsInputStreamWithSmallReads() throws IOException {
+        String raw =
+                "POST /chunked HTTP/1.1\r\nTransfer-Encoding: chunked\r\n\r\n" +
+                        "b\r\nhello world\r\n0\r\n\r\n" +
+                        "GET /next HTTP/1.1\r\n\r\n";
+
+        RequestReader reader = new RequestReader(new ChunkReader(raw, 7));
+        reader.next();
+        InputStream body = reader.getBody();
+
+        ByteArrayOutputStream received = new ByteArrayOutputStream();
+        byte[] small = new byte[3];
+        int bytesRead;
+        while ((bytesRead = body.read(small)) != -1) {
+            received.write(small, 0, bytesRead);
+        }
+        assertEquals("hello world", received.toString());
+
+        assertEquals("/next", reader.next().getRequestLine().requestTarget());
+        assertNull(reader.next());
+    }
+
+    @Test
+    public void TestBodyStreamOfEarlierRequestIsStale() throws IOException {
+        String raw = "POST /first HTTP/1.1\r\nContent-Length: 5\r\n\r\nfirst"
+                + "POST /second HTTP/1.1\r\nContent-Length: 6\r\n\r\nsecond";
+
+        for (boolean reuse : new boolean[]{false, true}) {
+            RequestReader reader = new RequestReader(new ChunkReader(raw, 4));
+            Request request = reader.next();
+            InputStream first = reader.getBody();
+            assertEquals('f', first.read());
+
+            Request second = reuse ? reader.next(request) : reader.next();
+            assertEquals("/second", second.getRequestLine().requestTarget());
+            assertEquals(reuse, second == request);
+            assertThrows(IOException.class, first::read, "reuse " + reuse);
+            assertEquals("second", new String(reader.getBody().readAllBytes(), StandardCharsets.US_ASCII));
+        }
+    }
+
+    @Test
+    public void TestInvalidChunkedBodies() {
+        String head = "POST / HTTP/1.1\r\nTransfer-Encoding: chunked\r\n\r\n";
+
+        for (String body : new String[]{"zz\r\n", "5\r\nhelloXX0\r\n\r\n", "5 x\r\nhello\r\n", "1000000000000000\r\n"}) {
+            ChunkReader reader = new ChunkReader(head + body, 3);
+            assertThrows(IOException.class, () -> RequestParser.requestFromReader(reader), body);
+        }
+    }
+
+    @Test
+    public void TestUnsupportedTransferEncodings() {
+        String[] raws = {
+                "POST / HTTP/1.1\r\nTransfer-Encoding: gzip\r\n\r\n",
+                "POST / HTTP/1.1\r\nTransfer-Encoding: chunked\r\nContent-Length: 5\r\n\r\n",
+        };
+
+        for (String raw : raws) {
+            ChunkReader reader = new ChunkReader(raw, 3);
+            assertThrows(IOException.class, () -> RequestParser.requestFromReader(reader));
+        }
+    }
+
+    @Test
+    public void TestRequestLineTokenizer() throws IOException {
+        byte[] line = "xxDELETE /api/users/7?x=%20 HTTP/1.1yy".getBytes();
+        RequestLine requestLine = RequestParser.parseRequestLine(line, 2, line.length - 4);
+
+        assertSame(Method.DELETE, requestLine.getMethod());
+        assertEquals("DELETE", requestLine.method());
+        assertEquals("/api/users/7?x=%20", requestLine.requestTarget());
+        assertSame(requestLine.requestTarget(), requestLine.requestTarget());
+        assertEquals("1.1", requestLine.httpVersion());
+        assertEquals(new RequestLine(Method.DELETE, "/api/users/7?x=%20"), requestLine);
+    }
+
+    @Test
+    public void TestMalformedRequestLines() {
+        String[] lines = {
+                "GET  / HTTP/1.1",
+                "GET / HTTP/1.1 ",
+                " GET / HTTP/1.1",
+                "get / HTTP/1.1",
+                "GETS / HTTP/1.1",
+                "GET / HTTP/1.10",
+                "GET / HTTP/1.",
+                "GET / http/1.1",
+                "GET /",
+                "GET",
+        };
+
+        for (String line : lines) {
+            byte[] data = line.getBytes();
+            assertThrows(IOException.class, () -> RequestParser.parseRequestLine(data, 0, data.length), line);
+        }
+    }
+
+    @Test
+    public void TestLongRequestLineRejectedBeforeItEnds() {
+        RequestLimits limits = new RequestLimits(64, 1024, 10, 256);
+        Request request = new Request(limits);
+        byte[] data = ("GET /" + "a".repeat(100)).getBytes();
+
+        assertEquals(0, (int) assertDoesNotThrow(() -> request.parse(data, 0, 63)));
+        RequestTooLargeException e = assertThrows(RequestTooLargeException.class, () -> request.parse(data, 0, 64));
+        assertEquals(StatusCode.URI_TOO_LONG, e.getStatusCode());
+
+        byte[] complete = ("GET /" + "a".repeat(60) + " HTTP/1.1\r\n\r\n").getBytes();
+        e = assertThrows(RequestTooLargeException.class, () -> new Request(limits).parse(complete));
+        assertEquals(StatusCode.URI_TOO_LONG, e.getStatusCode());
+    }
+
+    @Test
+    public void TestEndlessHeadersRejectedWithinLimit() {
+        RequestLimits limits = new RequestLimits(8192, 16 * 1024, 100, 8192);
+        int[] largestBuffer = new int[1];
+        InputStream endless = new InputStream() {
+            private final byte[] prefix = "GET / HTTP/1.1\r\nX-Endless: ".getBytes();
+            private int position;
+
+            @Override
+            public int read() {
+                return position < prefix.length ? prefix[position++] : 'a';
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                largestBuffer[0] = Math.max(largestBuffer[0], buffer.length);
+                return super.read(buffer, offset, length);
+            }
+        };
+
+        RequestReader reader = new RequestReader(endless, BufferPool.getDefault(), limits);
+        RequestTooLargeException e = assertThrows(RequestTooLargeException.class, reader::next);
+        assertEquals(StatusCode.REQUEST_HEADER_FIELDS_TOO_LARGE, e.getStatusCode());
+        assertEquals(16 * 1024, largestBuffer[0]);
+        reader.release();
+    }
+
+    @Test
+    public void TestResetRequestParsesNextRequest() throws IOException {
+        Request request = new Request();
+        byte[] chunked = ("POST /upload HTTP/1.1\r\nTransfer-Encoding: chunked\r\nX-First: 1\r\n\r\n"
+                + "3\r\nabc\r\n0\r\nX-Trailer: t\r\n\r\n").getBytes();
+        int consumed = request.parse(chunked);
+        consumed += request.parse(chunked, consumed, chunked.length - consumed);
+        assertEquals(chunked.length, consumed);
+        assertEquals(Request.Status.DONE, request.getStatus());
+        assertEquals("t", request.getHeaders().getValue("x-trailer"));
+        RequestLine upload = request.getRequestLine();
+
+        assertSame(request, request.reset());
+        assertEquals(Request.Status.INITIALISED, request.getStatus());
+        assertNull(request.getRequestLine());
+        assertEquals(0, request.getHeaders().size());
+
+        request.parse("GET /next HTTP/1.1\r\nHost: a\r\n\r\n".getBytes());
+        assertEquals(Request.Status.DONE, request.getStatus());
+        assertFalse(request.isChunked());
+        assertEquals(-1L, request.getContentLength());
+        assertEquals("/next", request.getRequestLine().requestTarget());
+        assertEquals(1, request.getHeaders().size());
+        assertNull(request.getHeaders().getValue("x-first"));
+        assertNull(request.getHeaders().getValue("x-trailer"));
+        assertEquals("/upload", upload.requestTarget());
+
+        RequestLine next = request.getRequestLine();
+        request.reset().parse("GET /next HTTP/1.1\r\n\r\n".getBytes());
+        assertSame(next, request.getRequestLine());
+        request.reset().parse("PUT /next HTTP/1.1\r\n\r\n".getBytes());
+        assertNotSame(next, request.getRequestLine());
+        assertEquals(Method.PUT, request.getRequestLine().getMethod());
+    }
+
+    @Test
+    public void TestReusedRequestAllocatesNothingInSteadyState() throws IOException {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assertTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        byte[] data = ("GET /api/v1/users/12345 HTTP/1.1\r\n" +
+                "Host: api.example.com\r\n" +
+                "User-Agent: Mozilla/5.0 (X11; Linux x86_64; rv:128.0) Gecko/20100101 Firefox/128.0\r\n" +
+                "Accept: application/json\r\n" +
+                "Accept-Encoding: gzip, deflate, br\r\n" +
+                "Connection: keep-alive\r\n\r\n").getBytes();
+        Request request = new Request();
+        int requests = 20_000;
+
+        for (int i = 0; i < requests; i++) {
+            parseReused(request, data);
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < requests; i++) {
+            parseReused(request, data);
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        assertEquals(0L, allocated / requests, allocated + " bytes allocated over " + requests + " requests");
+    }
+
+    private static void parseReused(Request request, byte[] data) throws IOException {
+        request.reset();
+        if (request.parse(data, 0, data.length) != data.length || !request.isKeepAlive()) {
+            throw new AssertionError("Request not parsed");
+        }
+    }
+
+    private static String requestWithHeaderValueOf(int size) {
+        return "GET / HTTP/1.1\r\nHost: localhost:9001\r\nX-Large: " + "a".repeat(size) + "\r\n\r\n";
+    }
+
+    private static long timeSingleByteParse(String raw) throws IOException {
+        long start = System.nanoTime();
+        RequestReader reader = new RequestReader(new ChunkReader(raw, 1), BufferPool.getDefault(), LARGE_LIMITS);
+        Request request = reader.next();
+        reader.release();
+        long elapsed = System.nanoTime() - start;
+        assertEquals(Request.Status.DONE, request.getStatus());
+        return elapsed;
+    }
 }
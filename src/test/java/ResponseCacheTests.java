@@ -0,0 +1,165 @@
+import org.example.cache.ResponseCache;
+import org.example.response.Response;
+import org.example.response.StatusCode;
+import org.example.server.RequestHandler;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResponseCacheTests {
+
+    @Test
+    public void TestHitsSkipTheHandler() throws IOException {
+        AtomicInteger calls = new AtomicInteger();
+        ResponseCache cache = new ResponseCache(counting(calls, null), 1024 * 1024, Duration.ofMinutes(1));
+
+        Response first = cache.handle(HttpFixtures.request("GET /a HTTP/1.1\r\n\r\n"));
+        Response second = cache.handle(HttpFixtures.request("GET /a HTTP/1.1\r\n\r\n"));
+        Response head = cache.handle(HttpFixtures.request("HEAD /a HTTP/1.1\r\n\r\n"));
+        cache.handle(HttpFixtures.request("GET /a?page=2 HTTP/1.1\r\n\r\n"));
+
+        assertEquals(2, calls.get());
+        assertSame(first, second);
+        assertSame(first, head);
+        assertEquals(2, cache.getHits());
+        assertEquals(2, cache.getMisses());
+        assertTrue(cache.getTotalBytes() > 0);
+    }
+
+    @Test
+    public void TestVariesOnSelectedHeaders() throws IOException {
+        AtomicInteger calls = new AtomicInteger();
+        RequestHandler handler = request -> {
+            calls.incrementAndGet();
+            String encoding = request.getHeaders().getValue("accept-encoding");
+            Response response = Response.text(StatusCode.OK, encoding == null ? "plain" : encoding);
+            response.setHeader("Vary", "Accept-Encoding");
+            return response;
+        };
+        ResponseCache cache = new ResponseCache(handler, 1024 * 1024, Duration.ofMinutes(1));
+
+        assertEquals("gzip", HttpFixtures.body(cache.handle(HttpFixtures.request("GET / HTTP/1.1\r\nAccept-Encoding: gzip\r\nUser-Agent: a\r\n\r\n"))));
+        assertEquals("plain", HttpFixtures.body(cache.handle(HttpFixtures.request("GET / HTTP/1.1\r\n\r\n"))));
+        assertEquals("gzip", HttpFixtures.body(cache.handle(HttpFixtures.request("GET / HTTP/1.1\r\nAccept-Encoding: gzip\r\nUser-Agent: b\r\n\r\n"))));
+        assertEquals("plain", HttpFixtures.body(cache.handle(HttpFixtures.request("GET / HTTP/1.1\r\n\r\n"))));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void TestIfNoneMatchAnsweredWithNotModified() throws IOException {
+        AtomicInteger calls = new AtomicInteger();
+        ResponseCache cache = new ResponseCache(counting(calls, "\"v1\""), 1024 * 1024, Duration.ofMinutes(1));
+        cache.handle(HttpFixtures.request("GET /doc HTTP/1.1\r\n\r\n"));
+
+        Response notModified = cache.handle(HttpFixtures.request("GET /doc HTTP/1.1\r\nIf-None-Match: \"v0\", W/\"v1\"\r\n\r\n"));
+        assertEquals(StatusCode.NOT_MODIFIED, notModified.getStatus());
+        assertEquals("\"v1\"", notModified.getHeader("ETag"));
+        assertEquals(0, notModified.getBodyLength());
+
+        Response changed = cache.handle(HttpFixtures.request("GET /doc HTTP/1.1\r\nIf-None-Match: \"v0\"\r\n\r\n"));
+        assertEquals(StatusCode.OK, changed.getStatus());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void TestFreshnessAndCacheControl() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        String[] cacheControl = {null};
+        RequestHandler handler = request -> {
+            calls.incrementAndGet();
+            Response response = Response.text(StatusCode.OK, "body");
+            if (cacheControl[0] != null) {
+                response.setHeader("Cache-Control", cacheControl[0]);
+            }
+            return response;
+        };
+        ResponseCache cache = new ResponseCache(handler, 1024 * 1024, Duration.ofMillis(100));
+
+        cache.handle(HttpFixtures.request("GET /short HTTP/1.1\r\n\r\n"));
+        cache.handle(HttpFixtures.request("GET /short HTTP/1.1\r\n\r\n"));
+        assertEquals(1, calls.get());
+        Thread.sleep(150);
+        cache.handle(HttpFixtures.request("GET /short HTTP/1.1\r\n\r\n"));
+        assertEquals(2, calls.get());
+
+        cacheControl[0] = "no-store";
+        cache.handle(HttpFixtures.request("GET /private HTTP/1.1\r\n\r\n"));
+        cache.handle(HttpFixtures.request("GET /private HTTP/1.1\r\n\r\n"));
+        assertEquals(4, calls.get());
+
+        cacheControl[0] = "public, max-age=60";
+        cache.handle(HttpFixtures.request("GET /long HTTP/1.1\r\n\r\n"));
+        Thread.sleep(150);
+        cache.handle(HttpFixtures.request("GET /long HTTP/1.1\r\n\r\n"));
+        assertEquals(5, calls.get());
+    }
+
+    @Test
+    public void TestUnsafeMethodsInvalidate() throws IOException {
+        AtomicInteger calls = new AtomicInteger();
+        ResponseCache cache = new ResponseCache(counting(calls, null), 1024 * 1024, Duration.ofMinutes(1));
+
+        cache.handle(HttpFixtures.request("GET /item HTTP/1.1\r\n\r\n"));
+        cache.handle(HttpFixtures.request("PUT /item HTTP/1.1\r\nContent-Length: 0\r\n\r\n"));
+        assertEquals(0, cache.getTotalBytes());
+        cache.handle(HttpFixtures.request("GET /item HTTP/1.1\r\n\r\n"));
+        assertEquals(3, calls.get());
+
+        cache.handle(HttpFixtures.request("GET /item HTTP/1.1\r\nAuthorization: Basic eA==\r\n\r\n"));
+        assertEquals(4, calls.get());
+    }
+
+    @Test
+    public void TestEvictionKeepsRecentlyHitEntries() throws IOException {
+        AtomicInteger calls = new AtomicInteger();
+        ResponseCache cache = new ResponseCache(counting(calls, null), 3 * 1024, Duration.ofMinutes(1));
+
+        cache.handle(HttpFixtures.request("GET /hot HTTP/1.1\r\n\r\n"));
+        for (int i = 0; i < 20; i++) {
+            cache.handle(HttpFixtures.request("GET /hot HTTP/1.1\r\n\r\n"));
+            cache.handle(HttpFixtures.request("GET /cold" + i + " HTTP/1.1\r\n\r\n"));
+        }
+        assertTrue(cache.getTotalBytes() <= 3 * 1024);
+
+        int before = calls.get();
+        cache.handle(HttpFixtures.request("GET /hot HTTP/1.1\r\n\r\n"));
+        assertEquals(before, calls.get());
+        cache.handle(HttpFixtures.request("GET /cold0 HTTP/1.1\r\n\r\n"));
+        assertEquals(before + 1, calls.get());
+    }
+
+    @Test
+    public void TestRemovedEntriesDoNotPileUpUnderTheSizeLimit() throws IOException {
+        AtomicInteger calls = new AtomicInteger();
+        ResponseCache expiring = new ResponseCache(counting(calls, null), 1024 * 1024, Duration.ofNanos(1));
+        for (int i = 0; i < 10_000; i++) {
+            expiring.handle(HttpFixtures.request("GET /a HTTP/1.1\r\n\r\n"));
+        }
+        assertEquals(10_000, calls.get());
+        assertTrue(expiring.getQueuedEntries() <= 2, "queued " + expiring.getQueuedEntries());
+
+        ResponseCache invalidated = new ResponseCache(counting(calls, null), 1024 * 1024, Duration.ofMinutes(1));
+        for (int i = 0; i < 10_000; i++) {
+            invalidated.handle(HttpFixtures.request("GET /b HTTP/1.1\r\n\r\n"));
+            invalidated.handle(HttpFixtures.request("GET /c HTTP/1.1\r\n\r\n"));
+            invalidated.invalidate("/b");
+        }
+        assertTrue(invalidated.getQueuedEntries() <= 4, "queued " + invalidated.getQueuedEntries());
+        assertTrue(invalidated.getTotalBytes() < 1024);
+    }
+
+    private static RequestHandler counting(AtomicInteger calls, String etag) {
+        return request -> {
+            calls.incrementAndGet();
+            Response response = Response.text(StatusCode.OK, "x".repeat(500));
+            if (etag != null) {
+                response.setHeader("ETag", etag);
+            }
+            return response;
+        };
+    }
+}
@@ -0,0 +1,96 @@
+import org.example.response.DateCache;
+import org.example.response.Response;
+import org.example.response.ResponseWriter;
+import org.example.response.StatusCode;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResponseWriterTests {
+
+    private static final DateCache FIXED_DATE = new DateCache(Clock.fixed(Instant.ofEpochSecond(1_792_229_400L), ZoneOffset.UTC));
+
+    @Test
+    public void TestEncodeResponse() {
+        ResponseWriter writer = new ResponseWriter(FIXED_DATE);
+        Response response = Response.text(StatusCode.OK, "hello");
+        response.setHeader("Cache-Control", "no-cache");
+
+        assertEquals("HTTP/1.1 200 OK\r\n" +
+                "Date: Sat, 17 Oct 2026 09:30:00 GMT\r\n" +
+                "Content-Length: 5\r\n" +
+                "Content-Type: text/plain; charset=utf-8\r\n" +
+                "Cache-Control: no-cache\r\n" +
+                "\r\n" +
+                "hello", encode(writer, response, true, false));
+    }
+
+    @Test
+    public void TestConnectionCloseAndHead() {
+        ResponseWriter writer = new ResponseWriter(FIXED_DATE);
+        Response response = Response.text(StatusCode.NOT_FOUND, "missing");
+
+        String encoded = encode(writer, response, false, true);
+        assertTrue(encoded.startsWith("HTTP/1.1 404 Not Found\r\n"));
+        assertTrue(encoded.contains("Content-Length: 7\r\nConnection: close\r\n"));
+        assertTrue(encoded.endsWith("\r\n\r\n"));
+    }
+
+    @Test
+    public void TestNoBodyStatuses() {
+        ResponseWriter writer = new ResponseWriter(FIXED_DATE);
+        Response response = new Response(StatusCode.NOT_MODIFIED);
+        response.setBody("ignored".getBytes());
+
+        assertEquals("HTTP/1.1 304 Not Modified\r\nDate: Sat, 17 Oct 2026 09:30:00 GMT\r\n\r\n",
+                encode(writer, response, true, false));
+    }
+
+    @Test
+    public void TestHeadBufferGrowsAndBodyIsShared() {
+        ResponseWriter writer = new ResponseWriter(FIXED_DATE);
+        Response response = new Response(StatusCode.OK);
+        response.setHeader("X-Large", "v".repeat(5000));
+        response.setBody(ByteBuffer.wrap("0123456789".getBytes(), 2, 3));
+
+        String first = encode(writer, response, true, false);
+        String second = encode(writer, response, true, false);
+        assertEquals(first, second);
+        assertTrue(first.contains("X-Large: " + "v".repeat(5000) + "\r\n"));
+        assertTrue(first.endsWith("Content-Length: 3\r\nX-Large: " + "v".repeat(5000) + "\r\n\r\n234"));
+    }
+
+    @Test
+    public void TestReservedAndUnsafeHeadersRejected() {
+        Response response = new Response(StatusCode.OK);
+
+        assertThrows(IllegalArgumentException.class, () -> response.setHeader("content-length", "5"));
+        assertThrows(IllegalArgumentException.class, () -> response.setHeader("Date", "now"));
+        assertThrows(IllegalArgumentException.class, () -> response.setHeader("X-Injected", "a\r\nSet-Cookie: b"));
+        assertEquals(0, response.getHeaderCount());
+    }
+
+    @Test
+    public void TestDateHeaderIsCachedPerSecond() {
+        DateCache dateCache = new DateCache(Clock.fixed(Instant.ofEpochSecond(0), ZoneOffset.UTC));
+
+        assertSame(dateCache.getDateHeader(), dateCache.getDateHeader());
+        assertEquals("Date: Thu, 01 Jan 1970 00:00:00 GMT\r\n", new String(dateCache.getDateHeader(), StandardCharsets.US_ASCII));
+    }
+
+    private static String encode(ResponseWriter writer, Response response, boolean keepAlive, boolean headRequest) {
+        StringBuilder builder = new StringBuilder();
+        for (ByteBuffer buffer : writer.encode(response, keepAlive, headRequest)) {
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            builder.append(new String(bytes, StandardCharsets.US_ASCII));
+        }
+        return builder.toString();
+    }
+}
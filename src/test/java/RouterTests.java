@@ -0,0 +1,117 @@
+import org.example.metrics.MetricsHandler;
+import org.example.metrics.MetricsRegistry;
+import org.example.request.Method;
+import org.example.response.Response;
+import org.example.response.StatusCode;
+import org.example.routing.PathParameters;
+import org.example.routing.RouteHandler;
+import org.example.routing.Router;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RouterTests {
+
+    @Test
+    public void TestStaticRoutesSharingPrefixes() throws IOException {
+        Router router = new Router();
+        router.add(Method.GET, "/users", echo("users"));
+        router.add(Method.GET, "/user", echo("user"));
+        router.add(Method.GET, "/uploads", echo("uploads"));
+        router.add(Method.GET, "/", echo("root"));
+
+        assertEquals("users", HttpFixtures.body(router.handle(HttpFixtures.request("GET /users HTTP/1.1\r\n\r\n"))));
+        assertEquals("user", HttpFixtures.body(router.handle(HttpFixtures.request("GET /user HTTP/1.1\r\n\r\n"))));
+        assertEquals("uploads", HttpFixtures.body(router.handle(HttpFixtures.request("GET /uploads?page=2 HTTP/1.1\r\n\r\n"))));
+        assertEquals("root", HttpFixtures.body(router.handle(HttpFixtures.request("GET / HTTP/1.1\r\n\r\n"))));
+        assertEquals(StatusCode.NOT_FOUND, router.handle(HttpFixtures.request("GET /use HTTP/1.1\r\n\r\n")).getStatus());
+        assertEquals(StatusCode.NOT_FOUND, router.handle(HttpFixtures.request("GET /users/ HTTP/1.1\r\n\r\n")).getStatus());
+    }
+
+    @Test
+    public void TestParametersCaptured() throws IOException {
+        Router router = new Router();
+        router.add(Method.GET, "/users/{id}/orders/{order}", echo("orders"));
+        router.add(Method.GET, "/users/{id}", echo("user"));
+
+        assertEquals("user id=42", HttpFixtures.body(router.handle(HttpFixtures.request("GET /users/42 HTTP/1.1\r\n\r\n"))));
+        assertEquals("orders id=42 order=7",
+                HttpFixtures.body(router.handle(HttpFixtures.request("GET /users/42/orders/7?x=1 HTTP/1.1\r\n\r\n"))));
+        assertEquals("user id=j d", HttpFixtures.body(router.handle(HttpFixtures.request("GET /users/j%20d HTTP/1.1\r\n\r\n"))));
+        assertEquals(StatusCode.NOT_FOUND, router.handle(HttpFixtures.request("GET /users/ HTTP/1.1\r\n\r\n")).getStatus());
+        assertEquals(StatusCode.NOT_FOUND, router.handle(HttpFixtures.request("GET /users/42/orders HTTP/1.1\r\n\r\n")).getStatus());
+    }
+
+    @Test
+    public void TestStaticPreferredAndBacktracking() throws IOException {
+        Router router = new Router();
+        router.add(Method.GET, "/users/new", echo("new"));
+        router.add(Method.GET, "/users/{id}", echo("user"));
+        router.add(Method.GET, "/users/{id}/profile", echo("profile"));
+        router.add(Method.GET, "/files/{*path}", echo("file"));
+
+        assertEquals("new", HttpFixtures.body(router.handle(HttpFixtures.request("GET /users/new HTTP/1.1\r\n\r\n"))));
+        assertEquals("user id=newest", HttpFixtures.body(router.handle(HttpFixtures.request("GET /users/newest HTTP/1.1\r\n\r\n"))));
+        assertEquals("profile id=new", HttpFixtures.body(router.handle(HttpFixtures.request("GET /users/new/profile HTTP/1.1\r\n\r\n"))));
+        assertEquals("file path=a/b/c.txt", HttpFixtures.body(router.handle(HttpFixtures.request("GET /files/a/b/c.txt HTTP/1.1\r\n\r\n"))));
+        assertEquals("file path=", HttpFixtures.body(router.handle(HttpFixtures.request("GET /files/ HTTP/1.1\r\n\r\n"))));
+    }
+
+    @Test
+    public void TestMethodNotAllowedAndFallback() throws IOException {
+        Router router = new Router(request -> Response.text(StatusCode.OK, "fallback"));
+        router.add(Method.GET, "/items/{id}", echo("get"));
+        router.add(Method.DELETE, "/items/{id}", echo("delete"));
+
+        assertEquals("delete id=3", HttpFixtures.body(router.handle(HttpFixtures.request("DELETE /items/3 HTTP/1.1\r\n\r\n"))));
+
+        Response post = router.handle(HttpFixtures.request("POST /items/3 HTTP/1.1\r\n\r\n"));
+        assertEquals(StatusCode.METHOD_NOT_ALLOWED, post.getStatus());
+        assertEquals("GET, DELETE", post.getHeader("Allow"));
+
+        assertEquals("fallback", HttpFixtures.body(router.handle(HttpFixtures.request("GET /other HTTP/1.1\r\n\r\n"))));
+    }
+
+    @Test
+    public void TestInvalidRoutesRejected() {
+        Router router = new Router();
+        router.add(Method.GET, "/users/{id}", echo("user"));
+
+        assertThrows(IllegalArgumentException.class, () -> router.add(Method.GET, "/users/{id}", echo("again")));
+        assertThrows(IllegalArgumentException.class, () -> router.add(Method.GET, "/users/{name}/posts", echo("posts")));
+        assertThrows(IllegalArgumentException.class, () -> router.add(Method.GET, "users", echo("relative")));
+        assertThrows(IllegalArgumentException.class, () -> router.add(Method.GET, "/files/{*path}/raw", echo("raw")));
+        assertThrows(IllegalArgumentException.class, () -> router.add(Method.GET, "/files/x{id}", echo("partial")));
+        assertThrows(IllegalArgumentException.class, () -> router.add(Method.GET, "/files/{id", echo("unclosed")));
+        assertThrows(IllegalArgumentException.class, () -> router.add(Method.GET, "/files/{}", echo("empty")));
+    }
+
+    @Test
+    public void TestReleasesRequestOnlyIfEveryHandlerDoes() throws IOException {
+        MetricsHandler metrics = new MetricsHandler(new MetricsRegistry());
+        Router router = new Router();
+        router.add(Method.GET, "/metrics", metrics);
+        assertTrue(router.releasesRequest());
+        assertEquals(StatusCode.OK, router.handle(HttpFixtures.request("GET /metrics HTTP/1.1\r\n\r\n")).getStatus());
+
+        router.add(Method.GET, "/users/{id}", echo("user"));
+        assertFalse(router.releasesRequest());
+
+        Router withFallback = new Router(request -> Response.text(StatusCode.OK, "fallback"));
+        withFallback.add(Method.GET, "/metrics", metrics);
+        assertFalse(withFallback.releasesRequest());
+        assertTrue(new Router(metrics).releasesRequest());
+    }
+
+    private static RouteHandler echo(String name) {
+        return (request, parameters) -> {
+            StringBuilder body = new StringBuilder(name);
+            for (int i = 0; i < parameters.size(); i++) {
+                body.append(' ').append(parameters.getName(i)).append('=').append(parameters.getValue(i));
+            }
+            return Response.text(StatusCode.OK, body.toString());
+        };
+    }
+}
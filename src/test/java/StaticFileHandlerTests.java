@@ -0,0 +1,103 @@
+import org.example.files.FileCache;
+import org.example.files.StaticFileHandler;
+import org.example.response.DateCache;
+import org.example.response.Response;
+import org.example.response.StatusCode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StaticFileHandlerTests {
+
+    @TempDir
+    Path root;
+
+    @Test
+    public void TestSmallFileServedFromCache() throws IOException {
+        Files.writeString(this.root.resolve("hello.txt"), "hello");
+        FileCache cache = new FileCache(1024);
+        StaticFileHandler handler = new StaticFileHandler(this.root, cache, 64);
+
+        Response first = handler.handle(HttpFixtures.request("GET /hello.txt HTTP/1.1\r\n\r\n"));
+        Response second = handler.handle(HttpFixtures.request("GET /hello.txt?v=2 HTTP/1.1\r\n\r\n"));
+
+        assertEquals(StatusCode.OK, first.getStatus());
+        assertEquals("text/plain; charset=utf-8", first.getHeader("Content-Type"));
+        assertEquals("hello", HttpFixtures.body(first));
+        assertEquals("hello", HttpFixtures.body(second));
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+        assertEquals(5, cache.getTotalBytes());
+    }
+
+    @Test
+    public void TestLargeFileSentAsFileRegion() throws IOException {
+        Path file = this.root.resolve("big.bin");
+        Files.write(file, new byte[1000]);
+        StaticFileHandler handler = new StaticFileHandler(this.root, new FileCache(1024), 64);
+
+        Response response = handler.handle(HttpFixtures.request("GET /big.bin HTTP/1.1\r\n\r\n"));
+
+        assertEquals(StatusCode.OK, response.getStatus());
+        assertNotNull(response.getFileBody());
+        assertEquals(file.toAbsolutePath().normalize(), response.getFileBody().path());
+        assertEquals(1000, response.getBodyLength());
+        assertEquals("application/octet-stream", response.getHeader("Content-Type"));
+    }
+
+    @Test
+    public void TestConditionalRequests() throws IOException {
+        Path file = this.root.resolve("page.html");
+        Files.writeString(file, "<p>hi</p>");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(1_700_000_000_000L));
+        StaticFileHandler handler = new StaticFileHandler(this.root);
+
+        Response full = handler.handle(HttpFixtures.request("GET /page.html HTTP/1.1\r\n\r\n"));
+        String etag = full.getHeader("ETag");
+        assertEquals(DateCache.format(1_700_000_000L), full.getHeader("Last-Modified"));
+
+        assertEquals(StatusCode.NOT_MODIFIED, handler.handle(HttpFixtures.request(
+                "GET /page.html HTTP/1.1\r\nIf-None-Match: \"other\", " + etag + "\r\n\r\n")).getStatus());
+        assertEquals(StatusCode.OK, handler.handle(HttpFixtures.request(
+                "GET /page.html HTTP/1.1\r\nIf-None-Match: \"other\"\r\n\r\n")).getStatus());
+        assertEquals(StatusCode.NOT_MODIFIED, handler.handle(HttpFixtures.request(
+                "GET /page.html HTTP/1.1\r\nIf-Modified-Since: " + DateCache.format(1_700_000_000L) + "\r\n\r\n")).getStatus());
+        assertEquals(StatusCode.OK, handler.handle(HttpFixtures.request(
+                "GET /page.html HTTP/1.1\r\nIf-Modified-Since: " + DateCache.format(1_600_000_000L) + "\r\n\r\n")).getStatus());
+        assertEquals(StatusCode.OK, handler.handle(HttpFixtures.request(
+                "GET /page.html HTTP/1.1\r\nIf-Modified-Since: yesterday\r\n\r\n")).getStatus());
+    }
+
+    @Test
+    public void TestDirectoryIndexAndEscapes() throws IOException {
+        Files.createDirectories(this.root.resolve("my docs"));
+        Files.writeString(this.root.resolve("my docs/index.html"), "index");
+        StaticFileHandler handler = new StaticFileHandler(this.root);
+
+        Response response = handler.handle(HttpFixtures.request("GET /my%20docs/ HTTP/1.1\r\n\r\n"));
+        assertEquals(StatusCode.OK, response.getStatus());
+        assertEquals("index", HttpFixtures.body(response));
+    }
+
+    @Test
+    public void TestMissingForbiddenAndUnsupported() throws IOException {
+        Files.writeString(this.root.resolve("a.txt"), "a");
+        StaticFileHandler handler = new StaticFileHandler(this.root.resolve("a.txt").getParent());
+
+        assertEquals(StatusCode.NOT_FOUND, handler.handle(HttpFixtures.request("GET /missing.txt HTTP/1.1\r\n\r\n")).getStatus());
+        assertEquals(StatusCode.NOT_FOUND, handler.handle(HttpFixtures.request("GET /../../etc/passwd HTTP/1.1\r\n\r\n")).getStatus());
+        assertEquals(StatusCode.NOT_FOUND, handler.handle(HttpFixtures.request("GET /%2e%2e/%2e%2e/etc/passwd HTTP/1.1\r\n\r\n")).getStatus());
+        assertEquals(StatusCode.NOT_FOUND, handler.handle(HttpFixtures.request("GET /a.txt%00.html HTTP/1.1\r\n\r\n")).getStatus());
+        assertEquals(StatusCode.NOT_FOUND, handler.handle(HttpFixtures.request("GET / HTTP/1.1\r\n\r\n")).getStatus());
+
+        Response post = handler.handle(HttpFixtures.request("POST /a.txt HTTP/1.1\r\n\r\n"));
+        assertEquals(StatusCode.METHOD_NOT_ALLOWED, post.getStatus());
+        assertEquals("GET, HEAD", post.getHeader("Allow"));
+    }
+}
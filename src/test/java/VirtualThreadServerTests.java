@@ -0,0 +1,213 @@
+import org.example.request.Request;
+import org.example.request.RequestLimits;
+import org.example.response.Response;
+import org.example.response.StatusCode;
+import org.example.server.BlockingServer;
+import org.example.server.RequestHandler;
+import org.example.server.Timeouts;
+import org.example.server.VirtualThreadServer;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VirtualThreadServerTests {
+
+    @Test
+    void TestSlowClientDoesNotBlockOthers() throws Exception {
+        BlockingQueue<Request> requests = new LinkedBlockingQueue<>();
+
+        try (VirtualThreadServer server = new VirtualThreadServer(0, 2, recordTo(requests))) {
+            new Thread(server).start();
+
+            try (Socket slow = new Socket("localhost", server.getPort());
+                 Socket fast = new Socket("localhost", server.getPort())) {
+                send(slow, "GET /slow HTTP/1.1\r\n");
+                send(fast, "GET /fast HTTP/1.1\r\nHost: localhost\r\n\r\n");
+
+                Request first = requests.poll(5, TimeUnit.SECONDS);
+                assertNotNull(first);
+                assertEquals("/fast", first.getRequestLine().requestTarget());
+
+                send(slow, "Host: localhost\r\n\r\n");
+                Request second = requests.poll(5, TimeUnit.SECONDS);
+                assertNotNull(second);
+                assertEquals("/slow", second.getRequestLine().requestTarget());
+            }
+        }
+    }
+
+    @Test
+    void TestConcurrencyCapQueuesConnections() throws Exception {
+        BlockingQueue<Request> requests = new LinkedBlockingQueue<>();
+
+        try (VirtualThreadServer server = new VirtualThreadServer(0, 1, recordTo(requests))) {
+            new Thread(server).start();
+
+            try (Socket slow = new Socket("localhost", server.getPort())) {
+                send(slow, "GET /slow HTTP/1.1\r\n");
+                Thread.sleep(100);
+
+                try (Socket queued = new Socket("localhost", server.getPort())) {
+                    send(queued, "GET /queued HTTP/1.1\r\nHost: localhost\r\n\r\n");
+                    assertNull(requests.poll(300, TimeUnit.MILLISECONDS));
+
+                    send(slow, "Host: localhost\r\nConnection: close\r\n\r\n");
+                    assertEquals("/slow", requests.poll(5, TimeUnit.SECONDS).getRequestLine().requestTarget());
+                    assertEquals("/queued", requests.poll(5, TimeUnit.SECONDS).getRequestLine().requestTarget());
+                }
+            }
+        }
+    }
+
+    @Test
+    void TestStalledClientTimesOutAndFreesItsPermit() throws Exception {
+        BlockingQueue<Request> requests = new LinkedBlockingQueue<>();
+        Timeouts timeouts = new Timeouts(Duration.ofSeconds(10), Duration.ofMillis(300), Duration.ofSeconds(10));
+
+        try (VirtualThreadServer server = new VirtualThreadServer(0, 1, recordTo(requests), timeouts)) {
+            new Thread(server).start();
+
+            try (Socket slow = new Socket("localhost", server.getPort());
+                 Socket queued = new Socket("localhost", server.getPort())) {
+                send(slow, "GET /slow HTTP/1.1\r\n");
+                send(queued, "GET /queued HTTP/1.1\r\nConnection: close\r\n\r\n");
+
+                assertEquals("/queued", requests.poll(5, TimeUnit.SECONDS).getRequestLine().requestTarget());
+                slow.setSoTimeout(5000);
+                assertEquals(-1, slow.getInputStream().read());
+            }
+        }
+    }
+
+    @Test
+    void TestHeaderTimeoutAppliesAfterIdling() throws Exception {
+        BlockingQueue<Request> requests = new LinkedBlockingQueue<>();
+        Timeouts timeouts = new Timeouts(Duration.ofSeconds(5), Duration.ofMillis(300), Duration.ofSeconds(10));
+
+        try (VirtualThreadServer server = new VirtualThreadServer(0, 1, recordTo(requests), timeouts)) {
+            new Thread(server).start();
+
+            try (Socket slow = new Socket("localhost", server.getPort())) {
+                slow.setSoTimeout(5000);
+                Thread.sleep(200);
+                long start = System.nanoTime();
+                send(slow, "GET /slow HTTP/1.1\r\n");
+
+                slow.getInputStream().readAllBytes();
+                long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                assertTrue(elapsedMillis >= 250 && elapsedMillis < 2000, "closed after " + elapsedMillis + "ms");
+                assertTrue(requests.isEmpty());
+            }
+        }
+    }
+
+    @Test
+    void TestFailedBindReleasesTheChannel() throws Exception {
+        assertTrue(ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.UnixOperatingSystemMXBean);
+        com.sun.management.UnixOperatingSystemMXBean os =
+                (com.sun.management.UnixOperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+        RequestHandler handler = request -> new Response(StatusCode.OK);
+
+        try (ServerSocket taken = new ServerSocket(0)) {
+            long before = os.getOpenFileDescriptorCount();
+            for (int i = 0; i < 20; i++) {
+                assertThrows(IOException.class, () -> new VirtualThreadServer(taken.getLocalPort(), 1, handler));
+                assertThrows(IOException.class, () -> new BlockingServer(taken.getLocalPort(), handler));
+            }
+            long leaked = os.getOpenFileDescriptorCount() - before;
+            assertTrue(leaked < 8, "leaked " + leaked + " file descriptors");
+        }
+    }
+
+    @Test
+    void TestInvalidConcurrencyCap() {
+        assertThrows(IllegalArgumentException.class, () -> new VirtualThreadServer(0, 0, request -> new Response(StatusCode.OK)));
+    }
+
+    @Test
+    void TestResponsesWrittenInOrder() throws Exception {
+        RequestHandler handler = request -> Response.text(StatusCode.OK, request.getRequestLine().requestTarget());
+
+        try (VirtualThreadServer server = new VirtualThreadServer(0, 2, handler)) {
+            new Thread(server).start();
+
+            try (Socket client = new Socket("localhost", server.getPort())) {
+                send(client, "GET /one HTTP/1.1\r\n\r\nHEAD /two HTTP/1.1\r\n\r\nGET /three HTTP/1.1\r\nConnection: close\r\n\r\n");
+                client.setSoTimeout(5000);
+                String responses = new String(client.getInputStream().readAllBytes(), StandardCharsets.US_ASCII);
+
+                String[] parts = responses.split("HTTP/1.1 200 OK\r\n");
+                assertEquals(4, parts.length);
+                assertTrue(parts[1].endsWith("\r\n\r\n/one"));
+                assertTrue(parts[2].contains("Content-Length: 4\r\n"));
+                assertTrue(parts[2].endsWith("\r\n\r\n"));
+                assertTrue(parts[3].contains("Connection: close\r\n"));
+                assertTrue(parts[3].endsWith("\r\n\r\n/three"));
+            }
+        }
+    }
+
+    @Test
+    void TestTooManyHeadersAnsweredWith431() throws Exception {
+        BlockingQueue<Request> requests = new LinkedBlockingQueue<>();
+        RequestLimits limits = new RequestLimits(8192, 8192, 3, 1024);
+
+        try (VirtualThreadServer server = new VirtualThreadServer(0, 2, recordTo(requests), Timeouts.getDefault(), limits)) {
+            new Thread(server).start();
+
+            try (Socket client = new Socket("localhost", server.getPort())) {
+                client.setSoTimeout(5000);
+                send(client, "GET / HTTP/1.1\r\nA: 1\r\nB: 2\r\nC: 3\r\nD: 4\r\n\r\n");
+
+                String response = new String(client.getInputStream().readAllBytes(), StandardCharsets.ISO_8859_1);
+                assertTrue(response.startsWith("HTTP/1.1 431 Request Header Fields Too Large\r\n"), response);
+                assertTrue(response.contains("Connection: close\r\n"));
+                assertTrue(requests.isEmpty());
+            }
+        }
+    }
+
+    @Test
+    void TestMalformedRequestAnsweredWith400() throws Exception {
+        BlockingQueue<Request> requests = new LinkedBlockingQueue<>();
+
+        try (VirtualThreadServer server = new VirtualThreadServer(0, 2, recordTo(requests), Timeouts.getDefault(),
+                RequestLimits.getDefault())) {
+            new Thread(server).start();
+
+            try (Socket client = new Socket("localhost", server.getPort())) {
+                client.setSoTimeout(5000);
+                send(client, "POST / HTTP/1.1\r\nContent-Length: 1x\r\n\r\n");
+
+                String response = new String(client.getInputStream().readAllBytes(), StandardCharsets.ISO_8859_1);
+                assertTrue(response.startsWith("HTTP/1.1 400 Bad Request\r\n"), response);
+                assertTrue(response.contains("Connection: close\r\n"));
+                assertTrue(requests.isEmpty());
+            }
+        }
+    }
+
+    private static RequestHandler recordTo(BlockingQueue<Request> requests) {
+        return request -> {
+            requests.add(request);
+            return new Response(StatusCode.NO_CONTENT);
+        };
+    }
+
+    private static void send(Socket socket, String data) throws IOException {
+        OutputStream out = socket.getOutputStream();
+        out.write(data.getBytes());
+        out.flush();
+    }
+}